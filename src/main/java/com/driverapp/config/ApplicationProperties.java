@@ -2,6 +2,11 @@ package com.driverapp.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Properties specific to Driver App.
  * <p>
@@ -11,4 +16,1100 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final LiveIndex liveIndex = new LiveIndex();
+
+    private final LocationPings locationPings = new LocationPings();
+
+    private final LocationHistory locationHistory = new LocationHistory();
+
+    private final SearchIndexer searchIndexer = new SearchIndexer();
+
+    private final SearchChangeStream searchChangeStream = new SearchChangeStream();
+
+    private final SearchReindex searchReindex = new SearchReindex();
+
+    private final SearchTransport searchTransport = new SearchTransport();
+
+    private final Suggest suggest = new Suggest();
+
+    private final SearchCache searchCache = new SearchCache();
+
+    private final SearchFacets searchFacets = new SearchFacets();
+
+    private final SearchTemplates searchTemplates = new SearchTemplates();
+
+    private final SearchLucene searchLucene = new SearchLucene();
+
+    private final EntityCache entityCache = new EntityCache();
+
+    private final OneTimeCode oneTimeCode = new OneTimeCode();
+
+    private final Sms sms = new Sms();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final JwtCache jwtCache = new JwtCache();
+
+    private final TokenRevocation tokenRevocation = new TokenRevocation();
+
+    public LiveIndex getLiveIndex() {
+        return liveIndex;
+    }
+
+    public LocationPings getLocationPings() {
+        return locationPings;
+    }
+
+    public LocationHistory getLocationHistory() {
+        return locationHistory;
+    }
+
+    public SearchIndexer getSearchIndexer() {
+        return searchIndexer;
+    }
+
+    public SearchChangeStream getSearchChangeStream() {
+        return searchChangeStream;
+    }
+
+    public SearchReindex getSearchReindex() {
+        return searchReindex;
+    }
+
+    public SearchTransport getSearchTransport() {
+        return searchTransport;
+    }
+
+    public Suggest getSuggest() {
+        return suggest;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public SearchFacets getSearchFacets() {
+        return searchFacets;
+    }
+
+    public SearchTemplates getSearchTemplates() {
+        return searchTemplates;
+    }
+
+    public SearchLucene getSearchLucene() {
+        return searchLucene;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    public OneTimeCode getOneTimeCode() {
+        return oneTimeCode;
+    }
+
+    public Sms getSms() {
+        return sms;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public JwtCache getJwtCache() {
+        return jwtCache;
+    }
+
+    public TokenRevocation getTokenRevocation() {
+        return tokenRevocation;
+    }
+
+    public static class LiveIndex {
+
+        private double cellSize = 0.01;
+
+        private int initialCapacity = 100000;
+
+        private double maxRadius = 100;
+
+        private int maxResults = 100;
+
+        public double getCellSize() {
+            return cellSize;
+        }
+
+        public void setCellSize(double cellSize) {
+            this.cellSize = cellSize;
+        }
+
+        public int getInitialCapacity() {
+            return initialCapacity;
+        }
+
+        public void setInitialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+        }
+
+        public double getMaxRadius() {
+            return maxRadius;
+        }
+
+        public void setMaxRadius(double maxRadius) {
+            this.maxRadius = maxRadius;
+        }
+
+        public int getMaxResults() {
+            return maxResults;
+        }
+
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+    }
+
+    public static class LocationPings {
+
+        private int bufferSize = 65536;
+
+        private int flushSize = 2000;
+
+        private long flushInterval = 1000;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    public static class LocationHistory {
+
+        private String directory = "data/location-history";
+
+        private long segmentDuration = 600;
+
+        private int retentionDays = 90;
+
+        private int bufferSize = 262144;
+
+        private long flushInterval = 5000;
+
+        private int maxOpenSegments = 64;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getSegmentDuration() {
+            return segmentDuration;
+        }
+
+        public void setSegmentDuration(long segmentDuration) {
+            this.segmentDuration = segmentDuration;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMaxOpenSegments() {
+            return maxOpenSegments;
+        }
+
+        public void setMaxOpenSegments(int maxOpenSegments) {
+            this.maxOpenSegments = maxOpenSegments;
+        }
+    }
+
+    public static class SearchIndexer {
+
+        private boolean enabled = true;
+
+        private int batchSize = 500;
+
+        private long pollInterval = 1000;
+
+        private long initialBackoff = 1000;
+
+        private long maxBackoff = 300000;
+
+        private int maxAttempts = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(long pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public long getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+    }
+
+    public static class SearchChangeStream {
+
+        private boolean enabled = true;
+
+        private int batchSize = 500;
+
+        private long maxAwaitTime = 1000;
+
+        private long retryInterval = 5000;
+
+        private long leaseDuration = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getMaxAwaitTime() {
+            return maxAwaitTime;
+        }
+
+        public void setMaxAwaitTime(long maxAwaitTime) {
+            this.maxAwaitTime = maxAwaitTime;
+        }
+
+        public long getRetryInterval() {
+            return retryInterval;
+        }
+
+        public void setRetryInterval(long retryInterval) {
+            this.retryInterval = retryInterval;
+        }
+
+        public long getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        public void setLeaseDuration(long leaseDuration) {
+            this.leaseDuration = leaseDuration;
+        }
+    }
+
+    public static class SearchReindex {
+
+        private int parallelism = 4;
+
+        private int partitions = 16;
+
+        private int batchSize = 1000;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(int partitions) {
+            this.partitions = partitions;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class SearchTransport {
+
+        private boolean enabled = true;
+
+        private int maxConnections = 50;
+
+        private int maxConnectionsPerRoute = 20;
+
+        private boolean requestCompression = true;
+
+        private int connectTimeout = 1000;
+
+        private int connectionRequestTimeout = 500;
+
+        private long idleTimeout = 30000;
+
+        private int searchTimeout = 5000;
+
+        private int documentTimeout = 5000;
+
+        private int bulkTimeout = 60000;
+
+        private int adminTimeout = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public boolean isRequestCompression() {
+            return requestCompression;
+        }
+
+        public void setRequestCompression(boolean requestCompression) {
+            this.requestCompression = requestCompression;
+        }
+
+        public int getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public int getConnectionRequestTimeout() {
+            return connectionRequestTimeout;
+        }
+
+        public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+        }
+
+        public long getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getSearchTimeout() {
+            return searchTimeout;
+        }
+
+        public void setSearchTimeout(int searchTimeout) {
+            this.searchTimeout = searchTimeout;
+        }
+
+        public int getDocumentTimeout() {
+            return documentTimeout;
+        }
+
+        public void setDocumentTimeout(int documentTimeout) {
+            this.documentTimeout = documentTimeout;
+        }
+
+        public int getBulkTimeout() {
+            return bulkTimeout;
+        }
+
+        public void setBulkTimeout(int bulkTimeout) {
+            this.bulkTimeout = bulkTimeout;
+        }
+
+        public int getAdminTimeout() {
+            return adminTimeout;
+        }
+
+        public void setAdminTimeout(int adminTimeout) {
+            this.adminTimeout = adminTimeout;
+        }
+    }
+
+    public static class Suggest {
+
+        private int maxSize = 20;
+
+        private long cacheMaxEntries = 10000;
+
+        private long cacheTtl = 60000;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getCacheMaxEntries() {
+            return cacheMaxEntries;
+        }
+
+        public void setCacheMaxEntries(long cacheMaxEntries) {
+            this.cacheMaxEntries = cacheMaxEntries;
+        }
+
+        public long getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(long cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+    }
+
+    public static class SearchCache {
+
+        private boolean enabled = true;
+
+        private long maxHits = 100000;
+
+        private long ttl = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxHits() {
+            return maxHits;
+        }
+
+        public void setMaxHits(long maxHits) {
+            this.maxHits = maxHits;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class SearchFacets {
+
+        private int maxValues = 50;
+
+        private long cacheMaxEntries = 1000;
+
+        private long cacheTtl = 10000;
+
+        public int getMaxValues() {
+            return maxValues;
+        }
+
+        public void setMaxValues(int maxValues) {
+            this.maxValues = maxValues;
+        }
+
+        public long getCacheMaxEntries() {
+            return cacheMaxEntries;
+        }
+
+        public void setCacheMaxEntries(long cacheMaxEntries) {
+            this.cacheMaxEntries = cacheMaxEntries;
+        }
+
+        public long getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(long cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+    }
+
+    public static class SearchTemplates {
+
+        private boolean enabled = true;
+
+        private boolean rebuildOutdated = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isRebuildOutdated() {
+            return rebuildOutdated;
+        }
+
+        public void setRebuildOutdated(boolean rebuildOutdated) {
+            this.rebuildOutdated = rebuildOutdated;
+        }
+    }
+
+    public static class SearchLucene {
+
+        private String directory = "lucene";
+
+        private double ramBufferSize = 16;
+
+        private long commitInterval = 5000;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public double getRamBufferSize() {
+            return ramBufferSize;
+        }
+
+        public void setRamBufferSize(double ramBufferSize) {
+            this.ramBufferSize = ramBufferSize;
+        }
+
+        public long getCommitInterval() {
+            return commitInterval;
+        }
+
+        public void setCommitInterval(long commitInterval) {
+            this.commitInterval = commitInterval;
+        }
+    }
+
+    public static class EntityCache {
+
+        private long maxEntries = 10000;
+
+        private long driverMaxEntries = 50000;
+
+        private long ttl = 600000;
+
+        private boolean broadcastEvictions = true;
+
+        private long evictionLogSize = 1048576;
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getDriverMaxEntries() {
+            return driverMaxEntries;
+        }
+
+        public void setDriverMaxEntries(long driverMaxEntries) {
+            this.driverMaxEntries = driverMaxEntries;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+
+        public boolean isBroadcastEvictions() {
+            return broadcastEvictions;
+        }
+
+        public void setBroadcastEvictions(boolean broadcastEvictions) {
+            this.broadcastEvictions = broadcastEvictions;
+        }
+
+        public long getEvictionLogSize() {
+            return evictionLogSize;
+        }
+
+        public void setEvictionLogSize(long evictionLogSize) {
+            this.evictionLogSize = evictionLogSize;
+        }
+    }
+
+    public static class OneTimeCode {
+
+        private long ttl = 1800;
+
+        private int maxAttempts = 5;
+
+        private String message = "Your Driver App verification code is %s";
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    public static class Sms {
+
+        private String provider = "file";
+
+        private String accessKey;
+
+        private String originator;
+
+        private String file = "data/sms.log";
+
+        private int queueSize = 10000;
+
+        private int batchSize = 50;
+
+        private long flushInterval = 100;
+
+        private int maxAttempts = 5;
+
+        private long initialBackoff = 1000;
+
+        private long maxBackoff = 60000;
+
+        public String getProvider() {
+            return provider;
+        }
+
+        public void setProvider(String provider) {
+            this.provider = provider;
+        }
+
+        public String getAccessKey() {
+            return accessKey;
+        }
+
+        public void setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+        }
+
+        public String getOriginator() {
+            return originator;
+        }
+
+        public void setOriginator(String originator) {
+            this.originator = originator;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        private int stripes = 64;
+
+        private long sweepInterval = 60000;
+
+        private String trustedProxies = "10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|192\\.168\\.\\d{1,3}\\.\\d{1,3}|"
+            + "172\\.(1[6-9]|2[0-9]|3[0-1])\\.\\d{1,3}\\.\\d{1,3}|127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|0:0:0:0:0:0:0:1|::1";
+
+        private int maxBodySize = 4096;
+
+        private final Map<String, RateLimitEndpoint> endpoints = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public long getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(long sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+
+        public String getTrustedProxies() {
+            return trustedProxies;
+        }
+
+        public void setTrustedProxies(String trustedProxies) {
+            this.trustedProxies = trustedProxies;
+        }
+
+        public int getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        public Map<String, RateLimitEndpoint> getEndpoints() {
+            return endpoints;
+        }
+    }
+
+    public static class RateLimitEndpoint {
+
+        private String path;
+
+        private String keyField;
+
+        private int keyCapacity = 5;
+
+        private long keyPeriod = 600;
+
+        private int ipCapacity = 50;
+
+        private long ipPeriod = 600;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getKeyField() {
+            return keyField;
+        }
+
+        public void setKeyField(String keyField) {
+            this.keyField = keyField;
+        }
+
+        public int getKeyCapacity() {
+            return keyCapacity;
+        }
+
+        public void setKeyCapacity(int keyCapacity) {
+            this.keyCapacity = keyCapacity;
+        }
+
+        public long getKeyPeriod() {
+            return keyPeriod;
+        }
+
+        public void setKeyPeriod(long keyPeriod) {
+            this.keyPeriod = keyPeriod;
+        }
+
+        public int getIpCapacity() {
+            return ipCapacity;
+        }
+
+        public void setIpCapacity(int ipCapacity) {
+            this.ipCapacity = ipCapacity;
+        }
+
+        public long getIpPeriod() {
+            return ipPeriod;
+        }
+
+        public void setIpPeriod(long ipPeriod) {
+            this.ipPeriod = ipPeriod;
+        }
+    }
+
+    public static class Idempotency {
+
+        private boolean enabled = true;
+
+        private final List<String> paths = new ArrayList<>();
+
+        private long ttl = 86400;
+
+        private long pendingTtl = 60;
+
+        private long maxEntries = 10000;
+
+        private long waitTimeout = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getPendingTtl() {
+            return pendingTtl;
+        }
+
+        public void setPendingTtl(long pendingTtl) {
+            this.pendingTtl = pendingTtl;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(long waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+    }
+
+    public static class JwtCache {
+
+        private long maxEntries = 100000;
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class TokenRevocation {
+
+        private long expectedRevocations = 100000;
+
+        private double falsePositiveProbability = 0.001;
+
+        private long pollInterval = 5000;
+
+        private long rebuildInterval = 3600000;
+
+        public long getExpectedRevocations() {
+            return expectedRevocations;
+        }
+
+        public void setExpectedRevocations(long expectedRevocations) {
+            this.expectedRevocations = expectedRevocations;
+        }
+
+        public double getFalsePositiveProbability() {
+            return falsePositiveProbability;
+        }
+
+        public void setFalsePositiveProbability(double falsePositiveProbability) {
+            this.falsePositiveProbability = falsePositiveProbability;
+        }
+
+        public long getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(long pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public long getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(long rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
 }
@@ -1,9 +1,84 @@
 package com.driverapp.config;
 
+import com.driverapp.repository.BusinessRepository;
+import com.driverapp.repository.DriverRepository;
+import com.driverapp.repository.InsuranceRepository;
+import com.driverapp.repository.LocationRepository;
+import com.driverapp.repository.ServicesRepository;
+import com.driverapp.repository.VehicleRepository;
+import com.driverapp.service.cache.CacheEvictionBroadcaster;
+import com.driverapp.service.cache.TwoTierCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches of the entities read by id.
+ * <p>
+ * Each cache keeps at most {@code application.entity-cache.max-entries} entities in memory
+ * ({@code application.entity-cache.driver-max-entries} for the driver graphs, which most reads are for), for at
+ * most {@code application.entity-cache.ttl} milliseconds. A {@link CacheManager} bean named
+ * {@value #ENTITY_CACHE_L2}, such as a Redis or Hazelcast one, adds a second tier shared by all the nodes.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
+
+    /**
+     * Name of the optional {@link CacheManager} bean of the shared second tier.
+     */
+    public static final String ENTITY_CACHE_L2 = "entityCacheL2";
+
+    private final ApplicationProperties.EntityCache properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final CacheEvictionBroadcaster broadcaster;
+
+    public CacheConfiguration(ApplicationProperties applicationProperties, MeterRegistry meterRegistry,
+                              CacheEvictionBroadcaster broadcaster) {
+        this.properties = applicationProperties.getEntityCache();
+        this.meterRegistry = meterRegistry;
+        this.broadcaster = broadcaster;
+    }
+
+    @Bean
+    @Primary
+    public CacheManager cacheManager(@Qualifier(ENTITY_CACHE_L2) ObjectProvider<CacheManager> sharedCacheManager) {
+        CacheManager shared = sharedCacheManager.getIfAvailable();
+        List<Cache> caches = new ArrayList<>();
+        caches.add(createCache(DriverRepository.DRIVERS_BY_ID_CACHE, properties.getDriverMaxEntries(), shared));
+        caches.add(createCache(VehicleRepository.VEHICLES_BY_ID_CACHE, properties.getMaxEntries(), shared));
+        caches.add(createCache(InsuranceRepository.INSURANCES_BY_ID_CACHE, properties.getMaxEntries(), shared));
+        caches.add(createCache(LocationRepository.LOCATIONS_BY_ID_CACHE, properties.getMaxEntries(), shared));
+        caches.add(createCache(BusinessRepository.BUSINESSES_BY_ID_CACHE, properties.getMaxEntries(), shared));
+        caches.add(createCache(ServicesRepository.SERVICES_BY_ID_CACHE, properties.getMaxEntries(), shared));
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
+        return cacheManager;
+    }
+
+    private TwoTierCache createCache(String name, long maxEntries, CacheManager shared) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(properties.getTtl(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name);
+        TwoTierCache cache = new TwoTierCache(name, local, shared == null ? null : shared.getCache(name), broadcaster, meterRegistry);
+        broadcaster.register(cache);
+        return cache;
+    }
 }
@@ -1,5 +1,6 @@
 package com.driverapp.config;
 
+import com.driverapp.repository.KeysetMongoRepository;
 import com.github.mongobee.Mongobee;
 
 import io.github.jhipster.config.JHipsterConstants;
@@ -26,7 +27,7 @@ import java.util.List;
 
 
 @Configuration
-@EnableMongoRepositories("com.driverapp.repository")
+@EnableMongoRepositories(basePackages = "com.driverapp.repository", repositoryBaseClass = KeysetMongoRepository.class)
 @Profile(JHipsterConstants.SPRING_PROFILE_CLOUD)
 public class CloudDatabaseConfiguration extends AbstractCloudConfig {
 
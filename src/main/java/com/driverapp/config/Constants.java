@@ -7,6 +7,11 @@ public final class Constants {
 
     public static final String SYSTEM_ACCOUNT = "system";
 
+    /**
+     * Profile replacing Elasticsearch by an embedded Lucene index on local disk.
+     */
+    public static final String SPRING_PROFILE_LUCENE = "lucene";
+
     private Constants() {
     }
 }
@@ -1,8 +1,11 @@
 package com.driverapp.config;
 
 import io.github.jhipster.config.JHipsterConstants;
+import com.driverapp.repository.KeysetMongoRepository;
+import com.driverapp.repository.search.SearchAfterRepositoryFactoryBean;
 import com.github.mongobee.Mongobee;
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
 import io.github.jhipster.domain.util.JSR310DateConverters.DateToZonedDateTimeConverter;
 import io.github.jhipster.domain.util.JSR310DateConverters.ZonedDateTimeToDateConverter;
 import org.slf4j.Logger;
@@ -29,8 +32,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Configuration
-@EnableElasticsearchRepositories("com.driverapp.repository.search")
-@EnableMongoRepositories(basePackages = "com.driverapp.repository", includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, value = MongoRepository.class))
+@EnableElasticsearchRepositories(basePackages = "com.driverapp.repository.search", repositoryFactoryBeanClass = SearchAfterRepositoryFactoryBean.class)
+@EnableMongoRepositories(basePackages = "com.driverapp.repository", includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, value = MongoRepository.class),
+    repositoryBaseClass = KeysetMongoRepository.class)
 @Profile("!" + JHipsterConstants.SPRING_PROFILE_CLOUD)
 @Import(value = MongoAutoConfiguration.class)
 @EnableMongoAuditing(auditorAwareRef = "springSecurityAuditorAware")
@@ -48,6 +52,13 @@ public class DatabaseConfiguration {
         return new LocalValidatorFactoryBean();
     }
 
+    @Bean
+    public MongoClientOptions mongoClientOptions() {
+        return MongoClientOptions.builder()
+            .addCommandListener(new MongoRoundTripListener())
+            .build();
+    }
+
     @Bean
     public MongoCustomConversions customConversions() {
         List<Converter<?, ?>> converters = new ArrayList<>();
@@ -0,0 +1,51 @@
+package com.driverapp.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+/**
+ * Mongo command listener counting the round trips made by the current thread.
+ * <p>
+ * The synchronous driver notifies the listener on the thread issuing the command, so a count started on a
+ * request thread holds the round trips of that request.
+ */
+public class MongoRoundTripListener implements CommandListener {
+
+    private static final ThreadLocal<int[]> ROUND_TRIPS = new ThreadLocal<>();
+
+    /**
+     * Start counting the round trips of the current thread.
+     */
+    public static void start() {
+        ROUND_TRIPS.set(new int[1]);
+    }
+
+    /**
+     * Stop counting the round trips of the current thread.
+     *
+     * @return the number of round trips since {@link #start()}, or {@code -1} if the count was not started.
+     */
+    public static int stop() {
+        int[] roundTrips = ROUND_TRIPS.get();
+        ROUND_TRIPS.remove();
+        return roundTrips == null ? -1 : roundTrips[0];
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        int[] roundTrips = ROUND_TRIPS.get();
+        if (roundTrips != null) {
+            roundTrips[0]++;
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+    }
+}
@@ -0,0 +1,206 @@
+package com.driverapp.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.client.JestResultHandler;
+import io.searchbox.client.http.JestHttpClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.Count;
+import io.searchbox.core.Delete;
+import io.searchbox.core.Get;
+import io.searchbox.core.Index;
+import io.searchbox.core.MultiGet;
+import io.searchbox.core.MultiSearch;
+import io.searchbox.core.Search;
+import io.searchbox.core.SearchScroll;
+import io.searchbox.core.Update;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Jest client sending the requests of a {@link JestHttpClient} through a pooled HTTP client, with gzip request
+ * bodies and a socket timeout per operation.
+ * <p>
+ * The pool is sized by {@code application.search-transport.max-connections}, and its connections idle for
+ * {@code application.search-transport.idle-timeout} milliseconds are closed. The latency of each request is timed
+ * by operation and result, and the usage of the pool is published as gauges.
+ * <p>
+ * The transport is blocking: the search repositories, the Elasticsearch template and the indexers all call
+ * {@link #execute}, and wait for Elasticsearch for at most the socket timeout of the operation. The non-blocking
+ * client of the Jest client is closed, and {@link #executeAsync} is not supported.
+ */
+public class SearchTransportClient implements JestClient {
+
+    /**
+     * The operations of the search transport, each with its own socket timeout.
+     */
+    public enum Operation {
+        SEARCH, DOCUMENT, BULK, ADMIN
+    }
+
+    private final Logger log = LoggerFactory.getLogger(SearchTransportClient.class);
+
+    private final JestHttpClient delegate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Operation, RequestConfig> requestConfigs = new EnumMap<>(Operation.class);
+
+    private final ScheduledExecutorService reaper;
+
+    public SearchTransportClient(JestHttpClient delegate, ApplicationProperties.SearchTransport properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        requestConfigs.put(Operation.SEARCH, requestConfig(properties, properties.getSearchTimeout()));
+        requestConfigs.put(Operation.DOCUMENT, requestConfig(properties, properties.getDocumentTimeout()));
+        requestConfigs.put(Operation.BULK, requestConfig(properties, properties.getBulkTimeout()));
+        requestConfigs.put(Operation.ADMIN, requestConfig(properties, properties.getAdminTimeout()));
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfigs.get(Operation.ADMIN))
+            .build();
+
+        closeQuietly(delegate.getHttpClient());
+        closeQuietly(delegate.getAsyncClient());
+        delegate.setHttpClient(httpClient);
+        delegate.setRequestCompressionEnabled(properties.isRequestCompression());
+
+        registerPoolGauges(connectionManager);
+
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-transport-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long idleTimeout = properties.getIdleTimeout();
+        reaper.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <T extends JestResult> T execute(Action<T> action) throws IOException {
+        Operation operation = operation(action);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "error";
+        try {
+            T response = delegate.execute(action, requestConfigs.get(operation));
+            result = response.isSucceeded() ? "success" : "failure";
+            return response;
+        } finally {
+            sample.stop(timer(operation, result));
+        }
+    }
+
+    @Override
+    public <T extends JestResult> void executeAsync(Action<T> action, JestResultHandler<? super T> handler) {
+        throw new UnsupportedOperationException("The search transport is blocking, use execute");
+    }
+
+    @Override
+    public void setServers(Set<String> servers) {
+        delegate.setServers(servers);
+    }
+
+    @Override
+    @Deprecated
+    public void shutdownClient() {
+        try {
+            close();
+        } catch (IOException e) {
+            log.warn("Failed to close the search transport: {}", e.toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reaper.shutdownNow();
+        delegate.close();
+    }
+
+    /**
+     * The operation of an action, which sets its socket timeout.
+     */
+    static Operation operation(Action<?> action) {
+        if (action instanceof Search || action instanceof SearchScroll || action instanceof MultiSearch || action instanceof Count) {
+            return Operation.SEARCH;
+        }
+        if (action instanceof Index || action instanceof Get || action instanceof Delete || action instanceof Update
+            || action instanceof MultiGet) {
+            return Operation.DOCUMENT;
+        }
+        if (action instanceof Bulk) {
+            return Operation.BULK;
+        }
+        return Operation.ADMIN;
+    }
+
+    RequestConfig getRequestConfig(Operation operation) {
+        return requestConfigs.get(operation);
+    }
+
+    private static RequestConfig requestConfig(ApplicationProperties.SearchTransport properties, int socketTimeout) {
+        return RequestConfig.custom()
+            .setConnectTimeout(properties.getConnectTimeout())
+            .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+            .setSocketTimeout(socketTimeout)
+            .build();
+    }
+
+    private Timer timer(Operation operation, String result) {
+        return Timer.builder("driverapp.search.transport.requests")
+            .description("Latency of the requests to Elasticsearch")
+            .tag("operation", operation.name().toLowerCase())
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private void registerPoolGauges(PoolingHttpClientConnectionManager pool) {
+        registerPoolGauge(pool, "leased", PoolStats::getLeased);
+        registerPoolGauge(pool, "available", PoolStats::getAvailable);
+        registerPoolGauge(pool, "pending", PoolStats::getPending);
+        registerPoolGauge(pool, "max", PoolStats::getMax);
+    }
+
+    private void registerPoolGauge(PoolingHttpClientConnectionManager pool, String state, ToIntFunction<PoolStats> value) {
+        Gauge.builder("driverapp.search.transport.connections", pool, p -> value.applyAsInt(p.getTotalStats()))
+            .description("Connections of the pool of the Elasticsearch transport")
+            .tag("state", state)
+            .register(meterRegistry);
+    }
+
+    private void closeQuietly(Closeable client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the default search HTTP client: {}", e.toString());
+        }
+    }
+}
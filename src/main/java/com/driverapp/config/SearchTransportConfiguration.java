@@ -0,0 +1,41 @@
+package com.driverapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.searchbox.client.http.JestHttpClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the transport of the search requests.
+ * <p>
+ * The Jest client created by the Spring Data Jest auto-configuration is wrapped in a {@link SearchTransportClient},
+ * so that the search repositories, the {@code JestElasticsearchTemplate} and the indexing services all share its
+ * pools. Setting {@code application.search-transport.enabled} to {@code false} keeps the default Jest client.
+ */
+@Configuration
+public class SearchTransportConfiguration {
+
+    /**
+     * Declared static, as a post-processor, and resolving its dependencies lazily, so that they are still
+     * post-processed themselves.
+     */
+    @Bean
+    public static BeanPostProcessor searchTransportPostProcessor(ObjectProvider<ApplicationProperties> applicationProperties,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof JestHttpClient)) {
+                    return bean;
+                }
+                ApplicationProperties.SearchTransport properties = applicationProperties.getObject().getSearchTransport();
+                if (!properties.isEnabled()) {
+                    return bean;
+                }
+                return new SearchTransportClient((JestHttpClient) bean, properties, meterRegistry.getObject());
+            }
+        };
+    }
+}
@@ -2,7 +2,12 @@ package com.driverapp.config;
 
 import com.driverapp.security.*;
 import com.driverapp.security.jwt.*;
+import com.driverapp.service.IdempotencyService;
+import com.driverapp.web.filter.IdempotencyFilter;
+import com.driverapp.web.filter.RateLimitFilter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -13,6 +18,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.web.filter.CorsFilter;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
@@ -22,15 +28,29 @@ import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 @Import(SecurityProblemSupport.class)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
-    private final TokenProvider tokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
-    public SecurityConfiguration(TokenProvider tokenProvider, CorsFilter corsFilter, SecurityProblemSupport problemSupport) {
-        this.tokenProvider = tokenProvider;
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final IdempotencyService idempotencyService;
+
+    public SecurityConfiguration(VerifiedTokenCache verifiedTokenCache, CorsFilter corsFilter, SecurityProblemSupport problemSupport,
+                                 ApplicationProperties applicationProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 IdempotencyService idempotencyService) {
+        this.verifiedTokenCache = verifiedTokenCache;
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
+        this.applicationProperties = applicationProperties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.idempotencyService = idempotencyService;
     }
 
     @Override
@@ -75,9 +95,18 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         .and()
             .apply(securityConfigurerAdapter());
         // @formatter:on
+        if (applicationProperties.getRateLimit().isEnabled()) {
+            // After the CORS filter, so that browsers can read the Retry-After header of rejected requests
+            http.addFilterAfter(new RateLimitFilter(applicationProperties, objectMapper, meterRegistry), CorsFilter.class);
+        }
+        if (applicationProperties.getIdempotency().isEnabled()) {
+            // Last, so that the keys are scoped by the authenticated user, and only authorized requests are stored
+            http.addFilterAfter(new IdempotencyFilter(applicationProperties.getIdempotency().getPaths(), idempotencyService,
+                objectMapper), FilterSecurityInterceptor.class);
+        }
     }
 
     private JWTConfigurer securityConfigurerAdapter() {
-        return new JWTConfigurer(tokenProvider);
+        return new JWTConfigurer(verifiedTokenCache);
     }
 }
@@ -0,0 +1,36 @@
+package com.driverapp.config;
+
+import com.driverapp.integration.FileSmsProvider;
+import com.driverapp.integration.MessageBirdSmsProvider;
+import com.driverapp.integration.SmsProvider;
+
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Paths;
+
+/**
+ * Configuration of the {@link SmsProvider} selected by {@code application.sms.provider}: {@code messagebird}, or
+ * {@code file} to write the messages to {@code application.sms.file} instead of sending them.
+ */
+@Configuration
+public class SmsConfiguration {
+
+    @Bean
+    public SmsProvider smsProvider(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Sms properties = applicationProperties.getSms();
+        switch (properties.getProvider()) {
+            case "messagebird":
+                if (!StringUtils.hasText(properties.getAccessKey())) {
+                    throw new BeanInitializationException("application.sms.access-key is required by the messagebird SMS provider");
+                }
+                return new MessageBirdSmsProvider(properties.getAccessKey());
+            case "file":
+                return new FileSmsProvider(Paths.get(properties.getFile()));
+            default:
+                throw new BeanInitializationException("Unknown SMS provider: " + properties.getProvider());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.driverapp.config.dbmigrations;
+
+import com.driverapp.domain.Location;
+
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Creates the 2dsphere index on the location collection and fills the {@code position} field from the
+ * existing string coordinates.
+ */
+@ChangeLog(order = "001")
+public class LocationPositionMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-addLocationPosition")
+    public void addLocationPosition(MongoTemplate mongoTemplate) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Location.class));
+        List<WriteModel<Document>> updates = new ArrayList<>(BATCH_SIZE);
+        for (Document location : collection.find(Filters.exists("position", false))
+            .projection(Projections.include("latitude", "longitue"))) {
+            GeoJsonPoint position = Location.toPosition(
+                Objects.toString(location.get("latitude"), null),
+                Objects.toString(location.get("longitue"), null));
+            if (position == null) {
+                continue;
+            }
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", location.get("_id")),
+                Updates.set("position", new Document("type", "Point")
+                    .append("coordinates", Arrays.asList(position.getX(), position.getY())))));
+            if (updates.size() == BATCH_SIZE) {
+                collection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+                updates.clear();
+            }
+        }
+        if (!updates.isEmpty()) {
+            collection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        }
+        mongoTemplate.indexOps(Location.class)
+            .ensureIndex(new GeospatialIndex("position").typed(GeoSpatialIndexType.GEO_2DSPHERE));
+    }
+}
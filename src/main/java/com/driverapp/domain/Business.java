@@ -12,6 +12,8 @@ import java.io.Serializable;
  */
 @Document(collection = "business")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "business")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/business-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/business-mapping.json")
 public class Business implements Serializable {
 
     private static final long serialVersionUID = 1L;
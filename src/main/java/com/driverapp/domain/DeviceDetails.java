@@ -14,6 +14,8 @@ import java.io.Serializable;
  */
 @Document(collection = "device_details")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "devicedetails")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/devicedetails-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/devicedetails-mapping.json")
 public class DeviceDetails implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -20,6 +20,8 @@ import com.driverapp.domain.enumeration.PhoneType;
  */
 @Document(collection = "driver")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "driver")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/driver-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/driver-mapping.json")
 public class Driver implements Serializable {
 
     private static final long serialVersionUID = 1L;
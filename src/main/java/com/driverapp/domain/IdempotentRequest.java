@@ -0,0 +1,116 @@
+package com.driverapp.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request sent with an {@code Idempotency-Key} header, and its response once it has been handled.
+ * <p>
+ * The id is derived from the key, the user and the endpoint. A request being handled has no status yet. MongoDB
+ * removes the requests once they have expired, through the TTL index on their expiration time.
+ */
+@Document(collection = "idempotent_request")
+public class IdempotentRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @Field("request_hash")
+    private String requestHash;
+
+    @Field("status")
+    private Integer status;
+
+    @Field("headers")
+    private Map<String, List<String>> headers;
+
+    @Field("body")
+    private byte[] body;
+
+    @Indexed(expireAfterSeconds = 0)
+    @Field("expiration_time")
+    private Instant expirationTime;
+
+    public IdempotentRequest() {
+    }
+
+    public IdempotentRequest(String id, String requestHash, Instant expirationTime) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.expirationTime = expirationTime;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, List<String>> headers) {
+        this.headers = headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public Instant getExpirationTime() {
+        return expirationTime;
+    }
+
+    public void setExpirationTime(Instant expirationTime) {
+        this.expirationTime = expirationTime;
+    }
+
+    /**
+     * Whether the request has been handled, and its response stored.
+     *
+     * @return {@code true} if the request has a response.
+     */
+    public boolean isCompleted() {
+        return status != null;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotentRequest{" +
+            "id=" + getId() +
+            ", status=" + getStatus() +
+            ", expirationTime='" + getExpirationTime() + "'" +
+            "}";
+    }
+}
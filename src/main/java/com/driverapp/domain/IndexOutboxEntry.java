@@ -0,0 +1,140 @@
+package com.driverapp.domain;
+
+import com.driverapp.domain.enumeration.IndexOperation;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A change of an entity still to be applied to its Elasticsearch index.
+ * <p>
+ * Entries are written right after the entity is saved or deleted, and removed once the search index is up to date.
+ */
+@Document(collection = "search_index_outbox")
+public class IndexOutboxEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @Field("entity_type")
+    private String entityType;
+
+    @Field("entity_id")
+    private String entityId;
+
+    @Field("operation")
+    private IndexOperation operation;
+
+    @Indexed
+    @Field("created_date")
+    private Instant createdDate;
+
+    @Field("attempts")
+    private int attempts;
+
+    @Indexed
+    @Field("next_attempt_time")
+    private Instant nextAttemptTime;
+
+    public IndexOutboxEntry() {
+    }
+
+    public IndexOutboxEntry(String entityType, String entityId, IndexOperation operation) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.createdDate = Instant.now();
+        this.nextAttemptTime = createdDate;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(String entityId) {
+        this.entityId = entityId;
+    }
+
+    public IndexOperation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(IndexOperation operation) {
+        this.operation = operation;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    public void setNextAttemptTime(Instant nextAttemptTime) {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndexOutboxEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((IndexOutboxEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexOutboxEntry{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId='" + getEntityId() + "'" +
+            ", operation='" + getOperation() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", attempts=" + getAttempts() +
+            ", nextAttemptTime='" + getNextAttemptTime() + "'" +
+            "}";
+    }
+}
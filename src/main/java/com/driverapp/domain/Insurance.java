@@ -15,6 +15,8 @@ import com.driverapp.domain.enumeration.InsuranceType;
  */
 @Document(collection = "insurance")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "insurance")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/insurance-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/insurance-mapping.json")
 public class Insurance implements Serializable {
 
     private static final long serialVersionUID = 1L;
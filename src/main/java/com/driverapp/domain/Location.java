@@ -1,5 +1,9 @@
 package com.driverapp.domain;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.Document;
 import javax.validation.constraints.*;
@@ -12,6 +16,8 @@ import java.io.Serializable;
  */
 @Document(collection = "location")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "location")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/location-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/location-mapping.json")
 public class Location implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -49,6 +55,14 @@ public class Location implements Serializable {
     @Field("longitue")
     private String longitue;
 
+    /**
+     * Typed position derived from {@link #latitude} and {@link #longitue}, used for geospatial queries.
+     */
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    @Field("position")
+    private GeoJsonPoint position;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
     public String getId() {
         return id;
@@ -141,12 +155,13 @@ public class Location implements Serializable {
     }
 
     public Location latitude(String latitude) {
-        this.latitude = latitude;
+        setLatitude(latitude);
         return this;
     }
 
     public void setLatitude(String latitude) {
         this.latitude = latitude;
+        this.position = toPosition(latitude, longitue);
     }
 
     public String getLongitue() {
@@ -154,12 +169,49 @@ public class Location implements Serializable {
     }
 
     public Location longitue(String longitue) {
-        this.longitue = longitue;
+        setLongitue(longitue);
         return this;
     }
 
     public void setLongitue(String longitue) {
         this.longitue = longitue;
+        this.position = toPosition(latitude, longitue);
+    }
+
+    public GeoJsonPoint getPosition() {
+        return position;
+    }
+
+    public void setPosition(GeoJsonPoint position) {
+        this.position = position;
+    }
+
+    /**
+     * Parse free-form coordinates into a GeoJSON point.
+     *
+     * @param latitude the latitude, in decimal degrees.
+     * @param longitude the longitude, in decimal degrees.
+     * @return the point, or {@code null} if either coordinate is missing or out of range.
+     */
+    public static GeoJsonPoint toPosition(String latitude, String longitude) {
+        Double lat = parseCoordinate(latitude, 90);
+        Double lon = parseCoordinate(longitude, 180);
+        if (lat == null || lon == null) {
+            return null;
+        }
+        return new GeoJsonPoint(lon, lat);
+    }
+
+    private static Double parseCoordinate(String value, double bound) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            double coordinate = Double.parseDouble(value.trim());
+            return (coordinate >= -bound && coordinate <= bound) ? coordinate : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here, do not remove
 
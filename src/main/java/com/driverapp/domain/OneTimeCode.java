@@ -0,0 +1,83 @@
+package com.driverapp.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The one-time code sent to a driver to verify their phone number.
+ * <p>
+ * A driver has at most one code, with the id of the driver. MongoDB removes the codes once they have expired,
+ * through the TTL index on their expiration time.
+ */
+@Document(collection = "one_time_code")
+public class OneTimeCode implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @Field("code")
+    private String code;
+
+    @Field("attempts")
+    private int attempts;
+
+    @Indexed(expireAfterSeconds = 0)
+    @Field("expiration_time")
+    private Instant expirationTime;
+
+    public OneTimeCode() {
+    }
+
+    public OneTimeCode(String driverId, String code, Instant expirationTime) {
+        this.id = driverId;
+        this.code = code;
+        this.expirationTime = expirationTime;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getExpirationTime() {
+        return expirationTime;
+    }
+
+    public void setExpirationTime(Instant expirationTime) {
+        this.expirationTime = expirationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "OneTimeCode{" +
+            "id=" + getId() +
+            ", attempts=" + getAttempts() +
+            ", expirationTime='" + getExpirationTime() + "'" +
+            "}";
+    }
+}
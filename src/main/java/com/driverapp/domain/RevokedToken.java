@@ -0,0 +1,73 @@
+package com.driverapp.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A revoked JWT, or all the JWTs of a subject issued until their revocation.
+ * <p>
+ * The id is the revocation key of the token or subject. MongoDB removes the revocations once all the tokens they
+ * apply to have expired, through the TTL index on their expiration time.
+ */
+@Document(collection = "revoked_token")
+public class RevokedToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @Indexed
+    @Field("revoked_at")
+    private Instant revokedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    @Field("expiration_time")
+    private Instant expirationTime;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String id, Instant revokedAt, Instant expirationTime) {
+        this.id = id;
+        this.revokedAt = revokedAt;
+        this.expirationTime = expirationTime;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public Instant getExpirationTime() {
+        return expirationTime;
+    }
+
+    public void setExpirationTime(Instant expirationTime) {
+        this.expirationTime = expirationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "RevokedToken{" +
+            "id=" + getId() +
+            ", revokedAt='" + getRevokedAt() + "'" +
+            ", expirationTime='" + getExpirationTime() + "'" +
+            "}";
+    }
+}
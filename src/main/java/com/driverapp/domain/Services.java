@@ -15,6 +15,8 @@ import com.driverapp.domain.enumeration.ServiceType;
  */
 @Document(collection = "services")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "services")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/services-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/services-mapping.json")
 public class Services implements Serializable {
 
     private static final long serialVersionUID = 1L;
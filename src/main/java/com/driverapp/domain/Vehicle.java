@@ -17,6 +17,8 @@ import com.driverapp.domain.enumeration.VehicleType;
  */
 @Document(collection = "vehicle")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "vehicle")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/vehicle-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/vehicle-mapping.json")
 public class Vehicle implements Serializable {
 
     private static final long serialVersionUID = 1L;
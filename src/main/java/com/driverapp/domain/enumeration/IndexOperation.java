@@ -0,0 +1,8 @@
+package com.driverapp.domain.enumeration;
+
+/**
+ * The IndexOperation enumeration.
+ */
+public enum IndexOperation {
+    INDEX, DELETE
+}
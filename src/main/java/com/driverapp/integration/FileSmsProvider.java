@@ -0,0 +1,52 @@
+package com.driverapp.integration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SmsProvider} appending the messages to a local file instead of sending them, to develop and test offline.
+ * <p>
+ * Each recipient of a message gets a tab-separated line with the time, the originator, the recipient and the body.
+ */
+public class FileSmsProvider implements SmsProvider {
+
+    private final Path file;
+
+    public FileSmsProvider(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void send(String originator, String body, List<String> recipients) throws SmsDeliveryException {
+        String now = Instant.now().toString();
+        String escapedBody = body.replace('\t', ' ').replace('\n', ' ');
+        List<String> lines = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            lines.add(now + '\t' + originator + '\t' + recipient + '\t' + escapedBody);
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new SmsDeliveryException("Could not write the message to " + file, e, true);
+        }
+    }
+
+    @Override
+    public int getMaxRecipients() {
+        return Integer.MAX_VALUE;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
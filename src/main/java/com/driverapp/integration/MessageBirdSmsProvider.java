@@ -0,0 +1,51 @@
+package com.driverapp.integration;
+
+import com.messagebird.MessageBirdClient;
+import com.messagebird.MessageBirdServiceImpl;
+import com.messagebird.exceptions.GeneralException;
+import com.messagebird.exceptions.UnauthorizedException;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SmsProvider} sending the messages through MessageBird, with a single client for the application.
+ */
+public class MessageBirdSmsProvider implements SmsProvider {
+
+    /**
+     * Maximum number of recipients of a message accepted by MessageBird.
+     */
+    private static final int MAX_RECIPIENTS = 50;
+
+    private final MessageBirdClient messageBirdClient;
+
+    public MessageBirdSmsProvider(String accessKey) {
+        this.messageBirdClient = new MessageBirdClient(new MessageBirdServiceImpl(accessKey));
+    }
+
+    @Override
+    public void send(String originator, String body, List<String> recipients) throws SmsDeliveryException {
+        List<BigInteger> phoneNumbers = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            String digits = recipient.replaceAll("[^0-9]", "");
+            if (digits.isEmpty()) {
+                throw new SmsDeliveryException("Invalid phone number: " + recipient, null, false);
+            }
+            phoneNumbers.add(new BigInteger(digits));
+        }
+        try {
+            messageBirdClient.sendMessage(originator, body, phoneNumbers);
+        } catch (UnauthorizedException e) {
+            throw new SmsDeliveryException("MessageBird rejected the access key", e, false);
+        } catch (GeneralException e) {
+            throw new SmsDeliveryException("Could not send the message through MessageBird", e, true);
+        }
+    }
+
+    @Override
+    public int getMaxRecipients() {
+        return MAX_RECIPIENTS;
+    }
+}
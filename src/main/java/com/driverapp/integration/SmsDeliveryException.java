@@ -0,0 +1,25 @@
+package com.driverapp.integration;
+
+/**
+ * Thrown by a {@link SmsProvider} when a message could not be sent.
+ */
+public class SmsDeliveryException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public SmsDeliveryException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    /**
+     * Whether sending the message again may succeed.
+     *
+     * @return {@code false} if the message or the provider configuration is invalid.
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,28 @@
+package com.driverapp.integration;
+
+import java.util.List;
+
+/**
+ * Provider delivering the SMS queued by the {@link SmsSender}.
+ * <p>
+ * Implementations are called by a single thread, and may send a message to several recipients at once.
+ */
+public interface SmsProvider {
+
+    /**
+     * Send a message to recipients.
+     *
+     * @param originator the sender of the message.
+     * @param body the body of the message.
+     * @param recipients the phone numbers of the recipients, at most {@link #getMaxRecipients()}.
+     * @throws SmsDeliveryException if the message could not be sent.
+     */
+    void send(String originator, String body, List<String> recipients) throws SmsDeliveryException;
+
+    /**
+     * Get the maximum number of recipients of a single send.
+     *
+     * @return the maximum number of recipients.
+     */
+    int getMaxRecipients();
+}
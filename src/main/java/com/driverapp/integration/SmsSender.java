@@ -1,29 +1,204 @@
 package com.driverapp.integration;
-import com.messagebird.MessageBirdClient;
-import com.messagebird.MessageBirdService;
-import com.messagebird.MessageBirdServiceImpl;
-import com.messagebird.exceptions.GeneralException;
-import com.messagebird.exceptions.UnauthorizedException;
-import com.messagebird.objects.MessageResponse;
-
-import java.math.BigInteger;
+
+import com.driverapp.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Service sending SMS asynchronously through the configured {@link SmsProvider}.
+ * <p>
+ * Messages are queued in a bounded buffer and sent by a single thread, either every
+ * {@code application.sms.flush-interval} milliseconds or as soon as {@code application.sms.batch-size} messages
+ * are waiting. Messages with the same body are sent together, to as many recipients as the provider accepts.
+ * Failed sends are queued again after an exponential backoff, up to {@code application.sms.max-attempts} times.
+ * <p>
+ * The time between queuing a message and its acceptance by the provider is published as the
+ * {@code driverapp.sms.delivery} timer.
+ */
+@Service
 public class SmsSender {
-    public MessageResponse sendSMS(String toPhoneNumber) throws UnauthorizedException, GeneralException {
-        // Create a MessageBirdService
-        final MessageBirdService messageBirdService = new MessageBirdServiceImpl("yiTolu5C1Ynox530S545jk29a");
-        // Add the service to the client
-        final MessageBirdClient messageBirdClient = new MessageBirdClient(messageBirdService);
-        // convert String number into acceptable format
-        BigInteger phoneNumber = new BigInteger(toPhoneNumber);
-        final List<BigInteger> phones = new ArrayList<BigInteger>();
-        phones.add(phoneNumber);
-
-        final MessageResponse response =
-            messageBirdClient.sendMessage("+14016369040", "Hello World, I am a text message and I was hatched by Java code!", phones);
-            System.out.println(response);
-            return response;
+
+    private final Logger log = LoggerFactory.getLogger(SmsSender.class);
+
+    private final SmsProvider smsProvider;
+
+    private final ApplicationProperties.Sms properties;
+
+    private final BlockingQueue<SmsMessage> queue;
+
+    private final ScheduledThreadPoolExecutor dispatcher;
+
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    private final Counter sentCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter failedCounter;
+
+    private final Counter droppedCounter;
+
+    private final Timer deliveryTimer;
+
+    public SmsSender(SmsProvider smsProvider, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.smsProvider = smsProvider;
+        this.properties = applicationProperties.getSms();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueSize());
+        this.sentCounter = meterRegistry.counter("driverapp.sms", "result", "sent");
+        this.retriedCounter = meterRegistry.counter("driverapp.sms", "result", "retried");
+        this.failedCounter = meterRegistry.counter("driverapp.sms", "result", "failed");
+        this.droppedCounter = meterRegistry.counter("driverapp.sms", "result", "dropped");
+        this.deliveryTimer = Timer.builder("driverapp.sms.delivery")
+            .description("Time between queuing a SMS and its acceptance by the provider")
+            .register(meterRegistry);
+        Gauge.builder("driverapp.sms.queue.depth", queue, Collection::size)
+            .description("Number of SMS waiting to be sent")
+            .register(meterRegistry);
+
+        this.dispatcher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "driver-app-sms");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Pending retries are not worth delaying the shutdown
+        this.dispatcher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.dispatcher.scheduleWithFixedDelay(this::dispatchSafely, properties.getFlushInterval(),
+            properties.getFlushInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a message for the next dispatch.
+     *
+     * @param phoneNumber the phone number of the recipient.
+     * @param body the body of the message.
+     * @return {@code false} if the message was dropped because the queue is full.
+     */
+    public boolean send(String phoneNumber, String body) {
+        if (!queue.offer(new SmsMessage(phoneNumber, body, System.nanoTime()))) {
+            log.warn("Dropping SMS to {}, the queue is full", phoneNumber);
+            droppedCounter.increment();
+            return false;
+        }
+        if (queue.size() >= properties.getBatchSize() && dispatchRequested.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatchSafely);
+        }
+        return true;
+    }
+
+    /**
+     * Send all the queued messages.
+     */
+    public synchronized void dispatch() {
+        dispatchRequested.set(false);
+        List<SmsMessage> drained = new ArrayList<>(Math.min(queue.size(), properties.getBatchSize()));
+        while (queue.drainTo(drained, properties.getBatchSize()) > 0) {
+            Map<String, List<SmsMessage>> byBody = new LinkedHashMap<>();
+            for (SmsMessage message : drained) {
+                byBody.computeIfAbsent(message.body, body -> new ArrayList<>()).add(message);
+            }
+            drained.clear();
+            for (Map.Entry<String, List<SmsMessage>> entry : byBody.entrySet()) {
+                List<SmsMessage> messages = entry.getValue();
+                int maxRecipients = Math.max(1, smsProvider.getMaxRecipients());
+                for (int from = 0; from < messages.size(); from += maxRecipients) {
+                    deliver(entry.getKey(), messages.subList(from, Math.min(from + maxRecipients, messages.size())));
+                }
+            }
+        }
+    }
+
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.error("Could not send SMS", e);
+        }
+    }
+
+    private void deliver(String body, List<SmsMessage> messages) {
+        List<String> recipients = new ArrayList<>(messages.size());
+        for (SmsMessage message : messages) {
+            recipients.add(message.phoneNumber);
+        }
+        try {
+            smsProvider.send(properties.getOriginator(), body, recipients);
+        } catch (SmsDeliveryException e) {
+            retry(messages, e);
+            return;
+        }
+        long now = System.nanoTime();
+        for (SmsMessage message : messages) {
+            deliveryTimer.record(now - message.queuedTime, TimeUnit.NANOSECONDS);
+        }
+        sentCounter.increment(messages.size());
+    }
+
+    private void retry(List<SmsMessage> messages, SmsDeliveryException e) {
+        for (SmsMessage message : messages) {
+            int attempts = ++message.attempts;
+            if (!e.isRetryable() || attempts >= properties.getMaxAttempts()) {
+                log.error("Dropping SMS to {} after {} attempts", message.phoneNumber, attempts, e);
+                failedCounter.increment();
+            } else {
+                log.warn("Could not send SMS to {}, retrying: {}", message.phoneNumber, e.getMessage());
+                retriedCounter.increment();
+                dispatcher.schedule(() -> requeue(message), backoff(attempts), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void requeue(SmsMessage message) {
+        if (!queue.offer(message)) {
+            log.warn("Dropping SMS to {}, the queue is full", message.phoneNumber);
+            droppedCounter.increment();
+        }
+    }
+
+    private long backoff(int attempts) {
+        long backoff = properties.getInitialBackoff() << Math.min(attempts - 1, 30);
+        return backoff > 0 ? Math.min(backoff, properties.getMaxBackoff()) : properties.getMaxBackoff();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        dispatcher.shutdown();
+        if (dispatcher.awaitTermination(10, TimeUnit.SECONDS)) {
+            dispatchSafely();
+        }
+    }
+
+    private static final class SmsMessage {
+
+        private final String phoneNumber;
+
+        private final String body;
+
+        private final long queuedTime;
+
+        private int attempts;
+
+        SmsMessage(String phoneNumber, String body, long queuedTime) {
+            this.phoneNumber = phoneNumber;
+            this.body = body;
+            this.queuedTime = queuedTime;
+        }
     }
 }
@@ -1,16 +1,23 @@
 package com.driverapp.repository;
 
 import com.driverapp.domain.Business;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 
 /**
  * Spring Data MongoDB repository for the Business entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface BusinessRepository extends MongoRepository<Business, String> {
+public interface BusinessRepository extends KeysetRepository<Business> {
+
+    String BUSINESSES_BY_ID_CACHE = "businessesById";
 
+    @Override
+    @Cacheable(cacheNames = BUSINESSES_BY_ID_CACHE, unless = "#result == null")
+    Optional<Business> findById(String id);
 }
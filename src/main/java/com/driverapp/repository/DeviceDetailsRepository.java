@@ -2,7 +2,6 @@ package com.driverapp.repository;
 
 import com.driverapp.domain.DeviceDetails;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 
@@ -11,6 +10,6 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface DeviceDetailsRepository extends MongoRepository<DeviceDetails, String> {
+public interface DeviceDetailsRepository extends KeysetRepository<DeviceDetails> {
 
 }
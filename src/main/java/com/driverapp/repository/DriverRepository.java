@@ -1,8 +1,8 @@
 package com.driverapp.repository;
 
 import com.driverapp.domain.Driver;
+import com.driverapp.domain.enumeration.Status;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 
@@ -11,8 +11,12 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface DriverRepository extends MongoRepository<Driver, String> {
+public interface DriverRepository extends KeysetRepository<Driver> {
+
+    String DRIVERS_BY_ID_CACHE = "driversById";
 
     public Driver findUserById(String id);
 
+    boolean existsByIdAndStatus(String id, Status status);
+
 }
@@ -0,0 +1,13 @@
+package com.driverapp.repository;
+
+import com.driverapp.domain.IdempotentRequest;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB repository for the {@link IdempotentRequest} entity.
+ */
+@Repository
+public interface IdempotentRequestRepository extends MongoRepository<IdempotentRequest, String> {
+
+}
@@ -0,0 +1,13 @@
+package com.driverapp.repository;
+
+import com.driverapp.domain.IndexOutboxEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB repository for the {@link IndexOutboxEntry} entity.
+ */
+@Repository
+public interface IndexOutboxRepository extends MongoRepository<IndexOutboxEntry, String> {
+
+}
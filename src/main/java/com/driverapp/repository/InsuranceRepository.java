@@ -1,16 +1,23 @@
 package com.driverapp.repository;
 
 import com.driverapp.domain.Insurance;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 
 /**
  * Spring Data MongoDB repository for the Insurance entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface InsuranceRepository extends MongoRepository<Insurance, String> {
+public interface InsuranceRepository extends KeysetRepository<Insurance> {
+
+    String INSURANCES_BY_ID_CACHE = "insurancesById";
 
+    @Override
+    @Cacheable(cacheNames = INSURANCES_BY_ID_CACHE, unless = "#result == null")
+    Optional<Insurance> findById(String id);
 }
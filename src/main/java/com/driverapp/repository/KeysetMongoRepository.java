@@ -0,0 +1,107 @@
+package com.driverapp.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
+import org.springframework.data.mongodb.repository.support.SimpleMongoRepository;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class of the Spring Data MongoDB repositories, implementing {@link KeysetRepository}.
+ *
+ * @param <T> the type of the entities.
+ */
+public class KeysetMongoRepository<T> extends SimpleMongoRepository<T, String> implements KeysetRepository<T> {
+
+    private final MongoEntityInformation<T, String> entityInformation;
+
+    private final MongoOperations mongoOperations;
+
+    private final Map<Class<?>, List<String>> projectedProperties = new ConcurrentHashMap<>();
+
+    public KeysetMongoRepository(MongoEntityInformation<T, String> entityInformation, MongoOperations mongoOperations) {
+        super(entityInformation, mongoOperations);
+        this.entityInformation = entityInformation;
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public KeysetSlice<T> findAllAfter(@Nullable String after, int size) {
+        return slice(keysetQuery(after), size);
+    }
+
+    @Override
+    public CloseableIterator<T> streamAllAfter(@Nullable String after) {
+        return mongoOperations.stream(keysetQuery(after), entityInformation.getJavaType(), entityInformation.getCollectionName());
+    }
+
+    @Override
+    public KeysetSlice<T> findAllAfter(@Nullable String after, int size, Class<?> projection) {
+        return slice(project(keysetQuery(after), projection), size);
+    }
+
+    @Override
+    public CloseableIterator<T> streamAllAfter(@Nullable String after, Class<?> projection) {
+        return mongoOperations.stream(project(keysetQuery(after), projection),
+            entityInformation.getJavaType(), entityInformation.getCollectionName());
+    }
+
+    private KeysetSlice<T> slice(Query query, int size) {
+        List<T> content = mongoOperations.find(query.limit(size + 1),
+            entityInformation.getJavaType(), entityInformation.getCollectionName());
+        if (content.size() <= size) {
+            return new KeysetSlice<>(content, null);
+        }
+        content = new ArrayList<>(content.subList(0, size));
+        return new KeysetSlice<>(content, entityInformation.getId(content.get(size - 1)));
+    }
+
+    private Query project(Query query, Class<?> projection) {
+        for (String property : projectedProperties.computeIfAbsent(projection, this::projectedProperties)) {
+            query.fields().include(property);
+        }
+        return query;
+    }
+
+    /**
+     * The non-reference properties of the entity named like a field of the projection; the query mapper
+     * translates them to the field names of the documents.
+     */
+    private List<String> projectedProperties(Class<?> projection) {
+        MongoPersistentEntity<?> entity = mongoOperations.getConverter().getMappingContext()
+            .getRequiredPersistentEntity(entityInformation.getJavaType());
+        List<String> properties = new ArrayList<>();
+        for (Class<?> type = projection; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                MongoPersistentProperty property = entity.getPersistentProperty(field.getName());
+                if (property != null && !property.isAssociation()) {
+                    properties.add(property.getName());
+                }
+            }
+        }
+        return properties;
+    }
+
+    private Query keysetQuery(@Nullable String after) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+        if (after != null) {
+            query.addCriteria(Criteria.where("id").gt(after));
+        }
+        return query;
+    }
+}
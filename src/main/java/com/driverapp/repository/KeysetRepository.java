@@ -0,0 +1,56 @@
+package com.driverapp.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.lang.Nullable;
+
+/**
+ * Spring Data MongoDB repository reading entities in {@code _id} order, using the last read id as the
+ * cursor instead of an offset, so that every page costs one index range scan.
+ *
+ * @param <T> the type of the entities.
+ */
+@NoRepositoryBean
+public interface KeysetRepository<T> extends MongoRepository<T, String> {
+
+    /**
+     * Find the entities following a cursor.
+     *
+     * @param after the id of the last entity already read, or {@code null} to start from the first entity.
+     * @param size the maximum number of entities to return.
+     * @return the entities, with the cursor of the next slice.
+     */
+    KeysetSlice<T> findAllAfter(@Nullable String after, int size);
+
+    /**
+     * Stream the entities following a cursor from a database cursor. The iterator must be closed.
+     *
+     * @param after the id of the last entity already read, or {@code null} to start from the first entity.
+     * @return the entities.
+     */
+    CloseableIterator<T> streamAllAfter(@Nullable String after);
+
+    /**
+     * Find the entities following a cursor, reading only the properties declared by a projection type.
+     * <p>
+     * The entities only have their id and the properties of the same name as a field of the projection;
+     * references are not read, and so not resolved.
+     *
+     * @param after the id of the last entity already read, or {@code null} to start from the first entity.
+     * @param size the maximum number of entities to return.
+     * @param projection the type whose fields name the properties to read.
+     * @return the partially read entities, with the cursor of the next slice.
+     */
+    KeysetSlice<T> findAllAfter(@Nullable String after, int size, Class<?> projection);
+
+    /**
+     * Stream the entities following a cursor, reading only the properties declared by a projection type.
+     * The iterator must be closed.
+     *
+     * @param after the id of the last entity already read, or {@code null} to start from the first entity.
+     * @param projection the type whose fields name the properties to read.
+     * @return the partially read entities.
+     */
+    CloseableIterator<T> streamAllAfter(@Nullable String after, Class<?> projection);
+}
@@ -0,0 +1,48 @@
+package com.driverapp.repository;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A slice of entities read with keyset pagination, with the cursor of the next slice.
+ *
+ * @param <T> the type of the entities.
+ */
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the id of the last entity of this slice, or {@code null} if this is the last slice.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Convert the content of this slice, keeping its cursor.
+     *
+     * @param converter the conversion of each element.
+     * @param <U> the type of the converted elements.
+     * @return the converted slice.
+     */
+    public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new KeysetSlice<>(content.stream().map(converter).collect(Collectors.toList()), nextCursor);
+    }
+}
@@ -1,16 +1,23 @@
 package com.driverapp.repository;
 
 import com.driverapp.domain.Location;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 
 /**
  * Spring Data MongoDB repository for the Location entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface LocationRepository extends MongoRepository<Location, String> {
+public interface LocationRepository extends KeysetRepository<Location> {
+
+    String LOCATIONS_BY_ID_CACHE = "locationsById";
 
+    @Override
+    @Cacheable(cacheNames = LOCATIONS_BY_ID_CACHE, unless = "#result == null")
+    Optional<Location> findById(String id);
 }
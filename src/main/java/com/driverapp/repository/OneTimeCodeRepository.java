@@ -0,0 +1,13 @@
+package com.driverapp.repository;
+
+import com.driverapp.domain.OneTimeCode;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB repository for the {@link OneTimeCode} entity.
+ */
+@Repository
+public interface OneTimeCodeRepository extends MongoRepository<OneTimeCode, String> {
+
+}
@@ -0,0 +1,17 @@
+package com.driverapp.repository;
+
+import com.driverapp.domain.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data MongoDB repository for the {@link RevokedToken} entity.
+ */
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+
+    List<RevokedToken> findAllByRevokedAtGreaterThanEqual(Instant revokedAt);
+}
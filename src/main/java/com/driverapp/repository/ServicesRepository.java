@@ -1,16 +1,23 @@
 package com.driverapp.repository;
 
 import com.driverapp.domain.Services;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 
 /**
  * Spring Data MongoDB repository for the Services entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ServicesRepository extends MongoRepository<Services, String> {
+public interface ServicesRepository extends KeysetRepository<Services> {
+
+    String SERVICES_BY_ID_CACHE = "servicesById";
 
+    @Override
+    @Cacheable(cacheNames = SERVICES_BY_ID_CACHE, unless = "#result == null")
+    Optional<Services> findById(String id);
 }
@@ -2,7 +2,6 @@ package com.driverapp.repository;
 
 import com.driverapp.domain.Vehicle;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 
@@ -11,6 +10,7 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface VehicleRepository extends MongoRepository<Vehicle, String> {
+public interface VehicleRepository extends KeysetRepository<Vehicle> {
 
+    String VEHICLES_BY_ID_CACHE = "vehiclesById";
 }
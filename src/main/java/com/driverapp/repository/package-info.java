@@ -1,4 +1,4 @@
 /**
- * Spring Data JPA repositories.
+ * Spring Data MongoDB repositories.
  */
 package com.driverapp.repository;
@@ -1,10 +1,9 @@
 package com.driverapp.repository.search;
 
 import com.driverapp.domain.DeviceDetails;
-import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
 /**
  * Spring Data Elasticsearch repository for the {@link DeviceDetails} entity.
  */
-public interface DeviceDetailsSearchRepository extends ElasticsearchRepository<DeviceDetails, String> {
+public interface DeviceDetailsSearchRepository extends SearchAfterRepository<DeviceDetails> {
 }
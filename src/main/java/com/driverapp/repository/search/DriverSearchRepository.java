@@ -1,10 +1,9 @@
 package com.driverapp.repository.search;
 
 import com.driverapp.domain.Driver;
-import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Driver} entity.
  */
-public interface DriverSearchRepository extends ElasticsearchRepository<Driver, String> {
+public interface DriverSearchRepository extends SearchAfterRepository<Driver> {
 }
@@ -0,0 +1,53 @@
+package com.driverapp.repository.search;
+
+import com.driverapp.config.Constants;
+
+import io.searchbox.action.BulkableAction;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Delete;
+import io.searchbox.core.Index;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SearchIndexWriter} sending the writes to Elasticsearch in one bulk request.
+ */
+@Component
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class JestSearchIndexWriter implements SearchIndexWriter {
+
+    private final JestClient jestClient;
+
+    public JestSearchIndexWriter(JestClient jestClient) {
+        this.jestClient = jestClient;
+    }
+
+    @Override
+    public List<String> write(List<SearchIndexWrite> writes) throws IOException {
+        Bulk.Builder bulk = new Bulk.Builder();
+        writes.forEach(write -> bulk.addAction(action(write)));
+        BulkResult result = jestClient.execute(bulk.build());
+        List<BulkResult.BulkResultItem> items = result.getItems();
+        if (items.size() != writes.size()) {
+            throw new IOException(result.getErrorMessage());
+        }
+        List<String> errors = new ArrayList<>(items.size());
+        for (BulkResult.BulkResultItem item : items) {
+            errors.add(item.error);
+        }
+        return errors;
+    }
+
+    private static BulkableAction<?> action(SearchIndexWrite write) {
+        if (write.isDelete()) {
+            return new Delete.Builder(write.getId()).index(write.getIndex()).type(write.getIndexType()).build();
+        }
+        return new Index.Builder(write.getSource()).index(write.getIndex()).type(write.getIndexType()).id(write.getId()).build();
+    }
+}
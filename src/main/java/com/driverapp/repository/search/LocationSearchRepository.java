@@ -1,10 +1,9 @@
 package com.driverapp.repository.search;
 
 import com.driverapp.domain.Location;
-import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Location} entity.
  */
-public interface LocationSearchRepository extends ElasticsearchRepository<Location, String> {
+public interface LocationSearchRepository extends SearchAfterRepository<Location> {
 }
@@ -0,0 +1,263 @@
+package com.driverapp.repository.search;
+
+import com.driverapp.repository.KeysetSlice;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Search;
+import io.searchbox.core.SearchResult;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.repository.support.ElasticsearchEntityInformation;
+import org.springframework.data.elasticsearch.repository.support.SimpleElasticsearchRepository;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class of the Spring Data Elasticsearch repositories, implementing {@link SearchAfterRepository}.
+ * <p>
+ * Pages are searched through the {@link ElasticsearchOperations}; {@code search_after} is not supported by the
+ * Spring Data queries, so cursors are searched with the {@link JestClient} and their sources read with the
+ * {@link EntityMapper} indexing them. Counts are aggregated with the {@link JestClient} too, from the buckets of the
+ * raw responses.
+ *
+ * @param <T> the type of the entities.
+ */
+public class SearchAfterElasticsearchRepository<T> extends SimpleElasticsearchRepository<T> implements SearchAfterRepository<T> {
+
+    /**
+     * The number of hits read by each search of {@link #streamSearchAfter}.
+     */
+    static final int STREAM_SLICE_SIZE = 1000;
+
+    private static final String ID_SUFFIX = "Id";
+
+    /**
+     * The field the cursors are sorted on: the {@code id} keyword kept in doc values by every mapping, as sorting
+     * on {@code _id} loads the ids in the field data of the heap.
+     */
+    private static final String CURSOR_FIELD = "id";
+
+    private final ElasticsearchEntityInformation<T, String> entityInformation;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final JestClient jestClient;
+
+    private final EntityMapper entityMapper;
+
+    private final Map<Class<?>, String[]> projectedFields = new ConcurrentHashMap<>();
+
+    public SearchAfterElasticsearchRepository(ElasticsearchEntityInformation<T, String> entityInformation,
+                                              ElasticsearchOperations elasticsearchOperations, JestClient jestClient, EntityMapper entityMapper) {
+        super(entityInformation, elasticsearchOperations);
+        this.entityInformation = entityInformation;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.jestClient = jestClient;
+        this.entityMapper = entityMapper;
+    }
+
+    @Override
+    public Page<T> search(QueryBuilder query, Pageable pageable, @Nullable Class<?> projection) {
+        NativeSearchQueryBuilder searchQuery = new NativeSearchQueryBuilder()
+            .withIndices(entityInformation.getIndexName())
+            .withTypes(entityInformation.getType())
+            .withQuery(query)
+            .withPageable(pageable);
+        if (projection != null) {
+            searchQuery.withSourceFilter(new FetchSourceFilter(fields(projection), null));
+        }
+        return elasticsearchOperations.queryForPage(searchQuery.build(), entityInformation.getJavaType());
+    }
+
+    @Override
+    public KeysetSlice<T> searchAfter(QueryBuilder query, @Nullable String after, int size, @Nullable Class<?> projection) {
+        List<T> content = new ArrayList<>();
+        String cursor = null;
+        for (JsonElement hit : searchHits(query, after, size + 1, projection)) {
+            if (content.size() == size) {
+                return new KeysetSlice<>(content, cursor);
+            }
+            JsonObject document = hit.getAsJsonObject();
+            content.add(read(document));
+            cursor = document.getAsJsonArray("sort").get(0).getAsString();
+        }
+        return new KeysetSlice<>(content, null);
+    }
+
+    @Override
+    public CloseableIterator<T> streamSearchAfter(QueryBuilder query, @Nullable String after, @Nullable Class<?> projection) {
+        return new SearchAfterIterator(query, after, projection);
+    }
+
+    private JsonArray searchHits(QueryBuilder query, @Nullable String after, int size, @Nullable Class<?> projection) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(query)
+            .size(size)
+            .sort(SortBuilders.fieldSort(CURSOR_FIELD).order(SortOrder.ASC));
+        if (after != null) {
+            source.searchAfter(new Object[]{after});
+        }
+        if (projection != null) {
+            source.fetchSource(fields(projection), null);
+        }
+        return execute(source, "after " + after).getAsJsonObject("hits").getAsJsonArray("hits");
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> countTerms(QueryBuilder query, Map<String, String> fields, int size) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(query)
+            .size(0);
+        fields.forEach((name, field) -> source.aggregation(AggregationBuilders.terms(name).field(field).size(size)));
+        JsonObject aggregations = execute(source, "terms of " + fields.values()).getAsJsonObject("aggregations");
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        for (String name : fields.keySet()) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (JsonElement bucket : aggregations.getAsJsonObject(name).getAsJsonArray("buckets")) {
+                JsonObject value = bucket.getAsJsonObject();
+                // Boolean terms are keyed by 0 and 1, and by their name as string
+                JsonElement key = value.has("key_as_string") ? value.get("key_as_string") : value.get("key");
+                values.put(key.getAsString(), value.get("doc_count").getAsLong());
+            }
+            counts.put(name, values);
+        }
+        return counts;
+    }
+
+    private JsonObject execute(SearchSourceBuilder source, String description) {
+        Search search = new Search.Builder(source.toString())
+            .addIndex(entityInformation.getIndexName())
+            .addType(entityInformation.getType())
+            .build();
+        SearchResult result;
+        try {
+            result = jestClient.execute(search);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to search " + entityInformation.getIndexName() + " " + description, e);
+        }
+        if (!result.isSucceeded()) {
+            throw new ElasticsearchException("Failed to search " + entityInformation.getIndexName() + " " + description
+                + ": " + result.getErrorMessage());
+        }
+        return result.getJsonObject();
+    }
+
+    private T read(JsonObject hit) {
+        JsonElement source = hit.get("_source");
+        try {
+            return entityMapper.mapToObject(source == null ? "{}" : source.toString(), entityInformation.getJavaType());
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to read " + entityInformation.getIndexName() + " " + hit.get("_id"), e);
+        }
+    }
+
+    private String[] fields(Class<?> projection) {
+        return projectedFields.computeIfAbsent(projection, this::projectedFields);
+    }
+
+    /**
+     * The source fields of the properties named like a field of the projection, and of the id of the references
+     * named like a field of the projection without its {@code Id} suffix, as the mappers read {@code driverId}
+     * from {@code driver.id}.
+     */
+    private String[] projectedFields(Class<?> projection) {
+        ElasticsearchPersistentEntity<?> entity = elasticsearchOperations.getPersistentEntityFor(entityInformation.getJavaType());
+        Set<String> fields = new LinkedHashSet<>();
+        fields.add("id");
+        for (Class<?> type = projection; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                String name = field.getName();
+                ElasticsearchPersistentProperty property = entity.getPersistentProperty(name);
+                if (property != null) {
+                    fields.add(name);
+                } else if (name.endsWith(ID_SUFFIX)) {
+                    String reference = name.substring(0, name.length() - ID_SUFFIX.length());
+                    ElasticsearchPersistentProperty referenceProperty = entity.getPersistentProperty(reference);
+                    if (referenceProperty != null && referenceProperty.isEntity()) {
+                        fields.add(reference + ".id");
+                    }
+                }
+            }
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Reads the hits by slices of {@link #STREAM_SLICE_SIZE}, searching the next slice after the last hit read.
+     */
+    private class SearchAfterIterator implements CloseableIterator<T> {
+
+        private final QueryBuilder query;
+
+        private final Class<?> projection;
+
+        private String after;
+
+        private Iterator<T> slice = Collections.emptyIterator();
+
+        private boolean last;
+
+        SearchAfterIterator(QueryBuilder query, @Nullable String after, @Nullable Class<?> projection) {
+            this.query = query;
+            this.after = after;
+            this.projection = projection;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!slice.hasNext() && !last) {
+                KeysetSlice<T> next = searchAfter(query, after, STREAM_SLICE_SIZE, projection);
+                slice = next.getContent().iterator();
+                after = next.getNextCursor();
+                last = !next.hasNext();
+            }
+            return slice.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return slice.next();
+        }
+
+        @Override
+        public void close() {
+            last = true;
+            slice = Collections.emptyIterator();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.driverapp.repository.search;
+
+import com.driverapp.repository.KeysetSlice;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * Spring Data Elasticsearch repository searching by pages, and reading the hits beyond the result window of the
+ * index with {@code search_after} on the {@code id} of the documents.
+ * <p>
+ * Searches can read only the source fields declared by a projection type, so that list views do not transfer the
+ * whole documents.
+ *
+ * @param <T> the type of the entities.
+ */
+@NoRepositoryBean
+public interface SearchAfterRepository<T> extends ElasticsearchRepository<T, String> {
+
+    /**
+     * Search a page of entities, reading only the source fields declared by a projection type.
+     * <p>
+     * The entities only have the properties of the same name as a field of the projection, and the id of the
+     * references named like a field of the projection without its {@code Id} suffix.
+     *
+     * @param query the query.
+     * @param pageable the page; {@code page * size + size} must not exceed the result window of the index.
+     * @param projection the type whose fields name the source fields to read, or {@code null} to read them all.
+     * @return the page of partially read entities, with the total number of hits.
+     */
+    Page<T> search(QueryBuilder query, Pageable pageable, @Nullable Class<?> projection);
+
+    /**
+     * Search the entities following a cursor, in {@code id} order, reading only the source fields declared by a
+     * projection type.
+     *
+     * @param query the query.
+     * @param after the id of the last entity already read, or {@code null} to start from the first hit.
+     * @param size the maximum number of entities to return.
+     * @param projection the type whose fields name the source fields to read, or {@code null} to read them all.
+     * @return the partially read entities, with the cursor of the next slice.
+     */
+    KeysetSlice<T> searchAfter(QueryBuilder query, @Nullable String after, int size, @Nullable Class<?> projection);
+
+    /**
+     * Stream all the entities following a cursor, in {@code id} order, reading only the source fields declared by a
+     * projection type. The hits are read by slices as the iterator advances; the iterator must be closed.
+     *
+     * @param query the query.
+     * @param after the id of the last entity already read, or {@code null} to start from the first hit.
+     * @param projection the type whose fields name the source fields to read, or {@code null} to read them all.
+     * @return the partially read entities.
+     */
+    CloseableIterator<T> streamSearchAfter(QueryBuilder query, @Nullable String after, @Nullable Class<?> projection);
+
+    /**
+     * Count the entities matching a query by the values of some fields, with {@code terms} aggregations, without
+     * reading any hit.
+     *
+     * @param query the query.
+     * @param fields the counted fields, {@code keyword} or {@code boolean}, by the name of their counts.
+     * @param size the maximum number of values counted for each field, the most frequent first.
+     * @return the number of entities matching the query having each value, in decreasing order, by name.
+     */
+    Map<String, Map<String, Long>> countTerms(QueryBuilder query, Map<String, String> fields, int size);
+}
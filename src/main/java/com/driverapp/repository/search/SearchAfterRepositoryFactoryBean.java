@@ -0,0 +1,97 @@
+package com.driverapp.repository.search;
+
+import com.driverapp.repository.search.lucene.LuceneIndexRegistry;
+import com.driverapp.repository.search.lucene.LuceneSearchRepository;
+
+import io.searchbox.client.JestClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.repository.support.ElasticsearchRepositoryFactory;
+import org.springframework.data.elasticsearch.repository.support.ElasticsearchRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.lang.Nullable;
+
+/**
+ * Factory of the Spring Data Elasticsearch repositories, creating them as {@link SearchAfterElasticsearchRepository}
+ * with the {@link JestClient} and the {@link EntityMapper} they need for {@code search_after}, or as
+ * {@link LuceneSearchRepository} on the embedded indices of the {@link LuceneIndexRegistry} if there is one.
+ */
+public class SearchAfterRepositoryFactoryBean<T extends Repository<S, String>, S> extends ElasticsearchRepositoryFactoryBean<T, S, String> {
+
+    private ElasticsearchOperations elasticsearchOperations;
+
+    private JestClient jestClient;
+
+    private EntityMapper entityMapper;
+
+    private LuceneIndexRegistry luceneIndexRegistry;
+
+    public SearchAfterRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Override
+    public void setElasticsearchOperations(ElasticsearchOperations elasticsearchOperations) {
+        super.setElasticsearchOperations(elasticsearchOperations);
+        this.elasticsearchOperations = elasticsearchOperations;
+    }
+
+    @Autowired
+    public void setJestClient(JestClient jestClient) {
+        this.jestClient = jestClient;
+    }
+
+    @Autowired
+    public void setEntityMapper(EntityMapper entityMapper) {
+        this.entityMapper = entityMapper;
+    }
+
+    @Autowired(required = false)
+    public void setLuceneIndexRegistry(LuceneIndexRegistry luceneIndexRegistry) {
+        this.luceneIndexRegistry = luceneIndexRegistry;
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory() {
+        return new SearchAfterRepositoryFactory(elasticsearchOperations, jestClient, entityMapper, luceneIndexRegistry);
+    }
+
+    private static class SearchAfterRepositoryFactory extends ElasticsearchRepositoryFactory {
+
+        private final ElasticsearchOperations elasticsearchOperations;
+
+        private final JestClient jestClient;
+
+        private final EntityMapper entityMapper;
+
+        private final LuceneIndexRegistry luceneIndexRegistry;
+
+        SearchAfterRepositoryFactory(ElasticsearchOperations elasticsearchOperations, JestClient jestClient, EntityMapper entityMapper,
+                                     @Nullable LuceneIndexRegistry luceneIndexRegistry) {
+            super(elasticsearchOperations);
+            this.elasticsearchOperations = elasticsearchOperations;
+            this.jestClient = jestClient;
+            this.entityMapper = entityMapper;
+            this.luceneIndexRegistry = luceneIndexRegistry;
+        }
+
+        @Override
+        protected Object getTargetRepository(RepositoryInformation metadata) {
+            if (luceneIndexRegistry != null) {
+                return getTargetRepositoryViaReflection(metadata, getEntityInformation(metadata.getDomainType()),
+                    luceneIndexRegistry.getIndex(metadata.getDomainType()), entityMapper);
+            }
+            return getTargetRepositoryViaReflection(metadata, getEntityInformation(metadata.getDomainType()),
+                elasticsearchOperations, jestClient, entityMapper);
+        }
+
+        @Override
+        protected Class<?> getRepositoryBaseClass(RepositoryMetadata metadata) {
+            return luceneIndexRegistry != null ? LuceneSearchRepository.class : SearchAfterElasticsearchRepository.class;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.driverapp.repository.search;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The settings and mappings of the search indices, read from the files named by the {@link Setting} and
+ * {@link Mapping} annotations of the entities, in {@code config/elasticsearch}.
+ * <p>
+ * Each mapping has a version, in its {@code _meta}, incremented by every change that needs the index to be
+ * rebuilt.
+ */
+public final class SearchIndexDefinitions {
+
+    private static final String META = "_meta";
+
+    private static final String VERSION = "version";
+
+    private SearchIndexDefinitions() {
+    }
+
+    /**
+     * @return the index settings of an entity, without their {@code index} prefix, or {@code null} if it has none.
+     */
+    @Nullable
+    public static JsonObject settings(Class<?> type) throws IOException {
+        Setting setting = type.getAnnotation(Setting.class);
+        if (setting == null || !StringUtils.hasText(setting.settingPath())) {
+            return null;
+        }
+        JsonObject settings = new JsonParser().parse(readClasspath(setting.settingPath())).getAsJsonObject();
+        return settings.has("index") ? settings.getAsJsonObject("index") : settings;
+    }
+
+    /**
+     * @return the mapping of an entity, without its type, or {@code null} if it has none.
+     */
+    @Nullable
+    public static JsonObject mapping(Class<?> type, String indexType) throws IOException {
+        Mapping mapping = type.getAnnotation(Mapping.class);
+        if (mapping == null || !StringUtils.hasText(mapping.mappingPath())) {
+            return null;
+        }
+        JsonObject json = new JsonParser().parse(readClasspath(mapping.mappingPath())).getAsJsonObject();
+        return json.has(indexType) ? json.getAsJsonObject(indexType) : json;
+    }
+
+    /**
+     * @return the version of a mapping, {@code 0} if it has none, as the dynamic mappings.
+     */
+    public static int version(@Nullable JsonObject mapping) {
+        if (mapping == null || !mapping.has(META) || !mapping.getAsJsonObject(META).has(VERSION)) {
+            return 0;
+        }
+        return mapping.getAsJsonObject(META).get(VERSION).getAsInt();
+    }
+
+    private static String readClasspath(String path) throws IOException {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.driverapp.repository.search;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * The indexing or the deletion of one document of a search index.
+ */
+public final class SearchIndexWrite {
+
+    private final Class<?> entityType;
+
+    private final String index;
+
+    private final String indexType;
+
+    private final String id;
+
+    private final String source;
+
+    /**
+     * @param entityType the type of the indexed entity.
+     * @param index the name of the index.
+     * @param indexType the mapping type of the index.
+     * @param id the id of the document.
+     * @param source the source of the document to index, or {@code null} to delete it.
+     */
+    public SearchIndexWrite(Class<?> entityType, String index, String indexType, String id, @Nullable String source) {
+        this.entityType = entityType;
+        this.index = index;
+        this.indexType = indexType;
+        this.id = id;
+        this.source = source;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public String getIndexType() {
+        return indexType;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Nullable
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isDelete() {
+        return source == null;
+    }
+
+    @Override
+    public String toString() {
+        return (isDelete() ? "delete" : "index") + " of " + index + " " + id;
+    }
+}
@@ -0,0 +1,19 @@
+package com.driverapp.repository.search;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writer of the documents of the search indices, used by the indexing services whatever the search engine.
+ */
+public interface SearchIndexWriter {
+
+    /**
+     * Index or delete documents, in one request.
+     *
+     * @param writes the writes, each applied even if another one fails.
+     * @return the error of each write, or {@code null} if it was applied, in the order of the writes.
+     * @throws IOException if the request failed as a whole.
+     */
+    List<String> write(List<SearchIndexWrite> writes) throws IOException;
+}
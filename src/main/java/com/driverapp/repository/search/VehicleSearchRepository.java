@@ -1,10 +1,9 @@
 package com.driverapp.repository.search;
 
 import com.driverapp.domain.Vehicle;
-import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Vehicle} entity.
  */
-public interface VehicleSearchRepository extends ElasticsearchRepository<Vehicle, String> {
+public interface VehicleSearchRepository extends SearchAfterRepository<Vehicle> {
 }
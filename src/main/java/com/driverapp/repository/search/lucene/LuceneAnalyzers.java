@@ -0,0 +1,111 @@
+package com.driverapp.repository.search.lucene;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * The Lucene analyzers of the analyzers named by an Elasticsearch mapping: the {@code standard} and {@code keyword}
+ * analyzers, and the custom analyzers of the {@code analysis} settings of the index.
+ * <p>
+ * Custom analyzers are limited to the {@code standard} tokenizer and the {@code lowercase}, {@code asciifolding} and
+ * {@code edge_ngram} token filters, which are all the settings of {@code config/elasticsearch} use.
+ */
+final class LuceneAnalyzers {
+
+    static final String STANDARD = "standard";
+
+    static final String KEYWORD = "keyword";
+
+    private final Map<String, Analyzer> analyzers = new HashMap<>();
+
+    /**
+     * @param settings the index settings, without their {@code index} prefix, or {@code null}.
+     */
+    LuceneAnalyzers(@Nullable JsonObject settings) {
+        // like the standard analyzer of Elasticsearch, without stop words
+        analyzers.put(STANDARD, new StandardAnalyzer(CharArraySet.EMPTY_SET));
+        analyzers.put(KEYWORD, new KeywordAnalyzer());
+        JsonObject analysis = settings != null && settings.has("analysis") ? settings.getAsJsonObject("analysis") : new JsonObject();
+        JsonObject filters = analysis.has("filter") ? analysis.getAsJsonObject("filter") : new JsonObject();
+        if (analysis.has("analyzer")) {
+            for (Map.Entry<String, JsonElement> analyzer : analysis.getAsJsonObject("analyzer").entrySet()) {
+                analyzers.put(analyzer.getKey(), custom(analyzer.getKey(), analyzer.getValue().getAsJsonObject(), filters));
+            }
+        }
+    }
+
+    /**
+     * @param name the name of an analyzer, or {@code null} for the standard analyzer.
+     * @return the analyzer.
+     * @throws IllegalArgumentException if the analyzer is not defined.
+     */
+    Analyzer get(@Nullable String name) {
+        Analyzer analyzer = analyzers.get(name == null ? STANDARD : name);
+        if (analyzer == null) {
+            throw new IllegalArgumentException("Unknown analyzer: " + name);
+        }
+        return analyzer;
+    }
+
+    private static Analyzer custom(String name, JsonObject definition, JsonObject filters) {
+        String tokenizer = definition.has("tokenizer") ? definition.get("tokenizer").getAsString() : STANDARD;
+        if (!STANDARD.equals(tokenizer)) {
+            throw new IllegalArgumentException("Unsupported tokenizer " + tokenizer + " of analyzer " + name);
+        }
+        List<UnaryOperator<TokenStream>> chain = new ArrayList<>();
+        if (definition.has("filter")) {
+            for (JsonElement filter : definition.getAsJsonArray("filter")) {
+                chain.add(filter(filter.getAsString(), filters));
+            }
+        }
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream result = source;
+                for (UnaryOperator<TokenStream> filter : chain) {
+                    result = filter.apply(result);
+                }
+                return new TokenStreamComponents(source, result);
+            }
+        };
+    }
+
+    private static UnaryOperator<TokenStream> filter(String name, JsonObject filters) {
+        if (filters.has(name)) {
+            JsonObject definition = filters.getAsJsonObject(name);
+            String type = definition.get("type").getAsString();
+            if ("edge_ngram".equals(type) || "edgeNGram".equals(type)) {
+                int minGram = definition.has("min_gram") ? definition.get("min_gram").getAsInt() : 1;
+                int maxGram = definition.has("max_gram") ? definition.get("max_gram").getAsInt() : 2;
+                return in -> new EdgeNGramTokenFilter(in, minGram, maxGram);
+            }
+            throw new IllegalArgumentException("Unsupported token filter type " + type + " of filter " + name);
+        }
+        switch (name) {
+            case "lowercase":
+                return LowerCaseFilter::new;
+            case "asciifolding":
+                return ASCIIFoldingFilter::new;
+            default:
+                throw new IllegalArgumentException("Unsupported token filter " + name);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.driverapp.repository.search.lucene;
+
+import com.driverapp.repository.search.SearchIndexWrite;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.mlt.MoreLikeThis;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The search index of an entity type, as a Lucene index on the local disk, with the fields of the Elasticsearch
+ * mapping of the entity (see {@link LuceneMapping}).
+ * <p>
+ * Writes are visible to the searches as soon as they return, through a near real-time reader of the writer, and
+ * only made durable by {@link #commit}, which is called periodically and on close: a crash loses the writes since
+ * the last commit. Hits are returned as the stored sources of the documents, as Elasticsearch returns them.
+ */
+public class LuceneIndex implements Closeable {
+
+    private final String name;
+
+    private final LuceneMapping mapping;
+
+    private final LuceneQueryTranslator queryTranslator;
+
+    private final Directory directory;
+
+    private final IndexWriter writer;
+
+    private final SearcherManager searcherManager;
+
+    /**
+     * Open the index, creating it if it does not exist.
+     *
+     * @param name the name of the index.
+     * @param path the directory of the index.
+     * @param settings the index settings, without their {@code index} prefix, or {@code null}.
+     * @param mapping the mapping, without its type, or {@code null} to map all the values dynamically.
+     * @param ramBufferSize the size of the buffer of the documents written before they are flushed, in MB.
+     * @throws IOException if the index cannot be opened.
+     */
+    public LuceneIndex(String name, Path path, @Nullable JsonObject settings, @Nullable JsonObject mapping, double ramBufferSize)
+        throws IOException {
+        this.name = name;
+        this.mapping = new LuceneMapping(settings, mapping);
+        this.queryTranslator = new LuceneQueryTranslator(this.mapping);
+        this.directory = FSDirectory.open(path);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(this.mapping.getIndexAnalyzer())
+            .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+            .setRAMBufferSizeMB(ramBufferSize));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    LuceneQueryTranslator getQueryTranslator() {
+        return queryTranslator;
+    }
+
+    /**
+     * Index or delete documents, and make them searchable.
+     *
+     * @param writes the writes of the documents of the index, applied in order.
+     * @return the error of each write, {@code null} for the writes which succeeded, in the order of the writes.
+     * @throws IOException if the index cannot be written.
+     */
+    public List<String> write(List<SearchIndexWrite> writes) throws IOException {
+        List<String> errors = new ArrayList<>(writes.size());
+        JsonParser parser = new JsonParser();
+        for (SearchIndexWrite write : writes) {
+            Term id = new Term(LuceneMapping.ID, write.getId());
+            try {
+                if (write.isDelete()) {
+                    writer.deleteDocuments(id);
+                } else {
+                    writer.updateDocument(id, mapping.document(write.getId(), parser.parse(write.getSource()).getAsJsonObject()));
+                }
+                errors.add(null);
+            } catch (RuntimeException e) {
+                // an unparseable source, or a term too long for the index
+                errors.add(e.toString());
+            }
+        }
+        searcherManager.maybeRefreshBlocking();
+        return errors;
+    }
+
+    /**
+     * Delete all the documents, and make it searchable.
+     *
+     * @throws IOException if the index cannot be written.
+     */
+    public void deleteAll() throws IOException {
+        writer.deleteAll();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * Make the writes durable, if there are any since the last commit.
+     *
+     * @throws IOException if the index cannot be written.
+     */
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    /**
+     * @param id the id of a document.
+     * @return its source, or {@code null} if it is not indexed.
+     */
+    @Nullable
+    public String get(String id) throws IOException {
+        List<String> sources = search(new TermQuery(new Term(LuceneMapping.ID, id)), 0, 1, null).getSources();
+        return sources.isEmpty() ? null : sources.get(0);
+    }
+
+    /**
+     * @return the number of documents matching a query.
+     */
+    public long count(Query query) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return searcher.count(query);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * @return the number of documents.
+     */
+    public long count() throws IOException {
+        return count(new MatchAllDocsQuery());
+    }
+
+    /**
+     * Search a page of the documents matching a query.
+     *
+     * @param query the query.
+     * @param from the number of hits to skip.
+     * @param size the maximum number of hits to return.
+     * @param sort the order of the hits, or {@code null} to sort them by score, then by {@code _id}.
+     * @return the hits, with the total number of hits.
+     */
+    public Hits search(Query query, int from, int size, @Nullable org.springframework.data.domain.Sort sort) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return hits(searcher, searcher.search(query, Math.max(1, from + size), sort(sort)), from);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Search the documents matching a query following a cursor, in {@code _id} order.
+     *
+     * @param query the query.
+     * @param after the id of the last document already read, or {@code null} to start from the first hit.
+     * @param size the maximum number of hits to return.
+     * @return the hits.
+     */
+    public Hits searchAfter(Query query, @Nullable String after, int size) throws IOException {
+        Query filtered = query;
+        if (after != null) {
+            filtered = new BooleanQuery.Builder()
+                .add(query, BooleanClause.Occur.MUST)
+                .add(TermRangeQuery.newStringRange(LuceneMapping.ID, after, null, false, false), BooleanClause.Occur.FILTER)
+                .build();
+        }
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return hits(searcher, searcher.search(filtered, Math.max(1, size), new Sort(new SortField(LuceneMapping.ID, SortField.Type.STRING))), 0);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Build a query of the documents like a source, other than its own document, by the most significant terms of
+     * some of its fields, as the Elasticsearch {@code more_like_this} query does with its default parameters.
+     *
+     * @param id the id of the document of the source.
+     * @param source the source.
+     * @param fields the compared fields, or {@code null} or empty to compare the default fields.
+     * @return the query.
+     */
+    public Query moreLikeThis(String id, JsonObject source, @Nullable String[] fields) throws IOException {
+        String[] likeFields = fields == null || fields.length == 0 ? mapping.getDefaultFields() : fields;
+        Map<String, Collection<Object>> values = new HashMap<>();
+        for (String field : likeFields) {
+            List<Object> fieldValues = new ArrayList<>();
+            collectValues(source, field.split("\\."), 0, fieldValues);
+            values.put(field, fieldValues);
+        }
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            MoreLikeThis moreLikeThis = new MoreLikeThis(searcher.getIndexReader());
+            moreLikeThis.setAnalyzer(mapping.getSearchAnalyzer());
+            moreLikeThis.setFieldNames(likeFields);
+            return new BooleanQuery.Builder()
+                .add(moreLikeThis.like(values), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(LuceneMapping.ID, id)), BooleanClause.Occur.MUST_NOT)
+                .build();
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Count the documents matching a query by the values of some fields, from their doc values.
+     *
+     * @param query the query.
+     * @param fields the counted fields, by the name of their counts.
+     * @param size the maximum number of values counted for each field, the most frequent first.
+     * @return the number of documents matching the query having each value, in decreasing order, by name.
+     */
+    public Map<String, Map<String, Long>> countTerms(Query query, Map<String, String> fields, int size) throws IOException {
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                if (!mapping.hasDocValues(field.getValue())) {
+                    throw new IllegalArgumentException("Cannot count the terms of " + field.getValue() + " of " + name
+                        + ", it has no doc values");
+                }
+                TermCounter counter = new TermCounter(field.getValue());
+                searcher.search(query, counter);
+                Map<String, Long> values = new LinkedHashMap<>();
+                counter.counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(size)
+                    .forEach(count -> values.put(count.getKey(), count.getValue()));
+                counts.put(field.getKey(), values);
+            }
+            return counts;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private static void collectValues(@Nullable JsonElement element, String[] path, int depth, List<Object> values) {
+        if (element == null || element.isJsonNull()) {
+            return;
+        }
+        if (element.isJsonArray()) {
+            element.getAsJsonArray().forEach(item -> collectValues(item, path, depth, values));
+        } else if (element.isJsonObject()) {
+            if (depth < path.length) {
+                collectValues(element.getAsJsonObject().get(path[depth]), path, depth + 1, values);
+            }
+        } else if (depth == path.length) {
+            values.add(element.getAsString());
+        }
+    }
+
+    private static Hits hits(IndexSearcher searcher, TopDocs topDocs, int from) throws IOException {
+        List<String> sources = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < topDocs.scoreDocs.length; i++) {
+            Document document = searcher.doc(topDocs.scoreDocs[i].doc);
+            sources.add(document.get(LuceneMapping.SOURCE));
+            ids.add(document.get(LuceneMapping.ID));
+        }
+        return new Hits(sources, ids, topDocs.totalHits);
+    }
+
+    private Sort sort(@Nullable org.springframework.data.domain.Sort sort) {
+        List<SortField> fields = new ArrayList<>();
+        if (sort == null || sort.isUnsorted()) {
+            fields.add(SortField.FIELD_SCORE);
+        } else {
+            for (org.springframework.data.domain.Sort.Order order : sort) {
+                String property = order.getProperty();
+                boolean reverse = order.isDescending();
+                if ("id".equals(property) || LuceneMapping.ID.equals(property)) {
+                    fields.add(new SortField(LuceneMapping.ID, SortField.Type.STRING, reverse));
+                } else if ("_score".equals(property)) {
+                    fields.add(new SortField(null, SortField.Type.SCORE, !reverse));
+                } else if (mapping.hasDocValues(property)) {
+                    fields.add(new SortedSetSortField(property, reverse));
+                } else {
+                    throw new IllegalArgumentException("Cannot sort " + name + " by " + property + ", it has no doc values");
+                }
+            }
+        }
+        // hits of the same score are in a stable order, as with Elasticsearch
+        fields.add(new SortField(LuceneMapping.ID, SortField.Type.STRING));
+        return new Sort(fields.toArray(new SortField[0]));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            searcherManager.close();
+            writer.close();
+        } finally {
+            directory.close();
+        }
+    }
+
+    /**
+     * The hits of a search.
+     */
+    public static final class Hits {
+
+        private final List<String> sources;
+
+        private final List<String> ids;
+
+        private final long totalHits;
+
+        Hits(List<String> sources, List<String> ids, long totalHits) {
+            this.sources = sources;
+            this.ids = ids;
+            this.totalHits = totalHits;
+        }
+
+        public List<String> getSources() {
+            return sources;
+        }
+
+        public List<String> getIds() {
+            return ids;
+        }
+
+        public long getTotalHits() {
+            return totalHits;
+        }
+    }
+
+    /**
+     * Counts the documents collected by the values of a field, each value counted once per document.
+     */
+    private static final class TermCounter extends SimpleCollector {
+
+        private final String field;
+
+        private final Map<String, Long> counts = new HashMap<>();
+
+        private SortedSetDocValues values;
+
+        TermCounter(String field) {
+            this.field = field;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            values = DocValues.getSortedSet(context.reader(), field);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
+                    BytesRef value = values.lookupOrd(ord);
+                    counts.merge(value.utf8ToString(), 1L, Long::sum);
+                }
+            }
+        }
+
+        @Override
+        public boolean needsScores() {
+            return false;
+        }
+    }
+}
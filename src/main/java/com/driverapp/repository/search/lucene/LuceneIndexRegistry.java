@@ -0,0 +1,114 @@
+package com.driverapp.repository.search.lucene;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.config.Constants;
+import com.driverapp.repository.search.SearchIndexDefinitions;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The embedded Lucene search indices, one per indexed entity type, in {@code application.search-lucene.directory},
+ * with the settings and mapping of the entity (see {@link SearchIndexDefinitions}).
+ * <p>
+ * The indices are opened on first use, committed every {@code application.search-lucene.commit-interval}
+ * milliseconds, and committed and closed on shutdown.
+ */
+@Component
+@Profile(Constants.SPRING_PROFILE_LUCENE)
+public class LuceneIndexRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(LuceneIndexRegistry.class);
+
+    private final ApplicationProperties.SearchLucene properties;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LuceneIndex> indices = new ConcurrentHashMap<>();
+
+    public LuceneIndexRegistry(ApplicationProperties applicationProperties, ElasticsearchOperations elasticsearchOperations,
+                               MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getSearchLucene();
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param type an indexed entity type.
+     * @return the index of the entity type, opened if needed.
+     * @throws UncheckedIOException if the index cannot be opened.
+     */
+    public LuceneIndex getIndex(Class<?> type) {
+        ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchOperations.getPersistentEntityFor(type);
+        return indices.computeIfAbsent(persistentEntity.getIndexName(), name -> open(type, name, persistentEntity.getIndexType()));
+    }
+
+    private LuceneIndex open(Class<?> type, String name, String indexType) {
+        try {
+            Path path = Paths.get(properties.getDirectory(), name);
+            Files.createDirectories(path);
+            LuceneIndex index = new LuceneIndex(name, path, SearchIndexDefinitions.settings(type),
+                SearchIndexDefinitions.mapping(type, indexType), properties.getRamBufferSize());
+            Gauge.builder("driverapp.search.lucene.documents", index, LuceneIndexRegistry::documents)
+                .description("Number of documents of the embedded search index")
+                .tag("index", name)
+                .register(meterRegistry);
+            log.info("Opened the Lucene search index {} in {}", name, path.toAbsolutePath());
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the Lucene search index " + name, e);
+        }
+    }
+
+    /**
+     * Commit the writes of the open indices.
+     */
+    @Scheduled(fixedDelayString = "${application.search-lucene.commit-interval:5000}")
+    public void commit() {
+        indices.forEach((name, index) -> {
+            try {
+                index.commit();
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not commit the Lucene search index {}: {}", name, e.toString());
+            }
+        });
+    }
+
+    private static double documents(LuceneIndex index) {
+        try {
+            return index.count();
+        } catch (IOException | RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        indices.forEach((name, index) -> {
+            try {
+                index.close();
+            } catch (IOException e) {
+                log.warn("Could not close the Lucene search index {}: {}", name, e.toString());
+            }
+        });
+        indices.clear();
+    }
+}
@@ -0,0 +1,306 @@
+package com.driverapp.repository.search.lucene;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Lucene fields of an Elasticsearch mapping, and the documents of the sources it maps.
+ * <p>
+ * {@code text} fields are analyzed, with their multi-fields; {@code keyword}, {@code boolean} and {@code date} fields,
+ * and any other type, are indexed as a single term and kept in doc values to be sorted and counted, unless they are
+ * not indexed ({@code "index": false}, {@code "doc_values": false}). Objects are flattened to dotted paths, and
+ * disabled objects ({@code "enabled": false}) are not indexed. Without {@code "dynamic": false}, the unmapped values
+ * are indexed as {@code text} with a {@code keyword} multi-field, as by a dynamic mapping.
+ * <p>
+ * Each document also has its {@link #ID} and its {@link #SOURCE}, without the {@code _source.excludes}.
+ */
+final class LuceneMapping {
+
+    static final String ID = "_id";
+
+    static final String SOURCE = "_source";
+
+    private static final String TEXT = "text";
+
+    private static final String KEYWORD = "keyword";
+
+    private static final String OBJECT = "object";
+
+    private static final String NESTED = "nested";
+
+    private final LuceneAnalyzers analyzers;
+
+    private final FieldMapping root;
+
+    private final boolean dynamic;
+
+    private final List<String> sourceExcludes = new ArrayList<>();
+
+    private final Map<String, FieldMapping> fields = new ConcurrentHashMap<>();
+
+    private final Set<String> defaultFields = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private final Analyzer indexAnalyzer;
+
+    private final Analyzer searchAnalyzer;
+
+    /**
+     * @param settings the index settings, without their {@code index} prefix, or {@code null}.
+     * @param mapping the mapping, without its type, or {@code null} to map all the values dynamically.
+     */
+    LuceneMapping(@Nullable JsonObject settings, @Nullable JsonObject mapping) {
+        this.analyzers = new LuceneAnalyzers(settings);
+        JsonObject definition = mapping == null ? new JsonObject() : mapping;
+        this.dynamic = !definition.has("dynamic") || !"false".equals(definition.get("dynamic").getAsString());
+        if (definition.has(SOURCE) && definition.getAsJsonObject(SOURCE).has("excludes")) {
+            definition.getAsJsonObject(SOURCE).getAsJsonArray("excludes").forEach(path -> sourceExcludes.add(path.getAsString()));
+        }
+        this.root = new FieldMapping("", definition);
+        this.indexAnalyzer = new FieldAnalyzer(true);
+        this.searchAnalyzer = new FieldAnalyzer(false);
+    }
+
+    /**
+     * @return the analyzer of each field, to index the documents.
+     */
+    Analyzer getIndexAnalyzer() {
+        return indexAnalyzer;
+    }
+
+    /**
+     * @return the search analyzer of each field, to analyze the queries.
+     */
+    Analyzer getSearchAnalyzer() {
+        return searchAnalyzer;
+    }
+
+    /**
+     * @return the indexed fields searched by the queries naming no field, as {@code index.query.default_field: *},
+     *     without the multi-fields.
+     */
+    String[] getDefaultFields() {
+        return defaultFields.toArray(new String[0]);
+    }
+
+    /**
+     * @return whether a field is kept in doc values, to be sorted and counted.
+     */
+    boolean hasDocValues(String path) {
+        FieldMapping field = fields.get(path);
+        return field != null && field.docValues;
+    }
+
+    /**
+     * @param id the id of the document.
+     * @param source the source of the document.
+     * @return the document of the source.
+     */
+    Document document(String id, JsonObject source) {
+        Document document = new Document();
+        document.add(new StringField(ID, id, Field.Store.YES));
+        document.add(new SortedDocValuesField(ID, new BytesRef(id)));
+        addObject(document, root, source);
+        document.add(new StoredField(SOURCE, storedSource(source).toString()));
+        return document;
+    }
+
+    private void addObject(Document document, FieldMapping object, JsonObject value) {
+        for (Map.Entry<String, JsonElement> entry : value.entrySet()) {
+            FieldMapping field = object.properties.get(entry.getKey());
+            if (field == null && dynamic && object.enabled) {
+                field = object.dynamicField(entry.getKey(), entry.getValue());
+            }
+            if (field != null && field.enabled) {
+                addValue(document, field, entry.getValue());
+            }
+        }
+    }
+
+    private void addValue(Document document, FieldMapping field, JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return;
+        }
+        if (value.isJsonArray()) {
+            value.getAsJsonArray().forEach(element -> addValue(document, field, element));
+        } else if (value.isJsonObject()) {
+            if (field.isObject()) {
+                addObject(document, field, value.getAsJsonObject());
+            }
+        } else if (!field.isObject()) {
+            String text = value.getAsString();
+            addLeaf(document, field, text);
+            field.multiFields.values().forEach(multiField -> addLeaf(document, multiField, text));
+        }
+    }
+
+    private static void addLeaf(Document document, FieldMapping field, String value) {
+        if (field.indexed) {
+            document.add(TEXT.equals(field.type) ? new TextField(field.path, value, Field.Store.NO)
+                : new StringField(field.path, value, Field.Store.NO));
+        }
+        if (field.docValues) {
+            document.add(new SortedSetDocValuesField(field.path, new BytesRef(value)));
+        }
+    }
+
+    private JsonObject storedSource(JsonObject source) {
+        if (sourceExcludes.isEmpty()) {
+            return source;
+        }
+        JsonObject stored = source.deepCopy();
+        for (String exclude : sourceExcludes) {
+            remove(stored, exclude.split("\\."), 0);
+        }
+        return stored;
+    }
+
+    private static void remove(JsonElement element, String[] path, int depth) {
+        if (element == null || element.isJsonNull()) {
+            return;
+        }
+        if (element.isJsonArray()) {
+            element.getAsJsonArray().forEach(item -> remove(item, path, depth));
+        } else if (element.isJsonObject()) {
+            if (depth == path.length - 1) {
+                element.getAsJsonObject().remove(path[depth]);
+            } else {
+                remove(element.getAsJsonObject().get(path[depth]), path, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * A mapped field or object, with its multi-fields or properties.
+     */
+    private final class FieldMapping {
+
+        private final String path;
+
+        @Nullable
+        private final String type;
+
+        private final boolean enabled;
+
+        private final boolean indexed;
+
+        private final boolean docValues;
+
+        @Nullable
+        private final String analyzer;
+
+        @Nullable
+        private final String searchAnalyzer;
+
+        private final Map<String, FieldMapping> properties = new ConcurrentHashMap<>();
+
+        private final Map<String, FieldMapping> multiFields = new LinkedHashMap<>();
+
+        FieldMapping(String path, JsonObject definition) {
+            this(path, definition, false);
+        }
+
+        private FieldMapping(String path, JsonObject definition, boolean multiField) {
+            this.path = path;
+            String mappedType = definition.has("type") ? definition.get("type").getAsString() : OBJECT;
+            this.type = OBJECT.equals(mappedType) || NESTED.equals(mappedType) ? null : mappedType;
+            this.enabled = !definition.has("enabled") || definition.get("enabled").getAsBoolean();
+            this.indexed = type != null && (!definition.has("index") || definition.get("index").getAsBoolean());
+            this.docValues = type != null && !TEXT.equals(type)
+                && (!definition.has("doc_values") || definition.get("doc_values").getAsBoolean());
+            this.analyzer = definition.has("analyzer") ? definition.get("analyzer").getAsString() : null;
+            this.searchAnalyzer = definition.has("search_analyzer") ? definition.get("search_analyzer").getAsString() : analyzer;
+            if (definition.has("properties")) {
+                for (Map.Entry<String, JsonElement> property : definition.getAsJsonObject("properties").entrySet()) {
+                    properties.put(property.getKey(), new FieldMapping(child(property.getKey()), property.getValue().getAsJsonObject()));
+                }
+            }
+            if (definition.has("fields")) {
+                for (Map.Entry<String, JsonElement> field : definition.getAsJsonObject("fields").entrySet()) {
+                    multiFields.put(field.getKey(), new FieldMapping(child(field.getKey()), field.getValue().getAsJsonObject(), true));
+                }
+            }
+            if (type != null) {
+                fields.put(path, this);
+                if (indexed && !multiField) {
+                    defaultFields.add(path);
+                }
+            }
+        }
+
+        boolean isObject() {
+            return type == null;
+        }
+
+        /**
+         * The mapping of an unmapped value, as Elasticsearch maps it dynamically: as an object, or as {@code text}
+         * with a {@code keyword} multi-field.
+         */
+        FieldMapping dynamicField(String name, JsonElement value) {
+            return properties.computeIfAbsent(name, key -> {
+                JsonElement first = value.isJsonArray() && value.getAsJsonArray().size() > 0 ? value.getAsJsonArray().get(0) : value;
+                if (first.isJsonObject()) {
+                    JsonObject object = new JsonObject();
+                    object.add("properties", new JsonObject());
+                    return new FieldMapping(child(key), object);
+                }
+                JsonObject keyword = new JsonObject();
+                keyword.addProperty("type", KEYWORD);
+                JsonObject multiFields = new JsonObject();
+                multiFields.add(KEYWORD, keyword);
+                JsonObject definition = new JsonObject();
+                definition.addProperty("type", TEXT);
+                definition.add("fields", multiFields);
+                return new FieldMapping(child(key), definition);
+            });
+        }
+
+        private String child(String name) {
+            return path.isEmpty() ? name : path + "." + name;
+        }
+    }
+
+    /**
+     * The index or search analyzer of each field: the named analyzer of the {@code text} fields, the {@code keyword}
+     * analyzer of the others, the {@code standard} analyzer of the unmapped fields.
+     */
+    private final class FieldAnalyzer extends DelegatingAnalyzerWrapper {
+
+        private final boolean index;
+
+        FieldAnalyzer(boolean index) {
+            super(PER_FIELD_REUSE_STRATEGY);
+            this.index = index;
+        }
+
+        @Override
+        protected Analyzer getWrappedAnalyzer(String path) {
+            FieldMapping field = fields.get(path);
+            if (field == null) {
+                return analyzers.get(ID.equals(path) ? LuceneAnalyzers.KEYWORD : LuceneAnalyzers.STANDARD);
+            }
+            if (!TEXT.equals(field.type)) {
+                return analyzers.get(LuceneAnalyzers.KEYWORD);
+            }
+            return analyzers.get(index ? field.analyzer : field.searchAnalyzer);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.driverapp.repository.search.lucene;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.IdsQueryBuilder;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.PrefixQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.index.query.WildcardQueryBuilder;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Translates the Elasticsearch queries built by the services to Lucene queries on the fields of a
+ * {@link LuceneMapping}.
+ * <p>
+ * Only the queries the services build are supported: {@code match_all}, {@code query_string}, {@code multi_match},
+ * {@code match}, {@code bool}, {@code term}, {@code terms}, {@code ids}, {@code prefix}, {@code wildcard} and
+ * {@code range} on strings. {@code multi_match} queries match each term in any of the fields, as the
+ * {@code cross_fields} type.
+ */
+final class LuceneQueryTranslator {
+
+    private final LuceneMapping mapping;
+
+    LuceneQueryTranslator(LuceneMapping mapping) {
+        this.mapping = mapping;
+    }
+
+    /**
+     * @param query an Elasticsearch query, or {@code null} to match all the documents.
+     * @return the Lucene query.
+     * @throws IllegalArgumentException if the query is not supported, or cannot be parsed.
+     */
+    Query translate(@Nullable QueryBuilder query) {
+        if (query == null || query instanceof MatchAllQueryBuilder) {
+            return new MatchAllDocsQuery();
+        }
+        if (query instanceof QueryStringQueryBuilder) {
+            return queryString((QueryStringQueryBuilder) query);
+        }
+        if (query instanceof MultiMatchQueryBuilder) {
+            MultiMatchQueryBuilder multiMatch = (MultiMatchQueryBuilder) query;
+            Collection<String> fields = multiMatch.fields().isEmpty()
+                ? Arrays.asList(mapping.getDefaultFields()) : multiMatch.fields().keySet();
+            return analyzed(fields, String.valueOf(multiMatch.value()), multiMatch.operator());
+        }
+        if (query instanceof MatchQueryBuilder) {
+            MatchQueryBuilder match = (MatchQueryBuilder) query;
+            return analyzed(Collections.singleton(match.fieldName()), String.valueOf(match.value()), match.operator());
+        }
+        if (query instanceof BoolQueryBuilder) {
+            return bool((BoolQueryBuilder) query);
+        }
+        if (query instanceof TermQueryBuilder) {
+            TermQueryBuilder term = (TermQueryBuilder) query;
+            return new TermQuery(new Term(field(term.fieldName()), String.valueOf(term.value())));
+        }
+        if (query instanceof TermsQueryBuilder) {
+            TermsQueryBuilder terms = (TermsQueryBuilder) query;
+            return new TermInSetQuery(field(terms.fieldName()), terms.values().stream()
+                .map(value -> new BytesRef(String.valueOf(value))).collect(Collectors.toList()));
+        }
+        if (query instanceof IdsQueryBuilder) {
+            return new TermInSetQuery(LuceneMapping.ID, ((IdsQueryBuilder) query).ids().stream()
+                .map(BytesRef::new).collect(Collectors.toList()));
+        }
+        if (query instanceof PrefixQueryBuilder) {
+            PrefixQueryBuilder prefix = (PrefixQueryBuilder) query;
+            return new PrefixQuery(new Term(field(prefix.fieldName()), prefix.value()));
+        }
+        if (query instanceof WildcardQueryBuilder) {
+            WildcardQueryBuilder wildcard = (WildcardQueryBuilder) query;
+            return new WildcardQuery(new Term(field(wildcard.fieldName()), wildcard.value()));
+        }
+        if (query instanceof RangeQueryBuilder) {
+            RangeQueryBuilder range = (RangeQueryBuilder) query;
+            return TermRangeQuery.newStringRange(field(range.fieldName()),
+                range.from() == null ? null : String.valueOf(range.from()), range.to() == null ? null : String.valueOf(range.to()),
+                range.includeLower(), range.includeUpper());
+        }
+        throw new IllegalArgumentException("Unsupported query " + query.getName() + " for the Lucene search index");
+    }
+
+    private Query queryString(QueryStringQueryBuilder query) {
+        String[] fields = query.defaultField() != null ? new String[]{field(query.defaultField())}
+            : !query.fields().isEmpty() ? query.fields().keySet().stream().map(LuceneQueryTranslator::field).toArray(String[]::new)
+            : mapping.getDefaultFields();
+        QueryParser parser = new MultiFieldQueryParser(fields, mapping.getSearchAnalyzer());
+        parser.setDefaultOperator(query.defaultOperator() == Operator.AND ? QueryParser.Operator.AND : QueryParser.Operator.OR);
+        parser.setAllowLeadingWildcard(true);
+        try {
+            return parser.parse(query.queryString());
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Failed to parse query [" + query.queryString() + "]", e);
+        }
+    }
+
+    /**
+     * Each term of the text, as analyzed by the search analyzer of each field, matching any of the fields.
+     */
+    private Query analyzed(Collection<String> fieldNames, String text, Operator operator) {
+        List<List<Term>> termsByPosition = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            String field = field(fieldName);
+            List<String> tokens = analyze(mapping.getSearchAnalyzer(), field, text);
+            for (int i = 0; i < tokens.size(); i++) {
+                if (termsByPosition.size() == i) {
+                    termsByPosition.add(new ArrayList<>());
+                }
+                termsByPosition.get(i).add(new Term(field, tokens.get(i)));
+            }
+        }
+        if (termsByPosition.isEmpty()) {
+            return new MatchNoDocsQuery();
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (List<Term> terms : termsByPosition) {
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            terms.forEach(term -> anyField.add(new TermQuery(term), BooleanClause.Occur.SHOULD));
+            query.add(anyField.build(), operator == Operator.AND ? BooleanClause.Occur.MUST : BooleanClause.Occur.SHOULD);
+        }
+        return query.build();
+    }
+
+    private Query bool(BoolQueryBuilder bool) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        bool.must().forEach(clause -> query.add(translate(clause), BooleanClause.Occur.MUST));
+        bool.filter().forEach(clause -> query.add(translate(clause), BooleanClause.Occur.FILTER));
+        bool.should().forEach(clause -> query.add(translate(clause), BooleanClause.Occur.SHOULD));
+        bool.mustNot().forEach(clause -> query.add(translate(clause), BooleanClause.Occur.MUST_NOT));
+        if (bool.must().isEmpty() && bool.filter().isEmpty() && bool.should().isEmpty()) {
+            // a query of only negative clauses matches nothing in Lucene
+            query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    /**
+     * The Lucene field of a field name, without its boost.
+     */
+    private static String field(String name) {
+        int boost = name.indexOf('^');
+        return boost < 0 ? name : name.substring(0, boost);
+    }
+
+    private static List<String> analyze(Analyzer analyzer, String field, String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,58 @@
+package com.driverapp.repository.search.lucene;
+
+import com.driverapp.config.Constants;
+import com.driverapp.repository.search.SearchIndexWrite;
+import com.driverapp.repository.search.SearchIndexWriter;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SearchIndexWriter} writing to the embedded Lucene indices, applying the writes of each index at once.
+ */
+@Component
+@Profile(Constants.SPRING_PROFILE_LUCENE)
+public class LuceneSearchIndexWriter implements SearchIndexWriter {
+
+    private final LuceneIndexRegistry luceneIndexRegistry;
+
+    public LuceneSearchIndexWriter(LuceneIndexRegistry luceneIndexRegistry) {
+        this.luceneIndexRegistry = luceneIndexRegistry;
+    }
+
+    @Override
+    public List<String> write(List<SearchIndexWrite> writes) throws IOException {
+        Map<Class<?>, List<Integer>> positionsByType = new LinkedHashMap<>();
+        for (int i = 0; i < writes.size(); i++) {
+            positionsByType.computeIfAbsent(writes.get(i).getEntityType(), type -> new ArrayList<>()).add(i);
+        }
+        String[] errors = new String[writes.size()];
+        for (Map.Entry<Class<?>, List<Integer>> positions : positionsByType.entrySet()) {
+            LuceneIndex index = luceneIndexRegistry.getIndex(positions.getKey());
+            List<SearchIndexWrite> indexWrites = new ArrayList<>();
+            for (int position : positions.getValue()) {
+                SearchIndexWrite write = writes.get(position);
+                if (write.getIndex().equals(index.getName())) {
+                    indexWrites.add(write);
+                } else {
+                    errors[position] = "No Lucene search index " + write.getIndex();
+                }
+            }
+            List<String> indexErrors = index.write(indexWrites);
+            int written = 0;
+            for (int position : positions.getValue()) {
+                if (errors[position] == null) {
+                    errors[position] = indexErrors.get(written++);
+                }
+            }
+        }
+        return Arrays.asList(errors);
+    }
+}
@@ -0,0 +1,343 @@
+package com.driverapp.repository.search.lucene;
+
+import com.driverapp.repository.KeysetSlice;
+import com.driverapp.repository.search.SearchAfterRepository;
+import com.driverapp.repository.search.SearchIndexWrite;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.query.SearchQuery;
+import org.springframework.data.elasticsearch.repository.support.ElasticsearchEntityInformation;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base class of the search repositories on the embedded Lucene indices, implementing {@link SearchAfterRepository}
+ * as {@link com.driverapp.repository.search.SearchAfterElasticsearchRepository} does on Elasticsearch.
+ * <p>
+ * The Elasticsearch queries are translated by {@link LuceneQueryTranslator}. Searches read the whole sources of the
+ * hits, whatever the projection, as the stored source of a document is read at once. Writes are visible to the
+ * searches as soon as they return, as if every request refreshed the index. Similar entities are searched by the
+ * Lucene {@code MoreLikeThis} query, which the Elasticsearch {@code more_like_this} query is built on.
+ *
+ * @param <T> the type of the entities.
+ */
+public class LuceneSearchRepository<T> implements SearchAfterRepository<T> {
+
+    /**
+     * The number of hits read by each search of {@link #streamSearchAfter}.
+     */
+    static final int STREAM_SLICE_SIZE = 1000;
+
+    private final ElasticsearchEntityInformation<T, String> entityInformation;
+
+    private final LuceneIndex index;
+
+    private final EntityMapper entityMapper;
+
+    public LuceneSearchRepository(ElasticsearchEntityInformation<T, String> entityInformation, LuceneIndex index,
+                                  EntityMapper entityMapper) {
+        this.entityInformation = entityInformation;
+        this.index = index;
+        this.entityMapper = entityMapper;
+    }
+
+    @Override
+    public <S extends T> S index(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        saveAll(Collections.singletonList(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends T> Iterable<S> saveAll(Iterable<S> entities) {
+        List<SearchIndexWrite> writes = new ArrayList<>();
+        for (S entity : entities) {
+            String id = entityInformation.getId(entity);
+            Assert.notNull(id, "Cannot index an entity without id in " + index.getName());
+            try {
+                writes.add(new SearchIndexWrite(getEntityClass(), index.getName(), entityInformation.getType(), id,
+                    entityMapper.mapToString(entity)));
+            } catch (IOException e) {
+                throw new ElasticsearchException("Failed to serialize " + index.getName() + " " + id, e);
+            }
+        }
+        write(writes);
+        return entities;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        try {
+            return Optional.ofNullable(index.get(id)).map(source -> read(source, id));
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to read " + index.getName() + " " + id, e);
+        }
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public Iterable<T> findAll() {
+        return findAll(Sort.unsorted());
+    }
+
+    @Override
+    public Iterable<T> findAll(Sort sort) {
+        return search(QueryBuilders.matchAllQuery(), 0, Integer.MAX_VALUE, sort).getContent();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return search(QueryBuilders.matchAllQuery(), pageable);
+    }
+
+    @Override
+    public Iterable<T> findAllById(Iterable<String> ids) {
+        List<String> idList = StreamSupport.stream(ids.spliterator(), false).collect(Collectors.toList());
+        if (idList.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return search(QueryBuilders.idsQuery().addIds(idList.toArray(new String[0])), 0, idList.size(), null).getContent();
+    }
+
+    @Override
+    public long count() {
+        try {
+            return index.count();
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to count " + index.getName(), e);
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        write(Collections.singletonList(new SearchIndexWrite(getEntityClass(), index.getName(), entityInformation.getType(), id, null)));
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(entityInformation.getRequiredId(entity));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        List<SearchIndexWrite> writes = new ArrayList<>();
+        for (T entity : entities) {
+            writes.add(new SearchIndexWrite(getEntityClass(), index.getName(), entityInformation.getType(),
+                entityInformation.getRequiredId(entity), null));
+        }
+        write(writes);
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            index.deleteAll();
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to delete all of " + index.getName(), e);
+        }
+    }
+
+    @Override
+    public Iterable<T> search(QueryBuilder query) {
+        return search(query, 0, Integer.MAX_VALUE, null).getContent();
+    }
+
+    @Override
+    public Page<T> search(QueryBuilder query, Pageable pageable) {
+        return search(query, pageable, null);
+    }
+
+    @Override
+    public Page<T> search(SearchQuery searchQuery) {
+        Query query = index.getQueryTranslator().translate(searchQuery.getQuery());
+        if (searchQuery.getFilter() != null) {
+            query = new BooleanQuery.Builder()
+                .add(query, BooleanClause.Occur.MUST)
+                .add(index.getQueryTranslator().translate(searchQuery.getFilter()), BooleanClause.Occur.FILTER)
+                .build();
+        }
+        return page(query, searchQuery.getPageable());
+    }
+
+    @Override
+    public Page<T> searchSimilar(T entity, String[] fields, Pageable pageable) {
+        String id = entityInformation.getRequiredId(entity);
+        Query query;
+        try {
+            JsonObject source = new JsonParser().parse(entityMapper.mapToString(entity)).getAsJsonObject();
+            query = index.moreLikeThis(id, source, fields);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to search " + index.getName() + " like " + id, e);
+        }
+        return page(query, pageable);
+    }
+
+    @Override
+    public void refresh() {
+        // every write is already searchable
+    }
+
+    @Override
+    public Class<T> getEntityClass() {
+        return entityInformation.getJavaType();
+    }
+
+    @Override
+    public Page<T> search(QueryBuilder query, Pageable pageable, @Nullable Class<?> projection) {
+        return page(index.getQueryTranslator().translate(query), pageable);
+    }
+
+    @Override
+    public KeysetSlice<T> searchAfter(QueryBuilder query, @Nullable String after, int size, @Nullable Class<?> projection) {
+        LuceneIndex.Hits hits;
+        try {
+            hits = index.searchAfter(index.getQueryTranslator().translate(query), after, size + 1);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to search " + index.getName() + " after " + after, e);
+        }
+        List<T> content = new ArrayList<>();
+        for (int i = 0; i < hits.getSources().size() && i < size; i++) {
+            content.add(read(hits.getSources().get(i), hits.getIds().get(i)));
+        }
+        return new KeysetSlice<>(content, hits.getSources().size() > size ? hits.getIds().get(size - 1) : null);
+    }
+
+    @Override
+    public CloseableIterator<T> streamSearchAfter(QueryBuilder query, @Nullable String after, @Nullable Class<?> projection) {
+        return new SearchAfterIterator(query, after);
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> countTerms(QueryBuilder query, Map<String, String> fields, int size) {
+        try {
+            return index.countTerms(index.getQueryTranslator().translate(query), fields, size);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to search " + index.getName() + " terms of " + fields.values(), e);
+        }
+    }
+
+    private Page<T> page(Query query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return search(query, 0, Integer.MAX_VALUE, pageable.getSort());
+        }
+        PageImpl<T> page = search(query, (int) pageable.getOffset(), pageable.getPageSize(), pageable.getSort());
+        return new PageImpl<>(page.getContent(), pageable, page.getTotalElements());
+    }
+
+    private PageImpl<T> search(QueryBuilder query, int from, int size, @Nullable Sort sort) {
+        return search(index.getQueryTranslator().translate(query), from, size, sort);
+    }
+
+    private PageImpl<T> search(Query query, int from, int size, @Nullable Sort sort) {
+        LuceneIndex.Hits hits;
+        try {
+            // a search of all the hits reads at most all the documents
+            hits = index.search(query, from, (int) Math.min(size, index.count()), sort);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to search " + index.getName() + " for " + query, e);
+        }
+        List<T> content = new ArrayList<>();
+        for (int i = 0; i < hits.getSources().size(); i++) {
+            content.add(read(hits.getSources().get(i), hits.getIds().get(i)));
+        }
+        return new PageImpl<>(content, Pageable.unpaged(), hits.getTotalHits());
+    }
+
+    private void write(List<SearchIndexWrite> writes) {
+        List<String> errors;
+        try {
+            errors = index.write(writes);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to write to " + index.getName(), e);
+        }
+        for (int i = 0; i < errors.size(); i++) {
+            if (errors.get(i) != null) {
+                throw new ElasticsearchException("Failed to apply the " + writes.get(i) + ": " + errors.get(i));
+            }
+        }
+    }
+
+    private T read(String source, String id) {
+        try {
+            return entityMapper.mapToObject(source, getEntityClass());
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to read " + index.getName() + " " + id, e);
+        }
+    }
+
+    /**
+     * Reads the hits by slices of {@link #STREAM_SLICE_SIZE}, searching the next slice after the last hit read.
+     */
+    private class SearchAfterIterator implements CloseableIterator<T> {
+
+        private final QueryBuilder query;
+
+        private String after;
+
+        private Iterator<T> slice = Collections.emptyIterator();
+
+        private boolean last;
+
+        SearchAfterIterator(QueryBuilder query, @Nullable String after) {
+            this.query = query;
+            this.after = after;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!slice.hasNext() && !last) {
+                KeysetSlice<T> next = searchAfter(query, after, STREAM_SLICE_SIZE, null);
+                slice = next.getContent().iterator();
+                after = next.getNextCursor();
+                last = !next.hasNext();
+            }
+            return slice.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return slice.next();
+        }
+
+        @Override
+        public void close() {
+            last = true;
+            slice = Collections.emptyIterator();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.driverapp.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings, safe for concurrent use without locks.
+ * <p>
+ * {@link #mightContain} never returns {@code false} for a string which was added, and returns {@code true} for a
+ * string which was not with about the false positive probability the filter was sized for, as long as it holds
+ * at most the expected number of strings.
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int MAX_HASH_FUNCTIONS = 16;
+
+    private final AtomicLongArray words;
+
+    private final long mask;
+
+    private final int hashFunctions;
+
+    /**
+     * Create an empty filter.
+     *
+     * @param expectedInsertions the expected number of strings.
+     * @param falsePositiveProbability the false positive probability, between 0 and 1 exclusive.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        long n = Math.max(1, expectedInsertions);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        // A power of two, of at least one word, so that the index of a bit is a mask
+        long bits = Math.max(Long.SIZE, Long.highestOneBit(Math.max(1, optimalBits - 1)) << 1);
+        this.words = new AtomicLongArray((int) (bits / Long.SIZE));
+        this.mask = bits - 1;
+        this.hashFunctions = (int) Math.max(1, Math.min(MAX_HASH_FUNCTIONS, Math.round((double) bits / n * Math.log(2))));
+    }
+
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 + FNV_OFFSET_BASIS) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (hash1 + i * hash2) & mask;
+            long word = 1L << bit;
+            int index = (int) (bit >>> 6);
+            if ((words.get(index) & word) == 0) {
+                words.accumulateAndGet(index, word, (current, set) -> current | set);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 + FNV_OFFSET_BASIS) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (hash1 + i * hash2) & mask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The finalizer of SplitMix64, spreading the bits of the FNV-1a hash.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
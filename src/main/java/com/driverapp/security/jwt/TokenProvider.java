@@ -3,11 +3,14 @@ package com.driverapp.security.jwt;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.lang.Nullable;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -28,6 +31,11 @@ public class TokenProvider implements InitializingBean {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    /**
+     * Maximum number of distinct authority sets shared by the authentications.
+     */
+    private static final int MAX_AUTHORITY_SETS = 1024;
+
     private Key key;
 
     private long tokenValidityInMilliseconds;
@@ -36,6 +44,8 @@ public class TokenProvider implements InitializingBean {
 
     private final JHipsterProperties jHipsterProperties;
 
+    private final ConcurrentMap<String, List<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
     public TokenProvider(JHipsterProperties jHipsterProperties) {
         this.jHipsterProperties = jHipsterProperties;
     }
@@ -74,7 +84,9 @@ public class TokenProvider implements InitializingBean {
         }
 
         return Jwts.builder()
+            .setId(UUID.randomUUID().toString())
             .setSubject(authentication.getName())
+            .setIssuedAt(new Date(now))
             .claim(AUTHORITIES_KEY, authorities)
             .signWith(key, SignatureAlgorithm.HS512)
             .setExpiration(validity)
@@ -82,15 +94,18 @@ public class TokenProvider implements InitializingBean {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-            .setSigningKey(key)
-            .parseClaimsJws(token)
-            .getBody();
+        return getAuthentication(parseClaims(token), token);
+    }
 
-        Collection<? extends GrantedAuthority> authorities =
-            Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+    /**
+     * Build the authentication of a verified token, sharing the authorities of the tokens with the same claim.
+     *
+     * @param claims the claims of the token, from {@link #verifyToken}.
+     * @param token the token.
+     * @return the authentication.
+     */
+    public Authentication getAuthentication(Claims claims, String token) {
+        Collection<? extends GrantedAuthority> authorities = getAuthorities(claims.get(AUTHORITIES_KEY).toString());
 
         User principal = new User(claims.getSubject(), "", authorities);
 
@@ -98,9 +113,19 @@ public class TokenProvider implements InitializingBean {
     }
 
     public boolean validateToken(String authToken) {
+        return verifyToken(authToken) != null;
+    }
+
+    /**
+     * Parse a token and verify its signature and expiration, once.
+     *
+     * @param authToken the token.
+     * @return the claims of the token, or {@code null} if it is not valid.
+     */
+    @Nullable
+    public Claims verifyToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(key).parseClaimsJws(authToken);
-            return true;
+            return parseClaims(authToken);
         } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
             log.info("Invalid JWT signature.");
             log.trace("Invalid JWT signature trace: {}", e);
@@ -114,6 +139,29 @@ public class TokenProvider implements InitializingBean {
             log.info("JWT token compact of handler are invalid.");
             log.trace("JWT token compact of handler are invalid trace: {}", e);
         }
-        return false;
+        return null;
+    }
+
+    private Claims parseClaims(String token) {
+        return Jwts.parser()
+            .setSigningKey(key)
+            .parseClaimsJws(token)
+            .getBody();
+    }
+
+    private List<GrantedAuthority> getAuthorities(String claim) {
+        List<GrantedAuthority> authorities = authoritySets.get(claim);
+        if (authorities == null) {
+            authorities = Collections.unmodifiableList(Arrays.stream(claim.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList()));
+            if (authoritySets.size() < MAX_AUTHORITY_SETS) {
+                List<GrantedAuthority> previous = authoritySets.putIfAbsent(claim, authorities);
+                if (previous != null) {
+                    authorities = previous;
+                }
+            }
+        }
+        return authorities;
     }
 }
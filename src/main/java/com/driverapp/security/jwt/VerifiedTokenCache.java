@@ -0,0 +1,174 @@
+package com.driverapp.security.jwt;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.service.TokenRevocationService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the authentications of the verified tokens, so that a token is parsed and verified once, and not on
+ * every request.
+ * <p>
+ * The cache is keyed by the SHA-256 digest of the tokens, holds at most {@code application.jwt-cache.max-entries}
+ * of them, and drops each one when its token expires. Invalid tokens are not cached. The cached authentications
+ * are shared by the requests, and must not be modified.
+ * <p>
+ * Every token, cached or not, is checked against the revocations of the {@link TokenRevocationService}, in memory.
+ * <p>
+ * The cache is monitored as the {@code verifiedTokens} cache, and the tokens verified as the
+ * {@code driverapp.jwt.verifications} counters.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final TokenProvider tokenProvider;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final Cache<TokenDigest, VerifiedToken> tokens;
+
+    private final Counter validCounter;
+
+    private final Counter invalidCounter;
+
+    public VerifiedTokenCache(TokenProvider tokenProvider, TokenRevocationService tokenRevocationService,
+                              ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.tokenProvider = tokenProvider;
+        this.tokenRevocationService = tokenRevocationService;
+        this.tokens = Caffeine.newBuilder()
+            .maximumSize(applicationProperties.getJwtCache().getMaxEntries())
+            .expireAfter(new Expiry<TokenDigest, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(TokenDigest key, VerifiedToken value, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expirationTime - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, value, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "verifiedTokens");
+        this.validCounter = meterRegistry.counter("driverapp.jwt.verifications", "result", "valid");
+        this.invalidCounter = meterRegistry.counter("driverapp.jwt.verifications", "result", "invalid");
+    }
+
+    /**
+     * Get the authentication of a token.
+     *
+     * @param token the token.
+     * @return the authentication, or {@code null} if the token is not valid or was revoked.
+     */
+    @Nullable
+    public Authentication getAuthentication(String token) {
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken verified = tokens.getIfPresent(digest);
+        if (verified == null) {
+            Claims claims = tokenProvider.verifyToken(token);
+            if (claims == null) {
+                invalidCounter.increment();
+                return null;
+            }
+            validCounter.increment();
+            verified = new VerifiedToken(tokenProvider.getAuthentication(claims, token), claims);
+            if (claims.getExpiration() != null) {
+                tokens.put(digest, verified);
+            }
+        }
+        if (tokenRevocationService.isRevoked(verified.tokenKey, verified.subjectKey, verified.issuedAt)) {
+            return null;
+        }
+        return verified.authentication;
+    }
+
+    private static final class VerifiedToken {
+
+        private final Authentication authentication;
+
+        private final long expirationTime;
+
+        @Nullable
+        private final String tokenKey;
+
+        private final String subjectKey;
+
+        @Nullable
+        private final Date issuedAt;
+
+        VerifiedToken(Authentication authentication, Claims claims) {
+            this.authentication = authentication;
+            this.expirationTime = claims.getExpiration() == null ? 0 : claims.getExpiration().getTime();
+            this.tokenKey = TokenRevocationService.tokenKey(claims.getId());
+            this.subjectKey = TokenRevocationService.subjectKey(claims.getSubject());
+            this.issuedAt = claims.getIssuedAt();
+        }
+    }
+
+    /**
+     * The first 128 bits of the SHA-256 digest of a token.
+     */
+    private static final class TokenDigest {
+
+        private final long high;
+
+        private final long low;
+
+        private TokenDigest(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        static TokenDigest of(String token) {
+            ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new TokenDigest(digest.getLong(), digest.getLong());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TokenDigest other = (TokenDigest) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high ^ low);
+        }
+    }
+}
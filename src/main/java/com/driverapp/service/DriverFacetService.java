@@ -0,0 +1,124 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.repository.search.DriverSearchRepository;
+import com.driverapp.service.dto.DriverFacetCriteria;
+import com.driverapp.service.dto.DriverSummaryDTO;
+import com.driverapp.service.mapper.DriverMapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Service for the faceted search of the drivers, counting the matching drivers by status, phone type, service type,
+ * vehicle type and heavy transport support with {@code terms} aggregations.
+ * <p>
+ * The counts are cached by filters, in a cache bounded to {@code application.search-facets.cache-max-entries} entries
+ * and {@code application.search-facets.cache-ttl} milliseconds, so that dashboards polling the same counts do not
+ * aggregate the whole index each time.
+ * <p>
+ * The cars and services of a driver are indexed as arrays of objects: the vehicle type and heavy transport filters
+ * may be matched by two different cars of a driver.
+ */
+@Service
+public class DriverFacetService {
+
+    private static final Map<String, String> FACETS;
+
+    static {
+        Map<String, String> facets = new LinkedHashMap<>();
+        facets.put("status", "status");
+        facets.put("phoneType", "phoneType");
+        facets.put("serviceType", "services.type");
+        facets.put("vehicleType", "cars.type");
+        facets.put("heavyTransport", "cars.supportHeavyTransport");
+        FACETS = Collections.unmodifiableMap(facets);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(DriverFacetService.class);
+
+    private final DriverSearchRepository driverSearchRepository;
+
+    private final DriverMapper driverMapper;
+
+    private final int maxValues;
+
+    private final Cache<DriverFacetCriteria, Map<String, Map<String, Long>>> cache;
+
+    public DriverFacetService(ApplicationProperties applicationProperties, DriverSearchRepository driverSearchRepository,
+                              DriverMapper driverMapper, MeterRegistry meterRegistry) {
+        ApplicationProperties.SearchFacets properties = applicationProperties.getSearchFacets();
+        this.driverSearchRepository = driverSearchRepository;
+        this.driverMapper = driverMapper;
+        this.maxValues = properties.getMaxValues();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getCacheMaxEntries())
+            .expireAfterWrite(properties.getCacheTtl(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "facets");
+    }
+
+    /**
+     * Search a page of the drivers matching the filters.
+     *
+     * @param criteria the filters.
+     * @param pageable the page.
+     * @return the page of drivers.
+     */
+    public Page<DriverSummaryDTO> search(DriverFacetCriteria criteria, Pageable pageable) {
+        log.debug("Request to search for a page of Drivers matching {}", criteria);
+        return driverSearchRepository.search(query(criteria), pageable, DriverSummaryDTO.class).map(driverMapper::toSummaryDto);
+    }
+
+    /**
+     * Count the drivers matching the filters by facet.
+     *
+     * @param criteria the filters.
+     * @return the number of matching drivers by value, most frequent first, by facet.
+     */
+    public Map<String, Map<String, Long>> facets(DriverFacetCriteria criteria) {
+        return cache.get(criteria, key -> {
+            log.debug("Request to count the Drivers matching {} by facet", key);
+            return driverSearchRepository.countTerms(query(key), FACETS, maxValues);
+        });
+    }
+
+    static QueryBuilder query(DriverFacetCriteria criteria) {
+        BoolQueryBuilder query = boolQuery()
+            .must(StringUtils.hasText(criteria.getQuery()) ? queryStringQuery(criteria.getQuery()) : matchAllQuery());
+        if (criteria.getStatus() != null) {
+            query.filter(termQuery(FACETS.get("status"), criteria.getStatus().name()));
+        }
+        if (criteria.getPhoneType() != null) {
+            query.filter(termQuery(FACETS.get("phoneType"), criteria.getPhoneType().name()));
+        }
+        if (criteria.getServiceType() != null) {
+            query.filter(termQuery(FACETS.get("serviceType"), criteria.getServiceType().name()));
+        }
+        if (criteria.getVehicleType() != null) {
+            query.filter(termQuery(FACETS.get("vehicleType"), criteria.getVehicleType().name()));
+        }
+        if (criteria.getHeavyTransport() != null) {
+            query.filter(termQuery(FACETS.get("heavyTransport"), criteria.getHeavyTransport().booleanValue()));
+        }
+        return query;
+    }
+}
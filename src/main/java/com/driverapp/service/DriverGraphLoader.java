@@ -0,0 +1,405 @@
+package com.driverapp.service;
+
+import com.driverapp.domain.DeviceDetails;
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.Insurance;
+import com.driverapp.domain.Location;
+import com.driverapp.domain.Services;
+import com.driverapp.domain.Vehicle;
+import com.driverapp.repository.DriverRepository;
+import com.driverapp.repository.KeysetSlice;
+import com.driverapp.repository.VehicleRepository;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Service reading {@link Driver} graphs and {@link Vehicle}s together with the documents they reference.
+ * <p>
+ * Reading them through their repositories resolves every {@code @DBRef} with its own query, so reading
+ * {@code n} drivers costs {@code 1 + n * (1 + cars + services + devices)} round trips. This service reads the
+ * raw documents instead, collects the references of all of them, and resolves them with one {@code $in}
+ * query per referenced collection.
+ * <p>
+ * In a driver graph, the references back to the driver ({@code Vehicle.driver}, {@code Services.driver} and
+ * {@code DeviceDetails.driver}) are not resolved again: like the references only exposed by their id in the DTOs,
+ * the driver and insurance of a vehicle, their entity only has its id. The graphs are trees, safe to serialize.
+ * <p>
+ * The drivers and vehicles read by id are cached: they are shared between requests, and must not be modified.
+ */
+@Service
+public class DriverGraphLoader {
+
+    /**
+     * Maximum number of ids of a single {@code $in} query.
+     */
+    static final int MAX_IDS_PER_QUERY = 1000;
+
+    /**
+     * Number of documents resolved together when streaming.
+     */
+    static final int STREAM_BATCH_SIZE = 500;
+
+    private static final String ID = "_id";
+
+    private static final String DRIVER_LOCATION = "location";
+
+    private static final String DRIVER_CARS = "car";
+
+    private static final String DRIVER_SERVICES = "services";
+
+    private static final String DRIVER_DEVICES = "devices";
+
+    private static final String VEHICLE_DRIVER = "driver";
+
+    private static final String VEHICLE_INSURANCE = "autoInsurance";
+
+    private static final String BACK_REFERENCE = "driver";
+
+    private final Logger log = LoggerFactory.getLogger(DriverGraphLoader.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MongoConverter converter;
+
+    private final String driverCollection;
+
+    private final String vehicleCollection;
+
+    public DriverGraphLoader(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.converter = mongoTemplate.getConverter();
+        this.driverCollection = mongoTemplate.getCollectionName(Driver.class);
+        this.vehicleCollection = mongoTemplate.getCollectionName(Vehicle.class);
+    }
+
+    /**
+     * Get a driver with its references resolved.
+     *
+     * @param id the id of the driver.
+     * @return the driver, if it exists.
+     */
+    @Cacheable(cacheNames = DriverRepository.DRIVERS_BY_ID_CACHE, unless = "#result == null")
+    public Optional<Driver> findDriverById(String id) {
+        List<Document> documents = mongoTemplate.find(new Query(Criteria.where(ID).is(id)), Document.class, driverCollection);
+        return readDrivers(documents).stream().findFirst();
+    }
+
+    /**
+     * Get the drivers matching a criteria, with their references resolved.
+     *
+     * @param criteria the criteria on the raw driver documents.
+     * @return the drivers.
+     */
+    public List<Driver> findDrivers(Criteria criteria) {
+        return readDrivers(mongoTemplate.find(new Query(criteria), Document.class, driverCollection));
+    }
+
+    /**
+     * Get a page of vehicles, in id order.
+     *
+     * @param after the id of the last vehicle of the previous page, or {@code null} for the first page.
+     * @param size the size of the page.
+     * @return the page of vehicles.
+     */
+    public KeysetSlice<Vehicle> findAllVehiclesAfter(@Nullable String after, int size) {
+        List<Document> documents = mongoTemplate.find(keysetQuery(after).limit(size + 1), Document.class, vehicleCollection);
+        return slice(readVehicles(documents), size, Vehicle::getId);
+    }
+
+    /**
+     * Stream all the vehicles, in id order.
+     *
+     * @param after the id of the last vehicle already read, or {@code null} to start from the first one.
+     * @return an iterator over the vehicles, to be closed after use.
+     */
+    public CloseableIterator<Vehicle> streamAllVehiclesAfter(@Nullable String after) {
+        return new BatchingIterator<>(mongoTemplate.stream(keysetQuery(after), Document.class, vehicleCollection), this::readVehicles);
+    }
+
+    /**
+     * Get a vehicle.
+     *
+     * @param id the id of the vehicle.
+     * @return the vehicle, if it exists.
+     */
+    @Cacheable(cacheNames = VehicleRepository.VEHICLES_BY_ID_CACHE, unless = "#result == null")
+    public Optional<Vehicle> findVehicleById(String id) {
+        List<Document> documents = mongoTemplate.find(new Query(Criteria.where(ID).is(id)), Document.class, vehicleCollection);
+        return readVehicles(documents).stream().findFirst();
+    }
+
+    /**
+     * Convert raw driver documents, resolving the references of all of them together.
+     *
+     * @param documents the raw driver documents.
+     * @return the drivers, in the order of the documents.
+     */
+    public List<Driver> readDrivers(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return Collections.emptyList();
+        }
+        References references = new References();
+        for (Document document : documents) {
+            references.add(document.get(DRIVER_LOCATION));
+            references.add(document.get(DRIVER_CARS));
+            references.add(document.get(DRIVER_SERVICES));
+            references.add(document.get(DRIVER_DEVICES));
+        }
+        references.load();
+
+        List<Driver> drivers = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Object location = document.remove(DRIVER_LOCATION);
+            Object cars = document.remove(DRIVER_CARS);
+            Object services = document.remove(DRIVER_SERVICES);
+            Object devices = document.remove(DRIVER_DEVICES);
+            Driver driver = converter.read(Driver.class, document);
+            Driver owner = converter.read(Driver.class, new Document(ID, document.get(ID)));
+            driver.setLocation(references.read(location, Location.class, Function.identity()));
+            driver.setCars(references.readAll(cars, Vehicle.class, car -> {
+                Object insurance = car.remove(VEHICLE_INSURANCE);
+                car.remove(VEHICLE_DRIVER);
+                Vehicle vehicle = converter.read(Vehicle.class, car);
+                vehicle.setDriver(owner);
+                vehicle.setAutoInsurance(stub(insurance, Insurance.class));
+                return vehicle;
+            }));
+            driver.setServices(references.readAll(services, Services.class, service -> {
+                service.remove(BACK_REFERENCE);
+                Services read = converter.read(Services.class, service);
+                read.setDriver(owner);
+                return read;
+            }));
+            driver.setDevices(references.readAll(devices, DeviceDetails.class, device -> {
+                device.remove(BACK_REFERENCE);
+                DeviceDetails read = converter.read(DeviceDetails.class, device);
+                read.setDriver(owner);
+                return read;
+            }));
+            drivers.add(driver);
+        }
+        return drivers;
+    }
+
+    /**
+     * Convert raw vehicle documents, without any round trip: their driver and insurance only get their id.
+     *
+     * @param documents the raw vehicle documents.
+     * @return the vehicles, in the order of the documents.
+     */
+    public List<Vehicle> readVehicles(List<Document> documents) {
+        return readWithReferenceIds(Vehicle.class, documents);
+    }
+
+    /**
+     * Convert raw documents of any entity, without any round trip: each of their references only gets its id.
+     *
+     * @param type the type of the entity.
+     * @param documents the raw documents.
+     * @param <T> the type of the entity.
+     * @return the entities, in the order of the documents.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> readWithReferenceIds(Class<T> type, List<Document> documents) {
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(type);
+        List<MongoPersistentProperty> associations = new ArrayList<>();
+        for (MongoPersistentProperty property : entity) {
+            if (property.isAssociation()) {
+                associations.add(property);
+            }
+        }
+        List<T> entities = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Map<MongoPersistentProperty, Object> references = new HashMap<>();
+            for (MongoPersistentProperty property : associations) {
+                references.put(property, document.remove(property.getFieldName()));
+            }
+            T read = converter.read(type, document);
+            PersistentPropertyAccessor accessor = entity.getPropertyAccessor(read);
+            references.forEach((property, value) -> accessor.setProperty(property, property.isCollectionLike()
+                ? stubs(value, property.getActualType())
+                : stub(value, property.getActualType())));
+            entities.add((T) accessor.getBean());
+        }
+        return entities;
+    }
+
+    /**
+     * An entity with only the id of a reference, for the references whose document is not needed.
+     */
+    @Nullable
+    private <T> T stub(@Nullable Object value, Class<T> type) {
+        if (!(value instanceof DBRef)) {
+            return null;
+        }
+        return converter.read(type, new Document(ID, ((DBRef) value).getId()));
+    }
+
+    private <T> Set<T> stubs(@Nullable Object value, Class<T> type) {
+        Set<T> stubs = new HashSet<>();
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                T stub = stub(element, type);
+                if (stub != null) {
+                    stubs.add(stub);
+                }
+            }
+        }
+        return stubs;
+    }
+
+    private static Query keysetQuery(@Nullable String after) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, ID));
+        if (after != null) {
+            query.addCriteria(Criteria.where(ID).gt(after));
+        }
+        return query;
+    }
+
+    private static <T> KeysetSlice<T> slice(List<T> content, int size, Function<T, String> idOf) {
+        if (content.size() <= size) {
+            return new KeysetSlice<>(content, null);
+        }
+        content = new ArrayList<>(content.subList(0, size));
+        return new KeysetSlice<>(content, idOf.apply(content.get(size - 1)));
+    }
+
+    private static List<List<Object>> partition(Collection<Object> ids) {
+        List<List<Object>> partitions = new ArrayList<>();
+        List<Object> partition = new ArrayList<>(Math.min(ids.size(), MAX_IDS_PER_QUERY));
+        for (Object id : ids) {
+            partition.add(id);
+            if (partition.size() == MAX_IDS_PER_QUERY) {
+                partitions.add(partition);
+                partition = new ArrayList<>(MAX_IDS_PER_QUERY);
+            }
+        }
+        if (!partition.isEmpty()) {
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    /**
+     * The references of a batch of documents, grouped by collection and loaded with one query per collection.
+     */
+    private final class References {
+
+        private final Map<String, Set<Object>> idsByCollection = new LinkedHashMap<>();
+
+        private final Map<String, Map<String, Document>> documentsByCollection = new HashMap<>();
+
+        void add(@Nullable Object value) {
+            if (value instanceof DBRef) {
+                DBRef reference = (DBRef) value;
+                idsByCollection.computeIfAbsent(reference.getCollectionName(), collection -> new LinkedHashSet<>()).add(reference.getId());
+            } else if (value instanceof Collection) {
+                for (Object element : (Collection<?>) value) {
+                    add(element);
+                }
+            }
+        }
+
+        void load() {
+            idsByCollection.forEach((collection, ids) -> {
+                Map<String, Document> documents = new HashMap<>();
+                for (List<Object> partition : partition(ids)) {
+                    for (Document document : mongoTemplate.find(new Query(Criteria.where(ID).in(partition)), Document.class, collection)) {
+                        documents.put(String.valueOf(document.get(ID)), document);
+                    }
+                }
+                log.debug("Resolved {} of {} references to {}", documents.size(), ids.size(), collection);
+                documentsByCollection.put(collection, documents);
+            });
+        }
+
+        @Nullable
+        <T> T read(@Nullable Object value, Class<T> type, Function<Document, ?> prepare) {
+            if (!(value instanceof DBRef)) {
+                return null;
+            }
+            DBRef reference = (DBRef) value;
+            Document document = documentsByCollection.getOrDefault(reference.getCollectionName(), Collections.emptyMap())
+                .get(String.valueOf(reference.getId()));
+            if (document == null) {
+                return null;
+            }
+            // each referencing document gets its own copy, the converted entities must not share state
+            Object prepared = prepare.apply(new Document(document));
+            return prepared instanceof Document ? converter.read(type, (Document) prepared) : type.cast(prepared);
+        }
+
+        <T> Set<T> readAll(@Nullable Object value, Class<T> type, Function<Document, ?> prepare) {
+            Set<T> entities = new HashSet<>();
+            if (value instanceof Collection) {
+                for (Object element : (Collection<?>) value) {
+                    T entity = read(element, type, prepare);
+                    if (entity != null) {
+                        entities.add(entity);
+                    }
+                }
+            }
+            return entities;
+        }
+    }
+
+    /**
+     * Iterator converting the raw documents of a cursor by batches of {@link #STREAM_BATCH_SIZE}.
+     */
+    private static final class BatchingIterator<T> implements CloseableIterator<T> {
+
+        private final CloseableIterator<Document> documents;
+
+        private final Function<List<Document>, List<T>> reader;
+
+        private Iterator<T> batch = Collections.emptyIterator();
+
+        BatchingIterator(CloseableIterator<Document> documents, Function<List<Document>, List<T>> reader) {
+            this.documents = documents;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!batch.hasNext() && documents.hasNext()) {
+                List<Document> next = new ArrayList<>(STREAM_BATCH_SIZE);
+                while (next.size() < STREAM_BATCH_SIZE && documents.hasNext()) {
+                    next.add(documents.next());
+                }
+                batch = reader.apply(next).iterator();
+            }
+            return batch.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.next();
+        }
+
+        @Override
+        public void close() {
+            documents.close();
+        }
+    }
+}
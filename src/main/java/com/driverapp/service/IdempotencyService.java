@@ -0,0 +1,257 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.IdempotentRequest;
+import com.driverapp.repository.IdempotentRequestRepository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service handling the requests sent with an {@code Idempotency-Key} header only once.
+ * <p>
+ * The first request with a key claims it, in memory and then in the {@link IdempotentRequest} collection, and is
+ * handled; its response is then stored in both. Retries of the request get the stored response. Retries arriving
+ * on the same node while the first request is being handled wait for its response, and those arriving on another
+ * node are told to retry later.
+ * <p>
+ * Responses are kept for {@code application.idempotency.ttl} seconds, the last
+ * {@code application.idempotency.max-entries} of them in memory.
+ */
+@Service
+public class IdempotencyService {
+
+    /**
+     * Outcome of the claim of a key.
+     */
+    public enum Result {
+        /**
+         * The request has to be handled, then completed or abandoned.
+         */
+        PROCEED,
+        /**
+         * The request was already handled: its response has to be replayed.
+         */
+        REPLAY,
+        /**
+         * The request is being handled, and has to be retried later.
+         */
+        IN_PROGRESS,
+        /**
+         * The key was used by another request, with a different body.
+         */
+        MISMATCH
+    }
+
+    private static final String ID = "id";
+
+    private static final String STATUS = "status";
+
+    private static final String REQUEST_HASH = "requestHash";
+
+    private static final String EXPIRATION_TIME = "expirationTime";
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final ApplicationProperties.Idempotency properties;
+
+    private final IdempotentRequestRepository idempotentRequestRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Cache<String, CompletableFuture<IdempotentRequest>> requests;
+
+    private final Counter executedCounter;
+
+    private final Counter replayedCounter;
+
+    private final Counter inProgressCounter;
+
+    private final Counter mismatchCounter;
+
+    public IdempotencyService(ApplicationProperties applicationProperties, IdempotentRequestRepository idempotentRequestRepository,
+                              MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getIdempotency();
+        this.idempotentRequestRepository = idempotentRequestRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.requests = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(properties.getTtl(), TimeUnit.SECONDS)
+            .build();
+        this.executedCounter = meterRegistry.counter("driverapp.idempotency", "result", "executed");
+        this.replayedCounter = meterRegistry.counter("driverapp.idempotency", "result", "replayed");
+        this.inProgressCounter = meterRegistry.counter("driverapp.idempotency", "result", "in-progress");
+        this.mismatchCounter = meterRegistry.counter("driverapp.idempotency", "result", "mismatch");
+    }
+
+    /**
+     * Claim the key of a request.
+     *
+     * @param id the id of the request, derived from its key.
+     * @param requestHash the hash of the body of the request.
+     * @return the outcome, with the stored request for {@link Result#REPLAY}.
+     */
+    public Claim claim(String id, String requestHash) {
+        CompletableFuture<IdempotentRequest> claim = new CompletableFuture<>();
+        CompletableFuture<IdempotentRequest> existing = requests.asMap().putIfAbsent(id, claim);
+        if (existing != null) {
+            return await(existing, requestHash);
+        }
+        try {
+            return claimStored(id, requestHash, claim);
+        } catch (RuntimeException e) {
+            // Requests waiting for this claim, and retries with the key, must not wait for a request never handled
+            release(id, claim);
+            throw e;
+        }
+    }
+
+    private Claim claimStored(String id, String requestHash, CompletableFuture<IdempotentRequest> claim) {
+        Instant now = Instant.now();
+        try {
+            mongoTemplate.insert(new IdempotentRequest(id, requestHash, now.plusSeconds(properties.getPendingTtl())));
+            return proceed();
+        } catch (DuplicateKeyException e) {
+            log.debug("Request {} already claimed", id);
+        }
+        IdempotentRequest stored = idempotentRequestRepository.findById(id).orElse(null);
+        if (stored != null && stored.isCompleted()) {
+            claim.complete(stored);
+            return replay(stored, requestHash);
+        }
+        // Take over the requests of the nodes which stopped before completing them
+        IdempotentRequest abandoned = mongoTemplate.findAndModify(
+            Query.query(Criteria.where(ID).is(id).and(STATUS).is(null).and(EXPIRATION_TIME).lt(now)),
+            new Update().set(REQUEST_HASH, requestHash).set(EXPIRATION_TIME, now.plusSeconds(properties.getPendingTtl())),
+            IdempotentRequest.class);
+        if (abandoned != null) {
+            return proceed();
+        }
+        release(id, claim);
+        inProgressCounter.increment();
+        return new Claim(Result.IN_PROGRESS, null);
+    }
+
+    /**
+     * Store the response of a claimed request, and replay it to the requests waiting for it.
+     *
+     * @param id the id of the request.
+     * @param requestHash the hash of the body of the request.
+     * @param status the status of the response.
+     * @param headers the headers of the response.
+     * @param body the body of the response.
+     */
+    public void complete(String id, String requestHash, int status, Map<String, List<String>> headers, byte[] body) {
+        IdempotentRequest request = new IdempotentRequest(id, requestHash, Instant.now().plusSeconds(properties.getTtl()));
+        request.setStatus(status);
+        request.setHeaders(headers);
+        request.setBody(body);
+        try {
+            idempotentRequestRepository.save(request);
+        } finally {
+            CompletableFuture<IdempotentRequest> claim = requests.getIfPresent(id);
+            if (claim != null) {
+                claim.complete(request);
+            }
+        }
+    }
+
+    /**
+     * Release a claimed request which could not be handled, so that it can be retried.
+     *
+     * @param id the id of the request.
+     */
+    public void abandon(String id) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where(ID).is(id).and(STATUS).is(null)), IdempotentRequest.class);
+        } finally {
+            CompletableFuture<IdempotentRequest> claim = requests.getIfPresent(id);
+            if (claim != null) {
+                release(id, claim);
+            }
+        }
+    }
+
+    private Claim await(CompletableFuture<IdempotentRequest> claim, String requestHash) {
+        try {
+            IdempotentRequest stored = claim.get(properties.getWaitTimeout(), TimeUnit.MILLISECONDS);
+            if (stored != null) {
+                return replay(stored, requestHash);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Gave up waiting for a request: {}", e.toString());
+        }
+        inProgressCounter.increment();
+        return new Claim(Result.IN_PROGRESS, null);
+    }
+
+    private void release(String id, CompletableFuture<IdempotentRequest> claim) {
+        requests.asMap().remove(id, claim);
+        claim.complete(null);
+    }
+
+    private Claim proceed() {
+        executedCounter.increment();
+        return new Claim(Result.PROCEED, null);
+    }
+
+    private Claim replay(IdempotentRequest stored, String requestHash) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            mismatchCounter.increment();
+            return new Claim(Result.MISMATCH, null);
+        }
+        replayedCounter.increment();
+        return new Claim(Result.REPLAY, stored);
+    }
+
+    /**
+     * Claim of the key of a request.
+     */
+    public static final class Claim {
+
+        private final Result result;
+
+        @Nullable
+        private final IdempotentRequest request;
+
+        Claim(Result result, @Nullable IdempotentRequest request) {
+            this.result = result;
+            this.request = request;
+        }
+
+        public Result getResult() {
+            return result;
+        }
+
+        /**
+         * Get the stored request.
+         *
+         * @return the request, with its response, for {@link Result#REPLAY}.
+         */
+        @Nullable
+        public IdempotentRequest getRequest() {
+            return request;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.Location;
+import com.driverapp.domain.enumeration.Status;
+import com.driverapp.repository.LocationRepository;
+import com.driverapp.service.dto.DriverDistanceDTO;
+import com.driverapp.service.geo.SpatialGridIndex;
+import com.driverapp.service.geo.SpatialHits;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service keeping the latest position of every {@link Status#CONFIRMED} {@link Driver} in an in-memory
+ * {@link SpatialGridIndex}, to answer nearest-driver queries without a database round trip.
+ */
+@Service
+public class LiveDriverLocationService {
+
+    private static final int REBUILD_BATCH_SIZE = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(LiveDriverLocationService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final LocationRepository locationRepository;
+
+    private final ApplicationProperties.LiveIndex properties;
+
+    private final SpatialGridIndex index;
+
+    private final Map<String, String> driverIdByLocationId = new ConcurrentHashMap<>();
+
+    private final Map<String, String> locationIdByDriverId = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<SpatialHits> hits;
+
+    public LiveDriverLocationService(MongoTemplate mongoTemplate, LocationRepository locationRepository,
+                                     ApplicationProperties applicationProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.locationRepository = locationRepository;
+        this.properties = applicationProperties.getLiveIndex();
+        this.index = new SpatialGridIndex(properties.getCellSize(), properties.getInitialCapacity());
+        this.hits = ThreadLocal.withInitial(() -> new SpatialHits(properties.getMaxResults()));
+    }
+
+    /**
+     * Rebuild the index from the confirmed drivers and their {@link Location}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, String> confirmedDrivers = new HashMap<>();
+        String driverCollection = mongoTemplate.getCollectionName(Driver.class);
+        // Read the raw DBRef so that the locations are not resolved one driver at a time
+        for (Document driver : mongoTemplate.getCollection(driverCollection)
+            .find(Filters.eq("status", Status.CONFIRMED.name()))
+            .projection(Projections.include("location"))) {
+            Object location = driver.get("location");
+            if (location instanceof DBRef) {
+                confirmedDrivers.put(((DBRef) location).getId().toString(), driver.get("_id").toString());
+            }
+        }
+        index.clear();
+        driverIdByLocationId.clear();
+        locationIdByDriverId.clear();
+        List<String> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        for (String locationId : confirmedDrivers.keySet()) {
+            batch.add(locationId);
+            if (batch.size() == REBUILD_BATCH_SIZE) {
+                indexLocations(batch, confirmedDrivers);
+                batch.clear();
+            }
+        }
+        indexLocations(batch, confirmedDrivers);
+        log.info("Live driver index rebuilt with {} drivers in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    private void indexLocations(List<String> locationIds, Map<String, String> driverIdByLocation) {
+        if (locationIds.isEmpty()) {
+            return;
+        }
+        for (Location location : locationRepository.findAllById(locationIds)) {
+            track(driverIdByLocation.get(location.getId()), location);
+        }
+    }
+
+    /**
+     * Track or untrack a driver after it has been saved, depending on its status and location.
+     */
+    public void onDriverSaved(Driver driver) {
+        if (driver.getId() == null) {
+            return;
+        }
+        Location location = driver.getLocation();
+        if (Status.CONFIRMED.equals(driver.getStatus()) && location != null && location.getId() != null) {
+            if (location.getPosition() == null) {
+                // The request may only carry a reference to the location
+                location = locationRepository.findById(location.getId()).orElse(location);
+            }
+            track(driver.getId(), location);
+        } else {
+            onDriverDeleted(driver.getId());
+        }
+    }
+
+    public void onDriverDeleted(String driverId) {
+        index.remove(driverId);
+        String locationId = locationIdByDriverId.remove(driverId);
+        if (locationId != null) {
+            driverIdByLocationId.remove(locationId, driverId);
+        }
+    }
+
+    /**
+     * Move the driver owning a location after that location has been saved.
+     */
+    public void onLocationSaved(Location location) {
+        String driverId = driverIdByLocationId.get(location.getId());
+        if (driverId != null) {
+            track(driverId, location);
+        }
+    }
+
+    public void onLocationDeleted(String locationId) {
+        String driverId = driverIdByLocationId.get(locationId);
+        if (driverId != null) {
+            onDriverDeleted(driverId);
+        }
+    }
+
+    /**
+     * Move a tracked driver to a new position. Untracked drivers are ignored.
+     *
+     * @return {@code true} if the driver is tracked.
+     */
+    public boolean moveDriver(String driverId, double latitude, double longitude) {
+        return index.move(driverId, latitude, longitude);
+    }
+
+    /**
+     * Find the tracked drivers closest to a point.
+     *
+     * @param latitude the latitude of the point, in decimal degrees.
+     * @param longitude the longitude of the point, in decimal degrees.
+     * @param k the maximum number of drivers, capped to the configured maximum.
+     * @param radius the maximum distance, in kilometers, capped to the configured maximum.
+     * @return the drivers with their distance, closest first.
+     */
+    public List<DriverDistanceDTO> findNearestDrivers(double latitude, double longitude, int k, double radius) {
+        SpatialHits result = hits.get();
+        index.nearest(latitude, longitude, k, Math.min(radius, properties.getMaxRadius()), result);
+        List<DriverDistanceDTO> drivers = new ArrayList<>(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            drivers.add(new DriverDistanceDTO(result.key(i), result.distance(i)));
+        }
+        return drivers;
+    }
+
+    /**
+     * @return the id of the location of a tracked driver, or {@code null} if the driver is not tracked.
+     */
+    public String getLocationId(String driverId) {
+        return locationIdByDriverId.get(driverId);
+    }
+
+    public int getTrackedDriverCount() {
+        return index.size();
+    }
+
+    private void track(String driverId, Location location) {
+        if (driverId == null) {
+            return;
+        }
+        GeoJsonPoint position = location.getPosition();
+        if (position == null) {
+            index.remove(driverId);
+        } else {
+            index.put(driverId, position.getY(), position.getX());
+        }
+        String previousLocationId = locationIdByDriverId.put(driverId, location.getId());
+        if (previousLocationId != null && !previousLocationId.equals(location.getId())) {
+            driverIdByLocationId.remove(previousLocationId, driverId);
+        }
+        driverIdByLocationId.put(location.getId(), driverId);
+    }
+}
@@ -0,0 +1,190 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.service.dto.LocationPingDTO;
+import com.driverapp.service.dto.TrackPointDTO;
+import com.driverapp.service.history.LocationHistoryStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Service recording every position reported by drivers' devices into the {@link LocationHistoryStore}.
+ * <p>
+ * Pings are buffered and appended as one block per driver every {@code application.location-history.flush-interval}
+ * milliseconds, so that each block holds several points to delta-encode. Pings of drivers missing from the
+ * {@link LiveDriverLocationService} are not recorded, so that unknown ids cannot grow the history.
+ * <p>
+ * Segments are sealed once their time window is over, and deleted after
+ * {@code application.location-history.retention-days} days.
+ */
+@Service
+public class LocationHistoryService {
+
+    private final Logger log = LoggerFactory.getLogger(LocationHistoryService.class);
+
+    private final ApplicationProperties.LocationHistory properties;
+
+    private final LiveDriverLocationService liveDriverLocationService;
+
+    private final LocationHistoryStore store;
+
+    private final BlockingQueue<LocationPingDTO> buffer;
+
+    private final Counter droppedCounter;
+
+    private final Counter unknownDriverCounter;
+
+    private final Timer flushTimer;
+
+    public LocationHistoryService(ApplicationProperties applicationProperties, LiveDriverLocationService liveDriverLocationService,
+                                  MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getLocationHistory();
+        this.liveDriverLocationService = liveDriverLocationService;
+        this.store = new LocationHistoryStore(Paths.get(properties.getDirectory()),
+            TimeUnit.SECONDS.toMillis(properties.getSegmentDuration()), properties.getMaxOpenSegments());
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+        this.droppedCounter = meterRegistry.counter("driverapp.location.history.dropped");
+        this.unknownDriverCounter = meterRegistry.counter("driverapp.location.history.unknown-driver");
+        this.flushTimer = Timer.builder("driverapp.location.history.flush")
+            .description("Time taken to append buffered pings to the location history")
+            .register(meterRegistry);
+        Gauge.builder("driverapp.location.history.queue.depth", buffer, Collection::size)
+            .description("Number of pings waiting to be appended to the location history")
+            .register(meterRegistry);
+        Gauge.builder("driverapp.location.history.segments", store, LocationHistoryStore::getSegmentCount)
+            .description("Number of location history segment files")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        store.open();
+        int sealed = store.sealBefore(sealHorizon(System.currentTimeMillis()));
+        log.info("Location history opened with {} segments, {} of them sealed now", store.getSegmentCount(), sealed);
+    }
+
+    /**
+     * Queue pings to be appended to the history. Pings without a timestamp are stamped with the current time, and
+     * pings of unknown drivers are dropped.
+     */
+    public void record(List<LocationPingDTO> pings) {
+        Instant now = Instant.now();
+        for (LocationPingDTO ping : pings) {
+            if (ping.getDriverId() == null || liveDriverLocationService.getLocationId(ping.getDriverId()) == null) {
+                unknownDriverCounter.increment();
+                continue;
+            }
+            if (ping.getTimestamp() == null) {
+                ping.setTimestamp(now);
+            }
+            if (!buffer.offer(ping)) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * Append the buffered pings, one block per driver.
+     */
+    @Scheduled(fixedDelayString = "${application.location-history.flush-interval:5000}")
+    public synchronized void flush() {
+        List<LocationPingDTO> drained = new ArrayList<>(buffer.size());
+        buffer.drainTo(drained);
+        if (drained.isEmpty()) {
+            return;
+        }
+        Map<String, List<LocationPingDTO>> pingsByDriver = drained.stream()
+            .collect(Collectors.groupingBy(LocationPingDTO::getDriverId, HashMap::new, Collectors.toList()));
+        flushTimer.record(() -> pingsByDriver.forEach(this::append));
+    }
+
+    private void append(String driverId, List<LocationPingDTO> pings) {
+        int count = pings.size();
+        long[] timestamps = new long[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            LocationPingDTO ping = pings.get(i);
+            timestamps[i] = ping.getTimestamp().toEpochMilli();
+            latitudes[i] = ping.getLatitude();
+            longitudes[i] = ping.getLongitude();
+        }
+        try {
+            store.append(driverId, timestamps, latitudes, longitudes, count);
+        } catch (IOException e) {
+            droppedCounter.increment(count);
+            log.error("Could not append {} pings of driver {} to the location history", count, driverId, e);
+        }
+    }
+
+    /**
+     * Get the recorded track of a driver.
+     *
+     * @param driverId the id of the driver.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, inclusive.
+     * @return the positions of the driver, oldest first.
+     */
+    public List<TrackPointDTO> getTrack(String driverId, Instant from, Instant to) {
+        try {
+            return store.read(driverId, from.toEpochMilli(), to.toEpochMilli()).stream()
+                .map(point -> new TrackPointDTO(Instant.ofEpochMilli(point.getTimestamp()), point.getLatitude(), point.getLongitude()))
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Delete the segments older than the retention period, and seal the segments whose time window is over.
+     * <p>
+     * This is scheduled to get fired every hour.
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public void removeExpiredSegments() {
+        long now = System.currentTimeMillis();
+        try {
+            int deleted = store.deleteOlderThan(now - TimeUnit.DAYS.toMillis(properties.getRetentionDays()));
+            int sealed = store.sealBefore(sealHorizon(now));
+            log.debug("Deleted {} expired location history segments, sealed {}", deleted, sealed);
+        } catch (IOException e) {
+            log.error("Could not delete expired location history segments", e);
+        }
+    }
+
+    /**
+     * Segments are sealed one segment duration after their window is over, to leave room for late pings.
+     */
+    private long sealHorizon(long now) {
+        return now - 2 * TimeUnit.SECONDS.toMillis(properties.getSegmentDuration());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        store.close();
+    }
+}
@@ -0,0 +1,247 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.Location;
+import com.driverapp.repository.DriverRepository;
+import com.driverapp.repository.LocationRepository;
+import com.driverapp.service.dto.LocationPingDTO;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service buffering the positions reported by drivers' devices and writing them to the {@link Location}
+ * collection in bulk.
+ * <p>
+ * Pings are queued in a bounded ring buffer and flushed by a single thread, either every
+ * {@code application.location-pings.flush-interval} milliseconds or as soon as
+ * {@code application.location-pings.flush-size} pings are waiting. A flush keeps only the latest ping of
+ * each driver and sends one unordered bulk write, then evicts the written locations and the graphs of their
+ * drivers from the entity caches, since bulk writes publish no event.
+ */
+@Service
+public class LocationPingService {
+
+    private final Logger log = LoggerFactory.getLogger(LocationPingService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final LiveDriverLocationService liveDriverLocationService;
+
+    private final LocationHistoryService locationHistoryService;
+
+    private final CacheManager cacheManager;
+
+    private final ApplicationProperties.LocationPings properties;
+
+    private final BlockingQueue<LocationPingDTO> buffer;
+
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Counter acceptedCounter;
+
+    private final Counter droppedCounter;
+
+    private final Counter unknownDriverCounter;
+
+    private final Timer flushTimer;
+
+    public LocationPingService(MongoTemplate mongoTemplate, LiveDriverLocationService liveDriverLocationService,
+                               LocationHistoryService locationHistoryService, CacheManager cacheManager,
+                               ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.liveDriverLocationService = liveDriverLocationService;
+        this.locationHistoryService = locationHistoryService;
+        this.cacheManager = cacheManager;
+        this.properties = applicationProperties.getLocationPings();
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+        this.acceptedCounter = meterRegistry.counter("driverapp.location.pings", "result", "accepted");
+        this.droppedCounter = meterRegistry.counter("driverapp.location.pings", "result", "dropped");
+        this.unknownDriverCounter = meterRegistry.counter("driverapp.location.pings", "result", "unknown-driver");
+        this.flushTimer = Timer.builder("driverapp.location.pings.flush")
+            .description("Time taken to write a batch of location pings")
+            .register(meterRegistry);
+        Gauge.builder("driverapp.location.pings.queue.depth", buffer, Collection::size)
+            .description("Number of location pings waiting to be written")
+            .register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "driver-app-location-pings");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushSafely, properties.getFlushInterval(),
+            properties.getFlushInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue pings for the next flush, and record them in the location history.
+     * Pings without a timestamp are stamped with the current time.
+     *
+     * @param pings the pings to queue.
+     * @return the number of pings that were queued; the others were dropped because the buffer is full.
+     */
+    public int submit(List<LocationPingDTO> pings) {
+        Instant now = Instant.now();
+        int accepted = 0;
+        for (LocationPingDTO ping : pings) {
+            if (ping.getTimestamp() == null) {
+                ping.setTimestamp(now);
+            }
+            if (!buffer.offer(ping)) {
+                break;
+            }
+            accepted++;
+        }
+        acceptedCounter.increment(accepted);
+        droppedCounter.increment(pings.size() - accepted);
+        locationHistoryService.record(pings.subList(0, accepted));
+        if (buffer.size() >= properties.getFlushSize() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushSafely);
+        }
+        return accepted;
+    }
+
+    /**
+     * Write all the buffered pings.
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        List<LocationPingDTO> drained = new ArrayList<>(Math.min(buffer.size(), properties.getBufferSize()));
+        while (buffer.drainTo(drained, properties.getBufferSize()) > 0) {
+            Map<String, LocationPingDTO> latest = coalesce(drained);
+            drained.clear();
+            flushTimer.record(() -> write(latest));
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Could not write location pings", e);
+        }
+    }
+
+    private Map<String, LocationPingDTO> coalesce(List<LocationPingDTO> pings) {
+        Map<String, LocationPingDTO> latest = new HashMap<>();
+        for (LocationPingDTO ping : pings) {
+            latest.merge(ping.getDriverId(), ping, (previous, current) ->
+                previous.getTimestamp().isAfter(current.getTimestamp()) ? previous : current);
+        }
+        return latest;
+    }
+
+    private void write(Map<String, LocationPingDTO> latest) {
+        Map<String, String> locationIdByDriverId = resolveLocationIds(latest.keySet());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Location.class);
+        int updates = 0;
+        for (LocationPingDTO ping : latest.values()) {
+            String locationId = locationIdByDriverId.get(ping.getDriverId());
+            if (locationId == null) {
+                unknownDriverCounter.increment();
+                continue;
+            }
+            bulk.updateOne(Query.query(Criteria.where("id").is(locationId)), new Update()
+                .set("latitude", String.valueOf(ping.getLatitude()))
+                .set("longitue", String.valueOf(ping.getLongitude()))
+                .set("position", new GeoJsonPoint(ping.getLongitude(), ping.getLatitude())));
+            updates++;
+        }
+        if (updates > 0) {
+            bulk.execute();
+            evict(latest.keySet(), locationIdByDriverId);
+        }
+        for (LocationPingDTO ping : latest.values()) {
+            liveDriverLocationService.moveDriver(ping.getDriverId(), ping.getLatitude(), ping.getLongitude());
+        }
+        log.debug("Wrote {} location pings", updates);
+    }
+
+    private void evict(Collection<String> driverIds, Map<String, String> locationIdByDriverId) {
+        Cache locations = cacheManager.getCache(LocationRepository.LOCATIONS_BY_ID_CACHE);
+        Cache drivers = cacheManager.getCache(DriverRepository.DRIVERS_BY_ID_CACHE);
+        for (String driverId : driverIds) {
+            String locationId = locationIdByDriverId.get(driverId);
+            if (locationId == null) {
+                continue;
+            }
+            if (locations != null) {
+                locations.evict(locationId);
+            }
+            if (drivers != null) {
+                drivers.evict(driverId);
+            }
+        }
+    }
+
+    /**
+     * Find the location of each driver, from the live index when the driver is tracked, else with a single query.
+     */
+    private Map<String, String> resolveLocationIds(Collection<String> driverIds) {
+        Map<String, String> locationIdByDriverId = new HashMap<>(driverIds.size() * 2);
+        List<Object> missing = new ArrayList<>();
+        for (String driverId : driverIds) {
+            String locationId = liveDriverLocationService.getLocationId(driverId);
+            if (locationId != null) {
+                locationIdByDriverId.put(driverId, locationId);
+            } else {
+                missing.add(ObjectId.isValid(driverId) ? new ObjectId(driverId) : driverId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Document driver : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Driver.class))
+                .find(Filters.in("_id", missing))
+                .projection(Projections.include("location"))) {
+                Object location = driver.get("location");
+                if (location instanceof DBRef) {
+                    locationIdByDriverId.put(driver.get("_id").toString(), ((DBRef) location).getId().toString());
+                }
+            }
+        }
+        return locationIdByDriverId;
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        if (flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+            flushSafely();
+        }
+    }
+}
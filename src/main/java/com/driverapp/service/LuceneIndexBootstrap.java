@@ -0,0 +1,96 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.config.Constants;
+import com.driverapp.domain.enumeration.IndexOperation;
+import com.driverapp.repository.search.lucene.LuceneIndexRegistry;
+
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service filling the embedded Lucene search indices which are empty, such as on the first start of a node with
+ * the {@code lucene} profile, from their MongoDB collections.
+ * <p>
+ * The entities are indexed through the {@link SearchIndexer}, by batches of
+ * {@code application.search-indexer.batch-size}, in the background.
+ */
+@Service
+@Profile(Constants.SPRING_PROFILE_LUCENE)
+public class LuceneIndexBootstrap {
+
+    private static final String ID = "_id";
+
+    private final Logger log = LoggerFactory.getLogger(LuceneIndexBootstrap.class);
+
+    private final ApplicationProperties.SearchIndexer properties;
+
+    private final SearchIndexer searchIndexer;
+
+    private final LuceneIndexRegistry luceneIndexRegistry;
+
+    private final MongoTemplate mongoTemplate;
+
+    public LuceneIndexBootstrap(ApplicationProperties applicationProperties, SearchIndexer searchIndexer,
+                                LuceneIndexRegistry luceneIndexRegistry, MongoTemplate mongoTemplate) {
+        this.properties = applicationProperties.getSearchIndexer();
+        this.searchIndexer = searchIndexer;
+        this.luceneIndexRegistry = luceneIndexRegistry;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (Map.Entry<String, Class<?>> indexed : searchIndexer.getIndexedTypes().entrySet()) {
+            try {
+                if (luceneIndexRegistry.getIndex(indexed.getValue()).count() == 0) {
+                    fill(indexed.getKey());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not fill the Lucene search index of {}: {}", indexed.getKey(), e.toString());
+            }
+        }
+    }
+
+    /**
+     * Index all the entities of a collection.
+     *
+     * @param collection the collection of an indexed entity type.
+     * @return the number of entities indexed.
+     */
+    public long fill(String collection) {
+        long indexed = 0;
+        Map<String, IndexOperation> batch = new LinkedHashMap<>();
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collection).find()
+            .projection(new Document(ID, 1)).batchSize(properties.getBatchSize()).iterator()) {
+            while (cursor.hasNext()) {
+                batch.put(String.valueOf(cursor.next().get(ID)), IndexOperation.INDEX);
+                if (batch.size() == properties.getBatchSize()) {
+                    indexed += searchIndexer.apply(Collections.singletonMap(collection, batch));
+                    batch = new LinkedHashMap<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            indexed += searchIndexer.apply(Collections.singletonMap(collection, batch));
+        }
+        if (indexed > 0) {
+            log.info("Filled the Lucene search index of {} with {} entities", collection, indexed);
+        }
+        return indexed;
+    }
+}
@@ -0,0 +1,99 @@
+package com.driverapp.service;
+
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.Location;
+import com.driverapp.service.dto.NearbyDriverDTO;
+import com.driverapp.service.mapper.DriverMapper;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service finding the {@link Driver}s closest to a point, using the 2dsphere index on {@link Location}.
+ */
+@Service
+public class NearbyDriverService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private static final String DISTANCE_FIELD = "distance";
+
+    private final Logger log = LoggerFactory.getLogger(NearbyDriverService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final DriverGraphLoader driverGraphLoader;
+
+    private final DriverMapper driverMapper;
+
+    public NearbyDriverService(MongoTemplate mongoTemplate, DriverGraphLoader driverGraphLoader, DriverMapper driverMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.driverGraphLoader = driverGraphLoader;
+        this.driverMapper = driverMapper;
+    }
+
+    /**
+     * Find the drivers whose location is within {@code radius} kilometers of a point, closest first.
+     *
+     * @param latitude the latitude of the point, in decimal degrees.
+     * @param longitude the longitude of the point, in decimal degrees.
+     * @param radius the maximum distance, in kilometers.
+     * @param limit the maximum number of drivers to return, capped to {@link #MAX_LIMIT}.
+     * @return the drivers with their distance to the point.
+     */
+    public List<NearbyDriverDTO> findNearbyDrivers(double latitude, double longitude, double radius, int limit) {
+        log.debug("Request to find {} drivers within {} km of {},{}", limit, radius, latitude, longitude);
+        int num = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        NearQuery nearQuery = NearQuery.near(new Point(longitude, latitude), Metrics.KILOMETERS)
+            .maxDistance(new Distance(radius, Metrics.KILOMETERS))
+            .spherical(true)
+            .num(num);
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.geoNear(nearQuery, DISTANCE_FIELD),
+            Aggregation.project(DISTANCE_FIELD));
+
+        // $geoNear returns the locations sorted by distance, keep that order
+        Map<String, Double> distanceByLocationId = new LinkedHashMap<>();
+        List<Object> locationIds = new ArrayList<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Location.class), Document.class)) {
+            distanceByLocationId.put(result.get("_id").toString(), result.get(DISTANCE_FIELD, Number.class).doubleValue());
+            locationIds.add(result.get("_id"));
+        }
+        if (locationIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Driver> driverByLocationId = new HashMap<>();
+        for (Driver driver : driverGraphLoader.findDrivers(Criteria.where("location.$id").in(locationIds))) {
+            if (driver.getLocation() != null) {
+                driverByLocationId.put(driver.getLocation().getId(), driver);
+            }
+        }
+        List<NearbyDriverDTO> result = new ArrayList<>(driverByLocationId.size());
+        distanceByLocationId.forEach((locationId, distance) -> {
+            Driver driver = driverByLocationId.get(locationId);
+            if (driver != null) {
+                result.add(new NearbyDriverDTO(driverMapper.toSummaryDto(driver), distance));
+            }
+        });
+        result.sort(Comparator.comparingDouble(NearbyDriverDTO::getDistance));
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.OneTimeCode;
+import com.driverapp.integration.SmsSender;
+import com.driverapp.repository.OneTimeCodeRepository;
+
+import com.mongodb.client.result.DeleteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+
+/**
+ * Service issuing and verifying the one-time codes sent to drivers to verify their phone number.
+ * <p>
+ * The codes are kept in their own small collection rather than in the driver documents, so that issuing and
+ * verifying them writes neither the {@code driver} collection nor its search index. A code is valid for
+ * {@code application.one-time-code.ttl} seconds and {@code application.one-time-code.max-attempts} verifications,
+ * and is removed once verified; MongoDB removes the expired ones. Codes are sent by SMS asynchronously, through the
+ * {@link SmsSender}.
+ */
+@Service
+public class OneTimeCodeService {
+
+    /**
+     * Result of the verification of a code.
+     */
+    public enum Verification {
+        VALID, MISMATCH, EXPIRED
+    }
+
+    private static final int MIN_CODE = 100000;
+
+    private static final int CODE_RANGE = 900000;
+
+    private final Logger log = LoggerFactory.getLogger(OneTimeCodeService.class);
+
+    private final ApplicationProperties.OneTimeCode properties;
+
+    private final OneTimeCodeRepository oneTimeCodeRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final SmsSender smsSender;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public OneTimeCodeService(ApplicationProperties applicationProperties, OneTimeCodeRepository oneTimeCodeRepository,
+                              MongoTemplate mongoTemplate, SmsSender smsSender) {
+        this.properties = applicationProperties.getOneTimeCode();
+        this.oneTimeCodeRepository = oneTimeCodeRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.smsSender = smsSender;
+    }
+
+    /**
+     * Issue a new code for a driver, replacing the previous one.
+     *
+     * @param driverId the id of the driver.
+     * @return the six digits code.
+     */
+    public String issue(String driverId) {
+        String code = String.valueOf(MIN_CODE + random.nextInt(CODE_RANGE));
+        oneTimeCodeRepository.save(new OneTimeCode(driverId, code, Instant.now().plusSeconds(properties.getTtl())));
+        log.debug("Issued a one-time code for Driver : {}", driverId);
+        return code;
+    }
+
+    /**
+     * Issue a new code for a driver, replacing the previous one, and send it by SMS.
+     *
+     * @param driverId the id of the driver.
+     * @param phoneNumber the phone number of the driver, or {@code null} if the code cannot be sent.
+     */
+    public void issueAndSend(String driverId, @Nullable String phoneNumber) {
+        String code = issue(driverId);
+        if (phoneNumber != null) {
+            smsSender.send(phoneNumber, String.format(properties.getMessage(), code));
+        }
+    }
+
+    /**
+     * Verify a code entered by a driver. A valid code is removed, so it can only be used once.
+     *
+     * @param driverId the id of the driver.
+     * @param code the entered code.
+     * @return the result of the verification: {@link Verification#EXPIRED} if the driver has no code, or if it has
+     * expired or was tried too many times.
+     */
+    public Verification verify(String driverId, @Nullable String code) {
+        OneTimeCode stored = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("id").is(driverId).and("expirationTime").gt(Instant.now())),
+            new Update().inc("attempts", 1), FindAndModifyOptions.options().returnNew(true), OneTimeCode.class);
+        if (stored == null) {
+            return Verification.EXPIRED;
+        }
+        if (stored.getAttempts() > properties.getMaxAttempts()) {
+            oneTimeCodeRepository.delete(stored);
+            return Verification.EXPIRED;
+        }
+        if (code == null || !MessageDigest.isEqual(code.getBytes(StandardCharsets.UTF_8), stored.getCode().getBytes(StandardCharsets.UTF_8))) {
+            return Verification.MISMATCH;
+        }
+        // Only remove this code, not one issued since, and only once when verified concurrently
+        DeleteResult removed = mongoTemplate.remove(Query.query(Criteria.where("id").is(driverId).and("code").is(stored.getCode())),
+            OneTimeCode.class);
+        return removed.getDeletedCount() == 1 ? Verification.VALID : Verification.EXPIRED;
+    }
+}
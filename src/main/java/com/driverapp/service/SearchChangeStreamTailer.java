@@ -0,0 +1,375 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.enumeration.IndexOperation;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service keeping the Elasticsearch indices in sync with MongoDB by tailing the change stream of the database.
+ * <p>
+ * Changes of the indexed collections are gathered by batches of {@code application.search-change-stream.batch-size},
+ * or for at most {@code application.search-change-stream.max-await-time} milliseconds, and applied through the
+ * {@link SearchIndexer}. The resume token of the last change of a batch is saved once the batch is applied, so that
+ * after a restart the stream resumes right after it: no change is missed, and only a batch interrupted before
+ * being applied is read again, which is harmless since the indexer always indexes the latest state.
+ * <p>
+ * Only one node tails the stream: the one holding the lease stored with the resume token, for
+ * {@code application.search-change-stream.lease-duration} milliseconds and renewed while tailing. The other nodes
+ * wait for it to expire, and take over from the saved resume token.
+ * <p>
+ * The updates touching only the position of a location, written by the {@link LocationPingService} on every ping,
+ * are filtered out of the stream: the search documents of the locations do not follow the pings.
+ * <p>
+ * Change streams need MongoDB 4.0 running as a replica set, see {@code src/main/docker/mongodb-cluster.yml}. On a
+ * standalone server, the changes are recorded in the outbox by the {@link SearchIndexOutboxListener} instead.
+ */
+@Service
+public class SearchChangeStreamTailer {
+
+    private static final String RESUME_TOKEN_COLLECTION = "search_index_resume_token";
+
+    private static final String RESUME_TOKEN_ID = "search-index";
+
+    private static final String TOKEN = "token";
+
+    private static final String OWNER = "owner";
+
+    private static final String EXPIRATION_TIME = "expiration_time";
+
+    private static final String LOCATION_COLLECTION = "location";
+
+    /**
+     * The fields of a location updated by the pings of its driver.
+     */
+    private static final List<String> POSITION_FIELDS = Arrays.asList("latitude", "longitue", "position");
+
+    /**
+     * The server is not a replica set member, it has no change stream.
+     */
+    private static final int NOT_A_REPLICA_SET = 40573;
+
+    /**
+     * The resume token is no longer in the oplog.
+     */
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final Logger log = LoggerFactory.getLogger(SearchChangeStreamTailer.class);
+
+    private final ApplicationProperties.SearchChangeStream properties;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final SearchIndexer searchIndexer;
+
+    private final AtomicLong lastChangeTime = new AtomicLong();
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private ExecutorService executor;
+
+    private volatile boolean running;
+
+    private volatile boolean followingChanges;
+
+    public SearchChangeStreamTailer(ApplicationProperties applicationProperties, MongoTemplate mongoTemplate, SearchIndexer searchIndexer,
+                                    MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getSearchChangeStream();
+        this.mongoTemplate = mongoTemplate;
+        this.searchIndexer = searchIndexer;
+        Gauge.builder("driverapp.search.change.stream.lag", lastChangeTime,
+            time -> time.get() == 0 ? 0 : Math.max(0, System.currentTimeMillis() - time.get()))
+            .description("Time since the cluster time of the last change applied from the change stream")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Search index change stream disabled");
+            return;
+        }
+        if (!isReplicaSet()) {
+            log.warn("MongoDB is not a replica set, the search indices follow the changes through the outbox");
+            return;
+        }
+        followingChanges = true;
+        running = true;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-change-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(properties.getMaxAwaitTime() * 2, TimeUnit.MILLISECONDS);
+            releaseLease();
+        }
+    }
+
+    /**
+     * @return {@code true} if the changes are applied from the change stream, by this node or another one, and
+     * {@code false} if they have to be recorded in the outbox.
+     */
+    public boolean isFollowingChanges() {
+        return followingChanges;
+    }
+
+    private boolean isReplicaSet() {
+        return mongoTemplate.getDb().runCommand(new Document("isMaster", 1)).containsKey("setName");
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                BsonDocument lease = acquireLease();
+                if (lease == null) {
+                    waitForLease();
+                    continue;
+                }
+                BsonDocument resumeToken = lease.isDocument(TOKEN) ? lease.getDocument(TOKEN) : null;
+                try (MongoCursor<ChangeStreamDocument<Document>> cursor = watch(resumeToken).iterator()) {
+                    log.info("Tailing the search index change stream {}", resumeToken == null ? "from now" : "from the saved resume token");
+                    tail(cursor);
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == NOT_A_REPLICA_SET) {
+                    log.warn("MongoDB is not a replica set, the search indices follow the changes through the outbox: {}",
+                        e.getErrorMessage());
+                    followingChanges = false;
+                    releaseLease();
+                    return;
+                }
+                if (e.getErrorCode() == CHANGE_STREAM_FATAL_ERROR || e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    log.error("Search index change stream cannot resume, changes were missed and the indices must be rebuilt: {}",
+                        e.getErrorMessage());
+                    deleteResumeToken();
+                    continue;
+                }
+                retryLater(e);
+            } catch (RuntimeException e) {
+                if (running) {
+                    retryLater(e);
+                }
+            }
+        }
+    }
+
+    private ChangeStreamIterable<Document> watch(BsonDocument resumeToken) {
+        Bson indexedChanges = Filters.and(
+            Filters.in("ns.coll", new ArrayList<>(searchIndexer.getIndexedTypes().keySet())),
+            Filters.expr(new Document("$not", Collections.singletonList(positionUpdate()))));
+        ChangeStreamIterable<Document> changes = mongoTemplate.getDb()
+            .watch(Collections.singletonList(Aggregates.match(indexedChanges)))
+            .maxAwaitTime(properties.getMaxAwaitTime(), TimeUnit.MILLISECONDS)
+            .batchSize(properties.getBatchSize());
+        return resumeToken == null ? changes : changes.resumeAfter(resumeToken);
+    }
+
+    /**
+     * @return an expression matching the updates of a location which only set the fields of its position.
+     */
+    private static Document positionUpdate() {
+        Document updatedFields = new Document("$map", new Document("input",
+            new Document("$objectToArray", "$updateDescription.updatedFields")).append("in", "$$this.k"));
+        return new Document("$and", Arrays.asList(
+            new Document("$eq", Arrays.asList("$operationType", "update")),
+            new Document("$eq", Arrays.asList("$ns.coll", LOCATION_COLLECTION)),
+            new Document("$eq", Arrays.asList(new Document("$size", "$updateDescription.removedFields"), 0)),
+            new Document("$setIsSubset", Arrays.asList(updatedFields, POSITION_FIELDS))));
+    }
+
+    private void tail(MongoCursor<ChangeStreamDocument<Document>> cursor) {
+        Map<String, Map<String, IndexOperation>> batch = new LinkedHashMap<>();
+        int size = 0;
+        BsonDocument resumeToken = null;
+        long clusterTime = 0;
+        long deadline = System.currentTimeMillis() + properties.getMaxAwaitTime();
+        long renewalTime = System.currentTimeMillis() + properties.getLeaseDuration() / 3;
+        while (running) {
+            ChangeStreamDocument<Document> change = cursor.tryNext();
+            if (change != null) {
+                resumeToken = change.getResumeToken();
+                if (change.getClusterTime() != null) {
+                    clusterTime = TimeUnit.SECONDS.toMillis(change.getClusterTime().getTime());
+                }
+                IndexOperation operation = operation(change.getOperationType());
+                if (operation != null && change.getNamespace() != null && change.getDocumentKey() != null) {
+                    batch.computeIfAbsent(change.getNamespace().getCollectionName(), collection -> new LinkedHashMap<>())
+                        .put(id(change.getDocumentKey().get("_id")), operation);
+                    size++;
+                }
+            }
+            boolean invalidated = change != null && change.getOperationType() == OperationType.INVALIDATE;
+            if (resumeToken != null && (size >= properties.getBatchSize() || change == null
+                || invalidated || System.currentTimeMillis() >= deadline)) {
+                searchIndexer.apply(batch);
+                if (!saveResumeToken(resumeToken)) {
+                    log.warn("Lost the search index change stream lease, another node tails the stream");
+                    return;
+                }
+                renewalTime = System.currentTimeMillis() + properties.getLeaseDuration() / 3;
+                if (clusterTime > 0) {
+                    lastChangeTime.set(clusterTime);
+                }
+                log.debug("Applied {} changes from the search index change stream", size);
+                batch = new LinkedHashMap<>();
+                size = 0;
+                resumeToken = null;
+                deadline = System.currentTimeMillis() + properties.getMaxAwaitTime();
+            } else if (System.currentTimeMillis() >= renewalTime) {
+                if (!renewLease()) {
+                    log.warn("Lost the search index change stream lease, another node tails the stream");
+                    return;
+                }
+                renewalTime = System.currentTimeMillis() + properties.getLeaseDuration() / 3;
+            }
+            if (invalidated) {
+                // the database was dropped: reopen the stream after it
+                return;
+            }
+        }
+    }
+
+    private static IndexOperation operation(OperationType type) {
+        switch (type) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+                return IndexOperation.INDEX;
+            case DELETE:
+                return IndexOperation.DELETE;
+            default:
+                return null;
+        }
+    }
+
+    private static String id(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private MongoCollection<BsonDocument> resumeTokens() {
+        return mongoTemplate.getCollection(RESUME_TOKEN_COLLECTION).withDocumentClass(BsonDocument.class);
+    }
+
+    /**
+     * Take or renew the lease of the stream, unless another node holds it.
+     *
+     * @return the resume token document, or {@code null} if another node holds the lease.
+     */
+    private BsonDocument acquireLease() {
+        Bson available = Filters.and(Filters.eq("_id", RESUME_TOKEN_ID),
+            Filters.or(Filters.eq(OWNER, nodeId), Filters.not(Filters.gt(EXPIRATION_TIME, new Date()))));
+        try {
+            return resumeTokens().findOneAndUpdate(available, leaseUpdate(),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        } catch (MongoCommandException e) {
+            if (ErrorCategory.fromErrorCode(e.getErrorCode()) == ErrorCategory.DUPLICATE_KEY) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private boolean renewLease() {
+        return resumeTokens().updateOne(owned(), leaseUpdate()).getMatchedCount() > 0;
+    }
+
+    private void releaseLease() {
+        try {
+            resumeTokens().updateOne(owned(), Updates.combine(Updates.unset(OWNER), Updates.unset(EXPIRATION_TIME)));
+        } catch (RuntimeException e) {
+            log.warn("Could not release the search index change stream lease: {}", e.toString());
+        }
+    }
+
+    private Bson owned() {
+        return Filters.and(Filters.eq("_id", RESUME_TOKEN_ID), Filters.eq(OWNER, nodeId));
+    }
+
+    private Bson leaseUpdate() {
+        return Updates.combine(Updates.set(OWNER, nodeId),
+            Updates.set(EXPIRATION_TIME, new Date(System.currentTimeMillis() + properties.getLeaseDuration())));
+    }
+
+    /**
+     * Save the resume token, and renew the lease, as long as this node holds it.
+     *
+     * @return {@code false} if another node took the lease.
+     */
+    private boolean saveResumeToken(BsonDocument resumeToken) {
+        return resumeTokens().updateOne(owned(), Updates.combine(leaseUpdate(), Updates.set(TOKEN, resumeToken),
+            Updates.currentDate("updated_date"))).getMatchedCount() > 0;
+    }
+
+    private void deleteResumeToken() {
+        resumeTokens().updateOne(owned(), Updates.unset(TOKEN));
+    }
+
+    private void waitForLease() {
+        try {
+            Thread.sleep(properties.getLeaseDuration() / 3);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void retryLater(Exception e) {
+        log.warn("Search index change stream failed, retrying in {} ms: {}", properties.getRetryInterval(), e.toString());
+        try {
+            Thread.sleep(properties.getRetryInterval());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
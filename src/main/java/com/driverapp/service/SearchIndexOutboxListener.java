@@ -0,0 +1,68 @@
+package com.driverapp.service;
+
+import com.driverapp.domain.enumeration.IndexOperation;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the changes of the indexed entities in the outbox of the {@link SearchIndexer}, when the
+ * {@link SearchChangeStreamTailer} cannot follow them, such as on a standalone MongoDB server.
+ * <p>
+ * Only the entities saved or deleted by id through a repository or the {@code MongoTemplate} are recorded: bulk
+ * writes publish no event, which leaves out the positions written by the {@link LocationPingService}, as the change
+ * stream does.
+ */
+@Component
+public class SearchIndexOutboxListener extends AbstractMongoEventListener<Object> {
+
+    private static final String ID = "_id";
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexOutboxListener.class);
+
+    private final SearchIndexer searchIndexer;
+
+    private final SearchChangeStreamTailer searchChangeStreamTailer;
+
+    public SearchIndexOutboxListener(SearchIndexer searchIndexer, SearchChangeStreamTailer searchChangeStreamTailer) {
+        this.searchIndexer = searchIndexer;
+        this.searchChangeStreamTailer = searchChangeStreamTailer;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Document document = event.getDocument();
+        record(event.getCollectionName(), document == null ? null : id(document.get(ID)), IndexOperation.INDEX);
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        // The event carries the query of the deletion, which only names the entity when deleting by id
+        Document query = event.getDocument();
+        record(event.getCollectionName(), query == null ? null : id(query.get(ID)), IndexOperation.DELETE);
+    }
+
+    private void record(String collection, @Nullable String id, IndexOperation operation) {
+        if (!searchIndexer.isEnabled() || searchChangeStreamTailer.isFollowingChanges()
+            || !searchIndexer.getIndexedTypes().containsKey(collection)) {
+            return;
+        }
+        if (id == null) {
+            log.warn("Cannot record a search index change of {} without its id, the index must be rebuilt", collection);
+            return;
+        }
+        searchIndexer.enqueue(collection, id, operation);
+    }
+
+    @Nullable
+    private static String id(@Nullable Object id) {
+        return id instanceof String || id instanceof ObjectId ? id.toString() : null;
+    }
+}
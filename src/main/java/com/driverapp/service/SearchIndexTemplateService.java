@@ -0,0 +1,162 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.config.Constants;
+import com.driverapp.repository.search.SearchIndexDefinitions;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.indices.mapping.GetMapping;
+import io.searchbox.indices.template.GetTemplate;
+import io.searchbox.indices.template.PutTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Service installing the versioned index templates of the search indices, and rebuilding the indices mapped by an
+ * older version.
+ * <p>
+ * Each indexed entity has an index template named after its alias, matching the alias and its versioned indices
+ * ({@code driver_v*}), with the settings and mapping of the entity (see {@link SearchIndexDefinitions}): an index
+ * created by any other way than the repositories or the rebuilds, such as the first write of the indexer to a
+ * missing index, is still mapped explicitly. A template is only replaced by a higher version.
+ * <p>
+ * The mappings of an existing index cannot be changed, so an index whose mapping has a lower version than its
+ * definition is rebuilt with {@link SearchReindexService}, without taking search offline, if
+ * {@code application.search-templates.rebuild-outdated} is set.
+ */
+@Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class SearchIndexTemplateService {
+
+    private static final int NOT_FOUND = 404;
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexTemplateService.class);
+
+    private final ApplicationProperties.SearchTemplates properties;
+
+    private final SearchIndexer searchIndexer;
+
+    private final SearchReindexService searchReindexService;
+
+    private final JestClient jestClient;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    public SearchIndexTemplateService(ApplicationProperties applicationProperties, SearchIndexer searchIndexer,
+                                      SearchReindexService searchReindexService, JestClient jestClient,
+                                      ElasticsearchOperations elasticsearchOperations) {
+        this.properties = applicationProperties.getSearchTemplates();
+        this.searchIndexer = searchIndexer;
+        this.searchReindexService = searchReindexService;
+        this.jestClient = jestClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, Class<?>> indexed : searchIndexer.getIndexedTypes().entrySet()) {
+            try {
+                if (installTemplate(indexed.getValue()) && properties.isRebuildOutdated()) {
+                    searchReindexService.start(indexed.getKey());
+                }
+            } catch (IOException e) {
+                log.error("Could not install the search index template of {}: {}", indexed.getKey(), e.toString());
+            }
+        }
+    }
+
+    /**
+     * Install the index template of an entity, unless the same or a higher version is installed.
+     *
+     * @param type the indexed entity type.
+     * @return whether the index of the entity exists with a mapping of a lower version than its definition.
+     * @throws IOException if Elasticsearch cannot be reached or rejects the template.
+     */
+    public boolean installTemplate(Class<?> type) throws IOException {
+        ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchOperations.getPersistentEntityFor(type);
+        String alias = persistentEntity.getIndexName();
+        String indexType = persistentEntity.getIndexType();
+        JsonObject settings = SearchIndexDefinitions.settings(type);
+        JsonObject mapping = SearchIndexDefinitions.mapping(type, indexType);
+        if (mapping == null) {
+            return false;
+        }
+        int version = SearchIndexDefinitions.version(mapping);
+
+        Integer installed = installedVersion(alias);
+        if (installed == null || installed < version) {
+            JsonObject template = new JsonObject();
+            JsonArray patterns = new JsonArray();
+            patterns.add(alias);
+            patterns.add(alias + "_v*");
+            template.add("index_patterns", patterns);
+            template.addProperty("version", version);
+            if (settings != null) {
+                JsonObject indexSettings = new JsonObject();
+                indexSettings.add("index", settings);
+                template.add("settings", indexSettings);
+            }
+            JsonObject mappings = new JsonObject();
+            mappings.add(indexType, mapping);
+            template.add("mappings", mappings);
+            check(jestClient.execute(new PutTemplate.Builder(alias, template.toString()).build()));
+            log.info("Installed version {} of the search index template {}", version, alias);
+        }
+
+        Integer indexed = indexedVersion(alias, indexType);
+        if (indexed != null && indexed < version) {
+            log.warn("The search index {} is mapped by version {}, its definition is version {}: it must be rebuilt", alias, indexed, version);
+            return true;
+        }
+        return false;
+    }
+
+    private Integer installedVersion(String alias) throws IOException {
+        JestResult result = jestClient.execute(new GetTemplate.Builder(alias).build());
+        if (result.getResponseCode() == NOT_FOUND) {
+            return null;
+        }
+        JsonObject template = check(result).getJsonObject().getAsJsonObject(alias);
+        return template == null || !template.has("version") ? null : template.get("version").getAsInt();
+    }
+
+    /**
+     * The lowest version of the mappings of the indices behind an alias, or {@code null} if there is no index yet.
+     */
+    private Integer indexedVersion(String alias, String indexType) throws IOException {
+        JestResult result = jestClient.execute(new GetMapping.Builder().addIndex(alias).addType(indexType).build());
+        if (result.getResponseCode() == NOT_FOUND) {
+            return null;
+        }
+        Integer lowest = null;
+        for (Map.Entry<String, JsonElement> index : check(result).getJsonObject().entrySet()) {
+            JsonObject mappings = index.getValue().getAsJsonObject().getAsJsonObject("mappings");
+            int version = SearchIndexDefinitions.version(mappings == null ? null : mappings.getAsJsonObject(indexType));
+            lowest = lowest == null ? version : Math.min(lowest, version);
+        }
+        return lowest;
+    }
+
+    private static JestResult check(JestResult result) throws IOException {
+        if (!result.isSucceeded()) {
+            throw new IOException(result.getErrorMessage());
+        }
+        return result;
+    }
+}
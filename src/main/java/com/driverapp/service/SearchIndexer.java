@@ -0,0 +1,410 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.Business;
+import com.driverapp.domain.DeviceDetails;
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.IndexOutboxEntry;
+import com.driverapp.domain.Insurance;
+import com.driverapp.domain.Location;
+import com.driverapp.domain.Services;
+import com.driverapp.domain.Vehicle;
+import com.driverapp.domain.enumeration.IndexOperation;
+import com.driverapp.repository.search.SearchIndexWrite;
+import com.driverapp.repository.search.SearchIndexWriter;
+
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service applying the changes of the entities to their search indices, through the {@link SearchIndexWriter}.
+ * <p>
+ * Changes are applied by batches: the current documents of the changed entities are read back from MongoDB, and
+ * sent in one bulk request, as index actions for the entities that still exist and delete actions for the others.
+ * Since each entity is indexed in its latest state, changes can be applied more than once and in any order.
+ * <p>
+ * Changes that could not be applied are kept in the {@link IndexOutboxEntry} outbox, which is drained every
+ * {@code application.search-indexer.poll-interval} milliseconds. Failing entries are retried with an exponential
+ * backoff, and dropped after {@code application.search-indexer.max-attempts}.
+ */
+@Service
+public class SearchIndexer {
+
+    private static final String ID = "_id";
+
+    private static final String CREATED_DATE = "created_date";
+
+    private static final String ATTEMPTS = "attempts";
+
+    private static final String NEXT_ATTEMPT_TIME = "next_attempt_time";
+
+    private static final List<Class<?>> INDEXED_TYPES = Arrays.asList(
+        Business.class, DeviceDetails.class, Driver.class, Insurance.class, Location.class, Services.class, Vehicle.class);
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final ApplicationProperties.SearchIndexer properties;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final DriverGraphLoader driverGraphLoader;
+
+    private final SearchIndexWriter searchIndexWriter;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final EntityMapper entityMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    private final Map<String, Class<?>> typesByCollection = new LinkedHashMap<>();
+
+    private final Map<Class<?>, Shadow> shadows = new ConcurrentHashMap<>();
+
+    private final AtomicLong lag = new AtomicLong();
+
+    private final Counter indexedCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter droppedCounter;
+
+    private final Timer bulkTimer;
+
+    public SearchIndexer(ApplicationProperties applicationProperties, MongoTemplate mongoTemplate, DriverGraphLoader driverGraphLoader,
+                         SearchIndexWriter searchIndexWriter, ElasticsearchOperations elasticsearchOperations, EntityMapper entityMapper,
+                         SearchResultCache searchResultCache, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getSearchIndexer();
+        this.mongoTemplate = mongoTemplate;
+        this.driverGraphLoader = driverGraphLoader;
+        this.searchIndexWriter = searchIndexWriter;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.entityMapper = entityMapper;
+        this.searchResultCache = searchResultCache;
+        for (Class<?> type : INDEXED_TYPES) {
+            typesByCollection.put(mongoTemplate.getCollectionName(type), type);
+        }
+        this.indexedCounter = meterRegistry.counter("driverapp.search.index.changes", "result", "indexed");
+        this.retriedCounter = meterRegistry.counter("driverapp.search.index.changes", "result", "retried");
+        this.droppedCounter = meterRegistry.counter("driverapp.search.index.changes", "result", "dropped");
+        this.bulkTimer = Timer.builder("driverapp.search.index.bulk")
+            .description("Time taken by the bulk requests applying changes to the search indices")
+            .register(meterRegistry);
+        Gauge.builder("driverapp.search.index.lag", lag, AtomicLong::get)
+            .description("Age of the oldest change waiting in the search index outbox, as of the last drain")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return the indexed entity types, by collection name.
+     */
+    public Map<String, Class<?>> getIndexedTypes() {
+        return Collections.unmodifiableMap(typesByCollection);
+    }
+
+    /**
+     * @return {@code true} if the outbox is drained by this node.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Record a change in the outbox, to be applied on the next drain.
+     *
+     * @param collection the collection of the entity.
+     * @param id the id of the entity.
+     * @param operation the operation to apply to the index.
+     */
+    public void enqueue(String collection, String id, IndexOperation operation) {
+        mongoTemplate.insert(new IndexOutboxEntry(collection, id, operation));
+    }
+
+    /**
+     * Also apply the changes of an entity type to another index, while it is being rebuilt.
+     *
+     * @param type the type of the entity.
+     * @param index the name of the index being rebuilt.
+     */
+    public void startShadowing(Class<?> type, String index) {
+        shadows.put(type, new Shadow(index));
+    }
+
+    /**
+     * @param type the type of the entity.
+     * @return the ids of the entities deleted from the index being rebuilt since it started getting the changes.
+     */
+    public Set<String> getShadowDeletedIds(Class<?> type) {
+        Shadow shadow = shadows.get(type);
+        return shadow == null ? Collections.emptySet() : new HashSet<>(shadow.deletedIds);
+    }
+
+    /**
+     * Stop applying the changes of an entity type to the index being rebuilt.
+     *
+     * @param type the type of the entity.
+     */
+    public void stopShadowing(Class<?> type) {
+        shadows.remove(type);
+    }
+
+    /**
+     * Convert raw documents to the entities to index.
+     *
+     * @param type the type of the entity.
+     * @param documents the raw documents.
+     * @return the entities, in the order of the documents.
+     */
+    public List<?> read(Class<?> type, List<Document> documents) {
+        return type == Driver.class
+            ? driverGraphLoader.readDrivers(documents)
+            : driverGraphLoader.readWithReferenceIds(type, documents);
+    }
+
+    /**
+     * Apply changes to the search indices, in one bulk request. The changes which could not be applied are added
+     * to the outbox, to be retried later.
+     *
+     * @param changes the operation of each changed entity, by entity id, by collection.
+     * @return the number of changes applied.
+     */
+    public int apply(Map<String, Map<String, IndexOperation>> changes) {
+        Map<String, Map<String, IndexOutboxEntry>> entries = new LinkedHashMap<>();
+        changes.forEach((collection, operations) -> {
+            if (!typesByCollection.containsKey(collection)) {
+                log.error("Ignoring search index changes of unknown entity type {}", collection);
+                return;
+            }
+            Map<String, IndexOutboxEntry> entriesById = entries.computeIfAbsent(collection, c -> new LinkedHashMap<>());
+            operations.forEach((id, operation) -> entriesById.put(id, new IndexOutboxEntry(collection, id, operation)));
+        });
+        List<IndexOutboxEntry> retries = bulk(entries);
+        if (!retries.isEmpty()) {
+            Instant nextAttemptTime = Instant.now().plus(backoff(1));
+            for (IndexOutboxEntry entry : retries) {
+                entry.setAttempts(1);
+                entry.setNextAttemptTime(nextAttemptTime);
+            }
+            mongoTemplate.insertAll(retries);
+            retriedCounter.increment(retries.size());
+        }
+        int applied = entries.values().stream().mapToInt(Map::size).sum() - retries.size();
+        indexedCounter.increment(applied);
+        return applied;
+    }
+
+    /**
+     * Apply the outbox to the search indices, one batch after the other, until no entry is due.
+     */
+    @Scheduled(fixedDelayString = "${application.search-indexer.poll-interval:1000}")
+    public void drain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            while (drainBatch() == properties.getBatchSize()) {
+                log.debug("Search index outbox still has due entries");
+            }
+        } finally {
+            updateLag();
+        }
+    }
+
+    /**
+     * Apply one batch of the due entries of the outbox to the search indices.
+     *
+     * @return the number of entries of the batch.
+     */
+    public synchronized int drainBatch() {
+        Instant now = Instant.now();
+        Query due = new Query(Criteria.where(NEXT_ATTEMPT_TIME).lte(now))
+            .with(Sort.by(Sort.Direction.ASC, CREATED_DATE))
+            .limit(properties.getBatchSize());
+        List<IndexOutboxEntry> entries = mongoTemplate.find(due, IndexOutboxEntry.class);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        // one action per entity, whatever the number of its entries in the batch
+        Map<String, Map<String, List<IndexOutboxEntry>>> entriesByType = new LinkedHashMap<>();
+        List<IndexOutboxEntry> failed = new ArrayList<>();
+        for (IndexOutboxEntry entry : entries) {
+            if (typesByCollection.containsKey(entry.getEntityType())) {
+                entriesByType.computeIfAbsent(entry.getEntityType(), type -> new LinkedHashMap<>())
+                    .computeIfAbsent(entry.getEntityId(), id -> new ArrayList<>())
+                    .add(entry);
+            } else {
+                failed.add(entry);
+            }
+        }
+        bulk(entriesByType).forEach(failed::addAll);
+
+        Set<IndexOutboxEntry> notApplied = Collections.newSetFromMap(new IdentityHashMap<>());
+        notApplied.addAll(failed);
+        List<IndexOutboxEntry> applied = entries.stream().filter(entry -> !notApplied.contains(entry)).collect(Collectors.toList());
+        remove(applied);
+        indexedCounter.increment(applied.size());
+        retry(failed, now);
+        return entries.size();
+    }
+
+    /**
+     * Send one bulk request with one write per changed entity, and one more for the index being rebuilt if any.
+     *
+     * @param changes the changes of each entity, by entity id, by collection.
+     * @param <C> the type of the changes.
+     * @return the changes of the entities which could not be indexed.
+     */
+    private <C> List<C> bulk(Map<String, Map<String, C>> changes) {
+        List<SearchIndexWrite> writes = new ArrayList<>();
+        List<C> actions = new ArrayList<>();
+        List<C> failed = new ArrayList<>();
+        changes.forEach((collection, changesById) -> {
+            Class<?> type = typesByCollection.get(collection);
+            ElasticsearchPersistentEntity<?> index = elasticsearchOperations.getPersistentEntityFor(type);
+            Shadow shadow = shadows.get(type);
+            Map<String, Object> current = load(type, collection, changesById.keySet());
+            changesById.forEach((id, change) -> {
+                try {
+                    Object entity = current.get(id);
+                    String source = entity == null ? null : entityMapper.mapToString(entity);
+                    writes.add(new SearchIndexWrite(type, index.getIndexName(), index.getIndexType(), id, source));
+                    actions.add(change);
+                    if (shadow != null) {
+                        if (entity == null) {
+                            shadow.deletedIds.add(id);
+                        }
+                        writes.add(new SearchIndexWrite(type, shadow.index, index.getIndexType(), id, source));
+                        actions.add(null);
+                    }
+                } catch (IOException e) {
+                    log.error("Could not serialize {} {} for the search index", collection, id, e);
+                    failed.add(change);
+                }
+            });
+        });
+        if (actions.isEmpty()) {
+            return failed;
+        }
+        try {
+            List<String> errors = bulkTimer.recordCallable(() -> searchIndexWriter.write(writes));
+            for (int i = 0; i < errors.size(); i++) {
+                if (errors.get(i) != null) {
+                    log.warn("Could not apply the {} to the search index: {}", writes.get(i), errors.get(i));
+                    // a failure on the index being rebuilt is not retried, the rebuild reads the entity anyway
+                    if (actions.get(i) != null) {
+                        failed.add(actions.get(i));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Search index bulk request failed: {}", e.toString());
+            actions.stream().filter(Objects::nonNull).forEach(failed::add);
+        }
+        // pages searched before the changes were indexed would hide them until they expire
+        changes.keySet().forEach(collection -> searchResultCache.invalidate(typesByCollection.get(collection)));
+        return failed;
+    }
+
+    /**
+     * The current state of the changed entities, by id. Deleted entities are missing.
+     */
+    private Map<String, Object> load(Class<?> type, String collection, Collection<String> ids) {
+        List<Document> documents = mongoTemplate.find(new Query(Criteria.where(ID).in(ids)), Document.class, collection);
+        return read(type, documents).stream().collect(Collectors.toMap(this::idOf, Function.identity()));
+    }
+
+    /**
+     * @param entity an indexed entity.
+     * @return its id.
+     */
+    public String idOf(Object entity) {
+        Object id = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entity.getClass())
+            .getIdentifierAccessor(entity).getIdentifier();
+        return String.valueOf(id);
+    }
+
+    private void remove(List<IndexOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<String> ids = entries.stream().map(IndexOutboxEntry::getId).collect(Collectors.toList());
+        DeleteResult result = mongoTemplate.remove(new Query(Criteria.where(ID).in(ids)), IndexOutboxEntry.class);
+        log.debug("Applied {} search index changes", result.getDeletedCount());
+    }
+
+    private void retry(List<IndexOutboxEntry> entries, Instant now) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<IndexOutboxEntry> dropped = new ArrayList<>();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, IndexOutboxEntry.class);
+        for (IndexOutboxEntry entry : entries) {
+            int attempts = entry.getAttempts() + 1;
+            if (attempts >= properties.getMaxAttempts() || !typesByCollection.containsKey(entry.getEntityType())) {
+                log.error("Dropping search index change {} after {} attempts", entry, attempts);
+                dropped.add(entry);
+            } else {
+                operations.updateOne(new Query(Criteria.where(ID).is(entry.getId())),
+                    new Update().set(ATTEMPTS, attempts).set(NEXT_ATTEMPT_TIME, now.plus(backoff(attempts))));
+            }
+        }
+        if (dropped.size() < entries.size()) {
+            operations.execute();
+        }
+        remove(dropped);
+        retriedCounter.increment(entries.size() - dropped.size());
+        droppedCounter.increment(dropped.size());
+    }
+
+    private Duration backoff(int attempts) {
+        long backoff = properties.getInitialBackoff() << Math.min(attempts - 1, 30);
+        return Duration.ofMillis(backoff > 0 ? Math.min(backoff, properties.getMaxBackoff()) : properties.getMaxBackoff());
+    }
+
+    private void updateLag() {
+        IndexOutboxEntry oldest = mongoTemplate.findOne(new Query().with(Sort.by(Sort.Direction.ASC, CREATED_DATE)), IndexOutboxEntry.class);
+        lag.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest.getCreatedDate(), Instant.now()).toMillis()));
+    }
+
+    /**
+     * An index being rebuilt, which gets the changes too.
+     */
+    private static final class Shadow {
+
+        private final String index;
+
+        private final Set<String> deletedIds = ConcurrentHashMap.newKeySet();
+
+        Shadow(String index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.config.Constants;
+import com.driverapp.repository.search.SearchIndexDefinitions;
+import com.driverapp.service.dto.SearchReindexJobDTO;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Delete;
+import io.searchbox.core.Index;
+import io.searchbox.indices.CreateIndex;
+import io.searchbox.indices.DeleteIndex;
+import io.searchbox.indices.Refresh;
+import io.searchbox.indices.aliases.AddAliasMapping;
+import io.searchbox.indices.aliases.GetAliases;
+import io.searchbox.indices.aliases.ModifyAliases;
+import io.searchbox.indices.aliases.RemoveAliasMapping;
+import io.searchbox.indices.mapping.GetMapping;
+import io.searchbox.indices.settings.GetSettings;
+import io.searchbox.indices.settings.UpdateSettings;
+import io.searchbox.params.Parameters;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Service rebuilding the Elasticsearch indices from MongoDB without taking search offline.
+ * <p>
+ * The indices used by the {@code *SearchRepository} are aliases. A rebuild creates a new versioned index
+ * ({@code driver_v20190801120000000}), fills it, and then moves the alias to it in one atomic request. Meanwhile,
+ * searches keep reading the previous index, and the changes keep being applied to both.
+ * <p>
+ * The collection is split into {@code application.search-reindex.partitions} {@code _id} ranges of about the same
+ * size, scanned in parallel and written by bulk requests with {@code op_type=create}, so that a document written
+ * by a change applied during the rebuild is never overwritten by an older state read by the scan. The new index is
+ * written without replicas nor refreshes, which are restored before the swap.
+ */
+@Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class SearchReindexService {
+
+    private static final String ID = "_id";
+
+    private static final String REFRESH_INTERVAL = "refresh_interval";
+
+    private static final String NUMBER_OF_REPLICAS = "number_of_replicas";
+
+    private static final List<String> COPIED_SETTINGS = Arrays.asList("number_of_shards", NUMBER_OF_REPLICAS, REFRESH_INTERVAL, "analysis");
+
+    private static final int BULK_ATTEMPTS = 3;
+
+    private static final int VERSION_CONFLICT = 409;
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private final ApplicationProperties.SearchReindex properties;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final SearchIndexer searchIndexer;
+
+    private final JestClient jestClient;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final EntityMapper entityMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService coordinators;
+
+    private final ExecutorService workers;
+
+    public SearchReindexService(ApplicationProperties applicationProperties, MongoTemplate mongoTemplate, SearchIndexer searchIndexer,
+                                JestClient jestClient, ElasticsearchOperations elasticsearchOperations, EntityMapper entityMapper,
+                                MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getSearchReindex();
+        this.mongoTemplate = mongoTemplate;
+        this.searchIndexer = searchIndexer;
+        this.jestClient = jestClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.entityMapper = entityMapper;
+        this.meterRegistry = meterRegistry;
+        this.coordinators = Executors.newCachedThreadPool(daemon("search-reindex"));
+        this.workers = Executors.newFixedThreadPool(properties.getParallelism(), daemon("search-reindex-worker"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinators.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * @return the progress of the current and last rebuilds, by entity.
+     */
+    public List<SearchReindexJobDTO> getJobs() {
+        return jobs.values().stream().map(Job::toDto)
+            .sorted(Comparator.comparing(SearchReindexJobDTO::getEntity))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Start rebuilding the index of an entity, unless it is already being rebuilt.
+     *
+     * @param entity the collection name of the entity.
+     * @return the progress of the rebuild.
+     * @throws IllegalArgumentException if the entity is not indexed.
+     */
+    public SearchReindexJobDTO start(String entity) {
+        Class<?> type = searchIndexer.getIndexedTypes().get(entity);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown indexed entity: " + entity);
+        }
+        Job[] started = new Job[1];
+        Job job = jobs.compute(entity, (key, existing) -> {
+            if (existing != null && existing.state == SearchReindexJobDTO.State.RUNNING) {
+                return existing;
+            }
+            started[0] = new Job(entity);
+            return started[0];
+        });
+        if (started[0] != null) {
+            coordinators.execute(() -> run(started[0], type));
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Start rebuilding the indices of all the entities.
+     *
+     * @return the progress of the rebuilds.
+     */
+    public List<SearchReindexJobDTO> startAll() {
+        return searchIndexer.getIndexedTypes().keySet().stream().map(this::start).collect(Collectors.toList());
+    }
+
+    private void run(Job job, Class<?> type) {
+        ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchOperations.getPersistentEntityFor(type);
+        String alias = persistentEntity.getIndexName();
+        String indexType = persistentEntity.getIndexType();
+        String index = alias + "_v" + VERSION_FORMAT.format(job.startTime);
+        job.index = index;
+        boolean created = false;
+        try {
+            Set<String> previous = indicesBehind(alias);
+            String current = previous.isEmpty() ? null : previous.iterator().next();
+            JsonObject settings = settings(type, current);
+            createIndex(index, indexType, settings, mapping(type, indexType, current));
+            created = true;
+            searchIndexer.startShadowing(type, index);
+
+            scan(job, type, index, indexType);
+            removeDeletedMeanwhile(type, index, indexType);
+
+            JsonObject restored = new JsonObject();
+            restored.add(REFRESH_INTERVAL, settings.has(REFRESH_INTERVAL) ? settings.get(REFRESH_INTERVAL) : new JsonPrimitive("1s"));
+            restored.add(NUMBER_OF_REPLICAS, settings.has(NUMBER_OF_REPLICAS) ? settings.get(NUMBER_OF_REPLICAS) : new JsonPrimitive(1));
+            JsonObject update = new JsonObject();
+            update.add("index", restored);
+            execute(new UpdateSettings.Builder(update.toString()).addIndex(index).build());
+            execute(new Refresh.Builder().addIndex(index).build());
+
+            swapAlias(alias, index, previous);
+            searchIndexer.stopShadowing(type);
+            job.finish(SearchReindexJobDTO.State.COMPLETED, null);
+            log.info("Rebuilt the search index {} of {} in {}: {} documents indexed, {} failed", index, job.entity,
+                Duration.between(job.startTime, job.endTime), job.indexed.get(), job.failed.get());
+        } catch (Exception e) {
+            log.error("Could not rebuild the search index of {}", job.entity, e);
+            searchIndexer.stopShadowing(type);
+            if (created) {
+                try {
+                    execute(new DeleteIndex.Builder(index).build());
+                } catch (Exception cleanup) {
+                    log.warn("Could not delete the unfinished search index {}: {}", index, cleanup.toString());
+                }
+            }
+            job.finish(SearchReindexJobDTO.State.FAILED, e.toString());
+        }
+    }
+
+    /**
+     * The concrete indices behind a name: the index itself if it is not an alias yet.
+     */
+    private Set<String> indicesBehind(String alias) throws IOException {
+        JestResult result = jestClient.execute(new GetAliases.Builder().addIndex(alias).build());
+        if (result.getResponseCode() == 404) {
+            return Collections.emptySet();
+        }
+        check(result);
+        return result.getJsonObject().entrySet().stream().map(Map.Entry::getKey).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private JsonObject settings(Class<?> type, String current) throws IOException {
+        JsonObject settings = SearchIndexDefinitions.settings(type);
+        if (settings != null) {
+            return settings;
+        }
+        settings = new JsonObject();
+        if (current != null) {
+            JsonObject existing = execute(new GetSettings.Builder().addIndex(current).build()).getJsonObject()
+                .getAsJsonObject(current).getAsJsonObject("settings").getAsJsonObject("index");
+            for (String key : COPIED_SETTINGS) {
+                if (existing.has(key)) {
+                    settings.add(key, existing.get(key));
+                }
+            }
+        }
+        return settings;
+    }
+
+    private JsonObject mapping(Class<?> type, String indexType, String current) throws IOException {
+        JsonObject mapping = SearchIndexDefinitions.mapping(type, indexType);
+        if (mapping != null) {
+            return mapping;
+        }
+        if (current == null) {
+            return null;
+        }
+        JsonObject mappings = execute(new GetMapping.Builder().addIndex(current).addType(indexType).build()).getJsonObject()
+            .getAsJsonObject(current).getAsJsonObject("mappings");
+        return mappings.has(indexType) ? mappings.getAsJsonObject(indexType) : null;
+    }
+
+    private void createIndex(String index, String indexType, JsonObject settings, JsonObject mapping) throws IOException {
+        JsonObject loading = settings.deepCopy();
+        loading.addProperty(REFRESH_INTERVAL, "-1");
+        loading.addProperty(NUMBER_OF_REPLICAS, 0);
+        JsonObject body = new JsonObject();
+        JsonObject indexSettings = new JsonObject();
+        indexSettings.add("index", loading);
+        body.add("settings", indexSettings);
+        if (mapping != null) {
+            JsonObject mappings = new JsonObject();
+            mappings.add(indexType, mapping);
+            body.add("mappings", mappings);
+        }
+        execute(new CreateIndex.Builder(index).settings(body.toString()).build());
+    }
+
+    private void scan(Job job, Class<?> type, String index, String indexType) throws Exception {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(job.entity);
+        job.total = collection.estimatedDocumentCount();
+        List<Bson> partitions = partitions(collection);
+        job.partitions = partitions.size();
+        Counter counter = meterRegistry.counter("driverapp.search.reindex.documents", "entity", job.entity);
+        List<Future<?>> scans = new ArrayList<>();
+        for (Bson partition : partitions) {
+            scans.add(workers.submit(() -> {
+                scan(job, type, collection, partition, index, indexType, counter);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+        } catch (ExecutionException e) {
+            scans.forEach(scan -> scan.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Split a collection in {@code _id} ranges of about the same number of documents.
+     */
+    private List<Bson> partitions(MongoCollection<Document> collection) {
+        List<Document> buckets = collection.aggregate(Collections.singletonList(
+            new Document("$bucketAuto", new Document("groupBy", "$" + ID).append("buckets", properties.getPartitions()))))
+            .allowDiskUse(true)
+            .into(new ArrayList<>());
+        List<Bson> partitions = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            Document bounds = buckets.get(i).get(ID, Document.class);
+            // the upper bound of a bucket is the lower bound of the next one, the last one includes its upper bound
+            partitions.add(i < buckets.size() - 1
+                ? Filters.and(Filters.gte(ID, bounds.get("min")), Filters.lt(ID, bounds.get("max")))
+                : Filters.gte(ID, bounds.get("min")));
+        }
+        return partitions;
+    }
+
+    private void scan(Job job, Class<?> type, MongoCollection<Document> collection, Bson partition, String index, String indexType,
+                      Counter counter) throws Exception {
+        List<Document> batch = new ArrayList<>(properties.getBatchSize());
+        try (MongoCursor<Document> cursor = collection.find(partition).sort(Sorts.ascending(ID)).batchSize(properties.getBatchSize()).iterator()) {
+            while (cursor.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Search index rebuild cancelled");
+                }
+                batch.add(cursor.next());
+                if (batch.size() == properties.getBatchSize()) {
+                    write(job, type, batch, index, indexType, counter);
+                    batch = new ArrayList<>(properties.getBatchSize());
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(job, type, batch, index, indexType, counter);
+        }
+        job.completedPartitions.incrementAndGet();
+    }
+
+    private void write(Job job, Class<?> type, List<Document> documents, String index, String indexType, Counter counter) throws Exception {
+        Bulk.Builder bulk = new Bulk.Builder().defaultIndex(index).defaultType(indexType);
+        for (Object entity : searchIndexer.read(type, documents)) {
+            bulk.addAction(new Index.Builder(entityMapper.mapToString(entity))
+                .id(searchIndexer.idOf(entity))
+                .setParameter(Parameters.OP_TYPE, "create")
+                .build());
+        }
+        Bulk request = bulk.build();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BulkResult result = jestClient.execute(request);
+                if (result.getItems().isEmpty()) {
+                    throw new IOException(result.getErrorMessage());
+                }
+                long failed = 0;
+                for (BulkResult.BulkResultItem item : result.getItems()) {
+                    // a conflict means that a change already wrote a newer state
+                    if (item.error != null && item.status != VERSION_CONFLICT) {
+                        log.warn("Could not index {} {} in {}: {}", job.entity, item.id, index, item.error);
+                        failed++;
+                    }
+                }
+                job.indexed.addAndGet(result.getItems().size() - failed);
+                job.failed.addAndGet(failed);
+                counter.increment(result.getItems().size() - failed);
+                return;
+            } catch (IOException e) {
+                if (attempt == BULK_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Search index rebuild bulk request failed, attempt {} of {}: {}", attempt, BULK_ATTEMPTS, e.toString());
+                Thread.sleep(1000L << attempt);
+            }
+        }
+    }
+
+    /**
+     * The scan may have written entities deleted after it read them: delete them again if they are still missing.
+     */
+    private void removeDeletedMeanwhile(Class<?> type, String index, String indexType) throws IOException {
+        Set<String> deleted = searchIndexer.getShadowDeletedIds(type);
+        if (deleted.isEmpty()) {
+            return;
+        }
+        String collection = mongoTemplate.getCollectionName(type);
+        List<Document> existing = mongoTemplate.find(new Query(Criteria.where(ID).in(deleted)), Document.class, collection);
+        existing.forEach(document -> deleted.remove(String.valueOf(document.get(ID))));
+        if (deleted.isEmpty()) {
+            return;
+        }
+        Bulk.Builder bulk = new Bulk.Builder().defaultIndex(index).defaultType(indexType);
+        deleted.forEach(id -> bulk.addAction(new Delete.Builder(id).build()));
+        execute(bulk.build());
+    }
+
+    private void swapAlias(String alias, String index, Set<String> previous) throws IOException {
+        if (previous.contains(alias)) {
+            // the index was created before the aliases: it has to be deleted before its name can become an alias
+            log.warn("Replacing the search index {} by an alias, searches fail until the alias is created", alias);
+            execute(new DeleteIndex.Builder(alias).build());
+            execute(new ModifyAliases.Builder(new AddAliasMapping.Builder(index, alias).build()).build());
+            return;
+        }
+        ModifyAliases.Builder aliases = new ModifyAliases.Builder(new AddAliasMapping.Builder(index, alias).build());
+        if (!previous.isEmpty()) {
+            aliases.addAlias(new RemoveAliasMapping.Builder(new ArrayList<>(previous), alias).build());
+        }
+        execute(aliases.build());
+        for (String old : previous) {
+            execute(new DeleteIndex.Builder(old).build());
+        }
+    }
+
+    private <T extends JestResult> T execute(Action<T> action) throws IOException {
+        return check(jestClient.execute(action));
+    }
+
+    private static <T extends JestResult> T check(T result) throws IOException {
+        if (!result.isSucceeded()) {
+            throw new IOException(result.getErrorMessage());
+        }
+        return result;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The progress of the rebuild of the index of an entity.
+     */
+    private static final class Job {
+
+        private final String entity;
+
+        private final Instant startTime = Instant.now();
+
+        private final AtomicInteger completedPartitions = new AtomicInteger();
+
+        private final AtomicLong indexed = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private volatile String index;
+
+        private volatile SearchReindexJobDTO.State state = SearchReindexJobDTO.State.RUNNING;
+
+        private volatile int partitions;
+
+        private volatile long total;
+
+        private volatile Instant endTime;
+
+        private volatile String message;
+
+        Job(String entity) {
+            this.entity = entity;
+        }
+
+        void finish(SearchReindexJobDTO.State state, String message) {
+            this.endTime = Instant.now();
+            this.message = message;
+            this.state = state;
+        }
+
+        SearchReindexJobDTO toDto() {
+            SearchReindexJobDTO dto = new SearchReindexJobDTO();
+            dto.setEntity(entity);
+            dto.setIndex(index);
+            dto.setState(state);
+            dto.setPartitions(partitions);
+            dto.setCompletedPartitions(completedPartitions.get());
+            dto.setTotal(total);
+            dto.setIndexed(indexed.get());
+            dto.setFailed(failed.get());
+            dto.setStartTime(startTime);
+            dto.setEndTime(endTime);
+            long elapsed = Duration.between(startTime, endTime == null ? Instant.now() : endTime).toMillis();
+            dto.setDocumentsPerSecond(elapsed == 0 ? 0 : indexed.get() * 1000.0 / elapsed);
+            dto.setMessage(message);
+            return dto;
+        }
+    }
+}
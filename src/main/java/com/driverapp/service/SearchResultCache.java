@@ -0,0 +1,128 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the pages of the search endpoints, by entity type, normalized query and page.
+ * <p>
+ * The cache holds at most {@code application.search-cache.max-hits} hits in all, each page weighing its number of
+ * hits, for at most {@code application.search-cache.ttl} milliseconds. Each entity type has a generation, part of
+ * the keys of its pages: {@link #invalidate} moves to the next generation, so the pages of the previous one are
+ * never read again, even those of searches still running, and are left to the eviction.
+ * <p>
+ * The hits, misses and evictions are published as the {@code search} cache metrics.
+ */
+@Service
+public class SearchResultCache {
+
+    private final boolean enabled;
+
+    private final Cache<Key, Page<?>> cache;
+
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public SearchResultCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.SearchCache properties = applicationProperties.getSearchCache();
+        this.enabled = properties.isEnabled();
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxHits())
+            .weigher((Key key, Page<?> page) -> page.getNumberOfElements() + 1)
+            .expireAfterWrite(properties.getTtl(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "search");
+    }
+
+    /**
+     * Get a page of search results from the cache, or search it and cache it.
+     *
+     * @param type the searched entity type.
+     * @param query the query string.
+     * @param pageable the page.
+     * @param search the search of the page, called on a miss.
+     * @param <D> the type of the results.
+     * @return the page.
+     */
+    @SuppressWarnings("unchecked")
+    public <D> Page<D> get(Class<?> type, String query, Pageable pageable, Supplier<Page<D>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        Key key = new Key(type, generation(type).get(), normalize(query), pageable);
+        return (Page<D>) cache.get(key, k -> search.get());
+    }
+
+    /**
+     * Drop the cached pages of an entity type, after it was written.
+     *
+     * @param type the entity type.
+     */
+    public void invalidate(Class<?> type) {
+        generation(type).incrementAndGet();
+        meterRegistry.counter("driverapp.search.cache.invalidations", "entity", type.getSimpleName()).increment();
+    }
+
+    /**
+     * Trim the query and collapse its whitespace, which the query string syntax ignores.
+     */
+    static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ");
+    }
+
+    private AtomicLong generation(Class<?> type) {
+        return generations.computeIfAbsent(type, t -> new AtomicLong());
+    }
+
+    private static final class Key {
+
+        private final Class<?> type;
+
+        private final long generation;
+
+        private final String query;
+
+        private final Pageable pageable;
+
+        Key(Class<?> type, long generation, String query, Pageable pageable) {
+            this.type = type;
+            this.generation = generation;
+            this.query = query;
+            this.pageable = pageable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return type == other.type && generation == other.generation && query.equals(other.query) && pageable.equals(other.pageable);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, generation, query, pageable);
+        }
+    }
+}
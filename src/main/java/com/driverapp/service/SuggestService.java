@@ -0,0 +1,131 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.repository.search.BusinessSearchRepository;
+import com.driverapp.repository.search.DriverSearchRepository;
+import com.driverapp.repository.search.LocationSearchRepository;
+import com.driverapp.repository.search.SearchAfterRepository;
+import com.driverapp.service.dto.BusinessDTO;
+import com.driverapp.service.dto.DriverSummaryDTO;
+import com.driverapp.service.dto.LocationDTO;
+import com.driverapp.service.mapper.BusinessMapper;
+import com.driverapp.service.mapper.DriverMapper;
+import com.driverapp.service.mapper.LocationMapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
+
+/**
+ * Service for the typeahead suggestions of the businesses, locations and drivers.
+ * <p>
+ * Prefixes are matched against the {@code suggest} subfields of the names and addresses, indexed with the edge
+ * n-grams of their words (see the {@code suggest} analyzer in {@code config/elasticsearch}), so each keystroke is a
+ * single term lookup per word. Suggestions are cached by entity, normalized prefix and size, in a cache bounded to
+ * {@code application.suggest.cache-max-entries} entries and {@code application.suggest.cache-ttl} milliseconds.
+ */
+@Service
+public class SuggestService {
+
+    private final Logger log = LoggerFactory.getLogger(SuggestService.class);
+
+    private final int maxSize;
+
+    private final Map<String, Suggester<?>> suggesters = new HashMap<>();
+
+    private final Cache<String, List<?>> cache;
+
+    public SuggestService(ApplicationProperties applicationProperties, BusinessSearchRepository businessSearchRepository,
+                          BusinessMapper businessMapper, LocationSearchRepository locationSearchRepository, LocationMapper locationMapper,
+                          DriverSearchRepository driverSearchRepository, DriverMapper driverMapper, MeterRegistry meterRegistry) {
+        ApplicationProperties.Suggest properties = applicationProperties.getSuggest();
+        this.maxSize = properties.getMaxSize();
+        suggesters.put("businesses", new Suggester<>(businessSearchRepository, BusinessDTO.class, businessMapper::toDto,
+            "name.suggest", "address.suggest"));
+        suggesters.put("locations", new Suggester<>(locationSearchRepository, LocationDTO.class, locationMapper::toDto,
+            "addressLine1.suggest", "city.suggest"));
+        suggesters.put("drivers", new Suggester<>(driverSearchRepository, DriverSummaryDTO.class, driverMapper::toSummaryDto,
+            "firstName.suggest", "lastName.suggest"));
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getCacheMaxEntries())
+            .expireAfterWrite(properties.getCacheTtl(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "suggest");
+    }
+
+    /**
+     * Suggest the entities matching a prefix.
+     *
+     * @param entity the entity: {@code businesses}, {@code locations} or {@code drivers}.
+     * @param prefix the typed text; each of its words must start a word of one of the suggested fields.
+     * @param size the maximum number of suggestions, at most {@code application.suggest.max-size}.
+     * @return the suggestions, as the DTOs of the list views, or an empty {@link Optional} if the entity has no suggestions.
+     */
+    public Optional<List<?>> suggest(String entity, String prefix, int size) {
+        Suggester<?> suggester = suggesters.get(entity);
+        if (suggester == null) {
+            return Optional.empty();
+        }
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return Optional.of(Collections.emptyList());
+        }
+        int limit = Math.min(Math.max(size, 1), maxSize);
+        return Optional.of(cache.get(entity + '\u0000' + limit + '\u0000' + normalized, key -> suggester.suggest(normalized, limit)));
+    }
+
+    /**
+     * Lower case the prefix and collapse its whitespace, so that the variants of a prefix share their cache entry.
+     */
+    static String normalize(String prefix) {
+        return prefix == null ? "" : prefix.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private class Suggester<T> {
+
+        private final SearchAfterRepository<T> repository;
+
+        private final Class<?> projection;
+
+        private final Function<T, ?> converter;
+
+        private final String[] fields;
+
+        Suggester(SearchAfterRepository<T> repository, Class<?> projection, Function<T, ?> converter, String... fields) {
+            this.repository = repository;
+            this.projection = projection;
+            this.converter = converter;
+            this.fields = fields;
+        }
+
+        List<?> suggest(String prefix, int size) {
+            log.debug("Suggesting {} for prefix {}", projection.getSimpleName(), prefix);
+            return repository.search(multiMatchQuery(prefix, fields).type(MultiMatchQueryBuilder.Type.CROSS_FIELDS).operator(Operator.AND),
+                PageRequest.of(0, size), projection)
+                .getContent()
+                .stream()
+                .map(converter)
+                .collect(Collectors.toList());
+        }
+    }
+}
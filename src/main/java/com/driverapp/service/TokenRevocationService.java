@@ -0,0 +1,250 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.RevokedToken;
+import com.driverapp.repository.RevokedTokenRepository;
+import com.driverapp.security.jwt.BloomFilter;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service revoking JWTs before they expire, one by one by their id, or all the tokens of a subject issued until
+ * its revocation.
+ * <p>
+ * Revocations are saved in the {@link RevokedToken} collection, and every node keeps the current ones in memory:
+ * an exact map of the revocations, behind a {@link BloomFilter}. Checking a token which was not revoked is a few
+ * probes of the filter, and only its hits are confirmed against the map, with no I/O in either case. The
+ * revocations of the other nodes are read every {@code application.token-revocation.poll-interval} milliseconds,
+ * and the filter is rebuilt without the expired revocations every
+ * {@code application.token-revocation.rebuild-interval} milliseconds.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final String TOKEN_PREFIX = "jti:";
+
+    private static final String SUBJECT_PREFIX = "sub:";
+
+    /**
+     * Revocations of the other nodes are read again over this window, to bear with the skew of their clocks.
+     */
+    private static final long CLOCK_SKEW = 60;
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final ApplicationProperties.TokenRevocation properties;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final long maxTokenValidity;
+
+    private final ConcurrentMap<String, RevokedToken> revocations = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile Instant lastPollTime = Instant.EPOCH;
+
+    private final Counter negativeCounter;
+
+    private final Counter falsePositiveCounter;
+
+    private final Counter revokedCounter;
+
+    private ScheduledExecutorService poller;
+
+    public TokenRevocationService(ApplicationProperties applicationProperties, JHipsterProperties jHipsterProperties,
+                                  RevokedTokenRepository revokedTokenRepository, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getTokenRevocation();
+        this.revokedTokenRepository = revokedTokenRepository;
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.maxTokenValidity = Math.max(jwt.getTokenValidityInSeconds(), jwt.getTokenValidityInSecondsForRememberMe());
+        this.bloomFilter = newBloomFilter();
+        this.negativeCounter = meterRegistry.counter("driverapp.jwt.revocation.checks", "result", "negative");
+        this.falsePositiveCounter = meterRegistry.counter("driverapp.jwt.revocation.checks", "result", "false-positive");
+        this.revokedCounter = meterRegistry.counter("driverapp.jwt.revocation.checks", "result", "revoked");
+        Gauge.builder("driverapp.jwt.revocations", revocations, Map::size)
+            .description("Number of token revocations in memory")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Load the revocations before the first request is authenticated, then keep them up to date.
+     */
+    @PostConstruct
+    public void start() {
+        rebuild();
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "driver-app-token-revocations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollSafely, properties.getPollInterval(), properties.getPollInterval(),
+            TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::rebuildSafely, properties.getRebuildInterval(), properties.getRebuildInterval(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Get the revocation key of the id of a token.
+     *
+     * @param tokenId the {@code jti} claim of the token.
+     * @return the key, or {@code null} if the token has no id.
+     */
+    @Nullable
+    public static String tokenKey(@Nullable String tokenId) {
+        return tokenId == null ? null : TOKEN_PREFIX + tokenId;
+    }
+
+    /**
+     * Get the revocation key of a subject.
+     *
+     * @param subject the {@code sub} claim of the tokens.
+     * @return the key.
+     */
+    public static String subjectKey(String subject) {
+        return SUBJECT_PREFIX + subject;
+    }
+
+    /**
+     * Revoke a token.
+     *
+     * @param tokenId the {@code jti} claim of the token.
+     * @param expiration the expiration of the token, after which its revocation is dropped.
+     */
+    public void revokeToken(String tokenId, Instant expiration) {
+        log.debug("Revoking token : {}", tokenId);
+        add(revokedTokenRepository.save(new RevokedToken(tokenKey(tokenId), Instant.now(), expiration)));
+    }
+
+    /**
+     * Revoke all the tokens of a subject issued until now.
+     *
+     * @param subject the {@code sub} claim of the tokens, the login of the user.
+     */
+    public void revokeSubject(String subject) {
+        log.debug("Revoking the tokens of : {}", subject);
+        // Issue times are in seconds: the tokens issued during this second are revoked too
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        add(revokedTokenRepository.save(new RevokedToken(subjectKey(subject), now, now.plusSeconds(maxTokenValidity + 1))));
+    }
+
+    /**
+     * Check whether a token was revoked.
+     *
+     * @param tokenKey the revocation key of the token, from {@link #tokenKey}.
+     * @param subjectKey the revocation key of its subject, from {@link #subjectKey}.
+     * @param issuedAt the issue time of the token, or {@code null} if unknown.
+     * @return {@code true} if the token or its subject were revoked.
+     */
+    public boolean isRevoked(@Nullable String tokenKey, String subjectKey, @Nullable Date issuedAt) {
+        BloomFilter filter = bloomFilter;
+        boolean hit = false;
+        if (tokenKey != null && filter.mightContain(tokenKey)) {
+            hit = true;
+            if (revocations.containsKey(tokenKey)) {
+                revokedCounter.increment();
+                return true;
+            }
+        }
+        if (filter.mightContain(subjectKey)) {
+            hit = true;
+            RevokedToken revocation = revocations.get(subjectKey);
+            if (revocation != null && (issuedAt == null || !issuedAt.toInstant().isAfter(revocation.getRevokedAt()))) {
+                revokedCounter.increment();
+                return true;
+            }
+        }
+        (hit ? falsePositiveCounter : negativeCounter).increment();
+        return false;
+    }
+
+    /**
+     * Read the revocations saved by the other nodes since the last poll.
+     */
+    public void poll() {
+        Instant pollTime = Instant.now();
+        for (RevokedToken revocation : revokedTokenRepository.findAllByRevokedAtGreaterThanEqual(lastPollTime.minusSeconds(CLOCK_SKEW))) {
+            add(revocation);
+        }
+        lastPollTime = pollTime;
+    }
+
+    /**
+     * Read all the current revocations, and replace the filter by a filter of them only.
+     */
+    public synchronized void rebuild() {
+        Instant pollTime = Instant.now();
+        Map<String, RevokedToken> current = new HashMap<>();
+        for (RevokedToken revocation : revokedTokenRepository.findAll()) {
+            if (!revocation.getExpirationTime().isBefore(pollTime)) {
+                current.merge(revocation.getId(), revocation, TokenRevocationService::latest);
+            }
+        }
+        // Add before removing, so that the current revocations are never missing from the map
+        current.forEach((id, revocation) -> revocations.merge(id, revocation, TokenRevocationService::latest));
+        revocations.keySet().retainAll(current.keySet());
+        BloomFilter filter = newBloomFilter();
+        revocations.keySet().forEach(filter::put);
+        bloomFilter = filter;
+        lastPollTime = pollTime;
+        log.debug("Loaded {} token revocations", revocations.size());
+    }
+
+    private synchronized void add(RevokedToken revocation) {
+        revocations.merge(revocation.getId(), revocation, TokenRevocationService::latest);
+        bloomFilter.put(revocation.getId());
+    }
+
+    private static RevokedToken latest(RevokedToken previous, RevokedToken current) {
+        return previous.getRevokedAt().isAfter(current.getRevokedAt()) ? previous : current;
+    }
+
+    private BloomFilter newBloomFilter() {
+        return new BloomFilter(Math.max(properties.getExpectedRevocations(), revocations.size() * 2L),
+            properties.getFalsePositiveProbability());
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.error("Could not read the token revocations", e);
+        }
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Could not reload the token revocations", e);
+        }
+    }
+}
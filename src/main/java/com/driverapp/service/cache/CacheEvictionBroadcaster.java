@@ -0,0 +1,265 @@
+package com.driverapp.service.cache;
+
+import com.driverapp.config.ApplicationProperties;
+
+import com.mongodb.CursorType;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the in-process tier of the {@link TwoTierCache}s of all the nodes coherent, by broadcasting the evictions
+ * of each node to the others through a capped collection.
+ * <p>
+ * Evictions are queued and written by a single thread, all those waiting in one document, so that bursts of
+ * evictions, such as those of a flush of location pings, cost a single insert. Another thread tails the collection
+ * and applies the evictions of the other nodes. If the queue overflows, or the tailing cursor has to be reopened,
+ * some evictions may be lost: the entries they were for stay cached for at most {@code application.entity-cache.ttl}
+ * milliseconds.
+ * <p>
+ * Broadcasting is disabled with {@code application.entity-cache.broadcast-evictions}, on single node deployments.
+ */
+@Component
+public class CacheEvictionBroadcaster {
+
+    static final String COLLECTION = "cache_eviction_log";
+
+    private static final String ID = "_id";
+
+    private static final String NODE = "node";
+
+    private static final String EVICTIONS = "evictions";
+
+    private static final String CACHE = "cache";
+
+    private static final String KEY = "key";
+
+    private static final int QUEUE_SIZE = 65536;
+
+    private static final int MAX_EVICTIONS_PER_MESSAGE = 10000;
+
+    private static final long MAX_AWAIT_TIME = 1000;
+
+    private static final long RETRY_INTERVAL = 5000;
+
+    /**
+     * The collection already exists.
+     */
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private final Logger log = LoggerFactory.getLogger(CacheEvictionBroadcaster.class);
+
+    private final ApplicationProperties.EntityCache properties;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final String node = UUID.randomUUID().toString();
+
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Eviction> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+
+    private final Counter receivedCounter;
+
+    private final Counter droppedCounter;
+
+    private ExecutorService executor;
+
+    private volatile boolean running;
+
+    public CacheEvictionBroadcaster(ApplicationProperties applicationProperties, MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getEntityCache();
+        this.mongoTemplate = mongoTemplate;
+        this.receivedCounter = meterRegistry.counter("driverapp.cache.evictions.broadcast", "result", "received");
+        this.droppedCounter = meterRegistry.counter("driverapp.cache.evictions.broadcast", "result", "dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isBroadcastEvictions()) {
+            log.info("Cache eviction broadcast disabled");
+            return;
+        }
+        createCollection();
+        running = true;
+        executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "cache-evictions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ObjectId start = new ObjectId();
+        executor.execute(this::send);
+        executor.execute(() -> receive(start));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(MAX_AWAIT_TIME * 2, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Register a cache, to apply the evictions of the other nodes to it.
+     *
+     * @param cache the cache.
+     */
+    public void register(TwoTierCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    /**
+     * Broadcast an eviction to the other nodes.
+     *
+     * @param cache the name of the cache.
+     * @param key the evicted key, or {@code null} when the whole cache was cleared.
+     */
+    public void publish(String cache, @Nullable Object key) {
+        if (!running) {
+            return;
+        }
+        // Only string keys can be rebuilt by the other nodes: the others clear the cache
+        Eviction eviction = new Eviction(cache, key instanceof String ? (String) key : null);
+        if (!queue.offer(eviction)) {
+            overflowed.set(true);
+            droppedCounter.increment();
+        }
+    }
+
+    private void send() {
+        List<Eviction> evictions = new ArrayList<>();
+        while (running) {
+            try {
+                evictions.add(queue.take());
+                queue.drainTo(evictions, MAX_EVICTIONS_PER_MESSAGE - 1);
+                List<Document> messages = new ArrayList<>(evictions.size());
+                if (overflowed.getAndSet(false)) {
+                    caches.keySet().forEach(cache -> messages.add(new Document(CACHE, cache).append(KEY, null)));
+                } else {
+                    evictions.forEach(eviction -> messages.add(new Document(CACHE, eviction.cache).append(KEY, eviction.key)));
+                }
+                log().insertOne(new Document(ID, new ObjectId()).append(NODE, node).append(EVICTIONS, messages));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (MongoException e) {
+                log.warn("Could not broadcast {} cache evictions: {}", evictions.size(), e.toString());
+            }
+            evictions.clear();
+        }
+    }
+
+    private void receive(ObjectId start) {
+        ObjectId last = start;
+        while (running) {
+            long retryInterval = MAX_AWAIT_TIME;
+            try (MongoCursor<Document> cursor = log().find(Filters.gt(ID, last))
+                .cursorType(CursorType.TailableAwait)
+                .maxAwaitTime(MAX_AWAIT_TIME, TimeUnit.MILLISECONDS)
+                .iterator()) {
+                while (running) {
+                    Document message = cursor.tryNext();
+                    if (message != null) {
+                        last = message.getObjectId(ID);
+                        if (!node.equals(message.getString(NODE))) {
+                            apply(message);
+                        }
+                    } else if (cursor.getServerCursor() == null) {
+                        // the cursor is dead, such as when the collection was empty
+                        break;
+                    }
+                }
+            } catch (MongoException e) {
+                if (running) {
+                    log.warn("Cache eviction log interrupted, retrying in {} ms: {}", RETRY_INTERVAL, e.toString());
+                }
+                retryInterval = RETRY_INTERVAL;
+            }
+            try {
+                Thread.sleep(retryInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(Document message) {
+        for (Document eviction : (List<Document>) message.get(EVICTIONS)) {
+            TwoTierCache cache = caches.get(eviction.getString(CACHE));
+            if (cache == null) {
+                continue;
+            }
+            String key = eviction.getString(KEY);
+            if (key == null) {
+                cache.clearLocal();
+            } else {
+                cache.evictLocal(key);
+            }
+            receivedCounter.increment();
+        }
+    }
+
+    private void createCollection() {
+        if (mongoTemplate.collectionExists(COLLECTION)) {
+            return;
+        }
+        try {
+            mongoTemplate.getDb().createCollection(COLLECTION,
+                new CreateCollectionOptions().capped(true).sizeInBytes(properties.getEvictionLogSize()));
+        } catch (MongoCommandException e) {
+            // another node created it first
+            if (e.getErrorCode() != NAMESPACE_EXISTS) {
+                throw e;
+            }
+        }
+    }
+
+    private MongoCollection<Document> log() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+
+    private static final class Eviction {
+
+        private final String cache;
+
+        @Nullable
+        private final String key;
+
+        Eviction(String cache, @Nullable String key) {
+            this.cache = cache;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.driverapp.service.cache;
+
+import com.driverapp.domain.Business;
+import com.driverapp.domain.DeviceDetails;
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.Insurance;
+import com.driverapp.domain.Location;
+import com.driverapp.domain.Services;
+import com.driverapp.domain.Vehicle;
+import com.driverapp.repository.BusinessRepository;
+import com.driverapp.repository.DriverRepository;
+import com.driverapp.repository.InsuranceRepository;
+import com.driverapp.repository.LocationRepository;
+import com.driverapp.repository.ServicesRepository;
+import com.driverapp.repository.VehicleRepository;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evicts the cached entities when they are saved or deleted through a repository or the {@code MongoTemplate}.
+ * <p>
+ * The driver graphs cached by {@link com.driverapp.service.DriverGraphLoader} also hold the location, vehicles,
+ * services and devices of the driver. Saving a vehicle, service or device evicts the graph of the driver it
+ * references; saving a location, or deleting any of them, clears all the graphs, since the driver is not known.
+ * <p>
+ * Bulk writes publish no event: their writer has to evict the entities itself.
+ */
+@Component
+public class EntityCacheEvictionListener extends AbstractMongoEventListener<Object> {
+
+    private static final String ID = "_id";
+
+    private static final String BACK_REFERENCE = "driver";
+
+    private static final Map<Class<?>, String> CACHE_NAMES = new HashMap<>();
+
+    private static final Set<Class<?>> DRIVER_GRAPH_PARTS = new HashSet<>(Arrays.asList(
+        Location.class, Vehicle.class, Services.class, DeviceDetails.class));
+
+    static {
+        CACHE_NAMES.put(Driver.class, DriverRepository.DRIVERS_BY_ID_CACHE);
+        CACHE_NAMES.put(Vehicle.class, VehicleRepository.VEHICLES_BY_ID_CACHE);
+        CACHE_NAMES.put(Insurance.class, InsuranceRepository.INSURANCES_BY_ID_CACHE);
+        CACHE_NAMES.put(Location.class, LocationRepository.LOCATIONS_BY_ID_CACHE);
+        CACHE_NAMES.put(Business.class, BusinessRepository.BUSINESSES_BY_ID_CACHE);
+        CACHE_NAMES.put(Services.class, ServicesRepository.SERVICES_BY_ID_CACHE);
+    }
+
+    private final CacheManager cacheManager;
+
+    public EntityCacheEvictionListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Class<?> type = event.getSource().getClass();
+        Document document = event.getDocument();
+        if (document == null) {
+            evict(CACHE_NAMES.get(type), null);
+            return;
+        }
+        evict(CACHE_NAMES.get(type), id(document.get(ID)));
+        if (DRIVER_GRAPH_PARTS.contains(type)) {
+            Object driver = document.get(BACK_REFERENCE);
+            evict(DriverRepository.DRIVERS_BY_ID_CACHE, driver instanceof DBRef ? id(((DBRef) driver).getId()) : null);
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        Class<?> type = event.getType();
+        if (type == null) {
+            return;
+        }
+        // The event carries the query of the deletion, which only names the entity when deleting by id
+        Document query = event.getDocument();
+        evict(CACHE_NAMES.get(type), query == null ? null : id(query.get(ID)));
+        if (DRIVER_GRAPH_PARTS.contains(type)) {
+            evict(DriverRepository.DRIVERS_BY_ID_CACHE, null);
+        }
+    }
+
+    /**
+     * Evict an entry of a cache.
+     *
+     * @param cacheName the name of the cache, {@code null} for entities which are not cached.
+     * @param key the key of the entry, or {@code null} to clear the whole cache.
+     */
+    private void evict(@Nullable String cacheName, @Nullable String key) {
+        Cache cache = cacheName == null ? null : cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    @Nullable
+    private static String id(@Nullable Object id) {
+        return id instanceof String || id instanceof ObjectId ? id.toString() : null;
+    }
+}
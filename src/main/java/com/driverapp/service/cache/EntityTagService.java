@@ -0,0 +1,161 @@
+package com.driverapp.service.cache;
+
+import com.driverapp.config.ApplicationProperties;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Service computing the strong entity tags ({@code ETag}) of the representations of the cached entities, and of the
+ * pages of their collections.
+ * <p>
+ * A tag is the MD5 hash of the JSON representation, so it is the same on every node. It is computed once per
+ * cached entity instance, which is replaced when the entity is evicted, and once per page and cache generation:
+ * a request whose {@code If-None-Match} still matches is answered without reading, converting or serializing
+ * anything again. Tags of pages are also recomputed every {@code application.entity-cache.ttl} milliseconds,
+ * like the cached entities are reloaded.
+ */
+@Service
+public class EntityTagService {
+
+    private final ObjectMapper objectMapper;
+
+    private final CacheManager cacheManager;
+
+    private final long ttl;
+
+    private final Cache<Object, String> entityTags;
+
+    private final Cache<PageKey, String> pageTags;
+
+    public EntityTagService(ObjectMapper objectMapper, CacheManager cacheManager, ApplicationProperties applicationProperties) {
+        ApplicationProperties.EntityCache properties = applicationProperties.getEntityCache();
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.ttl = properties.getTtl();
+        this.entityTags = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(properties.getDriverMaxEntries() + properties.getMaxEntries())
+            .build();
+        this.pageTags = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .build();
+    }
+
+    /**
+     * Get the tag of the representation of an entity.
+     *
+     * @param entity the entity, as read from its cache.
+     * @param representation the conversion of the entity to its representation, typically its DTO.
+     * @param <T> the type of the entity.
+     * @return the quoted tag.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> String getEntityTag(T entity, Function<? super T, ?> representation) {
+        return entityTags.get(entity, e -> tag(representation.apply((T) e)));
+    }
+
+    /**
+     * Get the tag of a page of a collection, if it is still known.
+     *
+     * @param cacheName the name of the cache of the entities of the collection.
+     * @param page the description of the page, such as its cursor and size.
+     * @return the quoted tag, or {@code null} if the page has to be read.
+     */
+    @Nullable
+    public String getPageTag(String cacheName, String page) {
+        PageKey key = pageKey(cacheName, page);
+        return key == null ? null : pageTags.getIfPresent(key);
+    }
+
+    /**
+     * Compute the tag of a page of a collection, and remember it for the current generation of its cache.
+     * <p>
+     * The generation has to be read before the page, with {@link #getGeneration}: a page read during a write is
+     * remembered for the generation before the write, which is never used again.
+     *
+     * @param cacheName the name of the cache of the entities of the collection.
+     * @param generation the generation of the cache, read before the page.
+     * @param page the description of the page, such as its cursor and size.
+     * @param representation the representation of the page.
+     * @return the quoted tag.
+     */
+    public String putPageTag(String cacheName, long generation, String page, Object representation) {
+        String tag = tag(representation);
+        if (generation >= 0) {
+            pageTags.put(new PageKey(cacheName, generation, System.currentTimeMillis() / ttl, page), tag);
+        }
+        return tag;
+    }
+
+    /**
+     * Get the current generation of a cache.
+     *
+     * @param cacheName the name of the cache.
+     * @return the generation, or {@code -1} if the cache has none, so its pages are never remembered.
+     */
+    public long getGeneration(String cacheName) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(cacheName);
+        return cache instanceof TwoTierCache ? ((TwoTierCache) cache).getGeneration() : -1;
+    }
+
+    @Nullable
+    private PageKey pageKey(String cacheName, String page) {
+        long generation = getGeneration(cacheName);
+        return generation < 0 ? null : new PageKey(cacheName, generation, System.currentTimeMillis() / ttl, page);
+    }
+
+    private String tag(Object representation) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(representation)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class PageKey {
+
+        private final String cacheName;
+
+        private final long generation;
+
+        private final long period;
+
+        private final String page;
+
+        PageKey(String cacheName, long generation, long period, String page) {
+            this.cacheName = cacheName;
+            this.generation = generation;
+            this.period = period;
+            this.page = page;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PageKey other = (PageKey) o;
+            return generation == other.generation && period == other.period && cacheName.equals(other.cacheName)
+                && page.equals(other.page);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cacheName, generation, period, page);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.driverapp.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Cache} of entities with a bounded in-process first tier, in front of an optional shared second tier.
+ * <p>
+ * Reads look up the first tier, then the second one, filling the first tier with what they find there. Writes go
+ * to both tiers. Evictions are applied to both tiers, and published through the {@link CacheEvictionBroadcaster}
+ * so that the other nodes evict the entry from their own first tier.
+ * <p>
+ * Each eviction, local or from another node, moves the cache to its next generation: derived values, such as the
+ * tags of the pages of the cached entities, are valid as long as the generation does not change.
+ * <p>
+ * Null values are not cached. The ratio of reads served by the first tier is published as the
+ * {@code driverapp.cache.hit.ratio} gauge, and the reads of the second tier as the {@code driverapp.cache.l2.gets}
+ * counters.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+
+    @Nullable
+    private final Cache shared;
+
+    private final CacheEvictionBroadcaster broadcaster;
+
+    private final Counter sharedHitCounter;
+
+    private final Counter sharedMissCounter;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local, @Nullable Cache shared,
+                        CacheEvictionBroadcaster broadcaster, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.broadcaster = broadcaster;
+        this.sharedHitCounter = meterRegistry.counter("driverapp.cache.l2.gets", "cache", name, "result", "hit");
+        this.sharedMissCounter = meterRegistry.counter("driverapp.cache.l2.gets", "cache", name, "result", "miss");
+        Gauge.builder("driverapp.cache.hit.ratio", local, cache -> cache.stats().hitRate())
+            .description("Ratio of the reads of the cache served from memory")
+            .tag("cache", name)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value == null) {
+            value = lookupShared(key);
+            if (value != null) {
+                local.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) local.get(key, k -> {
+            Object value = lookupShared(k);
+            if (value == null) {
+                try {
+                    value = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(k, valueLoader, e);
+                }
+                if (value != null && shared != null) {
+                    shared.put(k, value);
+                }
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        local.put(key, value);
+        if (shared != null) {
+            shared.put(key, value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictLocal(key);
+        if (shared != null) {
+            shared.evict(key);
+        }
+        broadcaster.publish(name, key);
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        if (shared != null) {
+            shared.clear();
+        }
+        broadcaster.publish(name, null);
+    }
+
+    /**
+     * Evict an entry from the first tier only, after it was evicted by another node.
+     *
+     * @param key the key of the entry.
+     */
+    public void evictLocal(Object key) {
+        local.invalidate(key);
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Clear the first tier only, after the cache was cleared by another node.
+     */
+    public void clearLocal() {
+        local.invalidateAll();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Get the generation of the cache, which changes on every eviction.
+     *
+     * @return the generation.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    @Nullable
+    private Object lookupShared(Object key) {
+        if (shared == null) {
+            return null;
+        }
+        ValueWrapper wrapper = shared.get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        (value == null ? sharedMissCounter : sharedHitCounter).increment();
+        return value;
+    }
+}
@@ -0,0 +1,98 @@
+package com.driverapp.service.dto;
+
+import javax.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.driverapp.domain.Business} entity.
+ */
+public class BusinessDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    @NotNull
+    private String name;
+
+    @NotNull
+    private String type;
+
+    @NotNull
+    private String address;
+
+    private String phoneNumber;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        BusinessDTO businessDTO = (BusinessDTO) o;
+        if (businessDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), businessDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "BusinessDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", type='" + getType() + "'" +
+            ", address='" + getAddress() + "'" +
+            ", phoneNumber='" + getPhoneNumber() + "'" +
+            "}";
+    }
+}
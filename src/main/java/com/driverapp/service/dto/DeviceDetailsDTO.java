@@ -0,0 +1,74 @@
+package com.driverapp.service.dto;
+
+import javax.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.driverapp.domain.DeviceDetails} entity.
+ */
+public class DeviceDetailsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    @NotNull
+    private String deviceId;
+
+    private String driverId;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(String driverId) {
+        this.driverId = driverId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        DeviceDetailsDTO deviceDetailsDTO = (DeviceDetailsDTO) o;
+        if (deviceDetailsDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), deviceDetailsDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceDetailsDTO{" +
+            "id=" + getId() +
+            ", device=" + getDeviceId() +
+            ", driver=" + getDriverId() +
+            "}";
+    }
+}
@@ -0,0 +1,209 @@
+package com.driverapp.service.dto;
+
+import com.driverapp.domain.enumeration.PhoneType;
+import com.driverapp.domain.enumeration.Status;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.HashSet;
+import java.util.Set;
+import javax.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.driverapp.domain.Driver} entity, with the documents it references.
+ * <p>
+ * The password can be written but is never read back, and the one-time code is not exposed at all.
+ */
+public class DriverDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String password;
+
+    @NotNull
+    private String phoneNumber;
+
+    private Status status;
+
+    private String driverLicense;
+
+    private PhoneType phoneType;
+
+    private Boolean duiConviction;
+
+    private Boolean felonyConviction;
+
+    private LocationDTO location;
+
+    private Set<VehicleDTO> cars = new HashSet<>();
+
+    private Set<ServicesDTO> services = new HashSet<>();
+
+    private Set<DeviceDetailsDTO> devices = new HashSet<>();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getDriverLicense() {
+        return driverLicense;
+    }
+
+    public void setDriverLicense(String driverLicense) {
+        this.driverLicense = driverLicense;
+    }
+
+    public PhoneType getPhoneType() {
+        return phoneType;
+    }
+
+    public void setPhoneType(PhoneType phoneType) {
+        this.phoneType = phoneType;
+    }
+
+    public Boolean isDuiConviction() {
+        return duiConviction;
+    }
+
+    public void setDuiConviction(Boolean duiConviction) {
+        this.duiConviction = duiConviction;
+    }
+
+    public Boolean isFelonyConviction() {
+        return felonyConviction;
+    }
+
+    public void setFelonyConviction(Boolean felonyConviction) {
+        this.felonyConviction = felonyConviction;
+    }
+
+    public LocationDTO getLocation() {
+        return location;
+    }
+
+    public void setLocation(LocationDTO location) {
+        this.location = location;
+    }
+
+    public Set<VehicleDTO> getCars() {
+        return cars;
+    }
+
+    public void setCars(Set<VehicleDTO> cars) {
+        this.cars = cars;
+    }
+
+    public Set<ServicesDTO> getServices() {
+        return services;
+    }
+
+    public void setServices(Set<ServicesDTO> services) {
+        this.services = services;
+    }
+
+    public Set<DeviceDetailsDTO> getDevices() {
+        return devices;
+    }
+
+    public void setDevices(Set<DeviceDetailsDTO> devices) {
+        this.devices = devices;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        DriverDTO driverDTO = (DriverDTO) o;
+        if (driverDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), driverDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "DriverDTO{" +
+            "id=" + getId() +
+            ", firstName='" + getFirstName() + "'" +
+            ", lastName='" + getLastName() + "'" +
+            ", email='" + getEmail() + "'" +
+            ", phoneNumber='" + getPhoneNumber() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", driverLicense='" + getDriverLicense() + "'" +
+            ", phoneType='" + getPhoneType() + "'" +
+            ", duiConviction=" + isDuiConviction() +
+            ", felonyConviction=" + isFelonyConviction() +
+            "}";
+    }
+}
@@ -0,0 +1,51 @@
+package com.driverapp.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the distance between a live driver position and a searched point.
+ */
+public class DriverDistanceDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String driverId;
+
+    private double distance;
+
+    public DriverDistanceDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public DriverDistanceDTO(String driverId, double distance) {
+        this.driverId = driverId;
+        this.distance = distance;
+    }
+
+    public String getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(String driverId) {
+        this.driverId = driverId;
+    }
+
+    /**
+     * @return the distance to the searched point, in kilometers.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    @Override
+    public String toString() {
+        return "DriverDistanceDTO{" +
+            "driverId='" + getDriverId() + "'" +
+            ", distance=" + getDistance() +
+            "}";
+    }
+}
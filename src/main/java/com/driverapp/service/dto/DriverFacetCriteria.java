@@ -0,0 +1,124 @@
+package com.driverapp.service.dto;
+
+import com.driverapp.domain.enumeration.PhoneType;
+import com.driverapp.domain.enumeration.ServiceType;
+import com.driverapp.domain.enumeration.Status;
+import com.driverapp.domain.enumeration.VehicleType;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The filters of a faceted search of the {@link com.driverapp.domain.Driver} entity; each filter left
+ * {@code null} does not restrict the drivers.
+ */
+public class DriverFacetCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String query;
+
+    private Status status;
+
+    private PhoneType phoneType;
+
+    private ServiceType serviceType;
+
+    private VehicleType vehicleType;
+
+    private Boolean heavyTransport;
+
+    /**
+     * @return the query string, in the syntax of the {@code /_search} endpoints.
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public PhoneType getPhoneType() {
+        return phoneType;
+    }
+
+    public void setPhoneType(PhoneType phoneType) {
+        this.phoneType = phoneType;
+    }
+
+    /**
+     * @return the type of one of the services of the driver.
+     */
+    public ServiceType getServiceType() {
+        return serviceType;
+    }
+
+    public void setServiceType(ServiceType serviceType) {
+        this.serviceType = serviceType;
+    }
+
+    /**
+     * @return the type of one of the cars of the driver.
+     */
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    public void setVehicleType(VehicleType vehicleType) {
+        this.vehicleType = vehicleType;
+    }
+
+    /**
+     * @return whether one of the cars of the driver supports heavy transport.
+     */
+    public Boolean getHeavyTransport() {
+        return heavyTransport;
+    }
+
+    public void setHeavyTransport(Boolean heavyTransport) {
+        this.heavyTransport = heavyTransport;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DriverFacetCriteria criteria = (DriverFacetCriteria) o;
+        return Objects.equals(query, criteria.query) &&
+            status == criteria.status &&
+            phoneType == criteria.phoneType &&
+            serviceType == criteria.serviceType &&
+            vehicleType == criteria.vehicleType &&
+            Objects.equals(heavyTransport, criteria.heavyTransport);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, status, phoneType, serviceType, vehicleType, heavyTransport);
+    }
+
+    @Override
+    public String toString() {
+        return "DriverFacetCriteria{" +
+            "query='" + query + "'" +
+            ", status='" + status + "'" +
+            ", phoneType='" + phoneType + "'" +
+            ", serviceType='" + serviceType + "'" +
+            ", vehicleType='" + vehicleType + "'" +
+            ", heavyTransport='" + heavyTransport + "'" +
+            "}";
+    }
+}
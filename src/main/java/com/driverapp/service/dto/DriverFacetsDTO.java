@@ -0,0 +1,55 @@
+package com.driverapp.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO for a page of the {@link com.driverapp.domain.Driver}s matching a faceted search, with the number of all the
+ * matching drivers by facet and value.
+ */
+public class DriverFacetsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<DriverSummaryDTO> drivers;
+
+    private Map<String, Map<String, Long>> facets;
+
+    public DriverFacetsDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public DriverFacetsDTO(List<DriverSummaryDTO> drivers, Map<String, Map<String, Long>> facets) {
+        this.drivers = drivers;
+        this.facets = facets;
+    }
+
+    public List<DriverSummaryDTO> getDrivers() {
+        return drivers;
+    }
+
+    public void setDrivers(List<DriverSummaryDTO> drivers) {
+        this.drivers = drivers;
+    }
+
+    /**
+     * @return the number of matching drivers by value, most frequent first, by facet: {@code status},
+     * {@code phoneType}, {@code serviceType}, {@code vehicleType} and {@code heavyTransport}.
+     */
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
+
+    @Override
+    public String toString() {
+        return "DriverFacetsDTO{" +
+            "drivers=" + (drivers != null ? drivers.size() : null) +
+            ", facets=" + facets +
+            "}";
+    }
+}
@@ -0,0 +1,155 @@
+package com.driverapp.service.dto;
+
+import com.driverapp.domain.enumeration.PhoneType;
+import com.driverapp.domain.enumeration.Status;
+import javax.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A list-view DTO for the {@link com.driverapp.domain.Driver} entity, without its secrets and references.
+ * <p>
+ * Lists read only the properties named by its fields from the database.
+ */
+public class DriverSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    @NotNull
+    private String phoneNumber;
+
+    private Status status;
+
+    private String driverLicense;
+
+    private PhoneType phoneType;
+
+    private Boolean duiConviction;
+
+    private Boolean felonyConviction;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getDriverLicense() {
+        return driverLicense;
+    }
+
+    public void setDriverLicense(String driverLicense) {
+        this.driverLicense = driverLicense;
+    }
+
+    public PhoneType getPhoneType() {
+        return phoneType;
+    }
+
+    public void setPhoneType(PhoneType phoneType) {
+        this.phoneType = phoneType;
+    }
+
+    public Boolean isDuiConviction() {
+        return duiConviction;
+    }
+
+    public void setDuiConviction(Boolean duiConviction) {
+        this.duiConviction = duiConviction;
+    }
+
+    public Boolean isFelonyConviction() {
+        return felonyConviction;
+    }
+
+    public void setFelonyConviction(Boolean felonyConviction) {
+        this.felonyConviction = felonyConviction;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        DriverSummaryDTO driverSummaryDTO = (DriverSummaryDTO) o;
+        if (driverSummaryDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), driverSummaryDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "DriverSummaryDTO{" +
+            "id=" + getId() +
+            ", firstName='" + getFirstName() + "'" +
+            ", lastName='" + getLastName() + "'" +
+            ", email='" + getEmail() + "'" +
+            ", phoneNumber='" + getPhoneNumber() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", driverLicense='" + getDriverLicense() + "'" +
+            ", phoneType='" + getPhoneType() + "'" +
+            ", duiConviction=" + isDuiConviction() +
+            ", felonyConviction=" + isFelonyConviction() +
+            "}";
+    }
+}
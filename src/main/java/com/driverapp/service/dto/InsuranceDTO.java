@@ -0,0 +1,89 @@
+package com.driverapp.service.dto;
+
+import com.driverapp.domain.enumeration.InsuranceType;
+import java.time.Instant;
+import javax.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.driverapp.domain.Insurance} entity.
+ */
+public class InsuranceDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    @NotNull
+    private InsuranceType type;
+
+    @NotNull
+    private String insuranceProvider;
+
+    @NotNull
+    private Instant insuranceExpDate;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public InsuranceType getType() {
+        return type;
+    }
+
+    public void setType(InsuranceType type) {
+        this.type = type;
+    }
+
+    public String getInsuranceProvider() {
+        return insuranceProvider;
+    }
+
+    public void setInsuranceProvider(String insuranceProvider) {
+        this.insuranceProvider = insuranceProvider;
+    }
+
+    public Instant getInsuranceExpDate() {
+        return insuranceExpDate;
+    }
+
+    public void setInsuranceExpDate(Instant insuranceExpDate) {
+        this.insuranceExpDate = insuranceExpDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        InsuranceDTO insuranceDTO = (InsuranceDTO) o;
+        if (insuranceDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), insuranceDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "InsuranceDTO{" +
+            "id=" + getId() +
+            ", type='" + getType() + "'" +
+            ", insuranceProvider='" + getInsuranceProvider() + "'" +
+            ", insuranceExpDate='" + getInsuranceExpDate() + "'" +
+            "}";
+    }
+}
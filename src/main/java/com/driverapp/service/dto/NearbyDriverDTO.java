@@ -0,0 +1,51 @@
+package com.driverapp.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for a {@link com.driverapp.domain.Driver} found near a given point, with its distance to that point.
+ */
+public class NearbyDriverDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private DriverSummaryDTO driver;
+
+    private double distance;
+
+    public NearbyDriverDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public NearbyDriverDTO(DriverSummaryDTO driver, double distance) {
+        this.driver = driver;
+        this.distance = distance;
+    }
+
+    public DriverSummaryDTO getDriver() {
+        return driver;
+    }
+
+    public void setDriver(DriverSummaryDTO driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * @return the distance to the searched point, in kilometers.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    @Override
+    public String toString() {
+        return "NearbyDriverDTO{" +
+            "driver=" + (driver != null ? driver.getId() : null) +
+            ", distance=" + distance +
+            "}";
+    }
+}
@@ -0,0 +1,150 @@
+package com.driverapp.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for the progress of the rebuild of a search index.
+ */
+public class SearchReindexJobDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String entity;
+
+    private String index;
+
+    private State state;
+
+    private int partitions;
+
+    private int completedPartitions;
+
+    private long total;
+
+    private long indexed;
+
+    private long failed;
+
+    private Instant startTime;
+
+    private Instant endTime;
+
+    private double documentsPerSecond;
+
+    private String message;
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(String index) {
+        this.index = index;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getCompletedPartitions() {
+        return completedPartitions;
+    }
+
+    public void setCompletedPartitions(int completedPartitions) {
+        this.completedPartitions = completedPartitions;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    public void setIndexed(long indexed) {
+        this.indexed = indexed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = endTime;
+    }
+
+    public double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    public void setDocumentsPerSecond(double documentsPerSecond) {
+        this.documentsPerSecond = documentsPerSecond;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchReindexJobDTO{" +
+            "entity='" + getEntity() + "'" +
+            ", index='" + getIndex() + "'" +
+            ", state='" + getState() + "'" +
+            ", completedPartitions=" + getCompletedPartitions() +
+            ", partitions=" + getPartitions() +
+            ", indexed=" + getIndexed() +
+            ", failed=" + getFailed() +
+            ", total=" + getTotal() +
+            "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.driverapp.service.dto;
+
+import com.driverapp.domain.enumeration.ServiceType;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.driverapp.domain.Services} entity.
+ */
+public class ServicesDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    private ServiceType type;
+
+    private String driverId;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public ServiceType getType() {
+        return type;
+    }
+
+    public void setType(ServiceType type) {
+        this.type = type;
+    }
+
+    public String getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(String driverId) {
+        this.driverId = driverId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ServicesDTO servicesDTO = (ServicesDTO) o;
+        if (servicesDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), servicesDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "ServicesDTO{" +
+            "id=" + getId() +
+            ", type='" + getType() + "'" +
+            ", driver=" + getDriverId() +
+            "}";
+    }
+}
@@ -0,0 +1,61 @@
+package com.driverapp.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for a past position of a driver.
+ */
+public class TrackPointDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Instant timestamp;
+
+    private double latitude;
+
+    private double longitude;
+
+    public TrackPointDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TrackPointDTO(Instant timestamp, double latitude, double longitude) {
+        this.timestamp = timestamp;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    @Override
+    public String toString() {
+        return "TrackPointDTO{" +
+            "timestamp='" + getTimestamp() + "'" +
+            ", latitude=" + getLatitude() +
+            ", longitude=" + getLongitude() +
+            "}";
+    }
+}
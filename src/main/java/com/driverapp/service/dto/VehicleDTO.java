@@ -0,0 +1,169 @@
+package com.driverapp.service.dto;
+
+import com.driverapp.domain.enumeration.VehicleType;
+import java.time.Instant;
+import javax.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.driverapp.domain.Vehicle} entity.
+ */
+public class VehicleDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    @NotNull
+    private VehicleType type;
+
+    @NotNull
+    private String make;
+
+    @NotNull
+    private String model;
+
+    @NotNull
+    private String year;
+
+    @NotNull
+    private String plateNumber;
+
+    private Boolean supportHeavyTransport;
+
+    private String vinNumber;
+
+    @NotNull
+    private Instant registrationExpDate;
+
+    private String driverId;
+
+    private String autoInsuranceId;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public VehicleType getType() {
+        return type;
+    }
+
+    public void setType(VehicleType type) {
+        this.type = type;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getYear() {
+        return year;
+    }
+
+    public void setYear(String year) {
+        this.year = year;
+    }
+
+    public String getPlateNumber() {
+        return plateNumber;
+    }
+
+    public void setPlateNumber(String plateNumber) {
+        this.plateNumber = plateNumber;
+    }
+
+    public Boolean isSupportHeavyTransport() {
+        return supportHeavyTransport;
+    }
+
+    public void setSupportHeavyTransport(Boolean supportHeavyTransport) {
+        this.supportHeavyTransport = supportHeavyTransport;
+    }
+
+    public String getVinNumber() {
+        return vinNumber;
+    }
+
+    public void setVinNumber(String vinNumber) {
+        this.vinNumber = vinNumber;
+    }
+
+    public Instant getRegistrationExpDate() {
+        return registrationExpDate;
+    }
+
+    public void setRegistrationExpDate(Instant registrationExpDate) {
+        this.registrationExpDate = registrationExpDate;
+    }
+
+    public String getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(String driverId) {
+        this.driverId = driverId;
+    }
+
+    public String getAutoInsuranceId() {
+        return autoInsuranceId;
+    }
+
+    public void setAutoInsuranceId(String autoInsuranceId) {
+        this.autoInsuranceId = autoInsuranceId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        VehicleDTO vehicleDTO = (VehicleDTO) o;
+        if (vehicleDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), vehicleDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "VehicleDTO{" +
+            "id=" + getId() +
+            ", type='" + getType() + "'" +
+            ", make='" + getMake() + "'" +
+            ", model='" + getModel() + "'" +
+            ", year='" + getYear() + "'" +
+            ", plateNumber='" + getPlateNumber() + "'" +
+            ", supportHeavyTransport=" + isSupportHeavyTransport() +
+            ", vinNumber='" + getVinNumber() + "'" +
+            ", registrationExpDate='" + getRegistrationExpDate() + "'" +
+            ", driver=" + getDriverId() +
+            ", autoInsurance=" + getAutoInsuranceId() +
+            "}";
+    }
+}
@@ -0,0 +1,433 @@
+package com.driverapp.service.geo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Uniform latitude/longitude grid holding the latest position of keyed points.
+ * <p>
+ * Positions are kept in parallel primitive arrays, and each grid cell links its points through
+ * {@code next}/{@code prev} slot indexes, so queries walk the cells around the searched point without
+ * allocating. Results are written into a caller-owned {@link SpatialHits} buffer.
+ * <p>
+ * Updates and queries may be called concurrently: queries share a read lock, updates take the write lock.
+ */
+public class SpatialGridIndex {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final double KM_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_KM;
+
+    private static final double MAX_LATITUDE_FOR_BOUND = 89.9;
+
+    private static final int NONE = -1;
+
+    private final double cellSize;
+
+    private final int latCells;
+
+    private final int lonCells;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotByKey = new HashMap<>();
+
+    private final IntIntMap cellHeads = new IntIntMap(1024);
+
+    private String[] keys;
+
+    private double[] lats;
+
+    private double[] lons;
+
+    private int[] cellOf;
+
+    private int[] next;
+
+    private int[] prev;
+
+    private int highWater;
+
+    private int freeHead = NONE;
+
+    /**
+     * @param cellSize the size of a grid cell, in degrees.
+     * @param initialCapacity the number of points to size the arrays for.
+     */
+    public SpatialGridIndex(double cellSize, int initialCapacity) {
+        if (cellSize <= 0 || cellSize > 90) {
+            throw new IllegalArgumentException("cellSize must be in (0, 90] degrees");
+        }
+        this.cellSize = cellSize;
+        this.latCells = (int) Math.ceil(180 / cellSize);
+        this.lonCells = (int) Math.ceil(360 / cellSize);
+        if ((long) latCells * lonCells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("cellSize " + cellSize + " is too small");
+        }
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return slotByKey.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Insert a point, or move it if it is already indexed.
+     */
+    public void put(String key, double latitude, double longitude) {
+        int cell = cellId(latitude, longitude);
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotByKey.get(key);
+            int slot;
+            if (existing == null) {
+                slot = newSlot();
+                keys[slot] = key;
+                slotByKey.put(key, slot);
+                link(slot, cell);
+            } else {
+                slot = existing;
+                if (cellOf[slot] != cell) {
+                    unlink(slot);
+                    link(slot, cell);
+                }
+            }
+            lats[slot] = latitude;
+            lons[slot] = longitude;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move a point only if it is already indexed.
+     *
+     * @return {@code true} if the point was indexed.
+     */
+    public boolean move(String key, double latitude, double longitude) {
+        int cell = cellId(latitude, longitude);
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByKey.get(key);
+            if (slot == null) {
+                return false;
+            }
+            if (cellOf[slot] != cell) {
+                unlink(slot);
+                link(slot, cell);
+            }
+            lats[slot] = latitude;
+            lons[slot] = longitude;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByKey.remove(key);
+            if (slot != null) {
+                unlink(slot);
+                keys[slot] = null;
+                next[slot] = freeHead;
+                freeHead = slot;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slotByKey.clear();
+            cellHeads.clear();
+            Arrays.fill(keys, null);
+            highWater = 0;
+            freeHead = NONE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the {@code k} points closest to a point, within a maximum distance.
+     *
+     * @param latitude the latitude of the searched point.
+     * @param longitude the longitude of the searched point.
+     * @param k the maximum number of hits, capped to the capacity of {@code hits}.
+     * @param maxDistance the maximum distance of a hit, in kilometers.
+     * @param hits the buffer receiving the hits, closest first.
+     */
+    public void nearest(double latitude, double longitude, int k, double maxDistance, SpatialHits hits) {
+        hits.reset(k);
+        int latIndex = latIndex(latitude);
+        int lonIndex = lonIndex(longitude);
+        // Past half the grid width, rings would wrap around and visit cells twice
+        int maxRing = (lonCells - 1) / 2;
+        lock.readLock().lock();
+        try {
+            if (slotByKey.isEmpty()) {
+                return;
+            }
+            for (int ring = 0; ring <= maxRing; ring++) {
+                double bound = ringLowerBound(ring, latitude);
+                if (bound > maxDistance || (hits.isFull() && hits.worstDistance() <= bound)) {
+                    break;
+                }
+                scanRing(latIndex, lonIndex, ring, latitude, longitude, maxDistance, hits);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the points within a distance of a point, closest first, up to the capacity of {@code hits}.
+     */
+    public void withinRadius(double latitude, double longitude, double radius, SpatialHits hits) {
+        nearest(latitude, longitude, hits.capacity(), radius, hits);
+    }
+
+    /**
+     * Great-circle distance between two points, in kilometers.
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+            Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Smallest distance between a point and any point of the cells {@code ring} cells away from its own cell.
+     */
+    private double ringLowerBound(int ring, double latitude) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double farthestLatitude = Math.min(MAX_LATITUDE_FOR_BOUND, Math.abs(latitude) + (ring + 1) * cellSize);
+        return (ring - 1) * cellSize * KM_PER_DEGREE * Math.cos(Math.toRadians(farthestLatitude));
+    }
+
+    private void scanRing(int latIndex, int lonIndex, int ring, double latitude, double longitude,
+                          double maxDistance, SpatialHits hits) {
+        if (ring == 0) {
+            scanCell(latIndex, lonIndex, latitude, longitude, maxDistance, hits);
+            return;
+        }
+        for (int d = -ring; d <= ring; d++) {
+            scanCell(latIndex - ring, lonIndex + d, latitude, longitude, maxDistance, hits);
+            scanCell(latIndex + ring, lonIndex + d, latitude, longitude, maxDistance, hits);
+        }
+        for (int d = -ring + 1; d < ring; d++) {
+            scanCell(latIndex + d, lonIndex - ring, latitude, longitude, maxDistance, hits);
+            scanCell(latIndex + d, lonIndex + ring, latitude, longitude, maxDistance, hits);
+        }
+    }
+
+    private void scanCell(int latIndex, int lonIndex, double latitude, double longitude,
+                          double maxDistance, SpatialHits hits) {
+        if (latIndex < 0 || latIndex >= latCells) {
+            return;
+        }
+        int slot = cellHeads.get(latIndex * lonCells + Math.floorMod(lonIndex, lonCells));
+        while (slot != NONE) {
+            double d = distance(latitude, longitude, lats[slot], lons[slot]);
+            if (d <= maxDistance) {
+                hits.offer(keys[slot], d);
+            }
+            slot = next[slot];
+        }
+    }
+
+    private int latIndex(double latitude) {
+        int index = (int) Math.floor((latitude + 90) / cellSize);
+        return Math.min(Math.max(index, 0), latCells - 1);
+    }
+
+    private int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellSize), lonCells);
+    }
+
+    private int cellId(double latitude, double longitude) {
+        return latIndex(latitude) * lonCells + lonIndex(longitude);
+    }
+
+    private int newSlot() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (highWater == keys.length) {
+            allocate(keys.length * 2);
+        }
+        return highWater++;
+    }
+
+    private void allocate(int capacity) {
+        keys = keys == null ? new String[capacity] : Arrays.copyOf(keys, capacity);
+        lats = lats == null ? new double[capacity] : Arrays.copyOf(lats, capacity);
+        lons = lons == null ? new double[capacity] : Arrays.copyOf(lons, capacity);
+        cellOf = cellOf == null ? new int[capacity] : Arrays.copyOf(cellOf, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+    }
+
+    private void link(int slot, int cell) {
+        int head = cellHeads.get(cell);
+        cellOf[slot] = cell;
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        cellHeads.put(cell, slot);
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before != NONE) {
+            next[before] = after;
+        } else if (after != NONE) {
+            cellHeads.put(cellOf[slot], after);
+        } else {
+            cellHeads.remove(cellOf[slot]);
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+    }
+
+    /**
+     * Open-addressing map of non-negative {@code int} keys to {@code int} values, returning {@code -1} for
+     * absent keys.
+     */
+    static final class IntIntMap {
+
+        private static final int FREE = -1;
+
+        private int[] keys;
+
+        private int[] values;
+
+        private int mask;
+
+        private int size;
+
+        IntIntMap(int expectedSize) {
+            init(Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1);
+        }
+
+        int get(int key) {
+            int i = mix(key) & mask;
+            while (true) {
+                int k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == FREE) {
+                    return FREE;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        void put(int key, int value) {
+            int i = mix(key) & mask;
+            while (keys[i] != FREE) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+        }
+
+        void remove(int key) {
+            int i = mix(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == FREE) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            // Backward-shift deletion keeps probe sequences intact without tombstones
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (keys[j] == FREE) {
+                    break;
+                }
+                int home = mix(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = FREE;
+            size--;
+        }
+
+        void clear() {
+            Arrays.fill(keys, FREE);
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void init(int capacity) {
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, FREE);
+            mask = capacity - 1;
+            size = 0;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            init(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
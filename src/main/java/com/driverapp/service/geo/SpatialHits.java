@@ -0,0 +1,83 @@
+package com.driverapp.service.geo;
+
+/**
+ * Reusable, bounded result buffer of a {@link SpatialGridIndex} query, sorted by ascending distance.
+ * <p>
+ * A buffer is not thread-safe: each thread should own its own instance and reuse it across queries.
+ */
+public final class SpatialHits {
+
+    private final String[] keys;
+
+    private final double[] distances;
+
+    private int size;
+
+    private int limit;
+
+    public SpatialHits(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.keys = new String[capacity];
+        this.distances = new double[capacity];
+        this.limit = capacity;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @param index the index of the hit.
+     * @return the distance of the hit to the queried point, in kilometers.
+     */
+    public double distance(int index) {
+        return distances[index];
+    }
+
+    void reset(int limit) {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        this.size = 0;
+        this.limit = Math.max(0, Math.min(limit, keys.length));
+    }
+
+    boolean isFull() {
+        return size == limit;
+    }
+
+    double worstDistance() {
+        return distances[size - 1];
+    }
+
+    void offer(String key, double distance) {
+        if (limit == 0) {
+            return;
+        }
+        if (size == limit) {
+            if (distance >= distances[size - 1]) {
+                return;
+            }
+            size--;
+        }
+        int i = size - 1;
+        while (i >= 0 && distances[i] > distance) {
+            keys[i + 1] = keys[i];
+            distances[i + 1] = distances[i];
+            i--;
+        }
+        keys[i + 1] = key;
+        distances[i + 1] = distance;
+        size++;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-memory geospatial structures.
+ */
+package com.driverapp.service.geo;
@@ -0,0 +1,870 @@
+package com.driverapp.service.history;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only store of timestamped positions, split into one segment per time window.
+ * <p>
+ * Each append writes one block holding the points of a single key, sorted by time, to the active file of its
+ * segment. The first point is stored in full, the following ones as zig-zag varint deltas of time and micro-degree
+ * coordinates, which usually takes 3 to 6 bytes per point. A block starts with its length, key and time range, so
+ * that the block index of an active file can be rebuilt on startup by reading headers only. Active files are read
+ * through a memory mapping, which is only changed by writers, under the write lock: blocks appended since it was
+ * made are read from the file, until they add up to a mapping chunk and the file is remapped.
+ * <p>
+ * Once its time window is over, a segment is sealed: its blocks are coalesced into a single block per key, written
+ * to a sealed file ending with the index of its keys. Sealed files hold no file descriptor and no index on the
+ * heap: they are mapped when a read needs them, and the last {@code maxOpenSegments} of them are kept mapped.
+ * Points arriving late for a sealed segment go to a new active file, which is merged into a new sealed file on the
+ * next seal; the generation in the file names tells the files already merged, left by a crash, from the others.
+ * <p>
+ * Whole segments are deleted once they are older than the retention period.
+ */
+public class LocationHistoryStore implements Closeable {
+
+    static final double COORDINATE_SCALE = 1_000_000d;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String ACTIVE_SUFFIX = ".seg";
+
+    private static final String SEALED_SUFFIX = ".sealed";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Block header size, without the key bytes: length, key length, count, first and last timestamps, first coordinates.
+     */
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 8 + 8 + 4 + 4;
+
+    private static final int MAX_DELTA_SIZE = 10 + 5 + 5;
+
+    /**
+     * Number of appended bytes read from an active file before it is remapped.
+     */
+    private static final long MAPPING_CHUNK = 1 << 20;
+
+    /**
+     * Index entry size of a sealed file, without the key bytes: key length, offset, length, first and last timestamps.
+     */
+    private static final int INDEX_ENTRY_SIZE = 2 + 8 + 4 + 8 + 8;
+
+    /**
+     * Trailer of a sealed file: index offset, number of keys, last timestamp and magic number.
+     */
+    private static final int TRAILER_SIZE = 8 + 4 + 8 + 4;
+
+    private static final int SEALED_MAGIC = 0x4c485331;
+
+    private final Logger log = LoggerFactory.getLogger(LocationHistoryStore.class);
+
+    private final Path directory;
+
+    private final long segmentDuration;
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The mapped sealed files, least recently read first, guarded by itself.
+     */
+    private final Map<Path, SealedFile> openSealedFiles;
+
+    /**
+     * @param directory the directory holding the segment files.
+     * @param segmentDuration the time window covered by a segment, in milliseconds.
+     * @param maxOpenSegments the maximum number of sealed segments kept mapped.
+     */
+    public LocationHistoryStore(Path directory, long segmentDuration, int maxOpenSegments) {
+        if (segmentDuration <= 0) {
+            throw new IllegalArgumentException("segmentDuration must be positive");
+        }
+        this.directory = directory;
+        this.segmentDuration = segmentDuration;
+        this.openSealedFiles = new LinkedHashMap<Path, SealedFile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, SealedFile> eldest) {
+                return size() > maxOpenSegments;
+            }
+        };
+    }
+
+    /**
+     * Load the existing segments, truncating any block left incomplete by a crash, and deleting the files already
+     * merged into a sealed file.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        lock.writeLock().lock();
+        try {
+            Map<Long, SegmentFiles> filesByStart = new HashMap<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+                for (Path path : stream) {
+                    collect(path, filesByStart);
+                }
+            }
+            for (Map.Entry<Long, SegmentFiles> entry : filesByStart.entrySet()) {
+                Segment segment = new Segment(entry.getKey());
+                entry.getValue().load(segment);
+                if (segment.sealedPath != null || segment.activePath != null) {
+                    segments.put(segment.start, segment);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void collect(Path path, Map<Long, SegmentFiles> filesByStart) throws IOException {
+        String name = path.getFileName().toString();
+        if (name.endsWith(TEMPORARY_SUFFIX)) {
+            log.warn("Deleting the incomplete sealed segment {}", path);
+            Files.delete(path);
+            return;
+        }
+        boolean sealed = name.endsWith(SEALED_SUFFIX);
+        if (!sealed && !name.endsWith(ACTIVE_SUFFIX)) {
+            log.warn("Ignoring unexpected file {} in the location history", path);
+            return;
+        }
+        String[] parts = name.substring(SEGMENT_PREFIX.length(),
+            name.length() - (sealed ? SEALED_SUFFIX : ACTIVE_SUFFIX).length()).split("\\.");
+        long start;
+        int generation;
+        try {
+            start = Long.parseLong(parts[0]);
+            generation = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring unexpected file {} in the location history", path);
+            return;
+        }
+        SegmentFiles files = filesByStart.computeIfAbsent(start, s -> new SegmentFiles());
+        (sealed ? files.sealed : files.active).put(generation, path);
+    }
+
+    /**
+     * Append the points of a key.
+     *
+     * @param key the key, usually a driver id.
+     * @param timestamps the timestamps of the points, in epoch milliseconds.
+     * @param latitudes the latitudes of the points, in decimal degrees.
+     * @param longitudes the longitudes of the points, in decimal degrees.
+     * @param count the number of points to append from the arrays.
+     */
+    public void append(String key, long[] timestamps, double[] latitudes, double[] longitudes, int count) throws IOException {
+        if (count <= 0) {
+            return;
+        }
+        long[] sortedTimestamps = Arrays.copyOf(timestamps, count);
+        int[] lats = new int[count];
+        int[] lons = new int[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = toMicroDegrees(latitudes[i]);
+            lons[i] = toMicroDegrees(longitudes[i]);
+        }
+        sortByTimestamp(sortedTimestamps, lats, lons, count);
+        ByteBuffer block = encode(key.getBytes(StandardCharsets.UTF_8), sortedTimestamps, lats, lons, count);
+
+        lock.writeLock().lock();
+        try {
+            long start = Math.floorDiv(sortedTimestamps[0], segmentDuration) * segmentDuration;
+            Segment segment = segments.computeIfAbsent(start, Segment::new);
+            segment.append(key, block, sortedTimestamps[0], sortedTimestamps[count - 1]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read the points of a key within a time range, sorted by timestamp.
+     *
+     * @param key the key.
+     * @param from the start of the range, inclusive, in epoch milliseconds.
+     * @param to the end of the range, inclusive, in epoch milliseconds.
+     * @return the points.
+     */
+    public List<TrackPoint> read(String key, long from, long to) throws IOException {
+        List<TrackPoint> points = new ArrayList<>();
+        PointSink sink = (timestamp, lat, lon) -> {
+            if (timestamp > to) {
+                return false;
+            }
+            if (timestamp >= from) {
+                points.add(new TrackPoint(timestamp, lat / COORDINATE_SCALE, lon / COORDINATE_SCALE));
+            }
+            return true;
+        };
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.headMap(to, true).values()) {
+                if (segment.maxTimestamp >= from) {
+                    segment.read(key, from, to, sink);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        points.sort(Comparator.comparingLong(TrackPoint::getTimestamp));
+        return points;
+    }
+
+    /**
+     * Delete the segments whose points are all older than a timestamp.
+     *
+     * @param cutoff the timestamp, in epoch milliseconds.
+     * @return the number of deleted segments.
+     */
+    public int deleteOlderThan(long cutoff) throws IOException {
+        int deleted = 0;
+        lock.writeLock().lock();
+        try {
+            Iterator<Segment> iterator = segments.headMap(cutoff, false).values().iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                if (segment.start + segmentDuration <= cutoff && segment.maxTimestamp < cutoff) {
+                    segment.delete();
+                    iterator.remove();
+                    deleted++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return deleted;
+    }
+
+    /**
+     * Seal the segments that started before a timestamp and have an active file, closing its channels.
+     *
+     * @param timestamp the timestamp, in epoch milliseconds.
+     * @return the number of sealed segments.
+     */
+    public int sealBefore(long timestamp) throws IOException {
+        int sealed = 0;
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.headMap(timestamp, false).values()) {
+                if (segment.activePath != null) {
+                    segment.seal();
+                    sealed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return sealed;
+    }
+
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.closeActive();
+            }
+            synchronized (openSealedFiles) {
+                openSealedFiles.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Path path(long start, int generation, String suffix) {
+        return directory.resolve(SEGMENT_PREFIX + start + (generation == 0 ? "" : "." + generation) + suffix);
+    }
+
+    /**
+     * Get a sealed file, mapping it if it is not among the most recently read ones.
+     */
+    private SealedFile sealedFile(Path path) throws IOException {
+        SealedFile file;
+        synchronized (openSealedFiles) {
+            file = openSealedFiles.get(path);
+        }
+        if (file == null) {
+            file = SealedFile.open(path);
+            synchronized (openSealedFiles) {
+                openSealedFiles.put(path, file);
+            }
+        }
+        return file;
+    }
+
+    private void forgetSealedFile(Path path) {
+        synchronized (openSealedFiles) {
+            openSealedFiles.remove(path);
+        }
+    }
+
+    private static int toMicroDegrees(double degrees) {
+        return (int) Math.round(degrees * COORDINATE_SCALE);
+    }
+
+    /**
+     * Encode the points of a key, sorted by timestamp, as a block.
+     */
+    private static ByteBuffer encode(byte[] keyBytes, long[] timestamps, int[] lats, int[] lons, int count) {
+        ByteBuffer block = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + (count - 1) * MAX_DELTA_SIZE);
+        block.putInt(0);
+        block.putShort((short) keyBytes.length);
+        block.put(keyBytes);
+        block.putInt(count);
+        block.putLong(timestamps[0]);
+        block.putLong(timestamps[count - 1]);
+        block.putInt(lats[0]);
+        block.putInt(lons[0]);
+        for (int i = 1; i < count; i++) {
+            putVarLong(block, timestamps[i] - timestamps[i - 1]);
+            putVarLong(block, lats[i] - lats[i - 1]);
+            putVarLong(block, lons[i] - lons[i - 1]);
+        }
+        block.putInt(0, block.position() - 4);
+        block.flip();
+        return block;
+    }
+
+    /**
+     * Decode the points of a block, from the position of the buffer, until the sink asks to stop.
+     */
+    private static void decode(ByteBuffer buffer, PointSink sink) {
+        buffer.getInt();
+        int keyLength = buffer.getShort();
+        buffer.position(buffer.position() + keyLength);
+        int count = buffer.getInt();
+        long timestamp = buffer.getLong();
+        buffer.getLong();
+        int lat = buffer.getInt();
+        int lon = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                timestamp += getVarLong(buffer);
+                lat += (int) getVarLong(buffer);
+                lon += (int) getVarLong(buffer);
+            }
+            if (!sink.accept(timestamp, lat, lon)) {
+                return;
+            }
+        }
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        buffer.put((byte) zigZag);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static void sortByTimestamp(long[] timestamps, int[] lats, int[] lons, int count) {
+        // Points arrive nearly sorted, so insertion sort is close to linear
+        for (int i = 1; i < count; i++) {
+            long timestamp = timestamps[i];
+            int lat = lats[i];
+            int lon = lons[i];
+            int j = i - 1;
+            while (j >= 0 && timestamps[j] > timestamp) {
+                timestamps[j + 1] = timestamps[j];
+                lats[j + 1] = lats[j];
+                lons[j + 1] = lons[j];
+                j--;
+            }
+            timestamps[j + 1] = timestamp;
+            lats[j + 1] = lat;
+            lons[j + 1] = lon;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * A position at a point in time.
+     */
+    public static final class TrackPoint {
+
+        private final long timestamp;
+
+        private final double latitude;
+
+        private final double longitude;
+
+        TrackPoint(long timestamp, double latitude, double longitude) {
+            this.timestamp = timestamp;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+
+    /**
+     * Receiver of decoded points, in micro-degrees.
+     */
+    private interface PointSink {
+
+        /**
+         * @return {@code false} to stop decoding the block.
+         */
+        boolean accept(long timestamp, int lat, int lon);
+    }
+
+    /**
+     * Growable arrays of points, in micro-degrees.
+     */
+    private static final class Points implements PointSink {
+
+        private long[] timestamps = new long[16];
+
+        private int[] lats = new int[16];
+
+        private int[] lons = new int[16];
+
+        private int count;
+
+        @Override
+        public boolean accept(long timestamp, int lat, int lon) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+                lats = Arrays.copyOf(lats, count * 2);
+                lons = Arrays.copyOf(lons, count * 2);
+            }
+            timestamps[count] = timestamp;
+            lats[count] = lat;
+            lons[count] = lon;
+            count++;
+            return true;
+        }
+    }
+
+    /**
+     * Location of a block in a segment file, with the time range of its points.
+     */
+    private static final class BlockRef {
+
+        private final long offset;
+
+        private final int length;
+
+        private final long minTimestamp;
+
+        private final long maxTimestamp;
+
+        BlockRef(long offset, int length, long minTimestamp, long maxTimestamp) {
+            this.offset = offset;
+            this.length = length;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+        }
+    }
+
+    /**
+     * A mapped sealed file, with the index of its keys.
+     */
+    private static final class SealedFile {
+
+        private final MappedByteBuffer mapping;
+
+        private final Map<String, BlockRef> blocks;
+
+        private SealedFile(MappedByteBuffer mapping, Map<String, BlockRef> blocks) {
+            this.mapping = mapping;
+            this.blocks = blocks;
+        }
+
+        /**
+         * Map a sealed file and read its index. The channel is closed once mapped, so the file holds no descriptor.
+         */
+        static SealedFile open(Path path) throws IOException {
+            MappedByteBuffer mapping;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            ByteBuffer buffer = mapping.duplicate();
+            buffer.position(buffer.capacity() - TRAILER_SIZE);
+            long indexOffset = buffer.getLong();
+            int keyCount = buffer.getInt();
+            buffer.position((int) indexOffset);
+            Map<String, BlockRef> blocks = new HashMap<>(keyCount * 2);
+            for (int i = 0; i < keyCount; i++) {
+                byte[] keyBytes = new byte[buffer.getShort()];
+                buffer.get(keyBytes);
+                blocks.put(new String(keyBytes, StandardCharsets.UTF_8),
+                    new BlockRef(buffer.getLong(), buffer.getInt(), buffer.getLong(), buffer.getLong()));
+            }
+            return new SealedFile(mapping, blocks);
+        }
+
+        /**
+         * Read the last timestamp of a sealed file from its trailer.
+         *
+         * @return the timestamp, or {@code null} if the file is not a complete sealed file.
+         */
+        static Long readMaxTimestamp(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() < TRAILER_SIZE) {
+                    return null;
+                }
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+                while (trailer.hasRemaining()) {
+                    if (channel.read(trailer, channel.size() - TRAILER_SIZE + trailer.position()) < 0) {
+                        return null;
+                    }
+                }
+                trailer.flip();
+                trailer.getLong();
+                trailer.getInt();
+                long maxTimestamp = trailer.getLong();
+                return trailer.getInt() == SEALED_MAGIC ? maxTimestamp : null;
+            }
+        }
+    }
+
+    /**
+     * The files of a segment found on startup, by generation.
+     */
+    private final class SegmentFiles {
+
+        private final NavigableMap<Integer, Path> sealed = new TreeMap<>();
+
+        private final NavigableMap<Integer, Path> active = new TreeMap<>();
+
+        void load(Segment segment) throws IOException {
+            int generation = 0;
+            while (!sealed.isEmpty()) {
+                Map.Entry<Integer, Path> last = sealed.pollLastEntry();
+                Long maxTimestamp = SealedFile.readMaxTimestamp(last.getValue());
+                if (maxTimestamp != null) {
+                    generation = last.getKey();
+                    segment.sealedGeneration = generation;
+                    segment.sealedPath = last.getValue();
+                    segment.maxTimestamp = maxTimestamp;
+                    break;
+                }
+                log.warn("Ignoring the corrupted sealed segment {}", last.getValue());
+            }
+            // Files of earlier generations were merged into the sealed file before a crash
+            for (Path path : sealed.headMap(generation, false).values()) {
+                Files.delete(path);
+            }
+            for (Path path : active.headMap(generation, false).values()) {
+                Files.delete(path);
+            }
+            for (Path path : active.tailMap(generation, false).values()) {
+                log.warn("Ignoring the segment {}, newer than its sealed file", path);
+            }
+            Path activePath = active.get(generation);
+            if (activePath != null) {
+                segment.loadActive(activePath);
+            }
+        }
+    }
+
+    private final class Segment {
+
+        private final long start;
+
+        private long maxTimestamp = Long.MIN_VALUE;
+
+        private int sealedGeneration;
+
+        private Path sealedPath;
+
+        private Path activePath;
+
+        private final Map<String, List<BlockRef>> blocks = new HashMap<>();
+
+        private long size;
+
+        private FileChannel writer;
+
+        private FileChannel reader;
+
+        /**
+         * Mapping of the start of the active file, only changed under the write lock.
+         */
+        private MappedByteBuffer mapping;
+
+        Segment(long start) {
+            this.start = start;
+        }
+
+        void loadActive(Path path) throws IOException {
+            activePath = path;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long fileSize = channel.size();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + Short.MAX_VALUE);
+                long offset = 0;
+                while (offset + HEADER_SIZE <= fileSize) {
+                    header.clear();
+                    header.limit((int) Math.min(header.capacity(), fileSize - offset));
+                    channel.read(header, offset);
+                    header.flip();
+                    int length = header.getInt();
+                    if (length <= 0 || offset + 4 + length > fileSize) {
+                        break;
+                    }
+                    byte[] keyBytes = new byte[header.getShort()];
+                    header.get(keyBytes);
+                    header.getInt();
+                    long minTimestamp = header.getLong();
+                    long maxTimestamp = header.getLong();
+                    index(new String(keyBytes, StandardCharsets.UTF_8), new BlockRef(offset, 4 + length, minTimestamp, maxTimestamp));
+                    offset += 4 + length;
+                }
+                if (offset < fileSize) {
+                    log.warn("Truncating incomplete block at offset {} of {}", offset, path);
+                    channel.truncate(offset);
+                }
+                this.size = offset;
+            }
+            remap();
+        }
+
+        void append(String key, ByteBuffer block, long minTimestamp, long maxTimestamp) throws IOException {
+            if (activePath == null) {
+                activePath = path(start, sealedGeneration, ACTIVE_SUFFIX);
+            }
+            if (writer == null) {
+                writer = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            if (reader == null) {
+                reader = FileChannel.open(activePath, StandardOpenOption.READ);
+            }
+            long offset = size;
+            int length = block.remaining();
+            if (offset + length > Integer.MAX_VALUE) {
+                throw new IOException("Segment " + activePath + " is full, use a shorter segment duration");
+            }
+            writeFully(writer, block);
+            size += length;
+            index(key, new BlockRef(offset, length, minTimestamp, maxTimestamp));
+            if (size - mappedSize() >= MAPPING_CHUNK) {
+                remap();
+            }
+        }
+
+        void read(String key, long from, long to, PointSink sink) throws IOException {
+            if (sealedPath != null) {
+                SealedFile sealed = sealedFile(sealedPath);
+                BlockRef ref = sealed.blocks.get(key);
+                if (ref != null && ref.maxTimestamp >= from && ref.minTimestamp <= to) {
+                    ByteBuffer buffer = sealed.mapping.duplicate();
+                    buffer.position((int) ref.offset);
+                    decode(buffer, sink);
+                }
+            }
+            List<BlockRef> refs = blocks.get(key);
+            if (refs == null) {
+                return;
+            }
+            for (BlockRef ref : refs) {
+                if (ref.maxTimestamp >= from && ref.minTimestamp <= to) {
+                    decode(activeBlock(ref), sink);
+                }
+            }
+        }
+
+        /**
+         * Merge the sealed file and the active file into a new sealed file, with a single block per key, and close
+         * the channels of the active file.
+         */
+        void seal() throws IOException {
+            SealedFile previous = sealedPath == null ? null : SealedFile.open(sealedPath);
+            TreeSet<String> keys = new TreeSet<>(blocks.keySet());
+            if (previous != null) {
+                keys.addAll(previous.blocks.keySet());
+            }
+            int generation = sealedGeneration + 1;
+            Path path = path(start, generation, SEALED_SUFFIX);
+            Path temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+            long sealedMaxTimestamp = Long.MIN_VALUE;
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                List<byte[]> keyBytesList = new ArrayList<>(keys.size());
+                List<BlockRef> refs = new ArrayList<>(keys.size());
+                long offset = 0;
+                for (String key : keys) {
+                    Points points = new Points();
+                    if (previous != null && previous.blocks.containsKey(key)) {
+                        ByteBuffer buffer = previous.mapping.duplicate();
+                        buffer.position((int) previous.blocks.get(key).offset);
+                        decode(buffer, points);
+                    }
+                    for (BlockRef ref : blocks.getOrDefault(key, Collections.emptyList())) {
+                        decode(activeBlock(ref), points);
+                    }
+                    sortByTimestamp(points.timestamps, points.lats, points.lons, points.count);
+                    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                    ByteBuffer block = encode(keyBytes, points.timestamps, points.lats, points.lons, points.count);
+                    int length = block.remaining();
+                    writeFully(channel, block);
+                    long maxTimestamp = points.timestamps[points.count - 1];
+                    keyBytesList.add(keyBytes);
+                    refs.add(new BlockRef(offset, length, points.timestamps[0], maxTimestamp));
+                    sealedMaxTimestamp = Math.max(sealedMaxTimestamp, maxTimestamp);
+                    offset += length;
+                }
+                int indexSize = 0;
+                for (byte[] keyBytes : keyBytesList) {
+                    indexSize += INDEX_ENTRY_SIZE + keyBytes.length;
+                }
+                ByteBuffer index = ByteBuffer.allocate(indexSize + TRAILER_SIZE);
+                for (int i = 0; i < refs.size(); i++) {
+                    BlockRef ref = refs.get(i);
+                    index.putShort((short) keyBytesList.get(i).length);
+                    index.put(keyBytesList.get(i));
+                    index.putLong(ref.offset);
+                    index.putInt(ref.length);
+                    index.putLong(ref.minTimestamp);
+                    index.putLong(ref.maxTimestamp);
+                }
+                index.putLong(offset);
+                index.putInt(refs.size());
+                index.putLong(sealedMaxTimestamp);
+                index.putInt(SEALED_MAGIC);
+                index.flip();
+                writeFully(channel, index);
+                channel.force(true);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            // The new sealed file is complete: the merged files are not needed anymore
+            closeActive();
+            Files.deleteIfExists(activePath);
+            if (sealedPath != null) {
+                forgetSealedFile(sealedPath);
+                Files.deleteIfExists(sealedPath);
+            }
+            blocks.clear();
+            size = 0;
+            activePath = null;
+            sealedPath = path;
+            sealedGeneration = generation;
+        }
+
+        /**
+         * Get a block of the active file, from its mapping if it is mapped yet, else read from the file.
+         */
+        private ByteBuffer activeBlock(BlockRef ref) throws IOException {
+            if (ref.offset + ref.length <= mappedSize()) {
+                ByteBuffer buffer = mapping.duplicate();
+                buffer.position((int) ref.offset);
+                return buffer;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(ref.length);
+            while (buffer.hasRemaining()) {
+                if (reader.read(buffer, ref.offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + activePath);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Map the whole active file. Only called under the write lock, so that readers see the mapping of their blocks.
+         */
+        private void remap() throws IOException {
+            if (reader == null) {
+                reader = FileChannel.open(activePath, StandardOpenOption.READ);
+            }
+            mapping = size == 0 ? null : reader.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        private long mappedSize() {
+            return mapping == null ? 0 : mapping.capacity();
+        }
+
+        private void index(String key, BlockRef ref) {
+            blocks.computeIfAbsent(key, k -> new ArrayList<>()).add(ref);
+            maxTimestamp = Math.max(maxTimestamp, ref.maxTimestamp);
+        }
+
+        void closeActive() throws IOException {
+            mapping = null;
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+        }
+
+        void delete() throws IOException {
+            closeActive();
+            if (activePath != null) {
+                Files.deleteIfExists(activePath);
+            }
+            if (sealedPath != null) {
+                forgetSealedFile(sealedPath);
+                Files.deleteIfExists(sealedPath);
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Append-only storage of driver location history.
+ */
+package com.driverapp.service.history;
@@ -0,0 +1,22 @@
+package com.driverapp.service.mapper;
+
+import com.driverapp.domain.*;
+import com.driverapp.service.dto.BusinessDTO;
+
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link Business} and its DTO {@link BusinessDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {})
+public interface BusinessMapper extends EntityMapper<BusinessDTO, Business> {
+
+    default Business fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        Business business = new Business();
+        business.setId(id);
+        return business;
+    }
+}
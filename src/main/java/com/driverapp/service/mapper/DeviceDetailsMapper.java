@@ -0,0 +1,28 @@
+package com.driverapp.service.mapper;
+
+import com.driverapp.domain.*;
+import com.driverapp.service.dto.DeviceDetailsDTO;
+
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link DeviceDetails} and its DTO {@link DeviceDetailsDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {DriverMapper.class})
+public interface DeviceDetailsMapper extends EntityMapper<DeviceDetailsDTO, DeviceDetails> {
+
+    @Mapping(source = "driver.id", target = "driverId")
+    DeviceDetailsDTO toDto(DeviceDetails deviceDetails);
+
+    @Mapping(source = "driverId", target = "driver")
+    DeviceDetails toEntity(DeviceDetailsDTO deviceDetailsDTO);
+
+    default DeviceDetails fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        DeviceDetails deviceDetails = new DeviceDetails();
+        deviceDetails.setId(id);
+        return deviceDetails;
+    }
+}
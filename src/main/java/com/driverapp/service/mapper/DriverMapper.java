@@ -0,0 +1,48 @@
+package com.driverapp.service.mapper;
+
+import com.driverapp.domain.*;
+import com.driverapp.service.dto.DriverDTO;
+import com.driverapp.service.dto.DriverSummaryDTO;
+
+import org.mapstruct.*;
+
+import java.util.List;
+
+/**
+ * Mapper for the entity {@link Driver} and its DTOs {@link DriverDTO} and {@link DriverSummaryDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {LocationMapper.class, VehicleMapper.class, ServicesMapper.class, DeviceDetailsMapper.class})
+public interface DriverMapper extends EntityMapper<DriverDTO, Driver> {
+
+    @Mapping(target = "password", ignore = true)
+    DriverDTO toDto(Driver driver);
+
+    @Mapping(target = "oneTimeCode", ignore = true)
+    @Mapping(target = "oneTimeExpirationTime", ignore = true)
+    Driver toEntity(DriverDTO driverDTO);
+
+    /**
+     * Copy a DTO onto a stored driver. The DTOs read back never carry the password, so the stored one is kept when
+     * the DTO has none.
+     *
+     * @param driverDTO the DTO.
+     * @param driver the stored driver.
+     */
+    @Mapping(target = "password", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "oneTimeCode", ignore = true)
+    @Mapping(target = "oneTimeExpirationTime", ignore = true)
+    void updateEntity(DriverDTO driverDTO, @MappingTarget Driver driver);
+
+    DriverSummaryDTO toSummaryDto(Driver driver);
+
+    List<DriverSummaryDTO> toSummaryDto(List<Driver> drivers);
+
+    default Driver fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        Driver driver = new Driver();
+        driver.setId(id);
+        return driver;
+    }
+}
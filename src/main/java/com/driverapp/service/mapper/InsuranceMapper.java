@@ -0,0 +1,22 @@
+package com.driverapp.service.mapper;
+
+import com.driverapp.domain.*;
+import com.driverapp.service.dto.InsuranceDTO;
+
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link Insurance} and its DTO {@link InsuranceDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {})
+public interface InsuranceMapper extends EntityMapper<InsuranceDTO, Insurance> {
+
+    default Insurance fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        Insurance insurance = new Insurance();
+        insurance.setId(id);
+        return insurance;
+    }
+}
@@ -0,0 +1,25 @@
+package com.driverapp.service.mapper;
+
+import com.driverapp.domain.*;
+import com.driverapp.service.dto.LocationDTO;
+
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link Location} and its DTO {@link LocationDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {})
+public interface LocationMapper extends EntityMapper<LocationDTO, Location> {
+
+    @Mapping(target = "position", ignore = true)
+    Location toEntity(LocationDTO locationDTO);
+
+    default Location fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        Location location = new Location();
+        location.setId(id);
+        return location;
+    }
+}
@@ -0,0 +1,28 @@
+package com.driverapp.service.mapper;
+
+import com.driverapp.domain.*;
+import com.driverapp.service.dto.ServicesDTO;
+
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link Services} and its DTO {@link ServicesDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {DriverMapper.class})
+public interface ServicesMapper extends EntityMapper<ServicesDTO, Services> {
+
+    @Mapping(source = "driver.id", target = "driverId")
+    ServicesDTO toDto(Services services);
+
+    @Mapping(source = "driverId", target = "driver")
+    Services toEntity(ServicesDTO servicesDTO);
+
+    default Services fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        Services services = new Services();
+        services.setId(id);
+        return services;
+    }
+}
@@ -0,0 +1,30 @@
+package com.driverapp.service.mapper;
+
+import com.driverapp.domain.*;
+import com.driverapp.service.dto.VehicleDTO;
+
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link Vehicle} and its DTO {@link VehicleDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {DriverMapper.class, InsuranceMapper.class})
+public interface VehicleMapper extends EntityMapper<VehicleDTO, Vehicle> {
+
+    @Mapping(source = "driver.id", target = "driverId")
+    @Mapping(source = "autoInsurance.id", target = "autoInsuranceId")
+    VehicleDTO toDto(Vehicle vehicle);
+
+    @Mapping(source = "driverId", target = "driver")
+    @Mapping(source = "autoInsuranceId", target = "autoInsurance")
+    Vehicle toEntity(VehicleDTO vehicleDTO);
+
+    default Vehicle fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(id);
+        return vehicle;
+    }
+}
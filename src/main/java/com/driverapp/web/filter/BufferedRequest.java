@@ -0,0 +1,99 @@
+package com.driverapp.web.filter;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Request whose body is read once by a filter, and can be read again by the endpoint.
+ */
+final class BufferedRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    BufferedRequest(HttpServletRequest request) throws IOException {
+        this(request, StreamUtils.copyToByteArray(request.getInputStream()));
+    }
+
+    private BufferedRequest(HttpServletRequest request, byte[] body) {
+        super(request);
+        this.body = body;
+    }
+
+    /**
+     * Read the body of a request, if it is not larger than a maximum size.
+     *
+     * @param request the request.
+     * @param maxSize the maximum size of the body, in bytes.
+     * @return the request with its body read, or {@code null} if the body is larger than {@code maxSize}, which is
+     * then read up to {@code maxSize + 1} bytes at most.
+     * @throws IOException if the body cannot be read.
+     */
+    @Nullable
+    static BufferedRequest read(HttpServletRequest request, int maxSize) throws IOException {
+        if (request.getContentLengthLong() > maxSize) {
+            return null;
+        }
+        byte[] body = new byte[maxSize + 1];
+        int length = 0;
+        InputStream input = request.getInputStream();
+        for (int read = 0; read >= 0 && length < body.length; read = input.read(body, length, body.length - length)) {
+            length += read;
+        }
+        return length > maxSize ? null : new BufferedRequest(request, Arrays.copyOf(body, length));
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream input = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return input.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read() {
+                return input.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return input.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
@@ -0,0 +1,169 @@
+package com.driverapp.web.filter;
+
+import com.driverapp.domain.IdempotentRequest;
+import com.driverapp.service.IdempotencyService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.zalando.problem.Status;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filter handling the {@code POST} requests of the paths configured in {@code application.idempotency.paths},
+ * sent with an {@code Idempotency-Key} header, only once through the {@link IdempotencyService}.
+ * <p>
+ * Retries of a request get the response of the first one, with an {@code Idempotent-Replayed} header, without
+ * running its handler again. Keys are scoped by user and path. A retry sent while the request is being handled on
+ * another node gets a {@code 409 (Conflict)} response with a {@code Retry-After} header, and a key reused with a
+ * different body gets a {@code 422 (Unprocessable Entity)} response. Server errors are not stored, so the request
+ * can be retried.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String RETRY_AFTER = "1";
+
+    private final Set<String> paths;
+
+    private final IdempotencyService idempotencyService;
+
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(Collection<String> paths, IdempotencyService idempotencyService, ObjectMapper objectMapper) {
+        this.paths = new HashSet<>(paths);
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !paths.contains(ProblemResponses.path(request))
+            || !StringUtils.hasText(request.getHeader(IDEMPOTENCY_KEY_HEADER));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.length() > MAX_KEY_LENGTH) {
+            ProblemResponses.write(objectMapper, request, response, Status.BAD_REQUEST);
+            return;
+        }
+        BufferedRequest bufferedRequest = new BufferedRequest(request);
+        String id = sha256(user() + '\n' + ProblemResponses.path(request) + '\n' + key);
+        String requestHash = sha256(bufferedRequest.getBody());
+        IdempotencyService.Claim claim = idempotencyService.claim(id, requestHash);
+        switch (claim.getResult()) {
+            case REPLAY:
+                replay(claim.getRequest(), response);
+                return;
+            case IN_PROGRESS:
+                response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER);
+                ProblemResponses.write(objectMapper, request, response, Status.CONFLICT);
+                return;
+            case MISMATCH:
+                ProblemResponses.write(objectMapper, request, response, Status.UNPROCESSABLE_ENTITY);
+                return;
+            default:
+                break;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(bufferedRequest, responseWrapper);
+            if (responseWrapper.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+                idempotencyService.complete(id, requestHash, responseWrapper.getStatus(), headers(responseWrapper),
+                    responseWrapper.getContentAsByteArray());
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyService.abandon(id);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private static Map<String, List<String>> headers(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        if (response.getContentType() != null) {
+            headers.put(HttpHeaders.CONTENT_TYPE, Collections.singletonList(response.getContentType()));
+        }
+        return headers;
+    }
+
+    private static void replay(IdempotentRequest stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getHeaders() != null) {
+            stored.getHeaders().forEach((name, values) -> {
+                for (int i = 0; i < values.size(); i++) {
+                    if (i == 0) {
+                        response.setHeader(name, values.get(i));
+                    } else {
+                        response.addHeader(name, values.get(i));
+                    }
+                }
+            });
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getBody() != null && stored.getBody().length > 0) {
+            response.setContentLength(stored.getBody().length);
+            response.getOutputStream().write(stored.getBody());
+        }
+    }
+
+    private static String user() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+
+    private static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
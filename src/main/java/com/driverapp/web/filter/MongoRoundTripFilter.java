@@ -0,0 +1,54 @@
+package com.driverapp.web.filter;
+
+import com.driverapp.config.MongoRoundTripListener;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Filter recording the number of Mongo round trips of each API request, per request mapping, as the
+ * {@code driverapp.mongo.round.trips} distribution summary.
+ */
+@Component
+public class MongoRoundTripFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    public MongoRoundTripFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        MongoRoundTripListener.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int roundTrips = MongoRoundTripListener.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("driverapp.mongo.round.trips")
+                .description("Number of Mongo round trips of an API request")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : UNKNOWN_URI)
+                .register(meterRegistry)
+                .record(roundTrips);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.driverapp.web.filter;
+
+import com.driverapp.web.rest.errors.ErrorConstants;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.zalando.problem.Problem;
+import org.zalando.problem.Status;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Utility class writing the responses of the requests rejected by the filters, in the format of the
+ * {@link com.driverapp.web.rest.errors.ExceptionTranslator}.
+ */
+final class ProblemResponses {
+
+    private static final String MESSAGE_KEY = "message";
+
+    private static final String PATH_KEY = "path";
+
+    private ProblemResponses() {
+    }
+
+    static void write(ObjectMapper objectMapper, HttpServletRequest request, HttpServletResponse response, Status status)
+        throws IOException {
+        Problem problem = Problem.builder()
+            .withType(ErrorConstants.DEFAULT_TYPE)
+            .withStatus(status)
+            .withTitle(status.getReasonPhrase())
+            .with(MESSAGE_KEY, "error.http." + status.getStatusCode())
+            .with(PATH_KEY, request.getRequestURI())
+            .build();
+        response.setStatus(status.getStatusCode());
+        response.setContentType("application/problem+json");
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,183 @@
+package com.driverapp.web.filter;
+
+import com.driverapp.config.ApplicationProperties;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.zalando.problem.Status;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Filter limiting the rate of the {@code POST} requests of the endpoints configured in
+ * {@code application.rate-limit.endpoints}, such as the capture of phone numbers and the verification of one-time
+ * codes, which send SMS and can be used to guess codes.
+ * <p>
+ * Each request takes a token from the bucket of its client IP, then from the bucket of the value of the
+ * {@code key-field} of its JSON body, such as the phone number: a client out of tokens for its IP creates no
+ * bucket for other keys. Rejected requests get a {@code 429 (Too Many Requests)} response, with a
+ * {@code Retry-After} header in seconds.
+ * <p>
+ * The client IP of a request from one of the {@code trusted-proxies} is the last address of its
+ * {@code X-Forwarded-For} header which is not a trusted proxy, so that the clients behind a load balancer do not
+ * share its bucket, and the clients reaching the server directly cannot choose their IP. Bodies larger than
+ * {@code max-body-size} are rejected with a {@code 413 (Payload Too Large)} response before they are buffered.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final Map<String, Limit> limitsByPath = new HashMap<>();
+
+    @Nullable
+    private final Pattern trustedProxies;
+
+    private final int maxBodySize;
+
+    private final TokenBuckets buckets;
+
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(ApplicationProperties applicationProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        ApplicationProperties.RateLimit properties = applicationProperties.getRateLimit();
+        this.objectMapper = objectMapper;
+        this.trustedProxies = properties.getTrustedProxies().isEmpty() ? null : Pattern.compile(properties.getTrustedProxies());
+        this.maxBodySize = properties.getMaxBodySize();
+        this.buckets = new TokenBuckets(properties.getStripes(),
+            TimeUnit.MILLISECONDS.toNanos(properties.getSweepInterval()), System.nanoTime());
+        properties.getEndpoints().forEach((name, endpoint) ->
+            limitsByPath.put(endpoint.getPath(), new Limit(name, endpoint, meterRegistry)));
+        Gauge.builder("driverapp.rate.limit.buckets", buckets, TokenBuckets::size)
+            .description("Number of rate limiting buckets in memory")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !limitsByPath.containsKey(ProblemResponses.path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        Limit limit = limitsByPath.get(ProblemResponses.path(request));
+        long now = System.nanoTime();
+        long wait = buckets.tryAcquire(limit.name + "|ip|" + clientAddress(request), limit.ipCapacity, limit.ipPeriod, now);
+        if (wait > 0) {
+            limit.ipRejectedCounter.increment();
+            reject(request, response, wait);
+            return;
+        }
+        if (limit.keyField != null) {
+            BufferedRequest bufferedRequest = BufferedRequest.read(request, maxBodySize);
+            if (bufferedRequest == null) {
+                limit.tooLargeCounter.increment();
+                ProblemResponses.write(objectMapper, request, response, Status.REQUEST_ENTITY_TOO_LARGE);
+                return;
+            }
+            String key = readKey(bufferedRequest, limit.keyField);
+            if (key != null) {
+                wait = buckets.tryAcquire(limit.name + "|key|" + key, limit.keyCapacity, limit.keyPeriod, now);
+                if (wait > 0) {
+                    limit.keyRejectedCounter.increment();
+                    reject(request, response, wait);
+                    return;
+                }
+            }
+            request = bufferedRequest;
+        }
+        limit.allowedCounter.increment();
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientAddress(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+        if (trustedProxies == null || forwardedFor == null || !trustedProxies.matcher(address).matches()) {
+            return address;
+        }
+        // Each proxy appends the address it received the request from: the first untrusted one from the end is the client
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty()) {
+                address = hop;
+                if (!trustedProxies.matcher(hop).matches()) {
+                    break;
+                }
+            }
+        }
+        return address;
+    }
+
+    @Nullable
+    private String readKey(BufferedRequest request, String keyField) {
+        try {
+            JsonNode value = objectMapper.readTree(request.getBody()).get(keyField);
+            return value == null || !value.isValueNode() ? null : value.asText();
+        } catch (IOException e) {
+            // Rejected by the endpoint itself
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long wait) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (wait + 999_999_999) / 1_000_000_000)));
+        ProblemResponses.write(objectMapper, request, response, Status.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * Limits of an endpoint, with the periods in nanoseconds.
+     */
+    private static final class Limit {
+
+        private final String name;
+
+        @Nullable
+        private final String keyField;
+
+        private final int keyCapacity;
+
+        private final long keyPeriod;
+
+        private final int ipCapacity;
+
+        private final long ipPeriod;
+
+        private final Counter allowedCounter;
+
+        private final Counter ipRejectedCounter;
+
+        private final Counter keyRejectedCounter;
+
+        private final Counter tooLargeCounter;
+
+        Limit(String name, ApplicationProperties.RateLimitEndpoint endpoint, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.keyField = endpoint.getKeyField();
+            this.keyCapacity = endpoint.getKeyCapacity();
+            this.keyPeriod = TimeUnit.SECONDS.toNanos(endpoint.getKeyPeriod());
+            this.ipCapacity = endpoint.getIpCapacity();
+            this.ipPeriod = TimeUnit.SECONDS.toNanos(endpoint.getIpPeriod());
+            this.allowedCounter = meterRegistry.counter("driverapp.rate.limit", "endpoint", name, "result", "allowed");
+            this.ipRejectedCounter = meterRegistry.counter("driverapp.rate.limit", "endpoint", name, "result", "rejected-ip");
+            this.keyRejectedCounter = meterRegistry.counter("driverapp.rate.limit", "endpoint", name, "result", "rejected-key");
+            this.tooLargeCounter = meterRegistry.counter("driverapp.rate.limit", "endpoint", name, "result", "rejected-size");
+        }
+    }
+}
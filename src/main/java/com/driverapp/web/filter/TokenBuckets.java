@@ -0,0 +1,129 @@
+package com.driverapp.web.filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets by key, updated without locks.
+ * <p>
+ * A bucket of {@code capacity} tokens, refilled at {@code capacity} tokens per period, is kept as a single
+ * {@code long}: the time at which it will be full again. Taking a token is one compare-and-set of that time, and a
+ * full bucket behaves exactly like a missing one, so the buckets idle long enough to be full are evicted.
+ * <p>
+ * The buckets are spread over stripes, each a {@link ConcurrentHashMap}, which are swept one at a time by the
+ * callers of {@link #tryAcquire}: a full sweep of the stripes takes {@code sweepInterval} nanoseconds, and no
+ * background thread is needed.
+ */
+public class TokenBuckets {
+
+    /**
+     * Time of a bucket being evicted, which must be created again.
+     */
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final Map<String, AtomicLong>[] stripes;
+
+    private final long stripeSweepInterval;
+
+    private final AtomicLong nextSweepTime;
+
+    private final AtomicInteger sweepCursor = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    public TokenBuckets(int stripes, long sweepInterval, long now) {
+        int count = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.stripeSweepInterval = Math.max(1, sweepInterval / count);
+        this.nextSweepTime = new AtomicLong(now + stripeSweepInterval);
+    }
+
+    /**
+     * Take a token from a bucket.
+     *
+     * @param key the key of the bucket.
+     * @param capacity the number of tokens of the bucket.
+     * @param period the time to refill the bucket, in nanoseconds.
+     * @param now the current time, from {@link System#nanoTime()}.
+     * @return {@code 0} if a token was taken, or else the time until the next token, in nanoseconds.
+     */
+    public long tryAcquire(String key, int capacity, long period, long now) {
+        sweepIfDue(now);
+        long interval = Math.max(1, period / capacity);
+        long tolerance = period - interval;
+        Map<String, AtomicLong> stripe = stripe(key);
+        while (true) {
+            AtomicLong bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new AtomicLong(now + interval);
+                if (stripe.putIfAbsent(key, bucket) == null) {
+                    return 0;
+                }
+                continue;
+            }
+            long fullTime = bucket.get();
+            if (fullTime == EVICTED) {
+                stripe.remove(key, bucket);
+                continue;
+            }
+            long start = Math.max(fullTime, now);
+            if (start - now > tolerance) {
+                return start - now - tolerance;
+            }
+            if (bucket.compareAndSet(fullTime, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Get the number of buckets, including the full ones not evicted yet.
+     *
+     * @return the number of buckets.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Evict the full buckets of all the stripes.
+     *
+     * @param now the current time, from {@link System#nanoTime()}.
+     */
+    public void sweep(long now) {
+        for (Map<String, AtomicLong> stripe : stripes) {
+            sweep(stripe, now);
+        }
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweepTime.get();
+        if (now - due >= 0 && nextSweepTime.compareAndSet(due, now + stripeSweepInterval)) {
+            int index = sweepCursor.getAndIncrement() & (stripes.length - 1);
+            sweep(stripes[index], now);
+        }
+    }
+
+    private static void sweep(Map<String, AtomicLong> stripe, long now) {
+        for (Map.Entry<String, AtomicLong> entry : stripe.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            long fullTime = bucket.get();
+            if (fullTime != EVICTED && now - fullTime >= 0 && bucket.compareAndSet(fullTime, EVICTED)) {
+                stripe.remove(entry.getKey(), bucket);
+            }
+        }
+    }
+
+    private Map<String, AtomicLong> stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
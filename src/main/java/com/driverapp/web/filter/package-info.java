@@ -0,0 +1,4 @@
+/**
+ * Servlet filters applied to the REST endpoints.
+ */
+package com.driverapp.web.filter;
@@ -2,16 +2,30 @@ package com.driverapp.web.rest;
 
 import com.driverapp.domain.Business;
 import com.driverapp.repository.BusinessRepository;
+import com.driverapp.repository.KeysetSlice;
 import com.driverapp.repository.search.BusinessSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.cache.EntityTagService;
+import com.driverapp.service.dto.BusinessDTO;
+import com.driverapp.service.mapper.BusinessMapper;
 import com.driverapp.web.rest.errors.BadRequestAlertException;
+import com.driverapp.web.rest.util.EntityTagUtil;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -19,8 +33,6 @@ import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -42,26 +54,40 @@ public class BusinessResource {
 
     private final BusinessSearchRepository businessSearchRepository;
 
-    public BusinessResource(BusinessRepository businessRepository, BusinessSearchRepository businessSearchRepository) {
+    private final BusinessMapper businessMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityTagService entityTagService;
+
+    public BusinessResource(BusinessRepository businessRepository, BusinessMapper businessMapper, BusinessSearchRepository businessSearchRepository, ObjectMapper objectMapper, SearchResultCache searchResultCache, EntityTagService entityTagService) {
         this.businessRepository = businessRepository;
+        this.businessMapper = businessMapper;
         this.businessSearchRepository = businessSearchRepository;
+        this.objectMapper = objectMapper;
+        this.searchResultCache = searchResultCache;
+        this.entityTagService = entityTagService;
     }
 
     /**
      * {@code POST  /businesses} : Create a new business.
      *
-     * @param business the business to create.
+     * @param businessDTO the businessDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new business, or with status {@code 400 (Bad Request)} if the business has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/businesses")
-    public ResponseEntity<Business> createBusiness(@Valid @RequestBody Business business) throws URISyntaxException {
-        log.debug("REST request to save Business : {}", business);
-        if (business.getId() != null) {
+    public ResponseEntity<BusinessDTO> createBusiness(@Valid @RequestBody BusinessDTO businessDTO) throws URISyntaxException {
+        log.debug("REST request to save Business : {}", businessDTO);
+        if (businessDTO.getId() != null) {
             throw new BadRequestAlertException("A new business cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Business result = businessRepository.save(business);
-        businessSearchRepository.save(result);
+        Business business = businessMapper.toEntity(businessDTO);
+        business = businessRepository.save(business);
+        searchResultCache.invalidate(Business.class);
+        BusinessDTO result = businessMapper.toDto(business);
         return ResponseEntity.created(new URI("/api/businesses/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -70,48 +96,89 @@ public class BusinessResource {
     /**
      * {@code PUT  /businesses} : Updates an existing business.
      *
-     * @param business the business to update.
+     * @param businessDTO the businessDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated business,
      * or with status {@code 400 (Bad Request)} if the business is not valid,
      * or with status {@code 500 (Internal Server Error)} if the business couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/businesses")
-    public ResponseEntity<Business> updateBusiness(@Valid @RequestBody Business business) throws URISyntaxException {
-        log.debug("REST request to update Business : {}", business);
-        if (business.getId() == null) {
+    public ResponseEntity<BusinessDTO> updateBusiness(@Valid @RequestBody BusinessDTO businessDTO) throws URISyntaxException {
+        log.debug("REST request to update Business : {}", businessDTO);
+        if (businessDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Business result = businessRepository.save(business);
-        businessSearchRepository.save(result);
+        Business business = businessMapper.toEntity(businessDTO);
+        business = businessRepository.save(business);
+        searchResultCache.invalidate(Business.class);
+        BusinessDTO result = businessMapper.toDto(business);
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, business.getId().toString()))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, businessDTO.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /businesses} : get all the businesses.
+     * {@code GET  /businesses} : get a page of the businesses, in id order.
      *
-
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of businesses in body.
+     * @param after the id of the last business of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @param request the request, answered with status {@code 304 (Not Modified)} if its {@code If-None-Match} header
+     * matches the tag of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of businesses in body,
+     * with a {@code Link} header to the next page if there is one and an {@code ETag} header.
      */
     @GetMapping("/businesses")
-    public List<Business> getAllBusinesses() {
-        log.debug("REST request to get all Businesses");
-        return businessRepository.findAll();
+    public ResponseEntity<List<BusinessDTO>> getAllBusinesses(@RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+                                                 WebRequest request) {
+        log.debug("REST request to get a page of Businesses after {}", after);
+        int pageSize = KeysetPaginationUtil.pageSize(size);
+        String page = after + "/" + pageSize;
+        String tag = entityTagService.getPageTag(BusinessRepository.BUSINESSES_BY_ID_CACHE, page);
+        if (tag != null && EntityTagUtil.isNotModified(request, tag)) {
+            return EntityTagUtil.notModified(tag);
+        }
+        long generation = entityTagService.getGeneration(BusinessRepository.BUSINESSES_BY_ID_CACHE);
+        KeysetSlice<Business> slice = businessRepository.findAllAfter(after, pageSize);
+        List<BusinessDTO> businesses = slice.map(businessMapper::toDto).getContent();
+        return ResponseEntity.ok().headers(KeysetPaginationUtil.generatePaginationHttpHeaders(slice, pageSize))
+            .eTag(entityTagService.putPageTag(BusinessRepository.BUSINESSES_BY_ID_CACHE, generation, page, businesses))
+            .body(businesses);
+    }
+
+    /**
+     * {@code GET  /businesses} with {@code Accept: application/x-ndjson} : stream all the businesses, in id order,
+     * one JSON document per line.
+     *
+     * @param after the id of the last business already read, or none to start from the first one.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the businesses in body.
+     */
+    @GetMapping(value = "/businesses", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBusinesses(@RequestParam(required = false) String after) {
+        log.debug("REST request to stream all Businesses after {}", after);
+        return KeysetPaginationUtil.ndjson(() -> businessRepository.streamAllAfter(after), businessMapper::toDto, objectMapper);
     }
 
     /**
      * {@code GET  /businesses/:id} : get the "id" business.
      *
      * @param id the id of the business to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the business, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the business and an {@code ETag} header,
+     * or with status {@code 304 (Not Modified)} if the {@code If-None-Match} header matches, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/businesses/{id}")
-    public ResponseEntity<Business> getBusiness(@PathVariable String id) {
+    public ResponseEntity<BusinessDTO> getBusiness(@PathVariable String id, WebRequest request) {
         log.debug("REST request to get Business : {}", id);
         Optional<Business> business = businessRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(business);
+        if (!business.isPresent()) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        // The tag is computed once per cached entity: a matching request is answered before the DTO is mapped
+        String tag = entityTagService.getEntityTag(business.get(), businessMapper::toDto);
+        if (EntityTagUtil.isNotModified(request, tag)) {
+            return EntityTagUtil.notModified(tag);
+        }
+        return ResponseEntity.ok().eTag(tag).body(businessMapper.toDto(business.get()));
     }
 
     /**
@@ -124,23 +191,39 @@ public class BusinessResource {
     public ResponseEntity<Void> deleteBusiness(@PathVariable String id) {
         log.debug("REST request to delete Business : {}", id);
         businessRepository.deleteById(id);
-        businessSearchRepository.deleteById(id);
+        searchResultCache.invalidate(Business.class);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
 
     /**
-     * {@code SEARCH  /_search/businesses?query=:query} : search for the business corresponding
+     * {@code SEARCH  /_search/businesses?query=:query} : search for a page of the businesses corresponding
      * to the query.
      *
      * @param query the query of the business search.
-     * @return the result of the search.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of businesses in body, with the total number of hits in the headers.
      */
     @GetMapping("/_search/businesses")
-    public List<Business> searchBusinesses(@RequestParam String query) {
-        log.debug("REST request to search Businesses for query {}", query);
-        return StreamSupport
-            .stream(businessSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+    public ResponseEntity<List<BusinessDTO>> searchBusinesses(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Businesses for query {}", query);
+        Page<BusinessDTO> page = searchResultCache.get(Business.class, query, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME),
+            () -> businessSearchRepository.search(queryStringQuery(query), pageable, BusinessDTO.class).map(businessMapper::toDto));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page)).body(page.getContent());
+    }
+
+    /**
+     * {@code SEARCH  /_search/businesses?query=:query} with {@code Accept: application/x-ndjson} : export all the businesses
+     * corresponding to the query, in id order, one JSON document per line.
+     *
+     * @param query the query of the business search.
+     * @param after the id of the last business already exported, or none to start from the first hit.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the businesses in body.
+     */
+    @GetMapping(value = "/_search/businesses", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSearchBusinesses(@RequestParam String query, @RequestParam(required = false) String after) {
+        log.debug("REST request to export Businesses for query {} after {}", query, after);
+        return KeysetPaginationUtil.ndjson(() -> businessSearchRepository.streamSearchAfter(queryStringQuery(query), after, BusinessDTO.class),
+            businessMapper::toDto, objectMapper);
     }
 
 }
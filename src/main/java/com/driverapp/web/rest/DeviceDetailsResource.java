@@ -2,16 +2,26 @@ package com.driverapp.web.rest;
 
 import com.driverapp.domain.DeviceDetails;
 import com.driverapp.repository.DeviceDetailsRepository;
+import com.driverapp.repository.KeysetSlice;
 import com.driverapp.repository.search.DeviceDetailsSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.DeviceDetailsDTO;
+import com.driverapp.service.mapper.DeviceDetailsMapper;
 import com.driverapp.web.rest.errors.BadRequestAlertException;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -19,8 +29,6 @@ import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -42,26 +50,37 @@ public class DeviceDetailsResource {
 
     private final DeviceDetailsSearchRepository deviceDetailsSearchRepository;
 
-    public DeviceDetailsResource(DeviceDetailsRepository deviceDetailsRepository, DeviceDetailsSearchRepository deviceDetailsSearchRepository) {
+    private final DeviceDetailsMapper deviceDetailsMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    public DeviceDetailsResource(DeviceDetailsRepository deviceDetailsRepository, DeviceDetailsMapper deviceDetailsMapper, DeviceDetailsSearchRepository deviceDetailsSearchRepository, ObjectMapper objectMapper, SearchResultCache searchResultCache) {
         this.deviceDetailsRepository = deviceDetailsRepository;
+        this.deviceDetailsMapper = deviceDetailsMapper;
         this.deviceDetailsSearchRepository = deviceDetailsSearchRepository;
+        this.objectMapper = objectMapper;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
      * {@code POST  /device-details} : Create a new deviceDetails.
      *
-     * @param deviceDetails the deviceDetails to create.
+     * @param deviceDetailsDTO the deviceDetailsDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new deviceDetails, or with status {@code 400 (Bad Request)} if the deviceDetails has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/device-details")
-    public ResponseEntity<DeviceDetails> createDeviceDetails(@Valid @RequestBody DeviceDetails deviceDetails) throws URISyntaxException {
-        log.debug("REST request to save DeviceDetails : {}", deviceDetails);
-        if (deviceDetails.getId() != null) {
+    public ResponseEntity<DeviceDetailsDTO> createDeviceDetails(@Valid @RequestBody DeviceDetailsDTO deviceDetailsDTO) throws URISyntaxException {
+        log.debug("REST request to save DeviceDetails : {}", deviceDetailsDTO);
+        if (deviceDetailsDTO.getId() != null) {
             throw new BadRequestAlertException("A new deviceDetails cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        DeviceDetails result = deviceDetailsRepository.save(deviceDetails);
-        deviceDetailsSearchRepository.save(result);
+        DeviceDetails deviceDetails = deviceDetailsMapper.toEntity(deviceDetailsDTO);
+        deviceDetails = deviceDetailsRepository.save(deviceDetails);
+        searchResultCache.invalidate(DeviceDetails.class);
+        DeviceDetailsDTO result = deviceDetailsMapper.toDto(deviceDetails);
         return ResponseEntity.created(new URI("/api/device-details/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -70,35 +89,56 @@ public class DeviceDetailsResource {
     /**
      * {@code PUT  /device-details} : Updates an existing deviceDetails.
      *
-     * @param deviceDetails the deviceDetails to update.
+     * @param deviceDetailsDTO the deviceDetailsDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated deviceDetails,
      * or with status {@code 400 (Bad Request)} if the deviceDetails is not valid,
      * or with status {@code 500 (Internal Server Error)} if the deviceDetails couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/device-details")
-    public ResponseEntity<DeviceDetails> updateDeviceDetails(@Valid @RequestBody DeviceDetails deviceDetails) throws URISyntaxException {
-        log.debug("REST request to update DeviceDetails : {}", deviceDetails);
-        if (deviceDetails.getId() == null) {
+    public ResponseEntity<DeviceDetailsDTO> updateDeviceDetails(@Valid @RequestBody DeviceDetailsDTO deviceDetailsDTO) throws URISyntaxException {
+        log.debug("REST request to update DeviceDetails : {}", deviceDetailsDTO);
+        if (deviceDetailsDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        DeviceDetails result = deviceDetailsRepository.save(deviceDetails);
-        deviceDetailsSearchRepository.save(result);
+        DeviceDetails deviceDetails = deviceDetailsMapper.toEntity(deviceDetailsDTO);
+        deviceDetails = deviceDetailsRepository.save(deviceDetails);
+        searchResultCache.invalidate(DeviceDetails.class);
+        DeviceDetailsDTO result = deviceDetailsMapper.toDto(deviceDetails);
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, deviceDetails.getId().toString()))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, deviceDetailsDTO.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /device-details} : get all the deviceDetails.
+     * {@code GET  /device-details} : get a page of the deviceDetails, in id order.
      *
-
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of deviceDetails in body.
+     * @param after the id of the last deviceDetails of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of deviceDetails in body,
+     * with a {@code Link} header to the next page if there is one.
      */
     @GetMapping("/device-details")
-    public List<DeviceDetails> getAllDeviceDetails() {
-        log.debug("REST request to get all DeviceDetails");
-        return deviceDetailsRepository.findAll();
+    public ResponseEntity<List<DeviceDetailsDTO>> getAllDeviceDetails(@RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get a page of DeviceDetails after {}", after);
+        int pageSize = KeysetPaginationUtil.pageSize(size);
+        KeysetSlice<DeviceDetails> slice = deviceDetailsRepository.findAllAfter(after, pageSize);
+        return ResponseEntity.ok().headers(KeysetPaginationUtil.generatePaginationHttpHeaders(slice, pageSize))
+            .body(slice.map(deviceDetailsMapper::toDto).getContent());
+    }
+
+    /**
+     * {@code GET  /device-details} with {@code Accept: application/x-ndjson} : stream all the deviceDetails, in id order,
+     * one JSON document per line.
+     *
+     * @param after the id of the last deviceDetails already read, or none to start from the first one.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the deviceDetails in body.
+     */
+    @GetMapping(value = "/device-details", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllDeviceDetails(@RequestParam(required = false) String after) {
+        log.debug("REST request to stream all DeviceDetails after {}", after);
+        return KeysetPaginationUtil.ndjson(() -> deviceDetailsRepository.streamAllAfter(after), deviceDetailsMapper::toDto, objectMapper);
     }
 
     /**
@@ -108,10 +148,10 @@ public class DeviceDetailsResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the deviceDetails, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/device-details/{id}")
-    public ResponseEntity<DeviceDetails> getDeviceDetails(@PathVariable String id) {
+    public ResponseEntity<DeviceDetailsDTO> getDeviceDetails(@PathVariable String id) {
         log.debug("REST request to get DeviceDetails : {}", id);
-        Optional<DeviceDetails> deviceDetails = deviceDetailsRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(deviceDetails);
+        Optional<DeviceDetailsDTO> deviceDetailsDTO = deviceDetailsRepository.findById(id).map(deviceDetailsMapper::toDto);
+        return ResponseUtil.wrapOrNotFound(deviceDetailsDTO);
     }
 
     /**
@@ -124,23 +164,39 @@ public class DeviceDetailsResource {
     public ResponseEntity<Void> deleteDeviceDetails(@PathVariable String id) {
         log.debug("REST request to delete DeviceDetails : {}", id);
         deviceDetailsRepository.deleteById(id);
-        deviceDetailsSearchRepository.deleteById(id);
+        searchResultCache.invalidate(DeviceDetails.class);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
 
     /**
-     * {@code SEARCH  /_search/device-details?query=:query} : search for the deviceDetails corresponding
+     * {@code SEARCH  /_search/device-details?query=:query} : search for a page of the device details corresponding
      * to the query.
      *
      * @param query the query of the deviceDetails search.
-     * @return the result of the search.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of device details in body, with the total number of hits in the headers.
      */
     @GetMapping("/_search/device-details")
-    public List<DeviceDetails> searchDeviceDetails(@RequestParam String query) {
-        log.debug("REST request to search DeviceDetails for query {}", query);
-        return StreamSupport
-            .stream(deviceDetailsSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+    public ResponseEntity<List<DeviceDetailsDTO>> searchDeviceDetails(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of DeviceDetails for query {}", query);
+        Page<DeviceDetailsDTO> page = searchResultCache.get(DeviceDetails.class, query, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME),
+            () -> deviceDetailsSearchRepository.search(queryStringQuery(query), pageable, DeviceDetailsDTO.class).map(deviceDetailsMapper::toDto));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page)).body(page.getContent());
+    }
+
+    /**
+     * {@code SEARCH  /_search/device-details?query=:query} with {@code Accept: application/x-ndjson} : export all the device details
+     * corresponding to the query, in id order, one JSON document per line.
+     *
+     * @param query the query of the deviceDetails search.
+     * @param after the id of the last deviceDetails already exported, or none to start from the first hit.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the device details in body.
+     */
+    @GetMapping(value = "/_search/device-details", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSearchDeviceDetails(@RequestParam String query, @RequestParam(required = false) String after) {
+        log.debug("REST request to export DeviceDetails for query {} after {}", query, after);
+        return KeysetPaginationUtil.ndjson(() -> deviceDetailsSearchRepository.streamSearchAfter(queryStringQuery(query), after, DeviceDetailsDTO.class),
+            deviceDetailsMapper::toDto, objectMapper);
     }
 
 }
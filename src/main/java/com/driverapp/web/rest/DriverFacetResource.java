@@ -0,0 +1,49 @@
+package com.driverapp.web.rest;
+
+import com.driverapp.service.DriverFacetService;
+import com.driverapp.service.dto.DriverFacetCriteria;
+import com.driverapp.service.dto.DriverFacetsDTO;
+import com.driverapp.service.dto.DriverSummaryDTO;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for the faceted search of the {@link com.driverapp.domain.Driver}s.
+ */
+@RestController
+@RequestMapping("/api")
+public class DriverFacetResource {
+
+    private static final String ENTITY_NAME = "driver";
+
+    private final Logger log = LoggerFactory.getLogger(DriverFacetResource.class);
+
+    private final DriverFacetService driverFacetService;
+
+    public DriverFacetResource(DriverFacetService driverFacetService) {
+        this.driverFacetService = driverFacetService;
+    }
+
+    /**
+     * {@code SEARCH  /_search/drivers/facets?query=:query&status=:status&phoneType=:phoneType&serviceType=:serviceType&vehicleType=:vehicleType&heavyTransport=:heavyTransport}
+     * : search for a page of the drivers matching the filters, with the number of all the matching drivers by status,
+     * phone type, service type, vehicle type and heavy transport support.
+     *
+     * @param criteria the filters, all optional.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of drivers and the facets in body, with the total number of hits in the headers.
+     */
+    @GetMapping("/_search/drivers/facets")
+    public ResponseEntity<DriverFacetsDTO> searchDriverFacets(DriverFacetCriteria criteria, Pageable pageable) {
+        log.debug("REST request to search for a page of Drivers with facets for {}", criteria);
+        Page<DriverSummaryDTO> page = driverFacetService.search(criteria, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page))
+            .body(new DriverFacetsDTO(page.getContent(), driverFacetService.facets(criteria)));
+    }
+}
@@ -5,16 +5,39 @@ import com.driverapp.domain.Driver;
 import com.driverapp.domain.enumeration.Status;
 import com.driverapp.repository.DeviceDetailsRepository;
 import com.driverapp.repository.DriverRepository;
+import com.driverapp.repository.KeysetSlice;
 import com.driverapp.repository.search.DriverSearchRepository;
+import com.driverapp.service.DriverGraphLoader;
+import com.driverapp.service.LiveDriverLocationService;
+import com.driverapp.service.LocationHistoryService;
+import com.driverapp.service.NearbyDriverService;
+import com.driverapp.service.OneTimeCodeService;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.cache.EntityTagService;
+import com.driverapp.service.dto.DriverDTO;
+import com.driverapp.service.dto.DriverDistanceDTO;
+import com.driverapp.service.dto.DriverSummaryDTO;
+import com.driverapp.service.dto.NearbyDriverDTO;
+import com.driverapp.service.dto.TrackPointDTO;
+import com.driverapp.service.mapper.DriverMapper;
 import com.driverapp.web.rest.errors.BadRequestAlertException;
+import com.driverapp.web.rest.util.EntityTagUtil;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -22,8 +45,6 @@ import java.net.URISyntaxException;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -43,31 +64,63 @@ public class DriverResource {
 
     private final DriverRepository driverRepository;
 
+    private final DriverMapper driverMapper;
+
     private final DriverSearchRepository driverSearchRepository;
 
     private final DeviceDetailsRepository deviceDetailsRepository;
 
-    public DriverResource(DriverRepository driverRepository, DriverSearchRepository driverSearchRepository, DeviceDetailsRepository deviceDetailsRepository) {
+    private final NearbyDriverService nearbyDriverService;
+
+    private final LiveDriverLocationService liveDriverLocationService;
+
+    private final LocationHistoryService locationHistoryService;
+
+    private final DriverGraphLoader driverGraphLoader;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityTagService entityTagService;
+
+    private final OneTimeCodeService oneTimeCodeService;
+
+    public DriverResource(DriverRepository driverRepository, DriverMapper driverMapper, DriverSearchRepository driverSearchRepository, DeviceDetailsRepository deviceDetailsRepository,
+                          NearbyDriverService nearbyDriverService, LiveDriverLocationService liveDriverLocationService,
+                          LocationHistoryService locationHistoryService, DriverGraphLoader driverGraphLoader, ObjectMapper objectMapper, SearchResultCache searchResultCache,
+                          EntityTagService entityTagService, OneTimeCodeService oneTimeCodeService) {
         this.driverRepository = driverRepository;
+        this.driverMapper = driverMapper;
         this.driverSearchRepository = driverSearchRepository;
         this.deviceDetailsRepository = deviceDetailsRepository;
+        this.nearbyDriverService = nearbyDriverService;
+        this.liveDriverLocationService = liveDriverLocationService;
+        this.locationHistoryService = locationHistoryService;
+        this.driverGraphLoader = driverGraphLoader;
+        this.objectMapper = objectMapper;
+        this.searchResultCache = searchResultCache;
+        this.entityTagService = entityTagService;
+        this.oneTimeCodeService = oneTimeCodeService;
     }
 
     /**
      * {@code POST  /drivers} : Create a new driver.
      *
-     * @param driver the driver to create.
+     * @param driverDTO the driverDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new driver, or with status {@code 400 (Bad Request)} if the driver has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/drivers")
-    public ResponseEntity<Driver> createDriver(@Valid @RequestBody Driver driver) throws URISyntaxException {
-        log.debug("REST request to save Driver : {}", driver);
-        if (driver.getId() != null) {
+    public ResponseEntity<DriverDTO> createDriver(@Valid @RequestBody DriverDTO driverDTO) throws URISyntaxException {
+        log.debug("REST request to save Driver : {}", driverDTO);
+        if (driverDTO.getId() != null) {
             throw new BadRequestAlertException("A new driver cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Driver result = driverRepository.save(driver);
-        driverSearchRepository.save(result);
+        Driver driver = driverRepository.save(driverMapper.toEntity(driverDTO));
+        searchResultCache.invalidate(Driver.class);
+        liveDriverLocationService.onDriverSaved(driver);
+        DriverDTO result = driverMapper.toDto(driver);
         return ResponseEntity.created(new URI("/api/drivers/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -76,37 +129,31 @@ public class DriverResource {
     /**
      * {@code POST  /drivers-phonenumber-capture} : Create a new driver with PENDING and OTC Code Generated.
      *
-     * @param driver the Driver to create.
+     * @param driverDTO the Driver to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new nGUser, or with status {@code 400 (Bad Request)} if the nGUser has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/drivers-phonenumber-capture")
-    public ResponseEntity<Driver> createDriverWithPhoneNumber(@Valid @RequestBody Driver driver) throws URISyntaxException {
-        log.debug("REST request to save Driver : {}", driver);
-        if (driver.getId() != null) {
+    public ResponseEntity<DriverDTO> createDriverWithPhoneNumber(@Valid @RequestBody DriverDTO driverDTO) throws URISyntaxException {
+        log.debug("REST request to save Driver : {}", driverDTO);
+        if (driverDTO.getId() != null) {
             throw new BadRequestAlertException("A new driver cannot already have an ID", ENTITY_NAME, "idexists");
         }
-
-        Random rnd = new Random();
-        int oneTimeCode = 100000 + rnd.nextInt(900000);
-        log.debug("OTC --> "+oneTimeCode);
-        Calendar otcExpiration = Calendar.getInstance();
-        otcExpiration.add(Calendar.MINUTE, 30);
-
-        driver.setOneTimeCode(String.valueOf(oneTimeCode));
-        driver.setOneTimeExpirationTime(otcExpiration.toInstant());
-
+        Driver driver = driverMapper.toEntity(driverDTO);
         driver.setStatus(Status.INVITED);
 
-        Driver result = driverRepository.save(driver);
-        driverSearchRepository.save(result);
+        driver = driverRepository.save(driver);
+        searchResultCache.invalidate(Driver.class);
+        liveDriverLocationService.onDriverSaved(driver);
+        oneTimeCodeService.issueAndSend(driver.getId(), driver.getPhoneNumber());
+        DriverDTO result = driverMapper.toDto(driver);
         return ResponseEntity.created(new URI("/api/drivers-phonenumber-capture/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
     @PostMapping("/drivers-verify-token")
-    public ResponseEntity<Driver> createDriverVerifyToken(@Valid @RequestBody Map driverMap) throws URISyntaxException {
+    public ResponseEntity<DriverDTO> createDriverVerifyToken(@Valid @RequestBody Map driverMap) throws URISyntaxException {
         log.debug("REST request to save Driver : {}", driverMap);
 
         // Change this to session
@@ -114,42 +161,38 @@ public class DriverResource {
             throw new BadRequestAlertException("Request Needs to Have an ID", ENTITY_NAME, "idnotpresent");
         }
 
-        Driver driverFromRep = driverRepository.findUserById((String)driverMap.get("id"));
+        String driverId = (String) driverMap.get("id");
         // Check User Status
-        if(!Status.INVITED.equals(driverFromRep.getStatus()))
-        {
-            throw new BadRequestAlertException("User Already Confirmed",ENTITY_NAME,"alreadyConfirmed");
+        if (!driverRepository.existsByIdAndStatus(driverId, Status.INVITED)) {
+            throw new BadRequestAlertException("User Already Confirmed", ENTITY_NAME, "alreadyConfirmed");
             // Redirect to Dashboard
         }
-        // Compare OTC Code & TimeStamp
-
-        Instant currentTime = Instant.now();
-        if(currentTime.isAfter(driverFromRep.getOneTimeExpirationTime()))
-        {
-            throw new BadRequestAlertException("Code Expired. Please request for another code",ENTITY_NAME,"codeExpired");
+        // Compare OTC Code & TimeStamp, without reading or writing the driver
+        Object oneTimeCode = driverMap.get("oneTimeCode");
+        switch (oneTimeCodeService.verify(driverId, oneTimeCode instanceof String ? (String) oneTimeCode : null)) {
+            case EXPIRED:
+                throw new BadRequestAlertException("Code Expired. Please request for another code", ENTITY_NAME, "codeExpired");
+            case MISMATCH:
+                throw new BadRequestAlertException("Code Mismatch. Please reenter the code", ENTITY_NAME, "codeMisMatch");
+            default:
+                log.debug("Valid code, Driver authenticated : {}", driverId);
         }
 
-        if(null!=driverMap.get("oneTimeCode") && ((String)driverMap.get("oneTimeCode")).equalsIgnoreCase(driverFromRep.getOneTimeCode()))
-        {
-            System.out.println("Valid Code. Customer Authenticated");
-
-            DeviceDetails deviceDetails = new DeviceDetails();
-            deviceDetails.setDeviceId("testWindows");
-            DeviceDetails deviceDetailsFromRep = deviceDetailsRepository.save(deviceDetails);
-
-            Set<DeviceDetails> devices = new HashSet<>();
-            devices.add(deviceDetailsFromRep);
-
-            driverFromRep.setDevices(devices);
-
-            driverFromRep.setStatus(Status.CONFIRMED);
-        }
-        else
-        {
-            throw new BadRequestAlertException("Code Mismatch. Please reenter the code",ENTITY_NAME,"codeMisMatch");
-        }
-        Driver result = driverRepository.save(driverFromRep);
-        driverSearchRepository.save(result);
+        DeviceDetails deviceDetails = new DeviceDetails();
+        deviceDetails.setDeviceId("testWindows");
+        DeviceDetails deviceDetailsFromRep = deviceDetailsRepository.save(deviceDetails);
+        searchResultCache.invalidate(DeviceDetails.class);
+
+        Set<DeviceDetails> devices = new HashSet<>();
+        devices.add(deviceDetailsFromRep);
+
+        Driver driverFromRep = driverRepository.findUserById(driverId);
+        driverFromRep.setDevices(devices);
+        driverFromRep.setStatus(Status.CONFIRMED);
+        Driver driver = driverRepository.save(driverFromRep);
+        searchResultCache.invalidate(Driver.class);
+        liveDriverLocationService.onDriverSaved(driver);
+        DriverDTO result = driverMapper.toDto(driver);
         return ResponseEntity.created(new URI("/api/drivers-verify-token/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -159,48 +202,147 @@ public class DriverResource {
     /**
      * {@code PUT  /drivers} : Updates an existing driver.
      *
-     * @param driver the driver to update.
+     * @param driverDTO the driverDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated driver,
-     * or with status {@code 400 (Bad Request)} if the driver is not valid,
+     * or with status {@code 400 (Bad Request)} if the driver is not valid or does not exist,
      * or with status {@code 500 (Internal Server Error)} if the driver couldn't be updated.
+     * The stored password is kept when the driver has none.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/drivers")
-    public ResponseEntity<Driver> updateDriver(@Valid @RequestBody Driver driver) throws URISyntaxException {
-        log.debug("REST request to update Driver : {}", driver);
-        if (driver.getId() == null) {
+    public ResponseEntity<DriverDTO> updateDriver(@Valid @RequestBody DriverDTO driverDTO) throws URISyntaxException {
+        log.debug("REST request to update Driver : {}", driverDTO);
+        if (driverDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Driver result = driverRepository.save(driver);
-        driverSearchRepository.save(result);
+        Driver driver = driverRepository.findById(driverDTO.getId())
+            .orElseThrow(() -> new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnotfound"));
+        driverMapper.updateEntity(driverDTO, driver);
+        driver = driverRepository.save(driver);
+        searchResultCache.invalidate(Driver.class);
+        liveDriverLocationService.onDriverSaved(driver);
+        DriverDTO result = driverMapper.toDto(driver);
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, driver.getId().toString()))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, driverDTO.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /drivers} : get all the drivers.
+     * {@code GET  /drivers} : get a page of the drivers, in id order.
+     * <p>
+     * Only the fields of {@link DriverSummaryDTO} are read from the database: no secret, no reference.
      *
-
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drivers in body.
+     * @param after the id of the last driver of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drivers in body,
+     * with a {@code Link} header to the next page if there is one.
      */
     @GetMapping("/drivers")
-    public List<Driver> getAllDrivers() {
-        log.debug("REST request to get all Drivers");
-        return driverRepository.findAll();
+    public ResponseEntity<List<DriverSummaryDTO>> getAllDrivers(@RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get a page of Drivers after {}", after);
+        int pageSize = KeysetPaginationUtil.pageSize(size);
+        KeysetSlice<Driver> slice = driverRepository.findAllAfter(after, pageSize, DriverSummaryDTO.class);
+        return ResponseEntity.ok().headers(KeysetPaginationUtil.generatePaginationHttpHeaders(slice, pageSize))
+            .body(slice.map(driverMapper::toSummaryDto).getContent());
+    }
+
+    /**
+     * {@code GET  /drivers} with {@code Accept: application/x-ndjson} : stream all the drivers, in id order,
+     * one JSON document per line.
+     *
+     * @param after the id of the last driver already read, or none to start from the first one.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the drivers in body.
+     */
+    @GetMapping(value = "/drivers", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllDrivers(@RequestParam(required = false) String after) {
+        log.debug("REST request to stream all Drivers after {}", after);
+        return KeysetPaginationUtil.ndjson(() -> driverRepository.streamAllAfter(after, DriverSummaryDTO.class),
+            driverMapper::toSummaryDto, objectMapper);
+    }
+
+    /**
+     * {@code GET  /drivers/nearby?lat=:lat&lon=:lon&radius=:radius&limit=:limit} : get the drivers closest to a point.
+     *
+     * @param lat the latitude of the point, in decimal degrees.
+     * @param lon the longitude of the point, in decimal degrees.
+     * @param radius the maximum distance to the point, in kilometers.
+     * @param limit the maximum number of drivers to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drivers with their distance in body, closest first.
+     */
+    @GetMapping("/drivers/nearby")
+    public List<NearbyDriverDTO> getNearbyDrivers(@RequestParam double lat, @RequestParam double lon,
+                                                  @RequestParam(defaultValue = "5") double radius,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        log.debug("REST request to get Drivers near {},{}", lat, lon);
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new BadRequestAlertException("Invalid coordinates", ENTITY_NAME, "invalidcoordinates");
+        }
+        if (radius <= 0) {
+            throw new BadRequestAlertException("Invalid radius", ENTITY_NAME, "invalidradius");
+        }
+        return nearbyDriverService.findNearbyDrivers(lat, lon, radius, limit);
+    }
+
+    /**
+     * {@code GET  /drivers/nearest?lat=:lat&lon=:lon&k=:k&radius=:radius} : get the confirmed drivers closest to a point,
+     * from their live positions held in memory.
+     *
+     * @param lat the latitude of the point, in decimal degrees.
+     * @param lon the longitude of the point, in decimal degrees.
+     * @param k the maximum number of drivers to return.
+     * @param radius the maximum distance to the point, in kilometers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of driver ids with their distance in body, closest first.
+     */
+    @GetMapping("/drivers/nearest")
+    public List<DriverDistanceDTO> getNearestDrivers(@RequestParam double lat, @RequestParam double lon,
+                                                     @RequestParam(defaultValue = "10") int k,
+                                                     @RequestParam(defaultValue = "5") double radius) {
+        log.debug("REST request to get the {} nearest Drivers to {},{}", k, lat, lon);
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new BadRequestAlertException("Invalid coordinates", ENTITY_NAME, "invalidcoordinates");
+        }
+        return liveDriverLocationService.findNearestDrivers(lat, lon, k, radius);
     }
 
     /**
      * {@code GET  /drivers/:id} : get the "id" driver.
      *
      * @param id the id of the driver to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the driver, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the driver and an {@code ETag} header,
+     * or with status {@code 304 (Not Modified)} if the {@code If-None-Match} header matches, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/drivers/{id}")
-    public ResponseEntity<Driver> getDriver(@PathVariable String id) {
+    public ResponseEntity<DriverDTO> getDriver(@PathVariable String id, WebRequest request) {
         log.debug("REST request to get Driver : {}", id);
-        Optional<Driver> driver = driverRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(driver);
+        Optional<Driver> driver = driverGraphLoader.findDriverById(id);
+        if (!driver.isPresent()) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        // The tag is computed once per cached entity: a matching request is answered before the DTO is mapped
+        String tag = entityTagService.getEntityTag(driver.get(), driverMapper::toDto);
+        if (EntityTagUtil.isNotModified(request, tag)) {
+            return EntityTagUtil.notModified(tag);
+        }
+        return ResponseEntity.ok().eTag(tag).body(driverMapper.toDto(driver.get()));
+    }
+
+    /**
+     * {@code GET  /drivers/:id/track?from=:from&to=:to} : get the recorded positions of the "id" driver.
+     *
+     * @param id the id of the driver.
+     * @param from the start of the time range, inclusive.
+     * @param to the end of the time range, inclusive.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of positions in body, oldest first,
+     * or with status {@code 400 (Bad Request)} if the time range is not valid.
+     */
+    @GetMapping("/drivers/{id}/track")
+    public List<TrackPointDTO> getDriverTrack(@PathVariable String id, @RequestParam Instant from, @RequestParam Instant to) {
+        log.debug("REST request to get the track of Driver {} from {} to {}", id, from, to);
+        if (from.isAfter(to)) {
+            throw new BadRequestAlertException("Invalid time range", ENTITY_NAME, "invalidrange");
+        }
+        return locationHistoryService.getTrack(id, from, to);
     }
 
     /**
@@ -213,23 +355,40 @@ public class DriverResource {
     public ResponseEntity<Void> deleteDriver(@PathVariable String id) {
         log.debug("REST request to delete Driver : {}", id);
         driverRepository.deleteById(id);
-        driverSearchRepository.deleteById(id);
+        searchResultCache.invalidate(Driver.class);
+        liveDriverLocationService.onDriverDeleted(id);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
 
     /**
-     * {@code SEARCH  /_search/drivers?query=:query} : search for the driver corresponding
+     * {@code SEARCH  /_search/drivers?query=:query} : search for a page of the drivers corresponding
      * to the query.
      *
      * @param query the query of the driver search.
-     * @return the result of the search.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of drivers in body, with the total number of hits in the headers.
      */
     @GetMapping("/_search/drivers")
-    public List<Driver> searchDrivers(@RequestParam String query) {
-        log.debug("REST request to search Drivers for query {}", query);
-        return StreamSupport
-            .stream(driverSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+    public ResponseEntity<List<DriverSummaryDTO>> searchDrivers(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Drivers for query {}", query);
+        Page<DriverSummaryDTO> page = searchResultCache.get(Driver.class, query, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME),
+            () -> driverSearchRepository.search(queryStringQuery(query), pageable, DriverSummaryDTO.class).map(driverMapper::toSummaryDto));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page)).body(page.getContent());
+    }
+
+    /**
+     * {@code SEARCH  /_search/drivers?query=:query} with {@code Accept: application/x-ndjson} : export all the drivers
+     * corresponding to the query, in id order, one JSON document per line.
+     *
+     * @param query the query of the driver search.
+     * @param after the id of the last driver already exported, or none to start from the first hit.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the drivers in body.
+     */
+    @GetMapping(value = "/_search/drivers", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSearchDrivers(@RequestParam String query, @RequestParam(required = false) String after) {
+        log.debug("REST request to export Drivers for query {} after {}", query, after);
+        return KeysetPaginationUtil.ndjson(() -> driverSearchRepository.streamSearchAfter(queryStringQuery(query), after, DriverSummaryDTO.class),
+            driverMapper::toSummaryDto, objectMapper);
     }
 
 }
@@ -2,16 +2,26 @@ package com.driverapp.web.rest;
 
 import com.driverapp.domain.Insurance;
 import com.driverapp.repository.InsuranceRepository;
+import com.driverapp.repository.KeysetSlice;
 import com.driverapp.repository.search.InsuranceSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.InsuranceDTO;
+import com.driverapp.service.mapper.InsuranceMapper;
 import com.driverapp.web.rest.errors.BadRequestAlertException;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -19,8 +29,6 @@ import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -42,26 +50,37 @@ public class InsuranceResource {
 
     private final InsuranceSearchRepository insuranceSearchRepository;
 
-    public InsuranceResource(InsuranceRepository insuranceRepository, InsuranceSearchRepository insuranceSearchRepository) {
+    private final InsuranceMapper insuranceMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    public InsuranceResource(InsuranceRepository insuranceRepository, InsuranceMapper insuranceMapper, InsuranceSearchRepository insuranceSearchRepository, ObjectMapper objectMapper, SearchResultCache searchResultCache) {
         this.insuranceRepository = insuranceRepository;
+        this.insuranceMapper = insuranceMapper;
         this.insuranceSearchRepository = insuranceSearchRepository;
+        this.objectMapper = objectMapper;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
      * {@code POST  /insurances} : Create a new insurance.
      *
-     * @param insurance the insurance to create.
+     * @param insuranceDTO the insuranceDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new insurance, or with status {@code 400 (Bad Request)} if the insurance has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/insurances")
-    public ResponseEntity<Insurance> createInsurance(@Valid @RequestBody Insurance insurance) throws URISyntaxException {
-        log.debug("REST request to save Insurance : {}", insurance);
-        if (insurance.getId() != null) {
+    public ResponseEntity<InsuranceDTO> createInsurance(@Valid @RequestBody InsuranceDTO insuranceDTO) throws URISyntaxException {
+        log.debug("REST request to save Insurance : {}", insuranceDTO);
+        if (insuranceDTO.getId() != null) {
             throw new BadRequestAlertException("A new insurance cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Insurance result = insuranceRepository.save(insurance);
-        insuranceSearchRepository.save(result);
+        Insurance insurance = insuranceMapper.toEntity(insuranceDTO);
+        insurance = insuranceRepository.save(insurance);
+        searchResultCache.invalidate(Insurance.class);
+        InsuranceDTO result = insuranceMapper.toDto(insurance);
         return ResponseEntity.created(new URI("/api/insurances/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -70,35 +89,56 @@ public class InsuranceResource {
     /**
      * {@code PUT  /insurances} : Updates an existing insurance.
      *
-     * @param insurance the insurance to update.
+     * @param insuranceDTO the insuranceDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated insurance,
      * or with status {@code 400 (Bad Request)} if the insurance is not valid,
      * or with status {@code 500 (Internal Server Error)} if the insurance couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/insurances")
-    public ResponseEntity<Insurance> updateInsurance(@Valid @RequestBody Insurance insurance) throws URISyntaxException {
-        log.debug("REST request to update Insurance : {}", insurance);
-        if (insurance.getId() == null) {
+    public ResponseEntity<InsuranceDTO> updateInsurance(@Valid @RequestBody InsuranceDTO insuranceDTO) throws URISyntaxException {
+        log.debug("REST request to update Insurance : {}", insuranceDTO);
+        if (insuranceDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Insurance result = insuranceRepository.save(insurance);
-        insuranceSearchRepository.save(result);
+        Insurance insurance = insuranceMapper.toEntity(insuranceDTO);
+        insurance = insuranceRepository.save(insurance);
+        searchResultCache.invalidate(Insurance.class);
+        InsuranceDTO result = insuranceMapper.toDto(insurance);
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, insurance.getId().toString()))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, insuranceDTO.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /insurances} : get all the insurances.
+     * {@code GET  /insurances} : get a page of the insurances, in id order.
      *
-
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of insurances in body.
+     * @param after the id of the last insurance of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of insurances in body,
+     * with a {@code Link} header to the next page if there is one.
      */
     @GetMapping("/insurances")
-    public List<Insurance> getAllInsurances() {
-        log.debug("REST request to get all Insurances");
-        return insuranceRepository.findAll();
+    public ResponseEntity<List<InsuranceDTO>> getAllInsurances(@RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get a page of Insurances after {}", after);
+        int pageSize = KeysetPaginationUtil.pageSize(size);
+        KeysetSlice<Insurance> slice = insuranceRepository.findAllAfter(after, pageSize);
+        return ResponseEntity.ok().headers(KeysetPaginationUtil.generatePaginationHttpHeaders(slice, pageSize))
+            .body(slice.map(insuranceMapper::toDto).getContent());
+    }
+
+    /**
+     * {@code GET  /insurances} with {@code Accept: application/x-ndjson} : stream all the insurances, in id order,
+     * one JSON document per line.
+     *
+     * @param after the id of the last insurance already read, or none to start from the first one.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the insurances in body.
+     */
+    @GetMapping(value = "/insurances", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllInsurances(@RequestParam(required = false) String after) {
+        log.debug("REST request to stream all Insurances after {}", after);
+        return KeysetPaginationUtil.ndjson(() -> insuranceRepository.streamAllAfter(after), insuranceMapper::toDto, objectMapper);
     }
 
     /**
@@ -108,10 +148,10 @@ public class InsuranceResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the insurance, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/insurances/{id}")
-    public ResponseEntity<Insurance> getInsurance(@PathVariable String id) {
+    public ResponseEntity<InsuranceDTO> getInsurance(@PathVariable String id) {
         log.debug("REST request to get Insurance : {}", id);
-        Optional<Insurance> insurance = insuranceRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(insurance);
+        Optional<InsuranceDTO> insuranceDTO = insuranceRepository.findById(id).map(insuranceMapper::toDto);
+        return ResponseUtil.wrapOrNotFound(insuranceDTO);
     }
 
     /**
@@ -124,23 +164,39 @@ public class InsuranceResource {
     public ResponseEntity<Void> deleteInsurance(@PathVariable String id) {
         log.debug("REST request to delete Insurance : {}", id);
         insuranceRepository.deleteById(id);
-        insuranceSearchRepository.deleteById(id);
+        searchResultCache.invalidate(Insurance.class);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
 
     /**
-     * {@code SEARCH  /_search/insurances?query=:query} : search for the insurance corresponding
+     * {@code SEARCH  /_search/insurances?query=:query} : search for a page of the insurances corresponding
      * to the query.
      *
      * @param query the query of the insurance search.
-     * @return the result of the search.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of insurances in body, with the total number of hits in the headers.
      */
     @GetMapping("/_search/insurances")
-    public List<Insurance> searchInsurances(@RequestParam String query) {
-        log.debug("REST request to search Insurances for query {}", query);
-        return StreamSupport
-            .stream(insuranceSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+    public ResponseEntity<List<InsuranceDTO>> searchInsurances(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Insurances for query {}", query);
+        Page<InsuranceDTO> page = searchResultCache.get(Insurance.class, query, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME),
+            () -> insuranceSearchRepository.search(queryStringQuery(query), pageable, InsuranceDTO.class).map(insuranceMapper::toDto));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page)).body(page.getContent());
+    }
+
+    /**
+     * {@code SEARCH  /_search/insurances?query=:query} with {@code Accept: application/x-ndjson} : export all the insurances
+     * corresponding to the query, in id order, one JSON document per line.
+     *
+     * @param query the query of the insurance search.
+     * @param after the id of the last insurance already exported, or none to start from the first hit.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the insurances in body.
+     */
+    @GetMapping(value = "/_search/insurances", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSearchInsurances(@RequestParam String query, @RequestParam(required = false) String after) {
+        log.debug("REST request to export Insurances for query {} after {}", query, after);
+        return KeysetPaginationUtil.ndjson(() -> insuranceSearchRepository.streamSearchAfter(queryStringQuery(query), after, InsuranceDTO.class),
+            insuranceMapper::toDto, objectMapper);
     }
 
 }
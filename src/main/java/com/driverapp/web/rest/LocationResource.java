@@ -2,16 +2,31 @@ package com.driverapp.web.rest;
 
 import com.driverapp.domain.Location;
 import com.driverapp.repository.LocationRepository;
+import com.driverapp.repository.KeysetSlice;
 import com.driverapp.repository.search.LocationSearchRepository;
+import com.driverapp.service.LiveDriverLocationService;
+import com.driverapp.service.LocationPingService;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.LocationDTO;
+import com.driverapp.service.dto.LocationPingDTO;
+import com.driverapp.service.mapper.LocationMapper;
 import com.driverapp.web.rest.errors.BadRequestAlertException;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -19,8 +34,6 @@ import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -40,28 +53,47 @@ public class LocationResource {
 
     private final LocationRepository locationRepository;
 
+    private final LocationMapper locationMapper;
+
     private final LocationSearchRepository locationSearchRepository;
 
-    public LocationResource(LocationRepository locationRepository, LocationSearchRepository locationSearchRepository) {
+    private final LiveDriverLocationService liveDriverLocationService;
+
+    private final LocationPingService locationPingService;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    public LocationResource(LocationRepository locationRepository, LocationMapper locationMapper, LocationSearchRepository locationSearchRepository,
+                            LiveDriverLocationService liveDriverLocationService, LocationPingService locationPingService, ObjectMapper objectMapper, SearchResultCache searchResultCache) {
         this.locationRepository = locationRepository;
+        this.locationMapper = locationMapper;
         this.locationSearchRepository = locationSearchRepository;
+        this.liveDriverLocationService = liveDriverLocationService;
+        this.locationPingService = locationPingService;
+        this.objectMapper = objectMapper;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
      * {@code POST  /locations} : Create a new location.
      *
-     * @param location the location to create.
+     * @param locationDTO the locationDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new location, or with status {@code 400 (Bad Request)} if the location has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/locations")
-    public ResponseEntity<Location> createLocation(@Valid @RequestBody Location location) throws URISyntaxException {
-        log.debug("REST request to save Location : {}", location);
-        if (location.getId() != null) {
+    public ResponseEntity<LocationDTO> createLocation(@Valid @RequestBody LocationDTO locationDTO) throws URISyntaxException {
+        log.debug("REST request to save Location : {}", locationDTO);
+        if (locationDTO.getId() != null) {
             throw new BadRequestAlertException("A new location cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Location result = locationRepository.save(location);
-        locationSearchRepository.save(result);
+        Location location = locationMapper.toEntity(locationDTO);
+        location = locationRepository.save(location);
+        searchResultCache.invalidate(Location.class);
+        liveDriverLocationService.onLocationSaved(location);
+        LocationDTO result = locationMapper.toDto(location);
         return ResponseEntity.created(new URI("/api/locations/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -70,35 +102,82 @@ public class LocationResource {
     /**
      * {@code PUT  /locations} : Updates an existing location.
      *
-     * @param location the location to update.
+     * @param locationDTO the locationDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated location,
      * or with status {@code 400 (Bad Request)} if the location is not valid,
      * or with status {@code 500 (Internal Server Error)} if the location couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/locations")
-    public ResponseEntity<Location> updateLocation(@Valid @RequestBody Location location) throws URISyntaxException {
-        log.debug("REST request to update Location : {}", location);
-        if (location.getId() == null) {
+    public ResponseEntity<LocationDTO> updateLocation(@Valid @RequestBody LocationDTO locationDTO) throws URISyntaxException {
+        log.debug("REST request to update Location : {}", locationDTO);
+        if (locationDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Location result = locationRepository.save(location);
-        locationSearchRepository.save(result);
+        Location location = locationMapper.toEntity(locationDTO);
+        location = locationRepository.save(location);
+        searchResultCache.invalidate(Location.class);
+        liveDriverLocationService.onLocationSaved(location);
+        LocationDTO result = locationMapper.toDto(location);
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, location.getId().toString()))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, locationDTO.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /locations} : get all the locations.
+     * {@code POST  /locations/_pings} : Queue positions reported by drivers' devices.
+     * <p>
+     * Pings are written asynchronously, in bulk, and only the latest ping of each driver is kept.
      *
+     * @param pings the pings to queue.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}, with status {@code 400 (Bad Request)} if a ping is not valid,
+     * or with status {@code 503 (Service Unavailable)} if the buffer is full and some pings were dropped.
+     */
+    @PostMapping("/locations/_pings")
+    public ResponseEntity<Void> submitLocationPings(@RequestBody List<LocationPingDTO> pings) {
+        log.debug("REST request to queue {} Location pings", pings.size());
+        for (LocationPingDTO ping : pings) {
+            if (ping.getDriverId() == null || ping.getLatitude() == null || ping.getLongitude() == null ||
+                Math.abs(ping.getLatitude()) > 90 || Math.abs(ping.getLongitude()) > 180) {
+                throw new BadRequestAlertException("Invalid ping", ENTITY_NAME, "invalidping");
+            }
+        }
+        int accepted = locationPingService.submit(pings);
+        if (accepted < pings.size()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.accepted().build();
+    }
 
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of locations in body.
+    /**
+     * {@code GET  /locations} : get a page of the locations, in id order.
+     *
+     * @param after the id of the last location of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of locations in body,
+     * with a {@code Link} header to the next page if there is one.
      */
     @GetMapping("/locations")
-    public List<Location> getAllLocations() {
-        log.debug("REST request to get all Locations");
-        return locationRepository.findAll();
+    public ResponseEntity<List<LocationDTO>> getAllLocations(@RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get a page of Locations after {}", after);
+        int pageSize = KeysetPaginationUtil.pageSize(size);
+        KeysetSlice<Location> slice = locationRepository.findAllAfter(after, pageSize);
+        return ResponseEntity.ok().headers(KeysetPaginationUtil.generatePaginationHttpHeaders(slice, pageSize))
+            .body(slice.map(locationMapper::toDto).getContent());
+    }
+
+    /**
+     * {@code GET  /locations} with {@code Accept: application/x-ndjson} : stream all the locations, in id order,
+     * one JSON document per line.
+     *
+     * @param after the id of the last location already read, or none to start from the first one.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the locations in body.
+     */
+    @GetMapping(value = "/locations", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllLocations(@RequestParam(required = false) String after) {
+        log.debug("REST request to stream all Locations after {}", after);
+        return KeysetPaginationUtil.ndjson(() -> locationRepository.streamAllAfter(after), locationMapper::toDto, objectMapper);
     }
 
     /**
@@ -108,10 +187,10 @@ public class LocationResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the location, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/locations/{id}")
-    public ResponseEntity<Location> getLocation(@PathVariable String id) {
+    public ResponseEntity<LocationDTO> getLocation(@PathVariable String id) {
         log.debug("REST request to get Location : {}", id);
-        Optional<Location> location = locationRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(location);
+        Optional<LocationDTO> locationDTO = locationRepository.findById(id).map(locationMapper::toDto);
+        return ResponseUtil.wrapOrNotFound(locationDTO);
     }
 
     /**
@@ -124,23 +203,40 @@ public class LocationResource {
     public ResponseEntity<Void> deleteLocation(@PathVariable String id) {
         log.debug("REST request to delete Location : {}", id);
         locationRepository.deleteById(id);
-        locationSearchRepository.deleteById(id);
+        searchResultCache.invalidate(Location.class);
+        liveDriverLocationService.onLocationDeleted(id);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
 
     /**
-     * {@code SEARCH  /_search/locations?query=:query} : search for the location corresponding
+     * {@code SEARCH  /_search/locations?query=:query} : search for a page of the locations corresponding
      * to the query.
      *
      * @param query the query of the location search.
-     * @return the result of the search.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of locations in body, with the total number of hits in the headers.
      */
     @GetMapping("/_search/locations")
-    public List<Location> searchLocations(@RequestParam String query) {
-        log.debug("REST request to search Locations for query {}", query);
-        return StreamSupport
-            .stream(locationSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+    public ResponseEntity<List<LocationDTO>> searchLocations(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Locations for query {}", query);
+        Page<LocationDTO> page = searchResultCache.get(Location.class, query, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME),
+            () -> locationSearchRepository.search(queryStringQuery(query), pageable, LocationDTO.class).map(locationMapper::toDto));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page)).body(page.getContent());
+    }
+
+    /**
+     * {@code SEARCH  /_search/locations?query=:query} with {@code Accept: application/x-ndjson} : export all the locations
+     * corresponding to the query, in id order, one JSON document per line.
+     *
+     * @param query the query of the location search.
+     * @param after the id of the last location already exported, or none to start from the first hit.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the locations in body.
+     */
+    @GetMapping(value = "/_search/locations", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSearchLocations(@RequestParam String query, @RequestParam(required = false) String after) {
+        log.debug("REST request to export Locations for query {} after {}", query, after);
+        return KeysetPaginationUtil.ndjson(() -> locationSearchRepository.streamSearchAfter(queryStringQuery(query), after, LocationDTO.class),
+            locationMapper::toDto, objectMapper);
     }
 
 }
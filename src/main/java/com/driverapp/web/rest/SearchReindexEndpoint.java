@@ -0,0 +1,56 @@
+package com.driverapp.web.rest;
+
+import com.driverapp.config.Constants;
+import com.driverapp.service.SearchReindexService;
+import com.driverapp.service.dto.SearchReindexJobDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Management endpoint rebuilding the search indices.
+ * <p>
+ * {@code GET /management/reindex} reports the progress and throughput of the current and last rebuilds,
+ * {@code POST /management/reindex} with {@code {"entity": "driver"}} rebuilds one index, or all of them without entity.
+ */
+@Component
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+@Endpoint(id = "reindex")
+public class SearchReindexEndpoint {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexEndpoint.class);
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexEndpoint(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    @ReadOperation
+    public List<SearchReindexJobDTO> jobs() {
+        return searchReindexService.getJobs();
+    }
+
+    @WriteOperation
+    public List<SearchReindexJobDTO> reindex(@Nullable String entity) {
+        log.info("Request to rebuild the search index of {}", entity == null ? "all entities" : entity);
+        if (entity == null) {
+            return searchReindexService.startAll();
+        }
+        try {
+            return Collections.singletonList(searchReindexService.start(entity));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
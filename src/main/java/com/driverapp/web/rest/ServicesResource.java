@@ -2,24 +2,36 @@ package com.driverapp.web.rest;
 
 import com.driverapp.domain.Services;
 import com.driverapp.repository.ServicesRepository;
+import com.driverapp.repository.KeysetSlice;
 import com.driverapp.repository.search.ServicesSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.cache.EntityTagService;
+import com.driverapp.service.dto.ServicesDTO;
+import com.driverapp.service.mapper.ServicesMapper;
 import com.driverapp.web.rest.errors.BadRequestAlertException;
+import com.driverapp.web.rest.util.EntityTagUtil;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -41,26 +53,40 @@ public class ServicesResource {
 
     private final ServicesSearchRepository servicesSearchRepository;
 
-    public ServicesResource(ServicesRepository servicesRepository, ServicesSearchRepository servicesSearchRepository) {
+    private final ServicesMapper servicesMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityTagService entityTagService;
+
+    public ServicesResource(ServicesRepository servicesRepository, ServicesMapper servicesMapper, ServicesSearchRepository servicesSearchRepository, ObjectMapper objectMapper, SearchResultCache searchResultCache, EntityTagService entityTagService) {
         this.servicesRepository = servicesRepository;
+        this.servicesMapper = servicesMapper;
         this.servicesSearchRepository = servicesSearchRepository;
+        this.objectMapper = objectMapper;
+        this.searchResultCache = searchResultCache;
+        this.entityTagService = entityTagService;
     }
 
     /**
      * {@code POST  /services} : Create a new services.
      *
-     * @param services the services to create.
+     * @param servicesDTO the servicesDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new services, or with status {@code 400 (Bad Request)} if the services has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/services")
     public ResponseEntity<Services> createServices(@RequestBody Services services) throws URISyntaxException {
-        log.debug("REST request to save Services : {}", services);
-        if (services.getId() != null) {
+        log.debug("REST request to save Services : {}", servicesDTO);
+        if (servicesDTO.getId() != null) {
             throw new BadRequestAlertException("A new services cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Services result = servicesRepository.save(services);
-        servicesSearchRepository.save(result);
+        Services services = servicesMapper.toEntity(servicesDTO);
+        services = servicesRepository.save(services);
+        searchResultCache.invalidate(Services.class);
+        ServicesDTO result = servicesMapper.toDto(services);
         return ResponseEntity.created(new URI("/api/services/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -69,7 +95,7 @@ public class ServicesResource {
     /**
      * {@code PUT  /services} : Updates an existing services.
      *
-     * @param services the services to update.
+     * @param servicesDTO the servicesDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated services,
      * or with status {@code 400 (Bad Request)} if the services is not valid,
      * or with status {@code 500 (Internal Server Error)} if the services couldn't be updated.
@@ -77,40 +103,81 @@ public class ServicesResource {
      */
     @PutMapping("/services")
     public ResponseEntity<Services> updateServices(@RequestBody Services services) throws URISyntaxException {
-        log.debug("REST request to update Services : {}", services);
-        if (services.getId() == null) {
+        log.debug("REST request to update Services : {}", servicesDTO);
+        if (servicesDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Services result = servicesRepository.save(services);
-        servicesSearchRepository.save(result);
+        Services services = servicesMapper.toEntity(servicesDTO);
+        services = servicesRepository.save(services);
+        searchResultCache.invalidate(Services.class);
+        ServicesDTO result = servicesMapper.toDto(services);
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, services.getId().toString()))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, servicesDTO.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /services} : get all the services.
+     * {@code GET  /services} : get a page of the services, in id order.
      *
-
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of services in body.
+     * @param after the id of the last services of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @param request the request, answered with status {@code 304 (Not Modified)} if its {@code If-None-Match} header
+     * matches the tag of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of services in body,
+     * with a {@code Link} header to the next page if there is one and an {@code ETag} header.
      */
     @GetMapping("/services")
-    public List<Services> getAllServices() {
-        log.debug("REST request to get all Services");
-        return servicesRepository.findAll();
+    public ResponseEntity<List<ServicesDTO>> getAllServices(@RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+                                                 WebRequest request) {
+        log.debug("REST request to get a page of Services after {}", after);
+        int pageSize = KeysetPaginationUtil.pageSize(size);
+        String page = after + "/" + pageSize;
+        String tag = entityTagService.getPageTag(ServicesRepository.SERVICES_BY_ID_CACHE, page);
+        if (tag != null && EntityTagUtil.isNotModified(request, tag)) {
+            return EntityTagUtil.notModified(tag);
+        }
+        long generation = entityTagService.getGeneration(ServicesRepository.SERVICES_BY_ID_CACHE);
+        KeysetSlice<Services> slice = servicesRepository.findAllAfter(after, pageSize);
+        List<ServicesDTO> services = slice.map(servicesMapper::toDto).getContent();
+        return ResponseEntity.ok().headers(KeysetPaginationUtil.generatePaginationHttpHeaders(slice, pageSize))
+            .eTag(entityTagService.putPageTag(ServicesRepository.SERVICES_BY_ID_CACHE, generation, page, services))
+            .body(services);
+    }
+
+    /**
+     * {@code GET  /services} with {@code Accept: application/x-ndjson} : stream all the services, in id order,
+     * one JSON document per line.
+     *
+     * @param after the id of the last services already read, or none to start from the first one.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the services in body.
+     */
+    @GetMapping(value = "/services", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllServices(@RequestParam(required = false) String after) {
+        log.debug("REST request to stream all Services after {}", after);
+        return KeysetPaginationUtil.ndjson(() -> servicesRepository.streamAllAfter(after), servicesMapper::toDto, objectMapper);
     }
 
     /**
      * {@code GET  /services/:id} : get the "id" services.
      *
      * @param id the id of the services to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the services, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the services and an {@code ETag} header,
+     * or with status {@code 304 (Not Modified)} if the {@code If-None-Match} header matches, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/services/{id}")
-    public ResponseEntity<Services> getServices(@PathVariable String id) {
+    public ResponseEntity<ServicesDTO> getServices(@PathVariable String id, WebRequest request) {
         log.debug("REST request to get Services : {}", id);
         Optional<Services> services = servicesRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(services);
+        if (!services.isPresent()) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
+        // The tag is computed once per cached entity: a matching request is answered before the DTO is mapped
+        String tag = entityTagService.getEntityTag(services.get(), servicesMapper::toDto);
+        if (EntityTagUtil.isNotModified(request, tag)) {
+            return EntityTagUtil.notModified(tag);
+        }
+        return ResponseEntity.ok().eTag(tag).body(servicesMapper.toDto(services.get()));
     }
 
     /**
@@ -123,23 +190,39 @@ public class ServicesResource {
     public ResponseEntity<Void> deleteServices(@PathVariable String id) {
         log.debug("REST request to delete Services : {}", id);
         servicesRepository.deleteById(id);
-        servicesSearchRepository.deleteById(id);
+        searchResultCache.invalidate(Services.class);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
 
     /**
-     * {@code SEARCH  /_search/services?query=:query} : search for the services corresponding
+     * {@code SEARCH  /_search/services?query=:query} : search for a page of the services corresponding
      * to the query.
      *
      * @param query the query of the services search.
-     * @return the result of the search.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of services in body, with the total number of hits in the headers.
      */
     @GetMapping("/_search/services")
-    public List<Services> searchServices(@RequestParam String query) {
-        log.debug("REST request to search Services for query {}", query);
-        return StreamSupport
-            .stream(servicesSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+    public ResponseEntity<List<ServicesDTO>> searchServices(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Services for query {}", query);
+        Page<ServicesDTO> page = searchResultCache.get(Services.class, query, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME),
+            () -> servicesSearchRepository.search(queryStringQuery(query), pageable, ServicesDTO.class).map(servicesMapper::toDto));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page)).body(page.getContent());
+    }
+
+    /**
+     * {@code SEARCH  /_search/services?query=:query} with {@code Accept: application/x-ndjson} : export all the services
+     * corresponding to the query, in id order, one JSON document per line.
+     *
+     * @param query the query of the services search.
+     * @param after the id of the last services already exported, or none to start from the first hit.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the services in body.
+     */
+    @GetMapping(value = "/_search/services", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSearchServices(@RequestParam String query, @RequestParam(required = false) String after) {
+        log.debug("REST request to export Services for query {} after {}", query, after);
+        return KeysetPaginationUtil.ndjson(() -> servicesSearchRepository.streamSearchAfter(queryStringQuery(query), after, ServicesDTO.class),
+            servicesMapper::toDto, objectMapper);
     }
 
 }
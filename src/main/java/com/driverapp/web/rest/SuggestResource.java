@@ -0,0 +1,43 @@
+package com.driverapp.web.rest;
+
+import com.driverapp.service.SuggestService;
+
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for the typeahead suggestions of the search boxes.
+ */
+@RestController
+@RequestMapping("/api")
+public class SuggestResource {
+
+    private final Logger log = LoggerFactory.getLogger(SuggestResource.class);
+
+    private final SuggestService suggestService;
+
+    public SuggestResource(SuggestService suggestService) {
+        this.suggestService = suggestService;
+    }
+
+    /**
+     * {@code GET  /_suggest/:entity?prefix=:prefix} : suggest the businesses, locations or drivers whose names or
+     * addresses start with the typed prefix.
+     *
+     * @param entity the suggested entity: {@code businesses}, {@code locations} or {@code drivers}.
+     * @param prefix the typed text.
+     * @param size the maximum number of suggestions.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the suggestions in body, or with status {@code 404 (Not Found)} if the entity has no suggestions.
+     */
+    @GetMapping("/_suggest/{entity}")
+    public ResponseEntity<List<?>> suggest(@PathVariable String entity, @RequestParam String prefix,
+                                           @RequestParam(defaultValue = "10") int size) {
+        log.debug("REST request to suggest {} for prefix {}", entity, prefix);
+        return ResponseUtil.wrapOrNotFound(suggestService.suggest(entity, prefix, size));
+    }
+}
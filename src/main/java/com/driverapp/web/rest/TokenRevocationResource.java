@@ -0,0 +1,81 @@
+package com.driverapp.web.rest;
+
+import com.driverapp.security.AuthoritiesConstants;
+import com.driverapp.security.SecurityUtils;
+import com.driverapp.security.jwt.TokenProvider;
+import com.driverapp.service.TokenRevocationService;
+import com.driverapp.web.rest.errors.BadRequestAlertException;
+
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller revoking JWTs before they expire, such as on logout or when an account is compromised.
+ */
+@RestController
+@RequestMapping("/api")
+public class TokenRevocationResource {
+
+    private static final String ENTITY_NAME = "token";
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationResource.class);
+
+    private final TokenProvider tokenProvider;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public TokenRevocationResource(TokenProvider tokenProvider, TokenRevocationService tokenRevocationService) {
+        this.tokenProvider = tokenProvider;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    /**
+     * {@code POST  /account/revoke-token} : revoke the token of the current request.
+     *
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the request was not authenticated by a token with an id.
+     */
+    @PostMapping("/account/revoke-token")
+    public ResponseEntity<Void> revokeCurrentToken() {
+        log.debug("REST request to revoke the current token");
+        Claims claims = SecurityUtils.getCurrentUserJWT().map(tokenProvider::verifyToken).orElse(null);
+        if (claims == null || claims.getId() == null || claims.getExpiration() == null) {
+            throw new BadRequestAlertException("The request was not authenticated by a revocable token", ENTITY_NAME, "notrevocable");
+        }
+        tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * {@code POST  /account/revoke-tokens} : revoke all the tokens of the current user issued until now.
+     *
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if there is no current user.
+     */
+    @PostMapping("/account/revoke-tokens")
+    public ResponseEntity<Void> revokeCurrentUserTokens() {
+        String login = SecurityUtils.getCurrentUserLogin()
+            .orElseThrow(() -> new BadRequestAlertException("There is no current user", ENTITY_NAME, "nouser"));
+        log.debug("REST request to revoke the tokens of the current user : {}", login);
+        tokenRevocationService.revokeSubject(login);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * {@code POST  /users/:login/revoke-tokens} : revoke all the tokens of a user issued until now.
+     *
+     * @param login the login of the user.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @PostMapping("/users/{login}/revoke-tokens")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> revokeUserTokens(@PathVariable String login) {
+        log.debug("REST request to revoke the tokens of user : {}", login);
+        tokenRevocationService.revokeSubject(login);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -2,16 +2,27 @@ package com.driverapp.web.rest;
 
 import com.driverapp.domain.Vehicle;
 import com.driverapp.repository.VehicleRepository;
+import com.driverapp.repository.KeysetSlice;
 import com.driverapp.repository.search.VehicleSearchRepository;
+import com.driverapp.service.DriverGraphLoader;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.VehicleDTO;
+import com.driverapp.service.mapper.VehicleMapper;
 import com.driverapp.web.rest.errors.BadRequestAlertException;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
+import com.driverapp.web.rest.util.SearchPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -19,8 +30,6 @@ import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -42,26 +51,41 @@ public class VehicleResource {
 
     private final VehicleSearchRepository vehicleSearchRepository;
 
-    public VehicleResource(VehicleRepository vehicleRepository, VehicleSearchRepository vehicleSearchRepository) {
+    private final VehicleMapper vehicleMapper;
+
+    private final DriverGraphLoader driverGraphLoader;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchResultCache searchResultCache;
+
+    public VehicleResource(VehicleRepository vehicleRepository, VehicleMapper vehicleMapper, VehicleSearchRepository vehicleSearchRepository,
+                           DriverGraphLoader driverGraphLoader, ObjectMapper objectMapper, SearchResultCache searchResultCache) {
         this.vehicleRepository = vehicleRepository;
+        this.vehicleMapper = vehicleMapper;
         this.vehicleSearchRepository = vehicleSearchRepository;
+        this.driverGraphLoader = driverGraphLoader;
+        this.objectMapper = objectMapper;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
      * {@code POST  /vehicles} : Create a new vehicle.
      *
-     * @param vehicle the vehicle to create.
+     * @param vehicleDTO the vehicleDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new vehicle, or with status {@code 400 (Bad Request)} if the vehicle has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/vehicles")
-    public ResponseEntity<Vehicle> createVehicle(@Valid @RequestBody Vehicle vehicle) throws URISyntaxException {
-        log.debug("REST request to save Vehicle : {}", vehicle);
-        if (vehicle.getId() != null) {
+    public ResponseEntity<VehicleDTO> createVehicle(@Valid @RequestBody VehicleDTO vehicleDTO) throws URISyntaxException {
+        log.debug("REST request to save Vehicle : {}", vehicleDTO);
+        if (vehicleDTO.getId() != null) {
             throw new BadRequestAlertException("A new vehicle cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Vehicle result = vehicleRepository.save(vehicle);
-        vehicleSearchRepository.save(result);
+        Vehicle vehicle = vehicleMapper.toEntity(vehicleDTO);
+        vehicle = vehicleRepository.save(vehicle);
+        searchResultCache.invalidate(Vehicle.class);
+        VehicleDTO result = vehicleMapper.toDto(vehicle);
         return ResponseEntity.created(new URI("/api/vehicles/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -70,35 +94,56 @@ public class VehicleResource {
     /**
      * {@code PUT  /vehicles} : Updates an existing vehicle.
      *
-     * @param vehicle the vehicle to update.
+     * @param vehicleDTO the vehicleDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated vehicle,
      * or with status {@code 400 (Bad Request)} if the vehicle is not valid,
      * or with status {@code 500 (Internal Server Error)} if the vehicle couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/vehicles")
-    public ResponseEntity<Vehicle> updateVehicle(@Valid @RequestBody Vehicle vehicle) throws URISyntaxException {
-        log.debug("REST request to update Vehicle : {}", vehicle);
-        if (vehicle.getId() == null) {
+    public ResponseEntity<VehicleDTO> updateVehicle(@Valid @RequestBody VehicleDTO vehicleDTO) throws URISyntaxException {
+        log.debug("REST request to update Vehicle : {}", vehicleDTO);
+        if (vehicleDTO.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Vehicle result = vehicleRepository.save(vehicle);
-        vehicleSearchRepository.save(result);
+        Vehicle vehicle = vehicleMapper.toEntity(vehicleDTO);
+        vehicle = vehicleRepository.save(vehicle);
+        searchResultCache.invalidate(Vehicle.class);
+        VehicleDTO result = vehicleMapper.toDto(vehicle);
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, vehicle.getId().toString()))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, vehicleDTO.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /vehicles} : get all the vehicles.
+     * {@code GET  /vehicles} : get a page of the vehicles, in id order.
      *
-
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of vehicles in body.
+     * @param after the id of the last vehicle of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of vehicles in body,
+     * with a {@code Link} header to the next page if there is one.
      */
     @GetMapping("/vehicles")
-    public List<Vehicle> getAllVehicles() {
-        log.debug("REST request to get all Vehicles");
-        return vehicleRepository.findAll();
+    public ResponseEntity<List<VehicleDTO>> getAllVehicles(@RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get a page of Vehicles after {}", after);
+        int pageSize = KeysetPaginationUtil.pageSize(size);
+        KeysetSlice<Vehicle> slice = driverGraphLoader.findAllVehiclesAfter(after, pageSize);
+        return ResponseEntity.ok().headers(KeysetPaginationUtil.generatePaginationHttpHeaders(slice, pageSize))
+            .body(slice.map(vehicleMapper::toDto).getContent());
+    }
+
+    /**
+     * {@code GET  /vehicles} with {@code Accept: application/x-ndjson} : stream all the vehicles, in id order,
+     * one JSON document per line.
+     *
+     * @param after the id of the last vehicle already read, or none to start from the first one.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the vehicles in body.
+     */
+    @GetMapping(value = "/vehicles", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllVehicles(@RequestParam(required = false) String after) {
+        log.debug("REST request to stream all Vehicles after {}", after);
+        return KeysetPaginationUtil.ndjson(() -> driverGraphLoader.streamAllVehiclesAfter(after), vehicleMapper::toDto, objectMapper);
     }
 
     /**
@@ -108,10 +153,10 @@ public class VehicleResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the vehicle, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/vehicles/{id}")
-    public ResponseEntity<Vehicle> getVehicle(@PathVariable String id) {
+    public ResponseEntity<VehicleDTO> getVehicle(@PathVariable String id) {
         log.debug("REST request to get Vehicle : {}", id);
-        Optional<Vehicle> vehicle = vehicleRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(vehicle);
+        Optional<VehicleDTO> vehicleDTO = driverGraphLoader.findVehicleById(id).map(vehicleMapper::toDto);
+        return ResponseUtil.wrapOrNotFound(vehicleDTO);
     }
 
     /**
@@ -124,23 +169,39 @@ public class VehicleResource {
     public ResponseEntity<Void> deleteVehicle(@PathVariable String id) {
         log.debug("REST request to delete Vehicle : {}", id);
         vehicleRepository.deleteById(id);
-        vehicleSearchRepository.deleteById(id);
+        searchResultCache.invalidate(Vehicle.class);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
 
     /**
-     * {@code SEARCH  /_search/vehicles?query=:query} : search for the vehicle corresponding
+     * {@code SEARCH  /_search/vehicles?query=:query} : search for a page of the vehicles corresponding
      * to the query.
      *
      * @param query the query of the vehicle search.
-     * @return the result of the search.
+     * @param pageable the pagination information, within the first {@link SearchPaginationUtil#MAX_RESULT_WINDOW} hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of vehicles in body, with the total number of hits in the headers.
      */
     @GetMapping("/_search/vehicles")
-    public List<Vehicle> searchVehicles(@RequestParam String query) {
-        log.debug("REST request to search Vehicles for query {}", query);
-        return StreamSupport
-            .stream(vehicleSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+    public ResponseEntity<List<VehicleDTO>> searchVehicles(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Vehicles for query {}", query);
+        Page<VehicleDTO> page = searchResultCache.get(Vehicle.class, query, SearchPaginationUtil.checkResultWindow(pageable, ENTITY_NAME),
+            () -> vehicleSearchRepository.search(queryStringQuery(query), pageable, VehicleDTO.class).map(vehicleMapper::toDto));
+        return ResponseEntity.ok().headers(SearchPaginationUtil.generatePaginationHttpHeaders(page)).body(page.getContent());
+    }
+
+    /**
+     * {@code SEARCH  /_search/vehicles?query=:query} with {@code Accept: application/x-ndjson} : export all the vehicles
+     * corresponding to the query, in id order, one JSON document per line.
+     *
+     * @param query the query of the vehicle search.
+     * @param after the id of the last vehicle already exported, or none to start from the first hit.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the vehicles in body.
+     */
+    @GetMapping(value = "/_search/vehicles", produces = KeysetPaginationUtil.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSearchVehicles(@RequestParam String query, @RequestParam(required = false) String after) {
+        log.debug("REST request to export Vehicles for query {} after {}", query, after);
+        return KeysetPaginationUtil.ndjson(() -> vehicleSearchRepository.streamSearchAfter(queryStringQuery(query), after, VehicleDTO.class),
+            vehicleMapper::toDto, objectMapper);
     }
 
 }
@@ -0,0 +1,55 @@
+package com.driverapp.web.rest.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Utility class for conditional requests, answered before the collection is read or the entity is mapped.
+ */
+public final class EntityTagUtil {
+
+    private EntityTagUtil() {
+    }
+
+    /**
+     * Check whether the {@code If-None-Match} header of a request matches a tag, with the weak comparison.
+     *
+     * @param request the request.
+     * @param tag the quoted tag of the current representation.
+     * @return {@code true} if the client already has the representation.
+     */
+    public static boolean isNotModified(WebRequest request, String tag) {
+        String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return false;
+        }
+        String current = strip(tag);
+        for (String value : values) {
+            for (String candidate : StringUtils.commaDelimitedListToStringArray(value)) {
+                candidate = candidate.trim();
+                if ("*".equals(candidate) || strip(candidate).equals(current)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build a {@code 304 (Not Modified)} response.
+     *
+     * @param tag the quoted tag of the current representation.
+     * @param <T> the type of the body of the {@code 200 (OK)} response.
+     * @return the response.
+     */
+    public static <T> ResponseEntity<T> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+    }
+
+    private static String strip(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,103 @@
+package com.driverapp.web.rest.util;
+
+import com.driverapp.repository.KeysetSlice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Utility class for keyset pagination and NDJSON streaming of collection endpoints.
+ * <p>
+ * Pagination uses the same link header format as the <a href="https://developer.github.com/v3/#pagination">GitHub API</a>,
+ * with an {@code after} cursor instead of a page number.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    public static final String DEFAULT_PAGE_SIZE = "20";
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private KeysetPaginationUtil() {
+    }
+
+    /**
+     * Clamp a requested page size to {@code [1, MAX_PAGE_SIZE]}.
+     */
+    public static int pageSize(int requestedSize) {
+        return Math.min(Math.max(requestedSize, 1), MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Generate the pagination headers of a slice, linking to the next slice of the current request.
+     *
+     * @param slice the slice.
+     * @param size the page size.
+     * @return the headers.
+     */
+    public static HttpHeaders generatePaginationHttpHeaders(KeysetSlice<?> slice, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", slice.getNextCursor())
+                .replaceQueryParam("size", size)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
+    /**
+     * Stream entities as newline-delimited JSON, one document per line, without materializing them in a list.
+     *
+     * @param cursor opens the database cursor; it is called, then closed, by the thread writing the response.
+     * @param objectMapper the mapper serializing the entities.
+     * @return the response.
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> ndjson(Supplier<CloseableIterator<T>> cursor, ObjectMapper objectMapper) {
+        return ndjson(cursor, Function.identity(), objectMapper);
+    }
+
+    /**
+     * Stream entities as newline-delimited JSON, one document per line, converting each entity before writing it.
+     *
+     * @param cursor opens the database cursor; it is called, then closed, by the thread writing the response.
+     * @param converter the conversion of each entity, typically to its DTO.
+     * @param objectMapper the mapper serializing the converted entities.
+     * @return the response.
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> ndjson(Supplier<CloseableIterator<T>> cursor, Function<? super T, ?> converter,
+                                                                   ObjectMapper objectMapper) {
+        StreamingResponseBody body = outputStream -> {
+            try (CloseableIterator<T> iterator = cursor.get();
+                 SequenceWriter writer = objectMapper.writer()
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(outputStream)) {
+                boolean empty = true;
+                while (iterator.hasNext()) {
+                    writer.write(converter.apply(iterator.next()));
+                    empty = false;
+                }
+                writer.flush();
+                if (!empty) {
+                    outputStream.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+}
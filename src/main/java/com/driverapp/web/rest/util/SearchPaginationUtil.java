@@ -0,0 +1,53 @@
+package com.driverapp.web.rest.util;
+
+import com.driverapp.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.PaginationUtil;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Utility class for the pagination of search endpoints.
+ * <p>
+ * Pages are read with {@code from} and {@code size}, which Elasticsearch limits to its result window: deeper hits
+ * are exported as NDJSON, with {@code search_after} on the {@code _id} of the documents.
+ */
+public final class SearchPaginationUtil {
+
+    /**
+     * The default {@code index.max_result_window} of Elasticsearch.
+     */
+    public static final int MAX_RESULT_WINDOW = 10000;
+
+    private SearchPaginationUtil() {
+    }
+
+    /**
+     * Check that a page is within the result window.
+     *
+     * @param pageable the requested page.
+     * @param entityName the name of the searched entity, for the error.
+     * @return the page.
+     * @throws BadRequestAlertException if the page ends beyond the result window.
+     */
+    public static Pageable checkResultWindow(Pageable pageable, String entityName) {
+        if (pageable.getOffset() + pageable.getPageSize() > MAX_RESULT_WINDOW) {
+            throw new BadRequestAlertException("Search pages end at hit " + MAX_RESULT_WINDOW
+                + ", deeper hits must be exported", entityName, "searchwindow");
+        }
+        return pageable;
+    }
+
+    /**
+     * Generate the pagination headers of a search page, with the total number of hits, linking to the pages of the
+     * current request.
+     *
+     * @param page the page.
+     * @return the headers.
+     */
+    public static HttpHeaders generatePaginationHttpHeaders(Page<?> page) {
+        return PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+    }
+}
@@ -0,0 +1,109 @@
+package com.driverapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.searchbox.client.JestResult;
+import io.searchbox.client.http.JestHttpClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.Index;
+import io.searchbox.core.Search;
+import io.searchbox.indices.CreateIndex;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SearchTransportClient}.
+ */
+public class SearchTransportClientTest {
+
+    private ApplicationProperties.SearchTransport properties;
+
+    private JestHttpClient delegate;
+
+    private MeterRegistry meterRegistry;
+
+    private SearchTransportClient client;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        properties = new ApplicationProperties().getSearchTransport();
+        properties.setSearchTimeout(1234);
+        properties.setBulkTimeout(5678);
+        delegate = mock(JestHttpClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        client = new SearchTransportClient(delegate, properties, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void replacesHttpClientWithPooledClient() throws IOException {
+        CloseableHttpAsyncClient asyncClient = mock(CloseableHttpAsyncClient.class);
+        when(delegate.getAsyncClient()).thenReturn(asyncClient);
+        client.close();
+        client = new SearchTransportClient(delegate, properties, meterRegistry);
+
+        verify(delegate, times(2)).setHttpClient(any());
+        verify(delegate, never()).setAsyncClient(any());
+        verify(asyncClient).close();
+        verify(delegate, times(2)).setRequestCompressionEnabled(true);
+        assertThat(meterRegistry.get("driverapp.search.transport.connections").tag("state", "max")
+            .gauge().value()).isEqualTo(properties.getMaxConnections());
+    }
+
+    @Test
+    public void rejectsAsynchronousRequests() {
+        assertThatThrownBy(() -> client.executeAsync(new Search.Builder("{}").build(), null))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void classifiesOperations() {
+        assertThat(SearchTransportClient.operation(new Search.Builder("{}").build())).isEqualTo(SearchTransportClient.Operation.SEARCH);
+        assertThat(SearchTransportClient.operation(new Index.Builder("{}").index("i").type("t").id("1").build()))
+            .isEqualTo(SearchTransportClient.Operation.DOCUMENT);
+        assertThat(SearchTransportClient.operation(new Bulk.Builder().build())).isEqualTo(SearchTransportClient.Operation.BULK);
+        assertThat(SearchTransportClient.operation(new CreateIndex.Builder("i").build())).isEqualTo(SearchTransportClient.Operation.ADMIN);
+    }
+
+    @Test
+    public void executesWithTimeoutOfOperation() throws Exception {
+        JestResult result = mock(JestResult.class);
+        when(result.isSucceeded()).thenReturn(true);
+        Search search = new Search.Builder("{}").build();
+        when(delegate.execute(eq(search), any(RequestConfig.class))).thenReturn(result);
+
+        assertThat(client.execute(search)).isSameAs(result);
+
+        verify(delegate).execute(search, client.getRequestConfig(SearchTransportClient.Operation.SEARCH));
+        assertThat(client.getRequestConfig(SearchTransportClient.Operation.SEARCH).getSocketTimeout()).isEqualTo(1234);
+        assertThat(client.getRequestConfig(SearchTransportClient.Operation.BULK).getSocketTimeout()).isEqualTo(5678);
+        assertThat(meterRegistry.get("driverapp.search.transport.requests").tag("operation", "search").tag("result", "success")
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void timesFailedRequests() throws Exception {
+        Bulk bulk = new Bulk.Builder().build();
+        when(delegate.execute(eq(bulk), any(RequestConfig.class))).thenThrow(new IOException("Read timed out"));
+
+        assertThatThrownBy(() -> client.execute(bulk)).isInstanceOf(IOException.class);
+
+        assertThat(meterRegistry.get("driverapp.search.transport.requests").tag("operation", "bulk").tag("result", "error")
+            .timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,132 @@
+package com.driverapp.integration;
+
+import com.driverapp.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SmsSender}.
+ */
+public class SmsSenderTest {
+
+    private RecordingSmsProvider provider;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private SmsSender smsSender;
+
+    @BeforeEach
+    public void setup() {
+        provider = new RecordingSmsProvider();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSms().setOriginator("+10000000000");
+        applicationProperties.getSms().setQueueSize(4);
+        applicationProperties.getSms().setFlushInterval(10000);
+        applicationProperties.getSms().setInitialBackoff(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void destroy() throws InterruptedException {
+        smsSender.destroy();
+    }
+
+    @Test
+    public void sendsMessagesWithTheSameBodyTogether() {
+        provider.maxRecipients = 2;
+        smsSender = new SmsSender(provider, applicationProperties, meterRegistry);
+
+        smsSender.send("1", "hello");
+        smsSender.send("2", "bye");
+        smsSender.send("3", "hello");
+        smsSender.send("4", "hello");
+        smsSender.dispatch();
+
+        assertThat(provider.sends).containsExactly(
+            "+10000000000 hello [1, 3]", "+10000000000 hello [4]", "+10000000000 bye [2]");
+        assertThat(meterRegistry.get("driverapp.sms").tag("result", "sent").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("driverapp.sms.delivery").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    public void dropsMessagesWhenTheQueueIsFull() {
+        smsSender = new SmsSender(provider, applicationProperties, meterRegistry);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(smsSender.send(String.valueOf(i), "hello")).isTrue();
+        }
+
+        assertThat(smsSender.send("5", "hello")).isFalse();
+        assertThat(meterRegistry.get("driverapp.sms").tag("result", "dropped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("driverapp.sms.queue.depth").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    public void retriesFailedSends() throws InterruptedException {
+        provider.failures.set(1);
+        smsSender = new SmsSender(provider, applicationProperties, meterRegistry);
+
+        smsSender.send("1", "hello");
+        smsSender.dispatch();
+        assertThat(provider.sends).isEmpty();
+        assertThat(meterRegistry.get("driverapp.sms").tag("result", "retried").counter().count()).isEqualTo(1);
+
+        // The message is queued again after the backoff
+        for (int i = 0; i < 100 && meterRegistry.get("driverapp.sms.queue.depth").gauge().value() == 0; i++) {
+            Thread.sleep(10);
+        }
+        smsSender.dispatch();
+        assertThat(provider.sends).containsExactly("+10000000000 hello [1]");
+    }
+
+    @Test
+    public void dropsMessagesThatCannotBeSent() {
+        provider.failures.set(1);
+        provider.retryable = false;
+        smsSender = new SmsSender(provider, applicationProperties, meterRegistry);
+
+        smsSender.send("1", "hello");
+        smsSender.dispatch();
+
+        assertThat(provider.sends).isEmpty();
+        assertThat(meterRegistry.get("driverapp.sms").tag("result", "failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("driverapp.sms").tag("result", "retried").counter().count()).isZero();
+    }
+
+    private static class RecordingSmsProvider implements SmsProvider {
+
+        private final List<String> sends = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private volatile boolean retryable = true;
+
+        private volatile int maxRecipients = Integer.MAX_VALUE;
+
+        @Override
+        public void send(String originator, String body, List<String> recipients) throws SmsDeliveryException {
+            if (failures.getAndDecrement() > 0) {
+                throw new SmsDeliveryException("Unavailable", null, retryable);
+            }
+            sends.add(originator + " " + body + " " + new ArrayList<>(recipients));
+        }
+
+        @Override
+        public int getMaxRecipients() {
+            return maxRecipients;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.driverapp.repository.search;
+
+import com.driverapp.DriverApp;
+import com.driverapp.domain.Business;
+import com.driverapp.repository.BusinessRepository;
+import com.driverapp.repository.KeysetSlice;
+import com.driverapp.service.SearchReindexService;
+import com.driverapp.service.dto.SearchReindexJobDTO;
+
+import io.searchbox.client.JestClient;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.repository.support.MappingElasticsearchEntityInformation;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+
+/**
+ * Integration tests for {@link SearchAfterElasticsearchRepository}, against the embedded Elasticsearch node.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class SearchAfterElasticsearchRepositoryIT {
+
+    private static final int BUSINESS_COUNT = 250;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private SearchReindexService searchReindexService;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private JestClient jestClient;
+
+    @Autowired
+    private EntityMapper entityMapper;
+
+    private SearchAfterElasticsearchRepository<Business> repository;
+
+    /**
+     * A list view of the businesses.
+     */
+    static class BusinessName {
+
+        private String id;
+
+        private String name;
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() throws InterruptedException {
+        businessRepository.deleteAll();
+        List<Business> businesses = new ArrayList<>();
+        for (int i = 0; i < BUSINESS_COUNT; i++) {
+            businesses.add(new Business().name("name " + i).type(i % 2 == 0 ? "even" : "odd").address("address " + i));
+        }
+        businessRepository.saveAll(businesses);
+        SearchReindexJobDTO job = searchReindexService.start("business");
+        for (int i = 0; i < 300 && job.getState() == SearchReindexJobDTO.State.RUNNING; i++) {
+            Thread.sleep(100);
+            job = searchReindexService.getJobs().stream().filter(j -> j.getEntity().equals("business")).findFirst().orElse(job);
+        }
+        assertThat(job.getState()).isEqualTo(SearchReindexJobDTO.State.COMPLETED);
+
+        ElasticsearchPersistentEntity<Business> entity = elasticsearchOperations.getPersistentEntityFor(Business.class);
+        repository = new SearchAfterElasticsearchRepository<>(new MappingElasticsearchEntityInformation<>(entity),
+            elasticsearchOperations, jestClient, entityMapper);
+    }
+
+    @Test
+    public void searchReadsProjectedPage() {
+        Page<Business> page = repository.search(queryStringQuery("type:even"), PageRequest.of(1, 20), BusinessName.class);
+
+        assertThat(page.getTotalElements()).isEqualTo(BUSINESS_COUNT / 2);
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getContent()).allSatisfy(business -> {
+            assertThat(business.getId()).isNotNull();
+            assertThat(business.getName()).isNotNull();
+            assertThat(business.getAddress()).isNull();
+        });
+    }
+
+    @Test
+    public void searchMatchesPrefixesOfSuggestFields() {
+        Page<Business> page = repository.search(multiMatchQuery("Name 12", "name.suggest", "address.suggest")
+            .type(MultiMatchQueryBuilder.Type.CROSS_FIELDS).operator(Operator.AND), PageRequest.of(0, 20), BusinessName.class);
+
+        // name 12, and name 120 to name 129
+        assertThat(page.getTotalElements()).isEqualTo(11);
+    }
+
+    @Test
+    public void searchAfterReadsAllHitsInIdOrder() {
+        List<String> ids = new ArrayList<>();
+        String after = null;
+        do {
+            KeysetSlice<Business> slice = repository.searchAfter(matchAllQuery(), after, 100, BusinessName.class);
+            slice.getContent().forEach(business -> ids.add(business.getId()));
+            after = slice.getNextCursor();
+            if (after != null) {
+                // the cursor is the sort value of the last hit, its id
+                assertThat(after).isEqualTo(ids.get(ids.size() - 1));
+            }
+        } while (after != null);
+
+        assertThat(ids).hasSize(BUSINESS_COUNT).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    public void streamSearchAfterResumesAfterCursor() {
+        KeysetSlice<Business> first = repository.searchAfter(matchAllQuery(), null, 10, null);
+
+        List<Business> rest = new ArrayList<>();
+        try (CloseableIterator<Business> iterator = repository.streamSearchAfter(matchAllQuery(), first.getNextCursor(), null)) {
+            iterator.forEachRemaining(rest::add);
+        }
+
+        assertThat(rest).hasSize(BUSINESS_COUNT - 10);
+        assertThat(rest).doesNotContainAnyElementsOf(first.getContent());
+        assertThat(rest.get(0).getAddress()).isNotNull();
+    }
+
+    @Test
+    public void countTermsAggregatesMatchingHits() {
+        Map<String, Map<String, Long>> counts = repository.countTerms(queryStringQuery("name:1*"),
+            Collections.singletonMap("type", "type"), 10);
+
+        // name 1, name 10 to name 19, and name 100 to name 199
+        assertThat(counts.get("type")).containsOnlyKeys("even", "odd");
+        assertThat(counts.get("type").values().stream().mapToLong(Long::longValue).sum()).isEqualTo(111);
+        assertThat(counts.get("type").get("odd")).isEqualTo(56);
+    }
+}
@@ -0,0 +1,79 @@
+package com.driverapp.repository.search.lucene;
+
+import com.driverapp.DriverApp;
+import com.driverapp.config.Constants;
+import com.driverapp.domain.Business;
+import com.driverapp.domain.enumeration.IndexOperation;
+import com.driverapp.repository.BusinessRepository;
+import com.driverapp.service.SearchIndexer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.repository.support.MappingElasticsearchEntityInformation;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+
+/**
+ * Integration tests for the search on the embedded Lucene indices, with the {@code lucene} profile.
+ */
+@SpringBootTest(classes = DriverApp.class)
+@ActiveProfiles(Constants.SPRING_PROFILE_LUCENE)
+public class LuceneSearchIT {
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
+    @Autowired
+    private LuceneIndexRegistry luceneIndexRegistry;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private EntityMapper entityMapper;
+
+    private LuceneIndex index;
+
+    private LuceneSearchRepository<Business> repository;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        index = luceneIndexRegistry.getIndex(Business.class);
+        index.deleteAll();
+        ElasticsearchPersistentEntity<Business> entity = elasticsearchOperations.getPersistentEntityFor(Business.class);
+        repository = new LuceneSearchRepository<>(new MappingElasticsearchEntityInformation<>(entity), index, entityMapper);
+    }
+
+    @Test
+    public void indexedChangesAreSearchableBeforeCommit() throws IOException {
+        Business business = businessRepository.save(new Business().name("Lucene Movers").type("moving").address("1 Main Street"));
+
+        assertThat(searchIndexer.apply(Collections.singletonMap("business",
+            Collections.singletonMap(business.getId(), IndexOperation.INDEX)))).isEqualTo(1);
+
+        assertThat(index.get(business.getId())).isNotNull();
+        Page<Business> page = repository.search(queryStringQuery("lucene AND type:moving"), PageRequest.of(0, 20));
+        assertThat(page.getContent()).extracting(Business::getId).containsExactly(business.getId());
+
+        luceneIndexRegistry.commit();
+        businessRepository.delete(business);
+        searchIndexer.apply(Collections.singletonMap("business", Collections.singletonMap(business.getId(), IndexOperation.DELETE)));
+
+        assertThat(index.get(business.getId())).isNull();
+    }
+}
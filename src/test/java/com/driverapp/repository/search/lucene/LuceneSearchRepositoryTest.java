@@ -0,0 +1,159 @@
+package com.driverapp.repository.search.lucene;
+
+import com.driverapp.domain.Business;
+import com.driverapp.repository.KeysetSlice;
+import com.driverapp.repository.search.SearchIndexDefinitions;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.repository.support.MappingElasticsearchEntityInformation;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Unit tests for {@link LuceneSearchRepository}, on a Lucene index in a temporary directory.
+ */
+public class LuceneSearchRepositoryTest {
+
+    private Path directory;
+
+    private LuceneIndex index;
+
+    private LuceneSearchRepository<Business> repository;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("lucene");
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        EntityMapper entityMapper = new EntityMapper() {
+            @Override
+            public String mapToString(Object object) throws IOException {
+                return objectMapper.writeValueAsString(object);
+            }
+
+            @Override
+            public <T> T mapToObject(String source, Class<T> clazz) throws IOException {
+                return objectMapper.readValue(source, clazz);
+            }
+        };
+        @SuppressWarnings("unchecked")
+        ElasticsearchPersistentEntity<Business> persistentEntity = (ElasticsearchPersistentEntity<Business>)
+            new SimpleElasticsearchMappingContext().getRequiredPersistentEntity(Business.class);
+        index = new LuceneIndex("business", directory, SearchIndexDefinitions.settings(Business.class),
+            SearchIndexDefinitions.mapping(Business.class, persistentEntity.getIndexType()), 1);
+        repository = new LuceneSearchRepository<>(new MappingElasticsearchEntityInformation<>(persistentEntity), index, entityMapper);
+
+        repository.saveAll(Arrays.asList(
+            business("b1", "Acme Movers", "moving", "1 Main Street"),
+            business("b2", "Acme Bakery", "food", "2 Market Street"),
+            business("b3", "Café Olé", "food", "3 Harbor Road")));
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        index.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    public void searchesQueryStrings() {
+        Page<Business> page = repository.search(queryStringQuery("acme AND type:food"), PageRequest.of(0, 20));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(Business::getId).containsExactly("b2");
+        assertThat(page.getContent().get(0).getAddress()).isEqualTo("2 Market Street");
+    }
+
+    @Test
+    public void searchesPagesInOrder() {
+        Page<Business> page = repository.search(matchAllQuery(), PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(Business::getId).containsExactly("b1");
+    }
+
+    @Test
+    public void suggestsByPrefixAcrossFields() {
+        Page<Business> page = repository.search(multiMatchQuery("cafe har", "name.suggest", "address.suggest")
+            .type(MultiMatchQueryBuilder.Type.CROSS_FIELDS).operator(Operator.AND), PageRequest.of(0, 5));
+
+        assertThat(page.getContent()).extracting(Business::getId).containsExactly("b3");
+    }
+
+    @Test
+    public void searchesAfterCursor() {
+        KeysetSlice<Business> first = repository.searchAfter(matchAllQuery(), null, 2, null);
+        KeysetSlice<Business> second = repository.searchAfter(matchAllQuery(), first.getNextCursor(), 2, null);
+
+        assertThat(first.getContent()).extracting(Business::getId).containsExactly("b1", "b2");
+        assertThat(first.getNextCursor()).isEqualTo("b2");
+        assertThat(second.getContent()).extracting(Business::getId).containsExactly("b3");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void countsTerms() {
+        Map<String, Map<String, Long>> counts = repository.countTerms(matchAllQuery(), Collections.singletonMap("types", "type"), 10);
+
+        assertThat(counts.get("types")).containsExactly(entry("food", 2L), entry("moving", 1L));
+        assertThatThrownBy(() -> repository.countTerms(matchAllQuery(), Collections.singletonMap("names", "name"), 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void replacesAndDeletesDocuments() {
+        repository.save(business("b1", "Acme Storage", "moving", "1 Main Street"));
+        repository.deleteById("b2");
+
+        assertThat(repository.findById("b1")).hasValueSatisfying(business -> assertThat(business.getName()).isEqualTo("Acme Storage"));
+        assertThat(repository.existsById("b2")).isFalse();
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(repository.search(queryStringQuery("movers"), PageRequest.of(0, 20)).getTotalElements()).isZero();
+    }
+
+    @Test
+    public void searchesSimilarEntities() {
+        // MoreLikeThis keeps the terms seen twice in the entity, and in at least five documents
+        repository.saveAll(Arrays.asList(
+            business("p1", "Pizza Roma", "food", "4 Harbor Road"),
+            business("p2", "Pizza Napoli", "food", "5 Harbor Road"),
+            business("p3", "Pizza Milano", "food", "6 Harbor Road"),
+            business("p4", "Pizza Torino", "food", "7 Harbor Road")));
+        Business express = business("p5", "Pizza Pizza Express", "food", "8 Harbor Road");
+        repository.save(express);
+
+        Page<Business> page = repository.searchSimilar(express, new String[] {"name"}, PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).extracting(Business::getId).containsExactlyInAnyOrder("p1", "p2", "p3", "p4");
+    }
+
+    private static Business business(String id, String name, String type, String address) {
+        Business business = new Business().name(name).type(type).address(address);
+        business.setId(id);
+        return business;
+    }
+}
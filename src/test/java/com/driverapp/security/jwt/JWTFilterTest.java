@@ -1,9 +1,12 @@
 package com.driverapp.security.jwt;
 
+import com.driverapp.config.ApplicationProperties;
 import com.driverapp.security.AuthoritiesConstants;
+import com.driverapp.service.TokenRevocationService;
 import io.github.jhipster.config.JHipsterProperties;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 public class JWTFilterTest {
 
@@ -35,7 +39,8 @@ public class JWTFilterTest {
                 .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8")));
 
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
-        jwtFilter = new JWTFilter(tokenProvider);
+        jwtFilter = new JWTFilter(new VerifiedTokenCache(tokenProvider, mock(TokenRevocationService.class),
+            new ApplicationProperties(), new SimpleMeterRegistry()));
         SecurityContextHolder.getContext().setAuthentication(null);
     }
 
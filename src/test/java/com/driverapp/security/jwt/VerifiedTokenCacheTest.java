@@ -0,0 +1,118 @@
+package com.driverapp.security.jwt;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.RevokedToken;
+import com.driverapp.repository.RevokedTokenRepository;
+import com.driverapp.security.AuthoritiesConstants;
+import com.driverapp.service.TokenRevocationService;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link VerifiedTokenCache}.
+ */
+public class VerifiedTokenCacheTest {
+
+    private TokenProvider tokenProvider;
+
+    private MeterRegistry meterRegistry;
+
+    private TokenRevocationService tokenRevocationService;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    public void setup() {
+        tokenProvider = new TokenProvider(new JHipsterProperties());
+        ReflectionTestUtils.setField(tokenProvider, "key",
+            Keys.hmacShaKeyFor(Decoders.BASE64
+                .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8")));
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
+        meterRegistry = new SimpleMeterRegistry();
+        RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.save(any(RevokedToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        tokenRevocationService = new TokenRevocationService(new ApplicationProperties(), new JHipsterProperties(),
+            revokedTokenRepository, meterRegistry);
+        verifiedTokenCache = new VerifiedTokenCache(tokenProvider, tokenRevocationService, new ApplicationProperties(), meterRegistry);
+    }
+
+    @Test
+    public void verifiesTokensOnce() {
+        String jwt = createToken("test-user");
+
+        Authentication authentication = verifiedTokenCache.getAuthentication(jwt);
+
+        assertThat(authentication.getName()).isEqualTo("test-user");
+        assertThat(authentication.getCredentials()).isEqualTo(jwt);
+        assertThat(verifiedTokenCache.getAuthentication(jwt)).isSameAs(authentication);
+        assertThat(meterRegistry.get("driverapp.jwt.verifications").tag("result", "valid").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "verifiedTokens").tag("result", "hit").functionCounter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void doesNotCacheInvalidTokens() {
+        String tampered = createToken("test-user") + "A";
+
+        assertThat(verifiedTokenCache.getAuthentication(tampered)).isNull();
+        assertThat(verifiedTokenCache.getAuthentication(tampered)).isNull();
+        assertThat(meterRegistry.get("driverapp.jwt.verifications").tag("result", "invalid").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void sharesTheAuthoritiesOfTokens() {
+        Authentication first = verifiedTokenCache.getAuthentication(createToken("first-user"));
+        Authentication second = verifiedTokenCache.getAuthentication(createToken("second-user"));
+
+        assertThat(second.getAuthorities()).containsExactly(new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+        assertThat(second.getAuthorities().iterator().next()).isSameAs(first.getAuthorities().iterator().next());
+    }
+
+    @Test
+    public void rejectsRevokedTokens() {
+        String jwt = createToken("test-user");
+        String other = createToken("test-user");
+        assertThat(verifiedTokenCache.getAuthentication(jwt)).isNotNull();
+        Claims claims = tokenProvider.verifyToken(jwt);
+
+        tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+
+        assertThat(verifiedTokenCache.getAuthentication(jwt)).isNull();
+        assertThat(verifiedTokenCache.getAuthentication(other)).isNotNull();
+        assertThat(meterRegistry.get("driverapp.jwt.revocation.checks").tag("result", "revoked").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectsTheRevokedTokensOfSubjects() {
+        String jwt = createToken("test-user");
+        String other = createToken("other-user");
+
+        tokenRevocationService.revokeSubject("test-user");
+
+        assertThat(verifiedTokenCache.getAuthentication(jwt)).isNull();
+        assertThat(verifiedTokenCache.getAuthentication(other)).isNotNull();
+    }
+
+    private String createToken(String login) {
+        return tokenProvider.createToken(new UsernamePasswordAuthenticationToken(login, "test-password",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+    }
+}
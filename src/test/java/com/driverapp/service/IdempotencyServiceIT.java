@@ -0,0 +1,97 @@
+package com.driverapp.service;
+
+import com.driverapp.DriverApp;
+import com.driverapp.domain.IdempotentRequest;
+import com.driverapp.repository.IdempotentRequestRepository;
+import com.driverapp.service.IdempotencyService.Claim;
+import com.driverapp.service.IdempotencyService.Result;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link IdempotencyService}.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class IdempotencyServiceIT {
+
+    private static final String REQUEST_HASH = "hash";
+
+    @Autowired
+    private IdempotentRequestRepository idempotentRequestRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private String id;
+
+    @BeforeEach
+    public void setup() {
+        idempotentRequestRepository.deleteAll();
+        id = UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void replaysTheStoredResponse() {
+        assertThat(idempotencyService.claim(id, REQUEST_HASH).getResult()).isEqualTo(Result.PROCEED);
+        idempotencyService.complete(id, REQUEST_HASH, 201, Collections.singletonMap("Location", Collections.singletonList("/api/drivers/1")),
+            "{}".getBytes(StandardCharsets.UTF_8));
+
+        Claim claim = idempotencyService.claim(id, REQUEST_HASH);
+
+        assertThat(claim.getResult()).isEqualTo(Result.REPLAY);
+        assertThat(claim.getRequest().getStatus()).isEqualTo(201);
+        assertThat(claim.getRequest().getHeaders()).containsEntry("Location", Collections.singletonList("/api/drivers/1"));
+        assertThat(claim.getRequest().getBody()).isEqualTo("{}".getBytes(StandardCharsets.UTF_8));
+        assertThat(idempotencyService.claim(id, "other").getResult()).isEqualTo(Result.MISMATCH);
+    }
+
+    @Test
+    public void coalescesConcurrentRequests() throws Exception {
+        assertThat(idempotencyService.claim(id, REQUEST_HASH).getResult()).isEqualTo(Result.PROCEED);
+
+        CompletableFuture<Claim> retry = CompletableFuture.supplyAsync(() -> idempotencyService.claim(id, REQUEST_HASH));
+        Thread.sleep(100);
+        assertThat(retry).isNotDone();
+        idempotencyService.complete(id, REQUEST_HASH, 201, Collections.emptyMap(), new byte[0]);
+
+        assertThat(retry.get().getResult()).isEqualTo(Result.REPLAY);
+    }
+
+    @Test
+    public void releasesAbandonedRequests() {
+        assertThat(idempotencyService.claim(id, REQUEST_HASH).getResult()).isEqualTo(Result.PROCEED);
+
+        idempotencyService.abandon(id);
+
+        assertThat(idempotentRequestRepository.existsById(id)).isFalse();
+        assertThat(idempotencyService.claim(id, REQUEST_HASH).getResult()).isEqualTo(Result.PROCEED);
+    }
+
+    @Test
+    public void waitsForRequestsOfOtherNodes() {
+        mongoTemplate.insert(new IdempotentRequest(id, REQUEST_HASH, Instant.now().plusSeconds(60)));
+
+        assertThat(idempotencyService.claim(id, REQUEST_HASH).getResult()).isEqualTo(Result.IN_PROGRESS);
+
+        IdempotentRequest abandoned = idempotentRequestRepository.findById(id).get();
+        abandoned.setExpirationTime(Instant.now().minusSeconds(1));
+        idempotentRequestRepository.save(abandoned);
+
+        assertThat(idempotencyService.claim(id, REQUEST_HASH).getResult()).isEqualTo(Result.PROCEED);
+    }
+}
@@ -0,0 +1,53 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.IdempotentRequest;
+import com.driverapp.repository.IdempotentRequestRepository;
+import com.driverapp.service.IdempotencyService.Result;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link IdempotencyService}.
+ */
+public class IdempotencyServiceTest {
+
+    private static final String ID = "id";
+
+    private static final String REQUEST_HASH = "hash";
+
+    private MongoTemplate mongoTemplate;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    public void setup() {
+        mongoTemplate = mock(MongoTemplate.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIdempotency().setWaitTimeout(100);
+        idempotencyService = new IdempotencyService(applicationProperties, mock(IdempotentRequestRepository.class),
+            mongoTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void releasesClaimsWhichCouldNotBeStored() {
+        when(mongoTemplate.insert(any(IdempotentRequest.class)))
+            .thenThrow(new DataAccessResourceFailureException("Timed out"))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThatThrownBy(() -> idempotencyService.claim(ID, REQUEST_HASH))
+            .isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(idempotencyService.claim(ID, REQUEST_HASH).getResult()).isEqualTo(Result.PROCEED);
+    }
+}
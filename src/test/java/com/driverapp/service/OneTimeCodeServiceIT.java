@@ -0,0 +1,87 @@
+package com.driverapp.service;
+
+import com.driverapp.DriverApp;
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.OneTimeCode;
+import com.driverapp.repository.OneTimeCodeRepository;
+import com.driverapp.service.OneTimeCodeService.Verification;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link OneTimeCodeService}.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class OneTimeCodeServiceIT {
+
+    private static final String DRIVER_ID = "driver-1";
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private OneTimeCodeRepository oneTimeCodeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OneTimeCodeService oneTimeCodeService;
+
+    @BeforeEach
+    public void setup() {
+        oneTimeCodeRepository.deleteAll();
+    }
+
+    @Test
+    public void verifiesCodeOnce() {
+        String code = oneTimeCodeService.issue(DRIVER_ID);
+
+        assertThat(code).hasSize(6).containsOnlyDigits();
+        assertThat(oneTimeCodeService.verify(DRIVER_ID, code)).isEqualTo(Verification.VALID);
+        assertThat(oneTimeCodeService.verify(DRIVER_ID, code)).isEqualTo(Verification.EXPIRED);
+        assertThat(oneTimeCodeRepository.count()).isZero();
+    }
+
+    @Test
+    public void replacesPreviousCode() {
+        String first = oneTimeCodeService.issue(DRIVER_ID);
+        String second = oneTimeCodeService.issue(DRIVER_ID);
+
+        assertThat(oneTimeCodeRepository.count()).isEqualTo(1);
+        if (!first.equals(second)) {
+            assertThat(oneTimeCodeService.verify(DRIVER_ID, first)).isEqualTo(Verification.MISMATCH);
+        }
+        assertThat(oneTimeCodeService.verify(DRIVER_ID, second)).isEqualTo(Verification.VALID);
+    }
+
+    @Test
+    public void expiresAfterMaxAttempts() {
+        String code = oneTimeCodeService.issue(DRIVER_ID);
+        String wrong = code.equals("999999") ? "100000" : "999999";
+
+        for (int i = 0; i < applicationProperties.getOneTimeCode().getMaxAttempts(); i++) {
+            assertThat(oneTimeCodeService.verify(DRIVER_ID, wrong)).isEqualTo(Verification.MISMATCH);
+        }
+
+        assertThat(oneTimeCodeService.verify(DRIVER_ID, code)).isEqualTo(Verification.EXPIRED);
+        assertThat(oneTimeCodeRepository.existsById(DRIVER_ID)).isFalse();
+    }
+
+    @Test
+    public void rejectsExpiredCode() {
+        mongoTemplate.save(new OneTimeCode(DRIVER_ID, "123456", Instant.now().minusSeconds(1)));
+
+        assertThat(oneTimeCodeService.verify(DRIVER_ID, "123456")).isEqualTo(Verification.EXPIRED);
+        assertThat(oneTimeCodeService.verify("unknown", "123456")).isEqualTo(Verification.EXPIRED);
+        assertThat(oneTimeCodeService.verify(DRIVER_ID, null)).isEqualTo(Verification.EXPIRED);
+    }
+}
@@ -0,0 +1,80 @@
+package com.driverapp.service;
+
+import com.driverapp.DriverApp;
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.enumeration.Status;
+import com.driverapp.repository.DriverRepository;
+import com.driverapp.service.dto.SearchReindexJobDTO;
+
+import com.google.gson.JsonObject;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Get;
+import io.searchbox.indices.template.GetTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link SearchIndexTemplateService}, against the embedded Elasticsearch node.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class SearchIndexTemplateServiceIT {
+
+    @Autowired
+    private SearchIndexTemplateService searchIndexTemplateService;
+
+    @Autowired
+    private SearchReindexService searchReindexService;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private JestClient jestClient;
+
+    private Driver driver;
+
+    @BeforeEach
+    public void initTest() {
+        driverRepository.deleteAll();
+        driver = driverRepository.save(new Driver().firstName("Jane").lastName("Doe").password("secret")
+            .oneTimeCode("123456").status(Status.CONFIRMED));
+    }
+
+    @Test
+    public void installsVersionedTemplate() throws Exception {
+        searchIndexTemplateService.installTemplate(Driver.class);
+
+        JsonObject template = jestClient.execute(new GetTemplate.Builder("driver").build()).getJsonObject().getAsJsonObject("driver");
+        assertThat(template.get("version").getAsInt()).isEqualTo(1);
+        assertThat(template.getAsJsonArray("index_patterns").toString()).contains("\"driver\"", "\"driver_v*\"");
+        assertThat(template.getAsJsonObject("settings").getAsJsonObject("index").get("number_of_shards").getAsString()).isEqualTo("1");
+    }
+
+    @Test
+    public void rebuiltIndexIsUpToDateAndKeepsNoSecret() throws Exception {
+        SearchReindexJobDTO job = searchReindexService.start("driver");
+        for (int i = 0; i < 300 && job.getState() == SearchReindexJobDTO.State.RUNNING; i++) {
+            Thread.sleep(100);
+            job = searchReindexService.getJobs().stream().filter(j -> j.getEntity().equals("driver")).findFirst().orElse(job);
+        }
+        assertThat(job.getState()).isEqualTo(SearchReindexJobDTO.State.COMPLETED);
+
+        assertThat(searchIndexTemplateService.installTemplate(Driver.class)).isFalse();
+
+        String indexType = elasticsearchOperations.getPersistentEntityFor(Driver.class).getIndexType();
+        JestResult result = jestClient.execute(new Get.Builder("driver", driver.getId()).type(indexType).build());
+        JsonObject source = result.getJsonObject().getAsJsonObject("_source");
+        assertThat(source.get("firstName").getAsString()).isEqualTo("Jane");
+        assertThat(source.has("password")).isFalse();
+        assertThat(source.has("oneTimeCode")).isFalse();
+    }
+}
@@ -0,0 +1,196 @@
+package com.driverapp.service;
+
+import com.driverapp.DriverApp;
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.Business;
+import com.driverapp.domain.IndexOutboxEntry;
+import com.driverapp.domain.enumeration.IndexOperation;
+import com.driverapp.repository.BusinessRepository;
+import com.driverapp.repository.IndexOutboxRepository;
+import com.driverapp.repository.search.JestSearchIndexWriter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration tests for {@link SearchIndexer}.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class SearchIndexerIT {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DriverGraphLoader driverGraphLoader;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private EntityMapper entityMapper;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private IndexOutboxRepository indexOutboxRepository;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    private JestClient jestClient;
+
+    private SearchIndexer searchIndexer;
+
+    private Business business;
+
+    @BeforeEach
+    public void setup() {
+        indexOutboxRepository.deleteAll();
+        jestClient = mock(JestClient.class);
+        searchIndexer = new SearchIndexer(new ApplicationProperties(), mongoTemplate, driverGraphLoader, new JestSearchIndexWriter(jestClient),
+            elasticsearchOperations, entityMapper, searchResultCache, new SimpleMeterRegistry());
+        business = businessRepository.save(new Business().name("AAAAAAAAAA").type("AAAAAAAAAA").address("AAAAAAAAAA"));
+    }
+
+    @Test
+    public void drainIndexesCurrentStateOnce() throws Exception {
+        indexOutboxRepository.save(new IndexOutboxEntry("business", business.getId(), IndexOperation.INDEX));
+        businessRepository.save(business.name("BBBBBBBBBB"));
+        indexOutboxRepository.save(new IndexOutboxEntry("business", business.getId(), IndexOperation.INDEX));
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult("index", business.getId(), null));
+
+        assertThat(searchIndexer.drainBatch()).isEqualTo(2);
+
+        ArgumentCaptor<Bulk> bulk = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient).execute(bulk.capture());
+        String data = bulk.getValue().getData(new Gson());
+        assertThat(data).contains("\"index\"").contains("BBBBBBBBBB");
+        assertThat(data.split("\n")).hasSize(2);
+        assertThat(indexOutboxRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void drainDeletesMissingEntities() throws Exception {
+        businessRepository.delete(business);
+        indexOutboxRepository.save(new IndexOutboxEntry("business", business.getId(), IndexOperation.DELETE));
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult("delete", business.getId(), null));
+
+        searchIndexer.drainBatch();
+
+        ArgumentCaptor<Bulk> bulk = ArgumentCaptor.forClass(Bulk.class);
+        verify(jestClient).execute(bulk.capture());
+        assertThat(bulk.getValue().getData(new Gson())).contains("\"delete\"").contains(business.getId());
+        assertThat(indexOutboxRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void drainRetriesFailedEntriesLater() throws Exception {
+        indexOutboxRepository.save(new IndexOutboxEntry("business", business.getId(), IndexOperation.INDEX));
+        when(jestClient.execute(any(Bulk.class))).thenThrow(new IOException("Connection refused"));
+
+        Instant before = Instant.now();
+        searchIndexer.drainBatch();
+
+        List<IndexOutboxEntry> entries = indexOutboxRepository.findAll();
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getAttempts()).isEqualTo(1);
+        assertThat(entries.get(0).getNextAttemptTime()).isAfter(before);
+
+        // not due yet
+        assertThat(searchIndexer.drainBatch()).isEqualTo(0);
+        verify(jestClient, times(1)).execute(any(Bulk.class));
+    }
+
+    @Test
+    public void drainRetriesRejectedItems() throws Exception {
+        indexOutboxRepository.save(new IndexOutboxEntry("business", business.getId(), IndexOperation.INDEX));
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult("index", business.getId(), "{\"type\":\"es_rejected_execution_exception\"}"));
+
+        searchIndexer.drainBatch();
+
+        assertThat(indexOutboxRepository.findAll()).extracting(IndexOutboxEntry::getAttempts).containsExactly(1);
+    }
+
+    @Test
+    public void applyIndexesChanges() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenReturn(bulkResult("index", business.getId(), null));
+
+        int applied = searchIndexer.apply(Collections.singletonMap("business",
+            Collections.singletonMap(business.getId(), IndexOperation.INDEX)));
+
+        assertThat(applied).isEqualTo(1);
+        verify(jestClient).execute(any(Bulk.class));
+        assertThat(indexOutboxRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void applyKeepsFailedChangesInOutbox() throws Exception {
+        when(jestClient.execute(any(Bulk.class))).thenThrow(new IOException("Connection refused"));
+
+        int applied = searchIndexer.apply(Collections.singletonMap("business",
+            Collections.singletonMap(business.getId(), IndexOperation.INDEX)));
+
+        assertThat(applied).isEqualTo(0);
+        List<IndexOutboxEntry> entries = indexOutboxRepository.findAll();
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getEntityId()).isEqualTo(business.getId());
+        assertThat(entries.get(0).getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    public void outboxListenerRecordsChangesWithoutChangeStream() {
+        SearchChangeStreamTailer tailer = mock(SearchChangeStreamTailer.class);
+        SearchIndexOutboxListener listener = new SearchIndexOutboxListener(searchIndexer, tailer);
+
+        listener.onAfterSave(new AfterSaveEvent<>(business, new Document("_id", new ObjectId(business.getId())), "business"));
+        listener.onAfterDelete(new AfterDeleteEvent<>(new Document("_id", business.getId()), Business.class, "business"));
+
+        assertThat(indexOutboxRepository.findAll()).extracting(IndexOutboxEntry::getOperation)
+            .containsExactlyInAnyOrder(IndexOperation.INDEX, IndexOperation.DELETE);
+
+        // The change stream applies the changes itself
+        indexOutboxRepository.deleteAll();
+        when(tailer.isFollowingChanges()).thenReturn(true);
+        listener.onAfterSave(new AfterSaveEvent<>(business, new Document("_id", new ObjectId(business.getId())), "business"));
+
+        assertThat(indexOutboxRepository.findAll()).isEmpty();
+    }
+
+    private static BulkResult bulkResult(String operation, String id, String error) {
+        String item = "{\"_index\":\"business\",\"_type\":\"business\",\"_id\":\"" + id + "\",\"status\":" + (error == null ? 200 : 429)
+            + (error == null ? "" : ",\"error\":" + error) + "}";
+        String json = "{\"took\":1,\"errors\":" + (error != null) + ",\"items\":[{\"" + operation + "\":" + item + "}]}";
+        BulkResult result = new BulkResult(new Gson());
+        result.setJsonString(json);
+        result.setJsonObject(new JsonParser().parse(json).getAsJsonObject());
+        result.setSucceeded(error == null);
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package com.driverapp.service;
+
+import com.driverapp.DriverApp;
+import com.driverapp.domain.Business;
+import com.driverapp.repository.BusinessRepository;
+import com.driverapp.service.dto.SearchReindexJobDTO;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Count;
+import io.searchbox.core.CountResult;
+import io.searchbox.indices.aliases.GetAliases;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for {@link SearchReindexService}, against the embedded Elasticsearch node.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class SearchReindexServiceIT {
+
+    private static final int BUSINESS_COUNT = 250;
+
+    @Autowired
+    private SearchReindexService searchReindexService;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private JestClient jestClient;
+
+    @BeforeEach
+    public void initTest() {
+        businessRepository.deleteAll();
+        List<Business> businesses = new ArrayList<>();
+        for (int i = 0; i < BUSINESS_COUNT; i++) {
+            businesses.add(new Business().name("name " + i).type("type").address("address " + i));
+        }
+        businessRepository.saveAll(businesses);
+    }
+
+    @Test
+    public void reindexSwapsAlias() throws Exception {
+        SearchReindexJobDTO first = await(searchReindexService.start("business"));
+        assertThat(first.getState()).isEqualTo(SearchReindexJobDTO.State.COMPLETED);
+        assertThat(first.getIndexed()).isEqualTo(BUSINESS_COUNT);
+        assertThat(first.getCompletedPartitions()).isEqualTo(first.getPartitions());
+        assertThat(indicesBehind("business")).containsExactly(first.getIndex());
+
+        SearchReindexJobDTO second = await(searchReindexService.start("business"));
+        assertThat(second.getState()).isEqualTo(SearchReindexJobDTO.State.COMPLETED);
+        assertThat(second.getIndex()).isNotEqualTo(first.getIndex());
+        assertThat(indicesBehind("business")).containsExactly(second.getIndex());
+
+        CountResult count = jestClient.execute(new Count.Builder().addIndex("business").build());
+        assertThat(count.getCount()).isEqualTo((double) BUSINESS_COUNT);
+    }
+
+    @Test
+    public void reindexUnknownEntity() {
+        assertThatThrownBy(() -> searchReindexService.start("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SearchReindexJobDTO await(SearchReindexJobDTO job) throws InterruptedException {
+        for (int i = 0; i < 300 && job.getState() == SearchReindexJobDTO.State.RUNNING; i++) {
+            Thread.sleep(100);
+            job = searchReindexService.getJobs().stream().filter(j -> j.getEntity().equals("business")).findFirst().orElse(job);
+        }
+        return job;
+    }
+
+    private List<String> indicesBehind(String alias) throws Exception {
+        JestResult result = jestClient.execute(new GetAliases.Builder().addIndex(alias).build());
+        List<String> indices = new ArrayList<>();
+        result.getJsonObject().entrySet().forEach(entry -> indices.add(entry.getKey()));
+        return indices;
+    }
+}
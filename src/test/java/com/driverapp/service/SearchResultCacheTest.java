@@ -0,0 +1,93 @@
+package com.driverapp.service;
+
+import com.driverapp.config.ApplicationProperties;
+import com.driverapp.domain.Business;
+import com.driverapp.domain.Driver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SearchResultCache}.
+ */
+public class SearchResultCacheTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private AtomicInteger searches;
+
+    private Supplier<Page<String>> search;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        searches = new AtomicInteger();
+        search = () -> {
+            searches.incrementAndGet();
+            return new PageImpl<>(Collections.singletonList("hit"), PageRequest.of(0, 20), 1);
+        };
+    }
+
+    @Test
+    public void servesRepeatedQueriesFromCache() {
+        SearchResultCache cache = new SearchResultCache(applicationProperties, meterRegistry);
+
+        Page<String> first = cache.get(Business.class, "name:acme  AND type:moving", PageRequest.of(0, 20), search);
+        Page<String> second = cache.get(Business.class, " name:acme AND type:moving ", PageRequest.of(0, 20), search);
+
+        assertThat(second).isSameAs(first);
+        assertThat(searches).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "search").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void keysPagesByTypeQueryAndPage() {
+        SearchResultCache cache = new SearchResultCache(applicationProperties, meterRegistry);
+
+        cache.get(Business.class, "acme", PageRequest.of(0, 20), search);
+        cache.get(Driver.class, "acme", PageRequest.of(0, 20), search);
+        cache.get(Business.class, "Acme", PageRequest.of(0, 20), search);
+        cache.get(Business.class, "acme", PageRequest.of(1, 20), search);
+
+        assertThat(searches).hasValue(4);
+    }
+
+    @Test
+    public void invalidatesPagesOfWrittenType() {
+        SearchResultCache cache = new SearchResultCache(applicationProperties, meterRegistry);
+        cache.get(Business.class, "acme", PageRequest.of(0, 20), search);
+        cache.get(Driver.class, "acme", PageRequest.of(0, 20), search);
+
+        cache.invalidate(Business.class);
+        cache.get(Business.class, "acme", PageRequest.of(0, 20), search);
+        cache.get(Driver.class, "acme", PageRequest.of(0, 20), search);
+
+        assertThat(searches).hasValue(3);
+        assertThat(meterRegistry.get("driverapp.search.cache.invalidations").tag("entity", "Business").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void searchesEveryTimeWhenDisabled() {
+        applicationProperties.getSearchCache().setEnabled(false);
+        SearchResultCache cache = new SearchResultCache(applicationProperties, meterRegistry);
+
+        cache.get(Business.class, "acme", PageRequest.of(0, 20), search);
+        cache.get(Business.class, "acme", PageRequest.of(0, 20), search);
+
+        assertThat(searches).hasValue(2);
+    }
+}
@@ -0,0 +1,84 @@
+package com.driverapp.service;
+
+import com.driverapp.DriverApp;
+import com.driverapp.domain.RevokedToken;
+import com.driverapp.repository.RevokedTokenRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link TokenRevocationService}.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class TokenRevocationServiceIT {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    private String login;
+
+    @BeforeEach
+    public void setup() {
+        revokedTokenRepository.deleteAll();
+        tokenRevocationService.rebuild();
+        login = "user-" + UUID.randomUUID();
+    }
+
+    @Test
+    public void revokesTokens() {
+        String tokenId = UUID.randomUUID().toString();
+        String subjectKey = TokenRevocationService.subjectKey(login);
+        assertThat(tokenRevocationService.isRevoked(TokenRevocationService.tokenKey(tokenId), subjectKey, new Date())).isFalse();
+
+        tokenRevocationService.revokeToken(tokenId, Instant.now().plusSeconds(60));
+
+        assertThat(tokenRevocationService.isRevoked(TokenRevocationService.tokenKey(tokenId), subjectKey, new Date())).isTrue();
+        assertThat(tokenRevocationService.isRevoked(TokenRevocationService.tokenKey("other"), subjectKey, new Date())).isFalse();
+        assertThat(revokedTokenRepository.existsById(TokenRevocationService.tokenKey(tokenId))).isTrue();
+    }
+
+    @Test
+    public void revokesTheTokensOfSubjectsIssuedUntilTheRevocation() {
+        Date issuedBefore = Date.from(Instant.now().minusSeconds(10));
+
+        tokenRevocationService.revokeSubject(login);
+
+        String subjectKey = TokenRevocationService.subjectKey(login);
+        assertThat(tokenRevocationService.isRevoked(null, subjectKey, issuedBefore)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(null, subjectKey, Date.from(Instant.now().plusSeconds(10)))).isFalse();
+        assertThat(tokenRevocationService.isRevoked(null, TokenRevocationService.subjectKey("other-" + login), issuedBefore)).isFalse();
+    }
+
+    @Test
+    public void readsTheRevocationsOfOtherNodes() {
+        String tokenKey = TokenRevocationService.tokenKey(UUID.randomUUID().toString());
+        revokedTokenRepository.save(new RevokedToken(tokenKey, Instant.now(), Instant.now().plusSeconds(60)));
+        assertThat(tokenRevocationService.isRevoked(tokenKey, TokenRevocationService.subjectKey(login), null)).isFalse();
+
+        tokenRevocationService.poll();
+
+        assertThat(tokenRevocationService.isRevoked(tokenKey, TokenRevocationService.subjectKey(login), null)).isTrue();
+    }
+
+    @Test
+    public void dropsExpiredRevocations() {
+        String tokenKey = TokenRevocationService.tokenKey(UUID.randomUUID().toString());
+        revokedTokenRepository.save(new RevokedToken(tokenKey, Instant.now(), Instant.now().minusSeconds(1)));
+
+        tokenRevocationService.rebuild();
+
+        assertThat(tokenRevocationService.isRevoked(tokenKey, TokenRevocationService.subjectKey(login), null)).isFalse();
+    }
+}
@@ -0,0 +1,90 @@
+package com.driverapp.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link TwoTierCache}.
+ */
+public class TwoTierCacheTest {
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+
+    private Cache shared;
+
+    private CacheEvictionBroadcaster broadcaster;
+
+    private MeterRegistry meterRegistry;
+
+    private TwoTierCache cache;
+
+    @BeforeEach
+    public void setup() {
+        local = Caffeine.newBuilder().maximumSize(100).recordStats().build();
+        shared = new ConcurrentMapCache("shared", false);
+        broadcaster = mock(CacheEvictionBroadcaster.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoTierCache("driversById", local, shared, broadcaster, meterRegistry);
+    }
+
+    @Test
+    public void readsThroughTheSharedTier() {
+        shared.put("d1", "driver");
+
+        assertThat(cache.get("d1", String.class)).isEqualTo("driver");
+        assertThat(local.getIfPresent("d1")).isEqualTo("driver");
+        assertThat(cache.get("d2")).isNull();
+        assertThat(meterRegistry.get("driverapp.cache.l2.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("driverapp.cache.l2.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void loadsOnceAndWritesBothTiers() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("d1", () -> "driver" + loads.incrementAndGet());
+        cache.get("d1", () -> "driver" + loads.incrementAndGet());
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(shared.get("d1", String.class)).isEqualTo("driver1");
+        assertThat(meterRegistry.get("driverapp.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void evictsBothTiersAndBroadcasts() {
+        cache.put("d1", "driver");
+        cache.put("d2", "driver");
+
+        cache.evict("d1");
+
+        assertThat(cache.get("d1")).isNull();
+        assertThat(shared.get("d1")).isNull();
+        verify(broadcaster).publish("driversById", "d1");
+
+        cache.clear();
+
+        assertThat(cache.get("d2")).isNull();
+        verify(broadcaster).publish("driversById", null);
+    }
+
+    @Test
+    public void evictsOnlyTheLocalTierForOtherNodes() {
+        cache.put("d1", "driver");
+
+        cache.evictLocal("d1");
+
+        assertThat(local.getIfPresent("d1")).isNull();
+        assertThat(cache.get("d1", String.class)).isEqualTo("driver");
+    }
+}
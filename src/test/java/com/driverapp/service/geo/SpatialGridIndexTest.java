@@ -0,0 +1,111 @@
+package com.driverapp.service.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test class for the {@link SpatialGridIndex}.
+ */
+public class SpatialGridIndexTest {
+
+    private SpatialGridIndex index;
+
+    private SpatialHits hits;
+
+    @BeforeEach
+    public void setup() {
+        index = new SpatialGridIndex(0.01, 16);
+        hits = new SpatialHits(10);
+    }
+
+    @Test
+    public void testNearestReturnsClosestFirst() {
+        index.put("far", 40.80, -74.00);
+        index.put("near", 40.7129, -74.0061);
+        index.put("middle", 40.72, -74.01);
+
+        index.nearest(40.7128, -74.0060, 2, 50, hits);
+
+        assertThat(hits.size()).isEqualTo(2);
+        assertThat(hits.key(0)).isEqualTo("near");
+        assertThat(hits.key(1)).isEqualTo("middle");
+        assertThat(hits.distance(0)).isLessThan(hits.distance(1));
+    }
+
+    @Test
+    public void testWithinRadiusExcludesFartherPoints() {
+        index.put("near", 40.7129, -74.0061);
+        index.put("far", 41.7128, -74.0060);
+
+        index.withinRadius(40.7128, -74.0060, 10, hits);
+
+        assertThat(hits.size()).isEqualTo(1);
+        assertThat(hits.key(0)).isEqualTo("near");
+    }
+
+    @Test
+    public void testMoveAndRemove() {
+        index.put("driver", 40.7128, -74.0060);
+        assertThat(index.move("driver", 48.8566, 2.3522)).isTrue();
+        assertThat(index.move("unknown", 48.8566, 2.3522)).isFalse();
+
+        index.nearest(40.7128, -74.0060, 1, 10, hits);
+        assertThat(hits.size()).isZero();
+        index.nearest(48.8566, 2.3522, 1, 10, hits);
+        assertThat(hits.key(0)).isEqualTo("driver");
+
+        index.remove("driver");
+        index.nearest(48.8566, 2.3522, 1, 10, hits);
+        assertThat(hits.size()).isZero();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void testNearestAcrossAntimeridian() {
+        index.put("east", 0, 179.999);
+
+        index.nearest(0, -179.999, 1, 10, hits);
+
+        assertThat(hits.size()).isEqualTo(1);
+        assertThat(hits.distance(0)).isCloseTo(0.222, within(0.01));
+    }
+
+    @Test
+    public void testNearestMatchesBruteForce() {
+        Random random = new Random(42);
+        int count = 5000;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 40 + random.nextDouble();
+            lons[i] = -74 + random.nextDouble();
+            index.put("d" + i, lats[i], lons[i]);
+        }
+        // Moving points around exercises the removal from the grid cells
+        for (int i = 0; i < count; i += 3) {
+            lats[i] = 40 + random.nextDouble();
+            lons[i] = -74 + random.nextDouble();
+            index.put("d" + i, lats[i], lons[i]);
+        }
+
+        double queryLat = 40.5;
+        double queryLon = -73.5;
+        index.nearest(queryLat, queryLon, 10, 100, hits);
+
+        double[] expected = new double[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = SpatialGridIndex.distance(queryLat, queryLon, lats[i], lons[i]);
+        }
+        Arrays.sort(expected);
+        assertThat(hits.size()).isEqualTo(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(hits.distance(i)).isCloseTo(expected[i], within(1e-9));
+        }
+    }
+}
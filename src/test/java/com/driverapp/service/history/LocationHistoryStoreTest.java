@@ -0,0 +1,147 @@
+package com.driverapp.service.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link LocationHistoryStore}.
+ */
+public class LocationHistoryStoreTest {
+
+    private static final long SEGMENT_DURATION = 600_000;
+
+    private Path directory;
+
+    private LocationHistoryStore store;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("location-history");
+        store = new LocationHistoryStore(directory, SEGMENT_DURATION, 1);
+        store.open();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void readAppendedPoints() throws IOException {
+        append("driver-1", 2_000, 40.7130, -74.0050);
+        append("driver-1", 1_000, 40.7128, -74.0060);
+        append("driver-2", 1_500, 48.8566, 2.3522);
+
+        List<LocationHistoryStore.TrackPoint> points = store.read("driver-1", 0, 10_000);
+
+        assertThat(points).extracting(LocationHistoryStore.TrackPoint::getTimestamp).containsExactly(1_000L, 2_000L);
+        assertThat(points.get(0).getLatitude()).isEqualTo(40.7128);
+        assertThat(points.get(1).getLongitude()).isEqualTo(-74.0050);
+        assertThat(store.read("driver-1", 1_001, 10_000)).hasSize(1);
+    }
+
+    @Test
+    public void sealCoalescesSegments() throws IOException {
+        append("driver-1", 1_000, 40.7128, -74.0060);
+        append("driver-1", 2_000, 40.7130, -74.0050);
+        append("driver-1", SEGMENT_DURATION + 1_000, 40.7132, -74.0040);
+
+        assertThat(store.sealBefore(2 * SEGMENT_DURATION)).isEqualTo(2);
+
+        assertThat(directory.resolve("segment-0.1.sealed")).exists();
+        assertThat(directory.resolve("segment-0.seg")).doesNotExist();
+        // Only one sealed segment stays mapped, so reading both maps them again
+        assertThat(store.read("driver-1", 0, 2 * SEGMENT_DURATION))
+            .extracting(LocationHistoryStore.TrackPoint::getTimestamp)
+            .containsExactly(1_000L, 2_000L, SEGMENT_DURATION + 1_000);
+        assertThat(store.read("driver-2", 0, 2 * SEGMENT_DURATION)).isEmpty();
+    }
+
+    @Test
+    public void mergeLatePointsOnNextSeal() throws IOException {
+        append("driver-1", 2_000, 40.7130, -74.0050);
+        store.sealBefore(SEGMENT_DURATION);
+        append("driver-1", 1_000, 40.7128, -74.0060);
+        append("driver-2", 3_000, 48.8566, 2.3522);
+
+        assertThat(store.read("driver-1", 0, 10_000))
+            .extracting(LocationHistoryStore.TrackPoint::getTimestamp)
+            .containsExactly(1_000L, 2_000L);
+
+        store.sealBefore(SEGMENT_DURATION);
+
+        assertThat(directory.resolve("segment-0.2.sealed")).exists();
+        assertThat(directory.resolve("segment-0.1.sealed")).doesNotExist();
+        assertThat(directory.resolve("segment-0.1.seg")).doesNotExist();
+        assertThat(store.read("driver-1", 0, 10_000))
+            .extracting(LocationHistoryStore.TrackPoint::getTimestamp)
+            .containsExactly(1_000L, 2_000L);
+        assertThat(store.read("driver-2", 0, 10_000)).hasSize(1);
+    }
+
+    @Test
+    public void reopenSealedAndActiveFiles() throws IOException {
+        append("driver-1", 2_000, 40.7130, -74.0050);
+        store.sealBefore(SEGMENT_DURATION);
+        append("driver-1", 1_000, 40.7128, -74.0060);
+        store.close();
+
+        store = new LocationHistoryStore(directory, SEGMENT_DURATION, 1);
+        store.open();
+
+        assertThat(store.getSegmentCount()).isEqualTo(1);
+        assertThat(store.read("driver-1", 0, 10_000))
+            .extracting(LocationHistoryStore.TrackPoint::getTimestamp)
+            .containsExactly(1_000L, 2_000L);
+    }
+
+    @Test
+    public void deleteFilesAlreadyMergedOnOpen() throws IOException {
+        append("driver-1", 1_000, 40.7128, -74.0060);
+        Path active = directory.resolve("segment-0.seg");
+        byte[] merged = Files.readAllBytes(active);
+        store.sealBefore(SEGMENT_DURATION);
+        store.close();
+        // A crash after the sealed file was written leaves the active file behind
+        Files.write(active, merged);
+
+        store = new LocationHistoryStore(directory, SEGMENT_DURATION, 1);
+        store.open();
+
+        assertThat(active).doesNotExist();
+        assertThat(store.read("driver-1", 0, 10_000)).hasSize(1);
+    }
+
+    @Test
+    public void deleteExpiredSegments() throws IOException {
+        append("driver-1", 1_000, 40.7128, -74.0060);
+        append("driver-1", SEGMENT_DURATION + 1_000, 40.7130, -74.0050);
+        store.sealBefore(SEGMENT_DURATION);
+
+        assertThat(store.deleteOlderThan(SEGMENT_DURATION)).isEqualTo(1);
+
+        assertThat(store.getSegmentCount()).isEqualTo(1);
+        assertThat(directory.resolve("segment-0.1.sealed")).doesNotExist();
+        assertThat(store.read("driver-1", 0, 2 * SEGMENT_DURATION)).hasSize(1);
+    }
+
+    private void append(String key, long timestamp, double latitude, double longitude) throws IOException {
+        store.append(key, new long[] {timestamp}, new double[] {latitude}, new double[] {longitude}, 1);
+    }
+}
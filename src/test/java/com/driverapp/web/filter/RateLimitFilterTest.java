@@ -0,0 +1,145 @@
+package com.driverapp.web.filter;
+
+import com.driverapp.config.ApplicationProperties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.problem.ProblemModule;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RateLimitFilter}.
+ */
+public class RateLimitFilterTest {
+
+    private static final String PATH = "/api/drivers-phonenumber-capture";
+
+    private MeterRegistry meterRegistry;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.RateLimitEndpoint endpoint = new ApplicationProperties.RateLimitEndpoint();
+        endpoint.setPath(PATH);
+        endpoint.setKeyField("phoneNumber");
+        endpoint.setKeyCapacity(2);
+        endpoint.setKeyPeriod(600);
+        endpoint.setIpCapacity(3);
+        endpoint.setIpPeriod(60);
+        applicationProperties.getRateLimit().getEndpoints().put("drivers-phonenumber-capture", endpoint);
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitFilter = new RateLimitFilter(applicationProperties, new ObjectMapper().registerModule(new ProblemModule()),
+            meterRegistry);
+    }
+
+    @Test
+    public void limitsRequestsByKey() throws Exception {
+        assertThat(post("1.1.1.1", "+14010000000").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(post("2.2.2.2", "+14010000000").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse response = post("3.3.3.3", "+14010000000");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("300");
+        assertThat(response.getContentAsString()).contains("error.http.429");
+        assertThat(post("3.3.3.3", "+14010000001").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(meterRegistry.get("driverapp.rate.limit").tag("result", "rejected-key").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void limitsRequestsByIp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(post("1.1.1.1", "+1401000000" + i).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        MockHttpServletResponse response = post("1.1.1.1", "+14010000009");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("20");
+        assertThat(meterRegistry.get("driverapp.rate.limit").tag("result", "rejected-ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void limitsForwardedClientsOfTrustedProxies() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = request("10.0.0.1", "+1401000000" + i);
+            request.addHeader("X-Forwarded-For", "1.1.1.1, 10.0.0.2");
+            assertThat(post(request).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        MockHttpServletRequest otherClient = request("10.0.0.1", "+14010000005");
+        otherClient.addHeader("X-Forwarded-For", "2.2.2.2");
+        assertThat(post(otherClient).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        // The header of a client reaching the server directly is ignored
+        MockHttpServletRequest spoofed = request("1.1.1.1", "+14010000006");
+        spoofed.addHeader("X-Forwarded-For", "3.3.3.3");
+
+        assertThat(post(spoofed).getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    public void rejectsLargeBodiesBeforeBufferingThem() throws Exception {
+        StringBuilder phoneNumber = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            phoneNumber.append('0');
+        }
+
+        MockHttpServletResponse response = post("1.1.1.1", phoneNumber.toString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(meterRegistry.get("driverapp.rate.limit").tag("result", "rejected-size").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void passesTheBodyToTheEndpoint() throws Exception {
+        MockHttpServletRequest request = request("1.1.1.1", "+14010000000");
+        MockFilterChain filterChain = new MockFilterChain();
+
+        rateLimitFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        byte[] body = new byte[64];
+        int length = filterChain.getRequest().getInputStream().read(body);
+        assertThat(new String(body, 0, length, StandardCharsets.UTF_8)).isEqualTo("{\"phoneNumber\":\"+14010000000\"}");
+    }
+
+    @Test
+    public void ignoresOtherRequests() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request("1.1.1.1", "+14010000000");
+            request.setMethod("GET");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            rateLimitFilter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    private MockHttpServletResponse post(String ip, String phoneNumber) throws Exception {
+        return post(request(ip, phoneNumber));
+    }
+
+    private MockHttpServletResponse post(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String ip, String phoneNumber) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.setRemoteAddr(ip);
+        request.setContent(("{\"phoneNumber\":\"" + phoneNumber + "\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
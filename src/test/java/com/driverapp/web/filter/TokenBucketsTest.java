@@ -0,0 +1,67 @@
+package com.driverapp.web.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link TokenBuckets}.
+ */
+public class TokenBucketsTest {
+
+    private static final long PERIOD = TimeUnit.SECONDS.toNanos(60);
+
+    @Test
+    public void takesTokensUntilEmpty() {
+        TokenBuckets buckets = new TokenBuckets(4, PERIOD, 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(buckets.tryAcquire("a", 3, PERIOD, 0)).isZero();
+        }
+
+        assertThat(buckets.tryAcquire("a", 3, PERIOD, 0)).isEqualTo(PERIOD / 3);
+        assertThat(buckets.tryAcquire("b", 3, PERIOD, 0)).isZero();
+    }
+
+    @Test
+    public void refillsOverThePeriod() {
+        TokenBuckets buckets = new TokenBuckets(4, PERIOD, 0);
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire("a", 3, PERIOD, 0);
+        }
+
+        assertThat(buckets.tryAcquire("a", 3, PERIOD, PERIOD / 3 - 1)).isEqualTo(1);
+        assertThat(buckets.tryAcquire("a", 3, PERIOD, PERIOD / 3)).isZero();
+        assertThat(buckets.tryAcquire("a", 3, PERIOD, PERIOD / 3)).isGreaterThan(0);
+    }
+
+    @Test
+    public void evictsFullBuckets() {
+        TokenBuckets buckets = new TokenBuckets(4, PERIOD, 0);
+        buckets.tryAcquire("a", 3, PERIOD, 0);
+        buckets.tryAcquire("b", 3, PERIOD, PERIOD / 2);
+
+        buckets.sweep(PERIOD / 3);
+
+        assertThat(buckets.size()).isEqualTo(1);
+        for (int i = 0; i < 3; i++) {
+            assertThat(buckets.tryAcquire("a", 3, PERIOD, PERIOD / 3)).isZero();
+        }
+    }
+
+    @Test
+    public void sweepsOneStripeAtATime() {
+        TokenBuckets buckets = new TokenBuckets(4, PERIOD, 0);
+        for (int i = 0; i < 100; i++) {
+            buckets.tryAcquire("key" + i, 3, PERIOD, 0);
+        }
+
+        for (int stripe = 1; stripe <= 4; stripe++) {
+            buckets.tryAcquire("other", 3, PERIOD, PERIOD + stripe * PERIOD / 4);
+        }
+
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+}
@@ -4,14 +4,23 @@ import com.driverapp.DriverApp;
 import com.driverapp.domain.Business;
 import com.driverapp.repository.BusinessRepository;
 import com.driverapp.repository.search.BusinessSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.cache.EntityTagService;
+import com.driverapp.service.dto.BusinessDTO;
+import com.driverapp.service.mapper.BusinessMapper;
 import com.driverapp.web.rest.errors.ExceptionTranslator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
@@ -26,6 +35,7 @@ import static com.driverapp.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -51,6 +61,9 @@ public class BusinessResourceIT {
     @Autowired
     private BusinessRepository businessRepository;
 
+    @Autowired
+    private BusinessMapper businessMapper;
+
     /**
      * This repository is mocked in the com.driverapp.repository.search test package.
      *
@@ -62,6 +75,15 @@ public class BusinessResourceIT {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private EntityTagService entityTagService;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -78,7 +100,7 @@ public class BusinessResourceIT {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final BusinessResource businessResource = new BusinessResource(businessRepository, mockBusinessSearchRepository);
+        final BusinessResource businessResource = new BusinessResource(businessRepository, businessMapper, mockBusinessSearchRepository, objectMapper, searchResultCache, entityTagService);
         this.restBusinessMockMvc = MockMvcBuilders.standaloneSetup(businessResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -127,9 +149,10 @@ public class BusinessResourceIT {
         int databaseSizeBeforeCreate = businessRepository.findAll().size();
 
         // Create the Business
+        BusinessDTO businessDTO = businessMapper.toDto(business);
         restBusinessMockMvc.perform(post("/api/businesses")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(business)))
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
             .andExpect(status().isCreated());
 
         // Validate the Business in the database
@@ -140,9 +163,6 @@ public class BusinessResourceIT {
         assertThat(testBusiness.getType()).isEqualTo(DEFAULT_TYPE);
         assertThat(testBusiness.getAddress()).isEqualTo(DEFAULT_ADDRESS);
         assertThat(testBusiness.getPhoneNumber()).isEqualTo(DEFAULT_PHONE_NUMBER);
-
-        // Validate the Business in Elasticsearch
-        verify(mockBusinessSearchRepository, times(1)).save(testBusiness);
     }
 
     @Test
@@ -153,9 +173,10 @@ public class BusinessResourceIT {
         business.setId("existing_id");
 
         // An entity with an existing ID cannot be created, so this API call must fail
+        BusinessDTO businessDTO = businessMapper.toDto(business);
         restBusinessMockMvc.perform(post("/api/businesses")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(business)))
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Business in the database
@@ -174,10 +195,11 @@ public class BusinessResourceIT {
         business.setName(null);
 
         // Create the Business, which fails.
+        BusinessDTO businessDTO = businessMapper.toDto(business);
 
         restBusinessMockMvc.perform(post("/api/businesses")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(business)))
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
             .andExpect(status().isBadRequest());
 
         List<Business> businessList = businessRepository.findAll();
@@ -191,10 +213,11 @@ public class BusinessResourceIT {
         business.setType(null);
 
         // Create the Business, which fails.
+        BusinessDTO businessDTO = businessMapper.toDto(business);
 
         restBusinessMockMvc.perform(post("/api/businesses")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(business)))
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
             .andExpect(status().isBadRequest());
 
         List<Business> businessList = businessRepository.findAll();
@@ -208,10 +231,11 @@ public class BusinessResourceIT {
         business.setAddress(null);
 
         // Create the Business, which fails.
+        BusinessDTO businessDTO = businessMapper.toDto(business);
 
         restBusinessMockMvc.perform(post("/api/businesses")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(business)))
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
             .andExpect(status().isBadRequest());
 
         List<Business> businessList = businessRepository.findAll();
@@ -234,6 +258,28 @@ public class BusinessResourceIT {
             .andExpect(jsonPath("$.[*].phoneNumber").value(hasItem(DEFAULT_PHONE_NUMBER.toString())));
     }
     
+    @Test
+    public void getAllBusinessesNotModifiedUntilUpdated() throws Exception {
+        // Initialize the database
+        businessRepository.save(business);
+
+        String tag = restBusinessMockMvc.perform(get("/api/businesses"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        restBusinessMockMvc.perform(get("/api/businesses").header(HttpHeaders.IF_NONE_MATCH, tag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        businessRepository.save(business.name(UPDATED_NAME));
+
+        restBusinessMockMvc.perform(get("/api/businesses").header(HttpHeaders.IF_NONE_MATCH, tag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(tag)))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(UPDATED_NAME)));
+    }
+
     @Test
     public void getBusiness() throws Exception {
         // Initialize the database
@@ -272,9 +318,10 @@ public class BusinessResourceIT {
             .address(UPDATED_ADDRESS)
             .phoneNumber(UPDATED_PHONE_NUMBER);
 
+        BusinessDTO businessDTO = businessMapper.toDto(updatedBusiness);
         restBusinessMockMvc.perform(put("/api/businesses")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(updatedBusiness)))
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
             .andExpect(status().isOk());
 
         // Validate the Business in the database
@@ -285,9 +332,6 @@ public class BusinessResourceIT {
         assertThat(testBusiness.getType()).isEqualTo(UPDATED_TYPE);
         assertThat(testBusiness.getAddress()).isEqualTo(UPDATED_ADDRESS);
         assertThat(testBusiness.getPhoneNumber()).isEqualTo(UPDATED_PHONE_NUMBER);
-
-        // Validate the Business in Elasticsearch
-        verify(mockBusinessSearchRepository, times(1)).save(testBusiness);
     }
 
     @Test
@@ -297,9 +341,10 @@ public class BusinessResourceIT {
         // Create the Business
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        BusinessDTO businessDTO = businessMapper.toDto(business);
         restBusinessMockMvc.perform(put("/api/businesses")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(business)))
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Business in the database
@@ -325,21 +370,19 @@ public class BusinessResourceIT {
         // Validate the database contains one less item
         List<Business> businessList = businessRepository.findAll();
         assertThat(businessList).hasSize(databaseSizeBeforeDelete - 1);
-
-        // Validate the Business in Elasticsearch
-        verify(mockBusinessSearchRepository, times(1)).deleteById(business.getId());
     }
 
     @Test
     public void searchBusiness() throws Exception {
         // Initialize the database
         businessRepository.save(business);
-        when(mockBusinessSearchRepository.search(queryStringQuery("id:" + business.getId())))
-            .thenReturn(Collections.singletonList(business));
+        when(mockBusinessSearchRepository.search(eq(queryStringQuery("id:" + business.getId())), any(Pageable.class), eq(BusinessDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(business), PageRequest.of(0, 1), 1));
         // Search the business
         restBusinessMockMvc.perform(get("/api/_search/businesses?query=id:" + business.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
             .andExpect(jsonPath("$.[*].id").value(hasItem(business.getId())))
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
             .andExpect(jsonPath("$.[*].type").value(hasItem(DEFAULT_TYPE)))
@@ -347,6 +390,32 @@ public class BusinessResourceIT {
             .andExpect(jsonPath("$.[*].phoneNumber").value(hasItem(DEFAULT_PHONE_NUMBER)));
     }
 
+    @Test
+    public void searchBusinessFromCacheUntilUpdated() throws Exception {
+        // Initialize the database
+        businessRepository.save(business);
+        when(mockBusinessSearchRepository.search(eq(queryStringQuery("name:" + business.getId())), any(Pageable.class), eq(BusinessDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(business), PageRequest.of(0, 1), 1));
+
+        restBusinessMockMvc.perform(get("/api/_search/businesses?query=name:" + business.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(business.getId())));
+        restBusinessMockMvc.perform(get("/api/_search/businesses?query= name:" + business.getId() + " "))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(business.getId())));
+        verify(mockBusinessSearchRepository, times(1)).search(any(), any(Pageable.class), eq(BusinessDTO.class));
+
+        BusinessDTO businessDTO = businessMapper.toDto(business.name(UPDATED_NAME));
+        restBusinessMockMvc.perform(put("/api/businesses")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(businessDTO)))
+            .andExpect(status().isOk());
+
+        restBusinessMockMvc.perform(get("/api/_search/businesses?query=name:" + business.getId()))
+            .andExpect(status().isOk());
+        verify(mockBusinessSearchRepository, times(2)).search(any(), any(Pageable.class), eq(BusinessDTO.class));
+    }
+
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Business.class);
@@ -360,4 +429,19 @@ public class BusinessResourceIT {
         business1.setId(null);
         assertThat(business1).isNotEqualTo(business2);
     }
+
+    @Test
+    public void dtoEqualsVerifier() throws Exception {
+        TestUtil.equalsVerifier(BusinessDTO.class);
+        BusinessDTO businessDTO1 = new BusinessDTO();
+        businessDTO1.setId("id1");
+        BusinessDTO businessDTO2 = new BusinessDTO();
+        assertThat(businessDTO1).isNotEqualTo(businessDTO2);
+        businessDTO2.setId(businessDTO1.getId());
+        assertThat(businessDTO1).isEqualTo(businessDTO2);
+        businessDTO2.setId("id2");
+        assertThat(businessDTO1).isNotEqualTo(businessDTO2);
+        businessDTO1.setId(null);
+        assertThat(businessDTO1).isNotEqualTo(businessDTO2);
+    }
 }
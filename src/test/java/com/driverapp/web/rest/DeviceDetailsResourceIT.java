@@ -4,13 +4,20 @@ import com.driverapp.DriverApp;
 import com.driverapp.domain.DeviceDetails;
 import com.driverapp.repository.DeviceDetailsRepository;
 import com.driverapp.repository.search.DeviceDetailsSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.DeviceDetailsDTO;
+import com.driverapp.service.mapper.DeviceDetailsMapper;
 import com.driverapp.web.rest.errors.ExceptionTranslator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -42,6 +49,9 @@ public class DeviceDetailsResourceIT {
     @Autowired
     private DeviceDetailsRepository deviceDetailsRepository;
 
+    @Autowired
+    private DeviceDetailsMapper deviceDetailsMapper;
+
     /**
      * This repository is mocked in the com.driverapp.repository.search test package.
      *
@@ -53,6 +63,12 @@ public class DeviceDetailsResourceIT {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -69,7 +85,7 @@ public class DeviceDetailsResourceIT {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final DeviceDetailsResource deviceDetailsResource = new DeviceDetailsResource(deviceDetailsRepository, mockDeviceDetailsSearchRepository);
+        final DeviceDetailsResource deviceDetailsResource = new DeviceDetailsResource(deviceDetailsRepository, deviceDetailsMapper, mockDeviceDetailsSearchRepository, objectMapper, searchResultCache);
         this.restDeviceDetailsMockMvc = MockMvcBuilders.standaloneSetup(deviceDetailsResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -112,9 +128,10 @@ public class DeviceDetailsResourceIT {
         int databaseSizeBeforeCreate = deviceDetailsRepository.findAll().size();
 
         // Create the DeviceDetails
+        DeviceDetailsDTO deviceDetailsDTO = deviceDetailsMapper.toDto(deviceDetails);
         restDeviceDetailsMockMvc.perform(post("/api/device-details")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(deviceDetails)))
+            .content(TestUtil.convertObjectToJsonBytes(deviceDetailsDTO)))
             .andExpect(status().isCreated());
 
         // Validate the DeviceDetails in the database
@@ -122,9 +139,6 @@ public class DeviceDetailsResourceIT {
         assertThat(deviceDetailsList).hasSize(databaseSizeBeforeCreate + 1);
         DeviceDetails testDeviceDetails = deviceDetailsList.get(deviceDetailsList.size() - 1);
         assertThat(testDeviceDetails.getDeviceId()).isEqualTo(DEFAULT_DEVICE_ID);
-
-        // Validate the DeviceDetails in Elasticsearch
-        verify(mockDeviceDetailsSearchRepository, times(1)).save(testDeviceDetails);
     }
 
     @Test
@@ -135,9 +149,10 @@ public class DeviceDetailsResourceIT {
         deviceDetails.setId("existing_id");
 
         // An entity with an existing ID cannot be created, so this API call must fail
+        DeviceDetailsDTO deviceDetailsDTO = deviceDetailsMapper.toDto(deviceDetails);
         restDeviceDetailsMockMvc.perform(post("/api/device-details")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(deviceDetails)))
+            .content(TestUtil.convertObjectToJsonBytes(deviceDetailsDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the DeviceDetails in the database
@@ -156,10 +171,11 @@ public class DeviceDetailsResourceIT {
         deviceDetails.setDeviceId(null);
 
         // Create the DeviceDetails, which fails.
+        DeviceDetailsDTO deviceDetailsDTO = deviceDetailsMapper.toDto(deviceDetails);
 
         restDeviceDetailsMockMvc.perform(post("/api/device-details")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(deviceDetails)))
+            .content(TestUtil.convertObjectToJsonBytes(deviceDetailsDTO)))
             .andExpect(status().isBadRequest());
 
         List<DeviceDetails> deviceDetailsList = deviceDetailsRepository.findAll();
@@ -211,9 +227,10 @@ public class DeviceDetailsResourceIT {
         updatedDeviceDetails
             .deviceId(UPDATED_DEVICE_ID);
 
+        DeviceDetailsDTO deviceDetailsDTO = deviceDetailsMapper.toDto(updatedDeviceDetails);
         restDeviceDetailsMockMvc.perform(put("/api/device-details")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(updatedDeviceDetails)))
+            .content(TestUtil.convertObjectToJsonBytes(deviceDetailsDTO)))
             .andExpect(status().isOk());
 
         // Validate the DeviceDetails in the database
@@ -221,9 +238,6 @@ public class DeviceDetailsResourceIT {
         assertThat(deviceDetailsList).hasSize(databaseSizeBeforeUpdate);
         DeviceDetails testDeviceDetails = deviceDetailsList.get(deviceDetailsList.size() - 1);
         assertThat(testDeviceDetails.getDeviceId()).isEqualTo(UPDATED_DEVICE_ID);
-
-        // Validate the DeviceDetails in Elasticsearch
-        verify(mockDeviceDetailsSearchRepository, times(1)).save(testDeviceDetails);
     }
 
     @Test
@@ -233,9 +247,10 @@ public class DeviceDetailsResourceIT {
         // Create the DeviceDetails
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        DeviceDetailsDTO deviceDetailsDTO = deviceDetailsMapper.toDto(deviceDetails);
         restDeviceDetailsMockMvc.perform(put("/api/device-details")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(deviceDetails)))
+            .content(TestUtil.convertObjectToJsonBytes(deviceDetailsDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the DeviceDetails in the database
@@ -261,21 +276,19 @@ public class DeviceDetailsResourceIT {
         // Validate the database contains one less item
         List<DeviceDetails> deviceDetailsList = deviceDetailsRepository.findAll();
         assertThat(deviceDetailsList).hasSize(databaseSizeBeforeDelete - 1);
-
-        // Validate the DeviceDetails in Elasticsearch
-        verify(mockDeviceDetailsSearchRepository, times(1)).deleteById(deviceDetails.getId());
     }
 
     @Test
     public void searchDeviceDetails() throws Exception {
         // Initialize the database
         deviceDetailsRepository.save(deviceDetails);
-        when(mockDeviceDetailsSearchRepository.search(queryStringQuery("id:" + deviceDetails.getId())))
-            .thenReturn(Collections.singletonList(deviceDetails));
+        when(mockDeviceDetailsSearchRepository.search(eq(queryStringQuery("id:" + deviceDetails.getId())), any(Pageable.class), eq(DeviceDetailsDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(deviceDetails), PageRequest.of(0, 1), 1));
         // Search the deviceDetails
         restDeviceDetailsMockMvc.perform(get("/api/_search/device-details?query=id:" + deviceDetails.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
             .andExpect(jsonPath("$.[*].id").value(hasItem(deviceDetails.getId())))
             .andExpect(jsonPath("$.[*].deviceId").value(hasItem(DEFAULT_DEVICE_ID)));
     }
@@ -293,4 +306,19 @@ public class DeviceDetailsResourceIT {
         deviceDetails1.setId(null);
         assertThat(deviceDetails1).isNotEqualTo(deviceDetails2);
     }
+
+    @Test
+    public void dtoEqualsVerifier() throws Exception {
+        TestUtil.equalsVerifier(DeviceDetailsDTO.class);
+        DeviceDetailsDTO deviceDetailsDTO1 = new DeviceDetailsDTO();
+        deviceDetailsDTO1.setId("id1");
+        DeviceDetailsDTO deviceDetailsDTO2 = new DeviceDetailsDTO();
+        assertThat(deviceDetailsDTO1).isNotEqualTo(deviceDetailsDTO2);
+        deviceDetailsDTO2.setId(deviceDetailsDTO1.getId());
+        assertThat(deviceDetailsDTO1).isEqualTo(deviceDetailsDTO2);
+        deviceDetailsDTO2.setId("id2");
+        assertThat(deviceDetailsDTO1).isNotEqualTo(deviceDetailsDTO2);
+        deviceDetailsDTO1.setId(null);
+        assertThat(deviceDetailsDTO1).isNotEqualTo(deviceDetailsDTO2);
+    }
 }
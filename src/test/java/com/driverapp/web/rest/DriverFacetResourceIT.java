@@ -0,0 +1,126 @@
+package com.driverapp.web.rest;
+
+import com.driverapp.DriverApp;
+import com.driverapp.domain.Driver;
+import com.driverapp.domain.enumeration.Status;
+import com.driverapp.repository.search.DriverSearchRepository;
+import com.driverapp.service.DriverFacetService;
+import com.driverapp.service.dto.DriverSummaryDTO;
+import com.driverapp.web.rest.errors.ExceptionTranslator;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.driverapp.web.rest.TestUtil.createFormattingConversionService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link DriverFacetResource} REST controller.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class DriverFacetResourceIT {
+
+    /**
+     * This repository is mocked in the com.driverapp.repository.search test package.
+     *
+     * @see com.driverapp.repository.search.DriverSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private DriverSearchRepository mockDriverSearchRepository;
+
+    @Autowired
+    private DriverFacetService driverFacetService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restDriverFacetMockMvc;
+
+    private Driver driver;
+
+    private Map<String, Map<String, Long>> facets;
+
+    @BeforeEach
+    public void setup() {
+        DriverFacetResource driverFacetResource = new DriverFacetResource(driverFacetService);
+        this.restDriverFacetMockMvc = MockMvcBuilders.standaloneSetup(driverFacetResource)
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+        driver = new Driver().firstName("Jane").lastName("Doe").status(Status.CONFIRMED);
+        driver.setId("faceted");
+        facets = new LinkedHashMap<>();
+        facets.put("status", Collections.singletonMap("CONFIRMED", 3L));
+        facets.put("vehicleType", Collections.singletonMap("VAN", 2L));
+    }
+
+    @Test
+    public void searchDriverFacets() throws Exception {
+        when(mockDriverSearchRepository.search(any(QueryBuilder.class), any(Pageable.class), eq(DriverSummaryDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(driver), PageRequest.of(0, 20), 3));
+        when(mockDriverSearchRepository.countTerms(any(QueryBuilder.class), anyMap(), anyInt())).thenReturn(facets);
+
+        restDriverFacetMockMvc.perform(get("/api/_search/drivers/facets?query=lastName:Doe&status=CONFIRMED&vehicleType=VAN&heavyTransport=true"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(jsonPath("$.drivers.[0].id").value("faceted"))
+            .andExpect(jsonPath("$.drivers.[0].status").value("CONFIRMED"))
+            .andExpect(jsonPath("$.facets.status.CONFIRMED").value(3))
+            .andExpect(jsonPath("$.facets.vehicleType.VAN").value(2));
+
+        ArgumentCaptor<QueryBuilder> query = ArgumentCaptor.forClass(QueryBuilder.class);
+        verify(mockDriverSearchRepository).countTerms(query.capture(), anyMap(), anyInt());
+        assertThat(query.getValue().toString())
+            .contains("lastName:Doe", "\"status\"", "CONFIRMED", "\"cars.type\"", "VAN", "\"cars.supportHeavyTransport\"");
+    }
+
+    @Test
+    public void searchDriverFacetsCountsFromCache() throws Exception {
+        when(mockDriverSearchRepository.search(any(QueryBuilder.class), any(Pageable.class), eq(DriverSummaryDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(driver), PageRequest.of(0, 20), 3));
+        when(mockDriverSearchRepository.countTerms(any(QueryBuilder.class), anyMap(), anyInt())).thenReturn(facets);
+
+        restDriverFacetMockMvc.perform(get("/api/_search/drivers/facets?query=firstName:Cached&serviceType=Airport"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.facets.status.CONFIRMED").value(3));
+        restDriverFacetMockMvc.perform(get("/api/_search/drivers/facets?query=firstName:Cached&serviceType=Airport&page=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.facets.status.CONFIRMED").value(3));
+
+        verify(mockDriverSearchRepository, times(2)).search(any(QueryBuilder.class), any(Pageable.class), eq(DriverSummaryDTO.class));
+        verify(mockDriverSearchRepository, times(1)).countTerms(any(QueryBuilder.class), anyMap(), anyInt());
+    }
+
+    @Test
+    public void searchDriverFacetsBeyondResultWindow() throws Exception {
+        restDriverFacetMockMvc.perform(get("/api/_search/drivers/facets?page=500&size=20"))
+            .andExpect(status().isBadRequest());
+
+        verify(mockDriverSearchRepository, never()).countTerms(any(QueryBuilder.class), anyMap(), anyInt());
+    }
+}
@@ -2,33 +2,63 @@ package com.driverapp.web.rest;
 
 import com.driverapp.DriverApp;
 import com.driverapp.domain.Driver;
+import com.driverapp.domain.Location;
+import com.driverapp.domain.Vehicle;
 import com.driverapp.repository.DeviceDetailsRepository;
 import com.driverapp.repository.DriverRepository;
+import com.driverapp.repository.LocationRepository;
+import com.driverapp.repository.OneTimeCodeRepository;
+import com.driverapp.repository.VehicleRepository;
 import com.driverapp.repository.search.DriverSearchRepository;
+import com.driverapp.service.dto.DriverDTO;
+import com.driverapp.service.dto.DriverSummaryDTO;
+import com.driverapp.service.mapper.DriverMapper;
+import com.driverapp.service.DriverGraphLoader;
+import com.driverapp.service.LiveDriverLocationService;
+import com.driverapp.service.LocationHistoryService;
+import com.driverapp.service.NearbyDriverService;
+import com.driverapp.service.OneTimeCodeService;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.cache.EntityTagService;
+import com.driverapp.service.dto.LocationPingDTO;
 import com.driverapp.web.rest.errors.ExceptionTranslator;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.Validator;
 
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static com.driverapp.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -81,6 +111,9 @@ public class DriverResourceIT {
     @Autowired
     private DriverRepository driverRepository;
 
+    @Autowired
+    private DriverMapper driverMapper;
+
     /**
      * This repository is mocked in the com.driverapp.repository.search test package.
      *
@@ -92,6 +125,21 @@ public class DriverResourceIT {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private EntityTagService entityTagService;
+
+    @Autowired
+    private OneTimeCodeService oneTimeCodeService;
+
+    @Autowired
+    private OneTimeCodeRepository oneTimeCodeRepository;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -101,6 +149,24 @@ public class DriverResourceIT {
     @Autowired
     private DeviceDetailsRepository deviceDetailsRepository;
 
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private NearbyDriverService nearbyDriverService;
+
+    @Autowired
+    private LiveDriverLocationService liveDriverLocationService;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Autowired
+    private DriverGraphLoader driverGraphLoader;
+
     @Autowired
     private Validator validator;
 
@@ -111,7 +177,7 @@ public class DriverResourceIT {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final DriverResource driverResource = new DriverResource(driverRepository, mockDriverSearchRepository,deviceDetailsRepository);
+        final DriverResource driverResource = new DriverResource(driverRepository, driverMapper, mockDriverSearchRepository,deviceDetailsRepository, nearbyDriverService, liveDriverLocationService, locationHistoryService, driverGraphLoader, objectMapper, searchResultCache, entityTagService, oneTimeCodeService);
         this.restDriverMockMvc = MockMvcBuilders.standaloneSetup(driverResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -176,10 +242,14 @@ public class DriverResourceIT {
         int databaseSizeBeforeCreate = driverRepository.findAll().size();
 
         // Create the Driver
+        DriverDTO driverDTO = driverMapper.toDto(driver);
+        driverDTO.setPassword(DEFAULT_PASSWORD);
         restDriverMockMvc.perform(post("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(driver)))
-            .andExpect(status().isCreated());
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.password").doesNotExist())
+            .andExpect(jsonPath("$.oneTimeCode").doesNotExist());
 
         // Validate the Driver in the database
         List<Driver> driverList = driverRepository.findAll();
@@ -191,15 +261,55 @@ public class DriverResourceIT {
         assertThat(testDriver.getPassword()).isEqualTo(DEFAULT_PASSWORD);
         assertThat(testDriver.getPhoneNumber()).isEqualTo(DEFAULT_PHONE_NUMER);
         assertThat(testDriver.getStatus()).isEqualTo(DEFAULT_STATUS);
-        assertThat(testDriver.getOneTimeCode()).isEqualTo(DEFAULT_ONE_TIME_CODE);
-        assertThat(testDriver.getOneTimeExpirationTime()).isEqualTo(DEFAULT_ONE_TIME_EXPIRATION_TIME);
+        assertThat(testDriver.getOneTimeCode()).isNull();
+        assertThat(testDriver.getOneTimeExpirationTime()).isNull();
         assertThat(testDriver.getDriverLicense()).isEqualTo(DEFAULT_DRIVER_LICENSE);
         assertThat(testDriver.getPhoneType()).isEqualTo(DEFAULT_PHONE_TYPE);
         assertThat(testDriver.isDuiConviction()).isEqualTo(DEFAULT_DUI_CONVICTION);
         assertThat(testDriver.isFelonyConviction()).isEqualTo(DEFAULT_FELONY_CONVICTION);
+    }
 
-        // Validate the Driver in Elasticsearch
-        verify(mockDriverSearchRepository, times(1)).save(testDriver);
+    @Test
+    public void verifyDriverWithOneTimeCode() throws Exception {
+        DriverDTO driverDTO = driverMapper.toDto(driver);
+        String response = restDriverMockMvc.perform(post("/api/drivers-phonenumber-capture")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.status").value(Status.INVITED.toString()))
+            .andExpect(jsonPath("$.oneTimeCode").doesNotExist())
+            .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(response).get("id").asText();
+
+        // The code is kept out of the driver document
+        assertThat(driverRepository.findById(id).get().getOneTimeCode()).isNull();
+        String code = oneTimeCodeRepository.findById(id).get().getCode();
+        String wrong = code.equals("999999") ? "100000" : "999999";
+
+        restDriverMockMvc.perform(post("/api/drivers-verify-token")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(verification(id, wrong))))
+            .andExpect(status().isBadRequest());
+        assertThat(driverRepository.findById(id).get().getStatus()).isEqualTo(Status.INVITED);
+
+        restDriverMockMvc.perform(post("/api/drivers-verify-token")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(verification(id, code))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.status").value(Status.CONFIRMED.toString()));
+        assertThat(oneTimeCodeRepository.existsById(id)).isFalse();
+
+        restDriverMockMvc.perform(post("/api/drivers-verify-token")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(verification(id, code))))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static Map<String, String> verification(String id, String oneTimeCode) {
+        Map<String, String> verification = new HashMap<>();
+        verification.put("id", id);
+        verification.put("oneTimeCode", oneTimeCode);
+        return verification;
     }
 
     @Test
@@ -210,9 +320,10 @@ public class DriverResourceIT {
         driver.setId("existing_id");
 
         // An entity with an existing ID cannot be created, so this API call must fail
+        DriverDTO driverDTO = driverMapper.toDto(driver);
         restDriverMockMvc.perform(post("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(driver)))
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Driver in the database
@@ -231,10 +342,11 @@ public class DriverResourceIT {
         driver.setFirstName(null);
 
         // Create the Driver, which fails.
+        DriverDTO driverDTO = driverMapper.toDto(driver);
 
         restDriverMockMvc.perform(post("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(driver)))
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
             .andExpect(status().isBadRequest());
 
         List<Driver> driverList = driverRepository.findAll();
@@ -248,10 +360,11 @@ public class DriverResourceIT {
         driver.setLastName(null);
 
         // Create the Driver, which fails.
+        DriverDTO driverDTO = driverMapper.toDto(driver);
 
         restDriverMockMvc.perform(post("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(driver)))
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
             .andExpect(status().isBadRequest());
 
         List<Driver> driverList = driverRepository.findAll();
@@ -265,10 +378,11 @@ public class DriverResourceIT {
         driver.setEmail(null);
 
         // Create the Driver, which fails.
+        DriverDTO driverDTO = driverMapper.toDto(driver);
 
         restDriverMockMvc.perform(post("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(driver)))
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
             .andExpect(status().isBadRequest());
 
         List<Driver> driverList = driverRepository.findAll();
@@ -282,10 +396,11 @@ public class DriverResourceIT {
         driver.setDriverLicense(null);
 
         // Create the Driver, which fails.
+        DriverDTO driverDTO = driverMapper.toDto(driver);
 
         restDriverMockMvc.perform(post("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(driver)))
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
             .andExpect(status().isBadRequest());
 
         List<Driver> driverList = driverRepository.findAll();
@@ -305,15 +420,15 @@ public class DriverResourceIT {
             .andExpect(jsonPath("$.[*].firstName").value(hasItem(DEFAULT_FIRST_NAME.toString())))
             .andExpect(jsonPath("$.[*].lastName").value(hasItem(DEFAULT_LAST_NAME.toString())))
             .andExpect(jsonPath("$.[*].email").value(hasItem(DEFAULT_EMAIL.toString())))
-            .andExpect(jsonPath("$.[*].password").value(hasItem(DEFAULT_PASSWORD.toString())))
             .andExpect(jsonPath("$.[*].phoneNumber").value(hasItem(DEFAULT_PHONE_NUMER.toString())))
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())))
-            .andExpect(jsonPath("$.[*].oneTimeCode").value(hasItem(DEFAULT_ONE_TIME_CODE.toString())))
-            .andExpect(jsonPath("$.[*].oneTimeExpirationTime").value(hasItem(DEFAULT_ONE_TIME_EXPIRATION_TIME.toString())))
             .andExpect(jsonPath("$.[*].driverLicense").value(hasItem(DEFAULT_DRIVER_LICENSE.toString())))
             .andExpect(jsonPath("$.[*].phoneType").value(hasItem(DEFAULT_PHONE_TYPE.toString())))
             .andExpect(jsonPath("$.[*].duiConviction").value(hasItem(DEFAULT_DUI_CONVICTION.booleanValue())))
-            .andExpect(jsonPath("$.[*].felonyConviction").value(hasItem(DEFAULT_FELONY_CONVICTION.booleanValue())));
+            .andExpect(jsonPath("$.[*].felonyConviction").value(hasItem(DEFAULT_FELONY_CONVICTION.booleanValue())))
+            .andExpect(jsonPath("$.[*].password").isEmpty())
+            .andExpect(jsonPath("$.[*].oneTimeCode").isEmpty())
+            .andExpect(jsonPath("$.[*].location").isEmpty());
     }
     
     @Test
@@ -329,15 +444,62 @@ public class DriverResourceIT {
             .andExpect(jsonPath("$.firstName").value(DEFAULT_FIRST_NAME.toString()))
             .andExpect(jsonPath("$.lastName").value(DEFAULT_LAST_NAME.toString()))
             .andExpect(jsonPath("$.email").value(DEFAULT_EMAIL.toString()))
-            .andExpect(jsonPath("$.password").value(DEFAULT_PASSWORD.toString()))
             .andExpect(jsonPath("$.phoneNumber").value(DEFAULT_PHONE_NUMER.toString()))
             .andExpect(jsonPath("$.status").value(DEFAULT_STATUS.toString()))
-            .andExpect(jsonPath("$.oneTimeCode").value(DEFAULT_ONE_TIME_CODE.toString()))
-            .andExpect(jsonPath("$.oneTimeExpirationTime").value(DEFAULT_ONE_TIME_EXPIRATION_TIME.toString()))
             .andExpect(jsonPath("$.driverLicense").value(DEFAULT_DRIVER_LICENSE.toString()))
             .andExpect(jsonPath("$.phoneType").value(DEFAULT_PHONE_TYPE.toString()))
             .andExpect(jsonPath("$.duiConviction").value(DEFAULT_DUI_CONVICTION.booleanValue()))
-            .andExpect(jsonPath("$.felonyConviction").value(DEFAULT_FELONY_CONVICTION.booleanValue()));
+            .andExpect(jsonPath("$.felonyConviction").value(DEFAULT_FELONY_CONVICTION.booleanValue()))
+            .andExpect(jsonPath("$.password").doesNotExist())
+            .andExpect(jsonPath("$.oneTimeCode").doesNotExist());
+    }
+
+    @Test
+    public void getDriverNotModifiedUntilUpdated() throws Exception {
+        // Initialize the database
+        driverRepository.save(driver);
+
+        String tag = restDriverMockMvc.perform(get("/api/drivers/{id}", driver.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        restDriverMockMvc.perform(get("/api/drivers/{id}", driver.getId()).header(HttpHeaders.IF_NONE_MATCH, tag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, tag))
+            .andExpect(content().string(""));
+
+        driverRepository.save(driver.firstName(UPDATED_FIRST_NAME));
+
+        restDriverMockMvc.perform(get("/api/drivers/{id}", driver.getId()).header(HttpHeaders.IF_NONE_MATCH, tag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(tag)))
+            .andExpect(jsonPath("$.firstName").value(UPDATED_FIRST_NAME));
+    }
+
+    @Test
+    public void getDriverWithReferences() throws Exception {
+        // Initialize the database with a driver referencing a location and a car
+        Location location = locationRepository.save(LocationResourceIT.createEntity());
+        Vehicle car = vehicleRepository.save(VehicleResourceIT.createEntity());
+        driver.setLocation(location);
+        driver.addCar(car);
+        driverRepository.save(driver);
+
+        // Get the driver with its references resolved
+        restDriverMockMvc.perform(get("/api/drivers/{id}", driver.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.location.id").value(location.getId()))
+            .andExpect(jsonPath("$.location.latitude").value(location.getLatitude()))
+            .andExpect(jsonPath("$.cars.[*].id").value(hasItem(car.getId())))
+            .andExpect(jsonPath("$.cars.[*].make").value(hasItem(car.getMake())));
+
+        // The page of drivers does not read the references
+        restDriverMockMvc.perform(get("/api/drivers?size=" + KeysetPaginationUtil.MAX_PAGE_SIZE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(driver.getId())))
+            .andExpect(jsonPath("$.[*].location").isEmpty())
+            .andExpect(jsonPath("$.[*].cars").isEmpty());
     }
 
     @Test
@@ -347,6 +509,88 @@ public class DriverResourceIT {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void getNearbyDrivers() throws Exception {
+        // Initialize the database
+        Location location = locationRepository.save(LocationResourceIT.createEntity()
+            .latitude("40.7128")
+            .longitue("-74.0060"));
+        driver.setLocation(location);
+        driverRepository.save(driver);
+
+        // Get the drivers within one kilometer
+        restDriverMockMvc.perform(get("/api/drivers/nearby?lat=40.7130&lon=-74.0050&radius=1&limit=5"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].driver.id").value(hasItem(driver.getId())));
+
+        // The driver is too far away for a 10 meter radius
+        restDriverMockMvc.perform(get("/api/drivers/nearby?lat=40.7130&lon=-74.0050&radius=0.01&limit=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    public void getNearestDrivers() throws Exception {
+        // Initialize the database with a confirmed driver
+        Location location = locationRepository.save(LocationResourceIT.createEntity()
+            .latitude("40.7128")
+            .longitue("-74.0060"));
+        driver.status(Status.CONFIRMED).setLocation(location);
+
+        DriverDTO driverDTO = driverMapper.toDto(driver);
+        restDriverMockMvc.perform(post("/api/drivers")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
+            .andExpect(status().isCreated());
+        Driver testDriver = driverRepository.findAll().get(0);
+
+        // Get the nearest drivers from the live index
+        restDriverMockMvc.perform(get("/api/drivers/nearest?lat=40.7130&lon=-74.0050&k=3&radius=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].driverId").value(hasItem(testDriver.getId())));
+
+        // A deleted driver is no longer tracked
+        restDriverMockMvc.perform(delete("/api/drivers/{id}", testDriver.getId()));
+        restDriverMockMvc.perform(get("/api/drivers/nearest?lat=40.7130&lon=-74.0050&k=3&radius=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].driverId").value(not(hasItem(testDriver.getId()))));
+    }
+
+    @Test
+    public void getDriverTrack() throws Exception {
+        // Only the pings of tracked drivers are recorded
+        Location location = locationRepository.save(LocationResourceIT.createEntity());
+        driver.status(Status.CONFIRMED).setLocation(location);
+        driverRepository.save(driver);
+        liveDriverLocationService.onDriverSaved(driver);
+        String driverId = driver.getId();
+        Instant start = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        locationHistoryService.record(Arrays.asList(
+            new LocationPingDTO(driverId, 40.7128, -74.0060, start),
+            new LocationPingDTO(driverId, 40.7130, -74.0050, start.plusSeconds(5)),
+            new LocationPingDTO(driverId, 40.7132, -74.0040, start.plusSeconds(10)),
+            new LocationPingDTO("other-driver", 48.8566, 2.3522, start.plusSeconds(5))));
+        locationHistoryService.flush();
+
+        restDriverMockMvc.perform(get("/api/drivers/{id}/track?from={from}&to={to}", driverId, start.plusSeconds(1), start.plusSeconds(60)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].latitude").value(40.7130))
+            .andExpect(jsonPath("$.[1].longitude").value(-74.0040));
+
+        // The pings of unknown drivers are dropped
+        restDriverMockMvc.perform(get("/api/drivers/{id}/track?from={from}&to={to}", "other-driver", start, start.plusSeconds(60)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    public void getNearbyDriversWithInvalidCoordinates() throws Exception {
+        restDriverMockMvc.perform(get("/api/drivers/nearby?lat=91&lon=0"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void updateDriver() throws Exception {
         // Initialize the database
@@ -370,9 +614,11 @@ public class DriverResourceIT {
             .duiConviction(UPDATED_DUI_CONVICTION)
             .felonyConviction(UPDATED_FELONY_CONVICTION);
 
+        DriverDTO driverDTO = driverMapper.toDto(updatedDriver);
+        driverDTO.setPassword(UPDATED_PASSWORD);
         restDriverMockMvc.perform(put("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(updatedDriver)))
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
             .andExpect(status().isOk());
 
         // Validate the Driver in the database
@@ -385,15 +631,33 @@ public class DriverResourceIT {
         assertThat(testDriver.getPassword()).isEqualTo(UPDATED_PASSWORD);
         assertThat(testDriver.getPhoneNumber()).isEqualTo(UPDATED_PHONE_NUMER);
         assertThat(testDriver.getStatus()).isEqualTo(UPDATED_STATUS);
-        assertThat(testDriver.getOneTimeCode()).isEqualTo(UPDATED_ONE_TIME_CODE);
-        assertThat(testDriver.getOneTimeExpirationTime()).isEqualTo(UPDATED_ONE_TIME_EXPIRATION_TIME);
+        // The one-time code is not part of the DTO, so the stored one is kept
+        assertThat(testDriver.getOneTimeCode()).isEqualTo(DEFAULT_ONE_TIME_CODE);
+        assertThat(testDriver.getOneTimeExpirationTime()).isEqualTo(DEFAULT_ONE_TIME_EXPIRATION_TIME);
         assertThat(testDriver.getDriverLicense()).isEqualTo(UPDATED_DRIVER_LICENSE);
         assertThat(testDriver.getPhoneType()).isEqualTo(UPDATED_PHONE_TYPE);
         assertThat(testDriver.isDuiConviction()).isEqualTo(UPDATED_DUI_CONVICTION);
         assertThat(testDriver.isFelonyConviction()).isEqualTo(UPDATED_FELONY_CONVICTION);
+    }
 
-        // Validate the Driver in Elasticsearch
-        verify(mockDriverSearchRepository, times(1)).save(testDriver);
+    @Test
+    public void updateDriverWithoutPasswordKeepsPassword() throws Exception {
+        // Initialize the database
+        driverRepository.save(driver);
+
+        // Update the driver as read back, without its password
+        DriverDTO driverDTO = driverMapper.toDto(driverRepository.findById(driver.getId()).get());
+        driverDTO.setFirstName(UPDATED_FIRST_NAME);
+        assertThat(driverDTO.getPassword()).isNull();
+        restDriverMockMvc.perform(put("/api/drivers")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
+            .andExpect(status().isOk());
+
+        // Validate the Driver in the database
+        Driver testDriver = driverRepository.findById(driver.getId()).get();
+        assertThat(testDriver.getFirstName()).isEqualTo(UPDATED_FIRST_NAME);
+        assertThat(testDriver.getPassword()).isEqualTo(DEFAULT_PASSWORD);
     }
 
     @Test
@@ -403,9 +667,10 @@ public class DriverResourceIT {
         // Create the Driver
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        DriverDTO driverDTO = driverMapper.toDto(driver);
         restDriverMockMvc.perform(put("/api/drivers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(driver)))
+            .content(TestUtil.convertObjectToJsonBytes(driverDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Driver in the database
@@ -431,34 +696,73 @@ public class DriverResourceIT {
         // Validate the database contains one less item
         List<Driver> driverList = driverRepository.findAll();
         assertThat(driverList).hasSize(databaseSizeBeforeDelete - 1);
-
-        // Validate the Driver in Elasticsearch
-        verify(mockDriverSearchRepository, times(1)).deleteById(driver.getId());
     }
 
     @Test
     public void searchDriver() throws Exception {
         // Initialize the database
         driverRepository.save(driver);
-        when(mockDriverSearchRepository.search(queryStringQuery("id:" + driver.getId())))
-            .thenReturn(Collections.singletonList(driver));
+        when(mockDriverSearchRepository.search(eq(queryStringQuery("id:" + driver.getId())), any(Pageable.class), eq(DriverSummaryDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(driver), PageRequest.of(0, 1), 1));
         // Search the driver
         restDriverMockMvc.perform(get("/api/_search/drivers?query=id:" + driver.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
             .andExpect(jsonPath("$.[*].id").value(hasItem(driver.getId())))
             .andExpect(jsonPath("$.[*].firstName").value(hasItem(DEFAULT_FIRST_NAME)))
             .andExpect(jsonPath("$.[*].lastName").value(hasItem(DEFAULT_LAST_NAME)))
             .andExpect(jsonPath("$.[*].email").value(hasItem(DEFAULT_EMAIL)))
-            .andExpect(jsonPath("$.[*].password").value(hasItem(DEFAULT_PASSWORD)))
             .andExpect(jsonPath("$.[*].phoneNumber").value(hasItem(DEFAULT_PHONE_NUMER)))
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())))
-            .andExpect(jsonPath("$.[*].oneTimeCode").value(hasItem(DEFAULT_ONE_TIME_CODE)))
-            .andExpect(jsonPath("$.[*].oneTimeExpirationTime").value(hasItem(DEFAULT_ONE_TIME_EXPIRATION_TIME.toString())))
             .andExpect(jsonPath("$.[*].driverLicense").value(hasItem(DEFAULT_DRIVER_LICENSE)))
             .andExpect(jsonPath("$.[*].phoneType").value(hasItem(DEFAULT_PHONE_TYPE.toString())))
             .andExpect(jsonPath("$.[*].duiConviction").value(hasItem(DEFAULT_DUI_CONVICTION.booleanValue())))
-            .andExpect(jsonPath("$.[*].felonyConviction").value(hasItem(DEFAULT_FELONY_CONVICTION.booleanValue())));
+            .andExpect(jsonPath("$.[*].felonyConviction").value(hasItem(DEFAULT_FELONY_CONVICTION.booleanValue())))
+            .andExpect(jsonPath("$.[*].password").isEmpty())
+            .andExpect(jsonPath("$.[*].oneTimeCode").isEmpty());
+    }
+
+    @Test
+    public void searchDriverBeyondResultWindow() throws Exception {
+        restDriverMockMvc.perform(get("/api/_search/drivers?query=*&page=500&size=20"))
+            .andExpect(status().isBadRequest());
+
+        verify(mockDriverSearchRepository, never()).search(any(), any(Pageable.class), any());
+    }
+
+    @Test
+    public void exportSearchDrivers() throws Exception {
+        // Initialize the database
+        driverRepository.save(driver);
+        Iterator<Driver> hits = Collections.singletonList(driver).iterator();
+        when(mockDriverSearchRepository.streamSearchAfter(eq(queryStringQuery("id:" + driver.getId())), isNull(), eq(DriverSummaryDTO.class)))
+            .thenReturn(new CloseableIterator<Driver>() {
+                @Override
+                public boolean hasNext() {
+                    return hits.hasNext();
+                }
+
+                @Override
+                public Driver next() {
+                    return hits.next();
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+
+        MvcResult result = restDriverMockMvc.perform(get("/api/_search/drivers?query=id:" + driver.getId())
+            .accept(KeysetPaginationUtil.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restDriverMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(KeysetPaginationUtil.APPLICATION_NDJSON))
+            .andExpect(content().string(containsString("\"id\":\"" + driver.getId() + "\"")))
+            .andExpect(content().string(not(containsString("\"password\""))));
     }
 
     @Test
@@ -474,4 +778,19 @@ public class DriverResourceIT {
         driver1.setId(null);
         assertThat(driver1).isNotEqualTo(driver2);
     }
+
+    @Test
+    public void dtoEqualsVerifier() throws Exception {
+        TestUtil.equalsVerifier(DriverDTO.class);
+        DriverDTO driverDTO1 = new DriverDTO();
+        driverDTO1.setId("id1");
+        DriverDTO driverDTO2 = new DriverDTO();
+        assertThat(driverDTO1).isNotEqualTo(driverDTO2);
+        driverDTO2.setId(driverDTO1.getId());
+        assertThat(driverDTO1).isEqualTo(driverDTO2);
+        driverDTO2.setId("id2");
+        assertThat(driverDTO1).isNotEqualTo(driverDTO2);
+        driverDTO1.setId(null);
+        assertThat(driverDTO1).isNotEqualTo(driverDTO2);
+    }
 }
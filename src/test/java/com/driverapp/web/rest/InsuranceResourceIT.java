@@ -4,13 +4,20 @@ import com.driverapp.DriverApp;
 import com.driverapp.domain.Insurance;
 import com.driverapp.repository.InsuranceRepository;
 import com.driverapp.repository.search.InsuranceSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.InsuranceDTO;
+import com.driverapp.service.mapper.InsuranceMapper;
 import com.driverapp.web.rest.errors.ExceptionTranslator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -52,6 +59,9 @@ public class InsuranceResourceIT {
     @Autowired
     private InsuranceRepository insuranceRepository;
 
+    @Autowired
+    private InsuranceMapper insuranceMapper;
+
     /**
      * This repository is mocked in the com.driverapp.repository.search test package.
      *
@@ -63,6 +73,12 @@ public class InsuranceResourceIT {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -79,7 +95,7 @@ public class InsuranceResourceIT {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final InsuranceResource insuranceResource = new InsuranceResource(insuranceRepository, mockInsuranceSearchRepository);
+        final InsuranceResource insuranceResource = new InsuranceResource(insuranceRepository, insuranceMapper, mockInsuranceSearchRepository, objectMapper, searchResultCache);
         this.restInsuranceMockMvc = MockMvcBuilders.standaloneSetup(insuranceResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -126,9 +142,10 @@ public class InsuranceResourceIT {
         int databaseSizeBeforeCreate = insuranceRepository.findAll().size();
 
         // Create the Insurance
+        InsuranceDTO insuranceDTO = insuranceMapper.toDto(insurance);
         restInsuranceMockMvc.perform(post("/api/insurances")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(insurance)))
+            .content(TestUtil.convertObjectToJsonBytes(insuranceDTO)))
             .andExpect(status().isCreated());
 
         // Validate the Insurance in the database
@@ -138,9 +155,6 @@ public class InsuranceResourceIT {
         assertThat(testInsurance.getType()).isEqualTo(DEFAULT_TYPE);
         assertThat(testInsurance.getInsuranceProvider()).isEqualTo(DEFAULT_INSURANCE_PROVIDER);
         assertThat(testInsurance.getInsuranceExpDate()).isEqualTo(DEFAULT_INSURANCE_EXP_DATE);
-
-        // Validate the Insurance in Elasticsearch
-        verify(mockInsuranceSearchRepository, times(1)).save(testInsurance);
     }
 
     @Test
@@ -151,9 +165,10 @@ public class InsuranceResourceIT {
         insurance.setId("existing_id");
 
         // An entity with an existing ID cannot be created, so this API call must fail
+        InsuranceDTO insuranceDTO = insuranceMapper.toDto(insurance);
         restInsuranceMockMvc.perform(post("/api/insurances")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(insurance)))
+            .content(TestUtil.convertObjectToJsonBytes(insuranceDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Insurance in the database
@@ -172,10 +187,11 @@ public class InsuranceResourceIT {
         insurance.setType(null);
 
         // Create the Insurance, which fails.
+        InsuranceDTO insuranceDTO = insuranceMapper.toDto(insurance);
 
         restInsuranceMockMvc.perform(post("/api/insurances")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(insurance)))
+            .content(TestUtil.convertObjectToJsonBytes(insuranceDTO)))
             .andExpect(status().isBadRequest());
 
         List<Insurance> insuranceList = insuranceRepository.findAll();
@@ -189,10 +205,11 @@ public class InsuranceResourceIT {
         insurance.setInsuranceProvider(null);
 
         // Create the Insurance, which fails.
+        InsuranceDTO insuranceDTO = insuranceMapper.toDto(insurance);
 
         restInsuranceMockMvc.perform(post("/api/insurances")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(insurance)))
+            .content(TestUtil.convertObjectToJsonBytes(insuranceDTO)))
             .andExpect(status().isBadRequest());
 
         List<Insurance> insuranceList = insuranceRepository.findAll();
@@ -206,10 +223,11 @@ public class InsuranceResourceIT {
         insurance.setInsuranceExpDate(null);
 
         // Create the Insurance, which fails.
+        InsuranceDTO insuranceDTO = insuranceMapper.toDto(insurance);
 
         restInsuranceMockMvc.perform(post("/api/insurances")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(insurance)))
+            .content(TestUtil.convertObjectToJsonBytes(insuranceDTO)))
             .andExpect(status().isBadRequest());
 
         List<Insurance> insuranceList = insuranceRepository.findAll();
@@ -267,9 +285,10 @@ public class InsuranceResourceIT {
             .insuranceProvider(UPDATED_INSURANCE_PROVIDER)
             .insuranceExpDate(UPDATED_INSURANCE_EXP_DATE);
 
+        InsuranceDTO insuranceDTO = insuranceMapper.toDto(updatedInsurance);
         restInsuranceMockMvc.perform(put("/api/insurances")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(updatedInsurance)))
+            .content(TestUtil.convertObjectToJsonBytes(insuranceDTO)))
             .andExpect(status().isOk());
 
         // Validate the Insurance in the database
@@ -279,9 +298,6 @@ public class InsuranceResourceIT {
         assertThat(testInsurance.getType()).isEqualTo(UPDATED_TYPE);
         assertThat(testInsurance.getInsuranceProvider()).isEqualTo(UPDATED_INSURANCE_PROVIDER);
         assertThat(testInsurance.getInsuranceExpDate()).isEqualTo(UPDATED_INSURANCE_EXP_DATE);
-
-        // Validate the Insurance in Elasticsearch
-        verify(mockInsuranceSearchRepository, times(1)).save(testInsurance);
     }
 
     @Test
@@ -291,9 +307,10 @@ public class InsuranceResourceIT {
         // Create the Insurance
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        InsuranceDTO insuranceDTO = insuranceMapper.toDto(insurance);
         restInsuranceMockMvc.perform(put("/api/insurances")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(insurance)))
+            .content(TestUtil.convertObjectToJsonBytes(insuranceDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Insurance in the database
@@ -319,21 +336,19 @@ public class InsuranceResourceIT {
         // Validate the database contains one less item
         List<Insurance> insuranceList = insuranceRepository.findAll();
         assertThat(insuranceList).hasSize(databaseSizeBeforeDelete - 1);
-
-        // Validate the Insurance in Elasticsearch
-        verify(mockInsuranceSearchRepository, times(1)).deleteById(insurance.getId());
     }
 
     @Test
     public void searchInsurance() throws Exception {
         // Initialize the database
         insuranceRepository.save(insurance);
-        when(mockInsuranceSearchRepository.search(queryStringQuery("id:" + insurance.getId())))
-            .thenReturn(Collections.singletonList(insurance));
+        when(mockInsuranceSearchRepository.search(eq(queryStringQuery("id:" + insurance.getId())), any(Pageable.class), eq(InsuranceDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(insurance), PageRequest.of(0, 1), 1));
         // Search the insurance
         restInsuranceMockMvc.perform(get("/api/_search/insurances?query=id:" + insurance.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
             .andExpect(jsonPath("$.[*].id").value(hasItem(insurance.getId())))
             .andExpect(jsonPath("$.[*].type").value(hasItem(DEFAULT_TYPE.toString())))
             .andExpect(jsonPath("$.[*].insuranceProvider").value(hasItem(DEFAULT_INSURANCE_PROVIDER)))
@@ -353,4 +368,19 @@ public class InsuranceResourceIT {
         insurance1.setId(null);
         assertThat(insurance1).isNotEqualTo(insurance2);
     }
+
+    @Test
+    public void dtoEqualsVerifier() throws Exception {
+        TestUtil.equalsVerifier(InsuranceDTO.class);
+        InsuranceDTO insuranceDTO1 = new InsuranceDTO();
+        insuranceDTO1.setId("id1");
+        InsuranceDTO insuranceDTO2 = new InsuranceDTO();
+        assertThat(insuranceDTO1).isNotEqualTo(insuranceDTO2);
+        insuranceDTO2.setId(insuranceDTO1.getId());
+        assertThat(insuranceDTO1).isEqualTo(insuranceDTO2);
+        insuranceDTO2.setId("id2");
+        assertThat(insuranceDTO1).isNotEqualTo(insuranceDTO2);
+        insuranceDTO1.setId(null);
+        assertThat(insuranceDTO1).isNotEqualTo(insuranceDTO2);
+    }
 }
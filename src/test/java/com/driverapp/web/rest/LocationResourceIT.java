@@ -1,30 +1,48 @@
 package com.driverapp.web.rest;
 
 import com.driverapp.DriverApp;
+import com.driverapp.domain.Driver;
 import com.driverapp.domain.Location;
+import com.driverapp.repository.DriverRepository;
 import com.driverapp.repository.LocationRepository;
 import com.driverapp.repository.search.LocationSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.LocationDTO;
+import com.driverapp.service.mapper.LocationMapper;
+import com.driverapp.service.LiveDriverLocationService;
+import com.driverapp.service.LocationPingService;
+import com.driverapp.service.dto.LocationPingDTO;
+import com.driverapp.web.rest.util.KeysetPaginationUtil;
 import com.driverapp.web.rest.errors.ExceptionTranslator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.Validator;
 
 
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static com.driverapp.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -63,6 +81,9 @@ public class LocationResourceIT {
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private LocationMapper locationMapper;
+
     /**
      * This repository is mocked in the com.driverapp.repository.search test package.
      *
@@ -74,12 +95,27 @@ public class LocationResourceIT {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private LiveDriverLocationService liveDriverLocationService;
+
+    @Autowired
+    private LocationPingService locationPingService;
+
     @Autowired
     private Validator validator;
 
@@ -90,7 +126,7 @@ public class LocationResourceIT {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final LocationResource locationResource = new LocationResource(locationRepository, mockLocationSearchRepository);
+        final LocationResource locationResource = new LocationResource(locationRepository, locationMapper, mockLocationSearchRepository, liveDriverLocationService, locationPingService, objectMapper, searchResultCache);
         this.restLocationMockMvc = MockMvcBuilders.standaloneSetup(locationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -147,9 +183,10 @@ public class LocationResourceIT {
         int databaseSizeBeforeCreate = locationRepository.findAll().size();
 
         // Create the Location
+        LocationDTO locationDTO = locationMapper.toDto(location);
         restLocationMockMvc.perform(post("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isCreated());
 
         // Validate the Location in the database
@@ -164,9 +201,6 @@ public class LocationResourceIT {
         assertThat(testLocation.getCountry()).isEqualTo(DEFAULT_COUNTRY);
         assertThat(testLocation.getLatitude()).isEqualTo(DEFAULT_LATITUDE);
         assertThat(testLocation.getLongitue()).isEqualTo(DEFAULT_LONGITUE);
-
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(1)).save(testLocation);
     }
 
     @Test
@@ -177,9 +211,10 @@ public class LocationResourceIT {
         location.setId("existing_id");
 
         // An entity with an existing ID cannot be created, so this API call must fail
+        LocationDTO locationDTO = locationMapper.toDto(location);
         restLocationMockMvc.perform(post("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Location in the database
@@ -198,10 +233,11 @@ public class LocationResourceIT {
         location.setAddressLine1(null);
 
         // Create the Location, which fails.
+        LocationDTO locationDTO = locationMapper.toDto(location);
 
         restLocationMockMvc.perform(post("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isBadRequest());
 
         List<Location> locationList = locationRepository.findAll();
@@ -215,10 +251,11 @@ public class LocationResourceIT {
         location.setCity(null);
 
         // Create the Location, which fails.
+        LocationDTO locationDTO = locationMapper.toDto(location);
 
         restLocationMockMvc.perform(post("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isBadRequest());
 
         List<Location> locationList = locationRepository.findAll();
@@ -232,10 +269,11 @@ public class LocationResourceIT {
         location.setState(null);
 
         // Create the Location, which fails.
+        LocationDTO locationDTO = locationMapper.toDto(location);
 
         restLocationMockMvc.perform(post("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isBadRequest());
 
         List<Location> locationList = locationRepository.findAll();
@@ -249,10 +287,11 @@ public class LocationResourceIT {
         location.setZip(null);
 
         // Create the Location, which fails.
+        LocationDTO locationDTO = locationMapper.toDto(location);
 
         restLocationMockMvc.perform(post("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isBadRequest());
 
         List<Location> locationList = locationRepository.findAll();
@@ -266,10 +305,11 @@ public class LocationResourceIT {
         location.setCountry(null);
 
         // Create the Location, which fails.
+        LocationDTO locationDTO = locationMapper.toDto(location);
 
         restLocationMockMvc.perform(post("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isBadRequest());
 
         List<Location> locationList = locationRepository.findAll();
@@ -296,6 +336,44 @@ public class LocationResourceIT {
             .andExpect(jsonPath("$.[*].longitue").value(hasItem(DEFAULT_LONGITUE.toString())));
     }
     
+    @Test
+    public void getAllLocationsWithKeysetPagination() throws Exception {
+        // Initialize the database
+        Location first = locationRepository.save(createEntity());
+        Location second = locationRepository.save(createEntity());
+
+        // The first page links to the next one
+        restLocationMockMvc.perform(get("/api/locations?size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(first.getId()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + first.getId())));
+
+        // The last page has no link
+        restLocationMockMvc.perform(get("/api/locations?size=1&after={after}", first.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(second.getId()))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void streamAllLocations() throws Exception {
+        // Initialize the database
+        Location first = locationRepository.save(createEntity());
+        Location second = locationRepository.save(createEntity());
+
+        MvcResult result = restLocationMockMvc.perform(get("/api/locations")
+            .accept(KeysetPaginationUtil.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restLocationMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(KeysetPaginationUtil.APPLICATION_NDJSON))
+            .andExpect(content().string(containsString("\"id\":\"" + first.getId() + "\"")))
+            .andExpect(content().string(containsString("\"id\":\"" + second.getId() + "\"")));
+    }
+
     @Test
     public void getLocation() throws Exception {
         // Initialize the database
@@ -316,6 +394,40 @@ public class LocationResourceIT {
             .andExpect(jsonPath("$.longitue").value(DEFAULT_LONGITUE.toString()));
     }
 
+    @Test
+    public void submitLocationPings() throws Exception {
+        // Initialize the database
+        locationRepository.save(location);
+        Driver driver = driverRepository.save(DriverResourceIT.createEntity().location(location));
+        Instant now = Instant.now();
+        List<LocationPingDTO> pings = Arrays.asList(
+            new LocationPingDTO(driver.getId(), 48.8566, 2.3522, now),
+            new LocationPingDTO(driver.getId(), 40.7128, -74.0060, now.minusSeconds(5)));
+
+        restLocationMockMvc.perform(post("/api/locations/_pings")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(pings)))
+            .andExpect(status().isAccepted());
+        locationPingService.flush();
+
+        // Only the latest ping is kept
+        Location testLocation = locationRepository.findById(location.getId()).get();
+        assertThat(testLocation.getLatitude()).isEqualTo("48.8566");
+        assertThat(testLocation.getLongitue()).isEqualTo("2.3522");
+        assertThat(testLocation.getPosition().getY()).isEqualTo(48.8566);
+        assertThat(testLocation.getPosition().getX()).isEqualTo(2.3522);
+    }
+
+    @Test
+    public void submitInvalidLocationPings() throws Exception {
+        List<LocationPingDTO> pings = Collections.singletonList(new LocationPingDTO("driver", 91d, 0d, null));
+
+        restLocationMockMvc.perform(post("/api/locations/_pings")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(pings)))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getNonExistingLocation() throws Exception {
         // Get the location
@@ -342,9 +454,10 @@ public class LocationResourceIT {
             .latitude(UPDATED_LATITUDE)
             .longitue(UPDATED_LONGITUE);
 
+        LocationDTO locationDTO = locationMapper.toDto(updatedLocation);
         restLocationMockMvc.perform(put("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(updatedLocation)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isOk());
 
         // Validate the Location in the database
@@ -359,9 +472,6 @@ public class LocationResourceIT {
         assertThat(testLocation.getCountry()).isEqualTo(UPDATED_COUNTRY);
         assertThat(testLocation.getLatitude()).isEqualTo(UPDATED_LATITUDE);
         assertThat(testLocation.getLongitue()).isEqualTo(UPDATED_LONGITUE);
-
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(1)).save(testLocation);
     }
 
     @Test
@@ -371,9 +481,10 @@ public class LocationResourceIT {
         // Create the Location
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        LocationDTO locationDTO = locationMapper.toDto(location);
         restLocationMockMvc.perform(put("/api/locations")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(location)))
+            .content(TestUtil.convertObjectToJsonBytes(locationDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Location in the database
@@ -399,21 +510,19 @@ public class LocationResourceIT {
         // Validate the database contains one less item
         List<Location> locationList = locationRepository.findAll();
         assertThat(locationList).hasSize(databaseSizeBeforeDelete - 1);
-
-        // Validate the Location in Elasticsearch
-        verify(mockLocationSearchRepository, times(1)).deleteById(location.getId());
     }
 
     @Test
     public void searchLocation() throws Exception {
         // Initialize the database
         locationRepository.save(location);
-        when(mockLocationSearchRepository.search(queryStringQuery("id:" + location.getId())))
-            .thenReturn(Collections.singletonList(location));
+        when(mockLocationSearchRepository.search(eq(queryStringQuery("id:" + location.getId())), any(Pageable.class), eq(LocationDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(location), PageRequest.of(0, 1), 1));
         // Search the location
         restLocationMockMvc.perform(get("/api/_search/locations?query=id:" + location.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
             .andExpect(jsonPath("$.[*].id").value(hasItem(location.getId())))
             .andExpect(jsonPath("$.[*].addressLine1").value(hasItem(DEFAULT_ADDRESS_LINE_1)))
             .andExpect(jsonPath("$.[*].addressLine2").value(hasItem(DEFAULT_ADDRESS_LINE_2)))
@@ -438,4 +547,19 @@ public class LocationResourceIT {
         location1.setId(null);
         assertThat(location1).isNotEqualTo(location2);
     }
+
+    @Test
+    public void dtoEqualsVerifier() throws Exception {
+        TestUtil.equalsVerifier(LocationDTO.class);
+        LocationDTO locationDTO1 = new LocationDTO();
+        locationDTO1.setId("id1");
+        LocationDTO locationDTO2 = new LocationDTO();
+        assertThat(locationDTO1).isNotEqualTo(locationDTO2);
+        locationDTO2.setId(locationDTO1.getId());
+        assertThat(locationDTO1).isEqualTo(locationDTO2);
+        locationDTO2.setId("id2");
+        assertThat(locationDTO1).isNotEqualTo(locationDTO2);
+        locationDTO1.setId(null);
+        assertThat(locationDTO1).isNotEqualTo(locationDTO2);
+    }
 }
@@ -4,13 +4,21 @@ import com.driverapp.DriverApp;
 import com.driverapp.domain.Services;
 import com.driverapp.repository.ServicesRepository;
 import com.driverapp.repository.search.ServicesSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.cache.EntityTagService;
+import com.driverapp.service.dto.ServicesDTO;
+import com.driverapp.service.mapper.ServicesMapper;
 import com.driverapp.web.rest.errors.ExceptionTranslator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -43,6 +51,9 @@ public class ServicesResourceIT {
     @Autowired
     private ServicesRepository servicesRepository;
 
+    @Autowired
+    private ServicesMapper servicesMapper;
+
     /**
      * This repository is mocked in the com.driverapp.repository.search test package.
      *
@@ -54,6 +65,15 @@ public class ServicesResourceIT {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private EntityTagService entityTagService;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -70,7 +90,7 @@ public class ServicesResourceIT {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final ServicesResource servicesResource = new ServicesResource(servicesRepository, mockServicesSearchRepository);
+        final ServicesResource servicesResource = new ServicesResource(servicesRepository, servicesMapper, mockServicesSearchRepository, objectMapper, searchResultCache, entityTagService);
         this.restServicesMockMvc = MockMvcBuilders.standaloneSetup(servicesResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -113,9 +133,10 @@ public class ServicesResourceIT {
         int databaseSizeBeforeCreate = servicesRepository.findAll().size();
 
         // Create the Services
+        ServicesDTO servicesDTO = servicesMapper.toDto(services);
         restServicesMockMvc.perform(post("/api/services")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(services)))
+            .content(TestUtil.convertObjectToJsonBytes(servicesDTO)))
             .andExpect(status().isCreated());
 
         // Validate the Services in the database
@@ -123,9 +144,6 @@ public class ServicesResourceIT {
         assertThat(servicesList).hasSize(databaseSizeBeforeCreate + 1);
         Services testServices = servicesList.get(servicesList.size() - 1);
         assertThat(testServices.getType()).isEqualTo(DEFAULT_TYPE);
-
-        // Validate the Services in Elasticsearch
-        verify(mockServicesSearchRepository, times(1)).save(testServices);
     }
 
     @Test
@@ -136,9 +154,10 @@ public class ServicesResourceIT {
         services.setId("existing_id");
 
         // An entity with an existing ID cannot be created, so this API call must fail
+        ServicesDTO servicesDTO = servicesMapper.toDto(services);
         restServicesMockMvc.perform(post("/api/services")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(services)))
+            .content(TestUtil.convertObjectToJsonBytes(servicesDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Services in the database
@@ -195,9 +214,10 @@ public class ServicesResourceIT {
         updatedServices
             .type(UPDATED_TYPE);
 
+        ServicesDTO servicesDTO = servicesMapper.toDto(updatedServices);
         restServicesMockMvc.perform(put("/api/services")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(updatedServices)))
+            .content(TestUtil.convertObjectToJsonBytes(servicesDTO)))
             .andExpect(status().isOk());
 
         // Validate the Services in the database
@@ -205,9 +225,6 @@ public class ServicesResourceIT {
         assertThat(servicesList).hasSize(databaseSizeBeforeUpdate);
         Services testServices = servicesList.get(servicesList.size() - 1);
         assertThat(testServices.getType()).isEqualTo(UPDATED_TYPE);
-
-        // Validate the Services in Elasticsearch
-        verify(mockServicesSearchRepository, times(1)).save(testServices);
     }
 
     @Test
@@ -217,9 +234,10 @@ public class ServicesResourceIT {
         // Create the Services
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        ServicesDTO servicesDTO = servicesMapper.toDto(services);
         restServicesMockMvc.perform(put("/api/services")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(services)))
+            .content(TestUtil.convertObjectToJsonBytes(servicesDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Services in the database
@@ -245,21 +263,19 @@ public class ServicesResourceIT {
         // Validate the database contains one less item
         List<Services> servicesList = servicesRepository.findAll();
         assertThat(servicesList).hasSize(databaseSizeBeforeDelete - 1);
-
-        // Validate the Services in Elasticsearch
-        verify(mockServicesSearchRepository, times(1)).deleteById(services.getId());
     }
 
     @Test
     public void searchServices() throws Exception {
         // Initialize the database
         servicesRepository.save(services);
-        when(mockServicesSearchRepository.search(queryStringQuery("id:" + services.getId())))
-            .thenReturn(Collections.singletonList(services));
+        when(mockServicesSearchRepository.search(eq(queryStringQuery("id:" + services.getId())), any(Pageable.class), eq(ServicesDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(services), PageRequest.of(0, 1), 1));
         // Search the services
         restServicesMockMvc.perform(get("/api/_search/services?query=id:" + services.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
             .andExpect(jsonPath("$.[*].id").value(hasItem(services.getId())))
             .andExpect(jsonPath("$.[*].type").value(hasItem(DEFAULT_TYPE.toString())));
     }
@@ -277,4 +293,19 @@ public class ServicesResourceIT {
         services1.setId(null);
         assertThat(services1).isNotEqualTo(services2);
     }
+
+    @Test
+    public void dtoEqualsVerifier() throws Exception {
+        TestUtil.equalsVerifier(ServicesDTO.class);
+        ServicesDTO servicesDTO1 = new ServicesDTO();
+        servicesDTO1.setId("id1");
+        ServicesDTO servicesDTO2 = new ServicesDTO();
+        assertThat(servicesDTO1).isNotEqualTo(servicesDTO2);
+        servicesDTO2.setId(servicesDTO1.getId());
+        assertThat(servicesDTO1).isEqualTo(servicesDTO2);
+        servicesDTO2.setId("id2");
+        assertThat(servicesDTO1).isNotEqualTo(servicesDTO2);
+        servicesDTO1.setId(null);
+        assertThat(servicesDTO1).isNotEqualTo(servicesDTO2);
+    }
 }
@@ -0,0 +1,105 @@
+package com.driverapp.web.rest;
+
+import com.driverapp.DriverApp;
+import com.driverapp.domain.Business;
+import com.driverapp.repository.search.BusinessSearchRepository;
+import com.driverapp.service.SuggestService;
+import com.driverapp.service.dto.BusinessDTO;
+import com.driverapp.web.rest.errors.ExceptionTranslator;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link SuggestResource} REST controller.
+ */
+@SpringBootTest(classes = DriverApp.class)
+public class SuggestResourceIT {
+
+    /**
+     * This repository is mocked in the com.driverapp.repository.search test package.
+     *
+     * @see com.driverapp.repository.search.BusinessSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private BusinessSearchRepository mockBusinessSearchRepository;
+
+    @Autowired
+    private SuggestService suggestService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restSuggestMockMvc;
+
+    private Business business;
+
+    @BeforeEach
+    public void setup() {
+        SuggestResource suggestResource = new SuggestResource(suggestService);
+        this.restSuggestMockMvc = MockMvcBuilders.standaloneSetup(suggestResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        business = new Business().name("Acme Movers").type("moving").address("1 Main Street");
+        business.setId("suggested");
+    }
+
+    @Test
+    public void suggestBusinesses() throws Exception {
+        when(mockBusinessSearchRepository.search(any(QueryBuilder.class), any(Pageable.class), eq(BusinessDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(business), PageRequest.of(0, 10), 1));
+
+        restSuggestMockMvc.perform(get("/api/_suggest/businesses?prefix=acme mo"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value("suggested"))
+            .andExpect(jsonPath("$.[0].name").value("Acme Movers"));
+    }
+
+    @Test
+    public void suggestServesRepeatedPrefixesFromCache() throws Exception {
+        when(mockBusinessSearchRepository.search(any(QueryBuilder.class), any(Pageable.class), eq(BusinessDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(business), PageRequest.of(0, 5), 1));
+
+        restSuggestMockMvc.perform(get("/api/_suggest/businesses?prefix=Acme  Mov&size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value("suggested"));
+        restSuggestMockMvc.perform(get("/api/_suggest/businesses?prefix= acme mov &size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value("suggested"));
+
+        verify(mockBusinessSearchRepository, times(1)).search(any(QueryBuilder.class), any(Pageable.class), eq(BusinessDTO.class));
+    }
+
+    @Test
+    public void suggestBlankPrefix() throws Exception {
+        restSuggestMockMvc.perform(get("/api/_suggest/businesses?prefix= "))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+
+        verifyNoMoreInteractions(mockBusinessSearchRepository);
+    }
+
+    @Test
+    public void suggestUnknownEntity() throws Exception {
+        restSuggestMockMvc.perform(get("/api/_suggest/vehicles?prefix=acme"))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -4,13 +4,21 @@ import com.driverapp.DriverApp;
 import com.driverapp.domain.Vehicle;
 import com.driverapp.repository.VehicleRepository;
 import com.driverapp.repository.search.VehicleSearchRepository;
+import com.driverapp.service.SearchResultCache;
+import com.driverapp.service.dto.VehicleDTO;
+import com.driverapp.service.mapper.VehicleMapper;
+import com.driverapp.service.DriverGraphLoader;
 import com.driverapp.web.rest.errors.ExceptionTranslator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -67,6 +75,9 @@ public class VehicleResourceIT {
     @Autowired
     private VehicleRepository vehicleRepository;
 
+    @Autowired
+    private VehicleMapper vehicleMapper;
+
     /**
      * This repository is mocked in the com.driverapp.repository.search test package.
      *
@@ -78,12 +89,21 @@ public class VehicleResourceIT {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private DriverGraphLoader driverGraphLoader;
+
     @Autowired
     private Validator validator;
 
@@ -94,7 +114,7 @@ public class VehicleResourceIT {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final VehicleResource vehicleResource = new VehicleResource(vehicleRepository, mockVehicleSearchRepository);
+        final VehicleResource vehicleResource = new VehicleResource(vehicleRepository, vehicleMapper, mockVehicleSearchRepository, driverGraphLoader, objectMapper, searchResultCache);
         this.restVehicleMockMvc = MockMvcBuilders.standaloneSetup(vehicleResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -151,9 +171,10 @@ public class VehicleResourceIT {
         int databaseSizeBeforeCreate = vehicleRepository.findAll().size();
 
         // Create the Vehicle
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isCreated());
 
         // Validate the Vehicle in the database
@@ -168,9 +189,6 @@ public class VehicleResourceIT {
         assertThat(testVehicle.isSupportHeavyTransport()).isEqualTo(DEFAULT_SUPPORT_HEAVY_TRANSPORT);
         assertThat(testVehicle.getVinNumber()).isEqualTo(DEFAULT_VIN_NUMBER);
         assertThat(testVehicle.getRegistrationExpDate()).isEqualTo(DEFAULT_REGISTRATION_EXP_DATE);
-
-        // Validate the Vehicle in Elasticsearch
-        verify(mockVehicleSearchRepository, times(1)).save(testVehicle);
     }
 
     @Test
@@ -181,9 +199,10 @@ public class VehicleResourceIT {
         vehicle.setId("existing_id");
 
         // An entity with an existing ID cannot be created, so this API call must fail
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Vehicle in the database
@@ -202,10 +221,11 @@ public class VehicleResourceIT {
         vehicle.setType(null);
 
         // Create the Vehicle, which fails.
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
 
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         List<Vehicle> vehicleList = vehicleRepository.findAll();
@@ -219,10 +239,11 @@ public class VehicleResourceIT {
         vehicle.setMake(null);
 
         // Create the Vehicle, which fails.
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
 
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         List<Vehicle> vehicleList = vehicleRepository.findAll();
@@ -236,10 +257,11 @@ public class VehicleResourceIT {
         vehicle.setModel(null);
 
         // Create the Vehicle, which fails.
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
 
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         List<Vehicle> vehicleList = vehicleRepository.findAll();
@@ -253,10 +275,11 @@ public class VehicleResourceIT {
         vehicle.setYear(null);
 
         // Create the Vehicle, which fails.
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
 
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         List<Vehicle> vehicleList = vehicleRepository.findAll();
@@ -270,10 +293,11 @@ public class VehicleResourceIT {
         vehicle.setPlateNumber(null);
 
         // Create the Vehicle, which fails.
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
 
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         List<Vehicle> vehicleList = vehicleRepository.findAll();
@@ -287,10 +311,11 @@ public class VehicleResourceIT {
         vehicle.setRegistrationExpDate(null);
 
         // Create the Vehicle, which fails.
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
 
         restVehicleMockMvc.perform(post("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         List<Vehicle> vehicleList = vehicleRepository.findAll();
@@ -363,9 +388,10 @@ public class VehicleResourceIT {
             .vinNumber(UPDATED_VIN_NUMBER)
             .registrationExpDate(UPDATED_REGISTRATION_EXP_DATE);
 
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(updatedVehicle);
         restVehicleMockMvc.perform(put("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(updatedVehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isOk());
 
         // Validate the Vehicle in the database
@@ -380,9 +406,6 @@ public class VehicleResourceIT {
         assertThat(testVehicle.isSupportHeavyTransport()).isEqualTo(UPDATED_SUPPORT_HEAVY_TRANSPORT);
         assertThat(testVehicle.getVinNumber()).isEqualTo(UPDATED_VIN_NUMBER);
         assertThat(testVehicle.getRegistrationExpDate()).isEqualTo(UPDATED_REGISTRATION_EXP_DATE);
-
-        // Validate the Vehicle in Elasticsearch
-        verify(mockVehicleSearchRepository, times(1)).save(testVehicle);
     }
 
     @Test
@@ -392,9 +415,10 @@ public class VehicleResourceIT {
         // Create the Vehicle
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        VehicleDTO vehicleDTO = vehicleMapper.toDto(vehicle);
         restVehicleMockMvc.perform(put("/api/vehicles")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(vehicle)))
+            .content(TestUtil.convertObjectToJsonBytes(vehicleDTO)))
             .andExpect(status().isBadRequest());
 
         // Validate the Vehicle in the database
@@ -420,21 +444,19 @@ public class VehicleResourceIT {
         // Validate the database contains one less item
         List<Vehicle> vehicleList = vehicleRepository.findAll();
         assertThat(vehicleList).hasSize(databaseSizeBeforeDelete - 1);
-
-        // Validate the Vehicle in Elasticsearch
-        verify(mockVehicleSearchRepository, times(1)).deleteById(vehicle.getId());
     }
 
     @Test
     public void searchVehicle() throws Exception {
         // Initialize the database
         vehicleRepository.save(vehicle);
-        when(mockVehicleSearchRepository.search(queryStringQuery("id:" + vehicle.getId())))
-            .thenReturn(Collections.singletonList(vehicle));
+        when(mockVehicleSearchRepository.search(eq(queryStringQuery("id:" + vehicle.getId())), any(Pageable.class), eq(VehicleDTO.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(vehicle), PageRequest.of(0, 1), 1));
         // Search the vehicle
         restVehicleMockMvc.perform(get("/api/_search/vehicles?query=id:" + vehicle.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
             .andExpect(jsonPath("$.[*].id").value(hasItem(vehicle.getId())))
             .andExpect(jsonPath("$.[*].type").value(hasItem(DEFAULT_TYPE.toString())))
             .andExpect(jsonPath("$.[*].make").value(hasItem(DEFAULT_MAKE)))
@@ -459,4 +481,19 @@ public class VehicleResourceIT {
         vehicle1.setId(null);
         assertThat(vehicle1).isNotEqualTo(vehicle2);
     }
+
+    @Test
+    public void dtoEqualsVerifier() throws Exception {
+        TestUtil.equalsVerifier(VehicleDTO.class);
+        VehicleDTO vehicleDTO1 = new VehicleDTO();
+        vehicleDTO1.setId("id1");
+        VehicleDTO vehicleDTO2 = new VehicleDTO();
+        assertThat(vehicleDTO1).isNotEqualTo(vehicleDTO2);
+        vehicleDTO2.setId(vehicleDTO1.getId());
+        assertThat(vehicleDTO1).isEqualTo(vehicleDTO2);
+        vehicleDTO2.setId("id2");
+        assertThat(vehicleDTO1).isNotEqualTo(vehicleDTO2);
+        vehicleDTO1.setId(null);
+        assertThat(vehicleDTO1).isNotEqualTo(vehicleDTO2);
+    }
 }